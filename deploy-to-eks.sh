@@ -28,6 +28,14 @@ if ! kubectl get secret jwt-secret -n ruberoo &> /dev/null; then
         -n ruberoo
 fi
 
+# Create the secret the tracking-service replicas share if it doesn't exist
+if ! kubectl get secret tracking-shard-secret -n ruberoo &> /dev/null; then
+    echo "🔑 Creating tracking shard secret..."
+    kubectl create secret generic tracking-shard-secret \
+        --from-literal=secret="$(openssl rand -hex 32)" \
+        -n ruberoo
+fi
+
 # Apply all services
 echo "📋 Deploying services..."
 kubectl apply -f k8s/namespace.yaml
@@ -1,10 +1,12 @@
 package com.ruberoo.api_gateway;
 
+import com.ruberoo.api_gateway.jwt.JwtValidationFilter;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
 import reactor.core.publisher.Mono;
 // ServerWebExchange is included via the KeyResolver's signature.
 
@@ -24,4 +26,16 @@ public class ApiGatewayApplication {
         // It resolves the key using the client's host IP address.
         return exchange -> Mono.just(exchange.getRequest().getRemoteAddress().getAddress().getHostAddress());
     }
+
+    // Rate limit key used by RateLimitFilter: the verified JWT subject, or the client IP
+    // for unauthenticated requests (login, registration)
+    @Bean
+    @Primary
+    public KeyResolver userKeyResolver() {
+        KeyResolver ipKeyResolver = ipKeyResolver();
+        return exchange -> {
+            String user = exchange.getAttribute(JwtValidationFilter.AUTH_USER_ATTRIBUTE);
+            return user != null ? Mono.just("user:" + user) : ipKeyResolver.resolve(exchange).map(ip -> "ip:" + ip);
+        };
+    }
 }
@@ -0,0 +1,13 @@
+package com.ruberoo.api_gateway.cache;
+
+/**
+ * A cached 200 response.
+ *
+ * @param contentType Content-Type of the body, may be null
+ * @param etag Strong entity tag, quoted
+ * @param body Response body
+ * @param requestedAtMillis When the request that produced it was forwarded; writes to the
+ *                          same resource after that moment make the entry stale
+ */
+public record CachedResponse(String contentType, String etag, byte[] body, long requestedAtMillis) {
+}
@@ -0,0 +1,134 @@
+package com.ruberoo.api_gateway.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * In-process {@link ResponseCacheStore}, bounded by the total size of the cached bodies
+ * ({@code ruberoo.gateway.response-cache.max-memory}). When full, Caffeine evicts the
+ * least valuable entries (W-TinyLFU by body size) in amortized constant time.
+ */
+@Component
+@ConditionalOnProperty(name = "ruberoo.gateway.response-cache.type", havingValue = "memory", matchIfMissing = true)
+public class MemoryResponseCacheStore implements ResponseCacheStore {
+
+    // Rough per-entry overhead on top of the body: key, headers, map node
+    private static final long ENTRY_OVERHEAD_BYTES = 256;
+
+    private final Cache<String, Entry> entries;
+    // Last write per resource, kept as long as entries of that resource can live
+    private final Cache<String, Write> writes;
+    private final long maxBytes;
+
+    private final Counter evictions;
+
+    public MemoryResponseCacheStore(MeterRegistry meterRegistry,
+                                    @Value("${ruberoo.gateway.response-cache.max-memory:64MB}") DataSize maxMemory) {
+        this.maxBytes = maxMemory.toBytes();
+
+        this.evictions = Counter.builder("gateway.response.cache.evictions")
+                .description("Entries removed because they expired or the cache was full")
+                .register(meterRegistry);
+        // Maintenance runs on the calling thread, so the budget holds as soon as put completes
+        this.entries = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, Entry entry) -> (int) Math.min(Integer.MAX_VALUE, entry.size()))
+                .expireAfter(expiringAt(Entry::expiresAtMillis))
+                .evictionListener((key, entry, cause) -> evictions.increment())
+                .executor(Runnable::run)
+                .build();
+        this.writes = Caffeine.newBuilder()
+                .expireAfter(expiringAt(Write::expiresAtMillis))
+                .executor(Runnable::run)
+                .build();
+        Gauge.builder("gateway.response.cache.size", entries, Cache::estimatedSize)
+                .description("Number of responses currently cached")
+                .register(meterRegistry);
+        Gauge.builder("gateway.response.cache.memory", entries,
+                        cache -> cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0)).orElse(0L))
+                .description("Approximate size of the cached responses")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<CachedResponse> get(String key, String resource) {
+        Entry entry = entries.getIfPresent(key);
+        if (entry == null) {
+            return Mono.empty();
+        }
+        if (isStale(entry.response(), resource)) {
+            if (entries.asMap().remove(key, entry)) {
+                evictions.increment();
+            }
+            return Mono.empty();
+        }
+        return Mono.just(entry.response());
+    }
+
+    @Override
+    public Mono<Void> put(String key, String resource, CachedResponse response, Duration ttl) {
+        return Mono.fromRunnable(() -> {
+            if (isStale(response, resource)) {
+                return;
+            }
+            long size = response.body().length + ENTRY_OVERHEAD_BYTES;
+            if (size > maxBytes) {
+                return;
+            }
+            entries.put(key, new Entry(response, System.currentTimeMillis() + ttl.toMillis(), size));
+        });
+    }
+
+    @Override
+    public Mono<Void> invalidate(String resource, Duration ttl) {
+        return Mono.fromRunnable(() -> {
+            long now = System.currentTimeMillis();
+            writes.put(resource, new Write(now, now + ttl.toMillis()));
+        });
+    }
+
+    private boolean isStale(CachedResponse response, String resource) {
+        Write write = writes.getIfPresent(resource);
+        return write != null && response.requestedAtMillis() <= write.atMillis();
+    }
+
+    // Each value lives until the wall-clock time it carries
+    private static <V> Expiry<String, V> expiringAt(ToLongFunction<V> expiresAtMillis) {
+        return new Expiry<>() {
+            @Override
+            public long expireAfterCreate(String key, V value, long currentTime) {
+                return TimeUnit.MILLISECONDS.toNanos(Math.max(0, expiresAtMillis.applyAsLong(value) - System.currentTimeMillis()));
+            }
+
+            @Override
+            public long expireAfterUpdate(String key, V value, long currentTime, long currentDuration) {
+                return expireAfterCreate(key, value, currentTime);
+            }
+
+            @Override
+            public long expireAfterRead(String key, V value, long currentTime, long currentDuration) {
+                return currentDuration;
+            }
+        };
+    }
+
+    private record Entry(CachedResponse response, long expiresAtMillis, long size) {
+    }
+
+    private record Write(long atMillis, long expiresAtMillis) {
+    }
+}
@@ -0,0 +1,94 @@
+package com.ruberoo.api_gateway.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Redis-backed {@link ResponseCacheStore} shared by all gateway replicas.
+ *
+ * Each response is a string key holding JSON (body base64-encoded), written with
+ * SET ... PX. The last write to a resource is a separate key holding its timestamp;
+ * a lookup reads both with one MGET. Replica clocks should be roughly in sync.
+ */
+@Component
+@ConditionalOnProperty(name = "ruberoo.gateway.response-cache.type", havingValue = "redis")
+public class RedisResponseCacheStore implements ResponseCacheStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisResponseCacheStore.class);
+
+    private static final String ENTRY_PREFIX = "gateway:response:";
+    private static final String WRITE_PREFIX = "gateway:response-write:";
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    public RedisResponseCacheStore(ReactiveStringRedisTemplate redisTemplate, ObjectMapper objectMapper) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public Mono<CachedResponse> get(String key, String resource) {
+        return redisTemplate.opsForValue().multiGet(List.of(ENTRY_PREFIX + key, WRITE_PREFIX + resource))
+                .flatMap(values -> {
+                    String json = values.get(0);
+                    if (json == null) {
+                        return Mono.empty();
+                    }
+                    CachedResponse response = read(json);
+                    String lastWrite = values.get(1);
+                    if (response == null || (lastWrite != null && response.requestedAtMillis() <= Long.parseLong(lastWrite))) {
+                        return Mono.empty();
+                    }
+                    return Mono.just(response);
+                })
+                .onErrorResume(e -> {
+                    logger.warn("Failed to read cached response {}: {}", key, e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    @Override
+    public Mono<Void> put(String key, String resource, CachedResponse response, Duration ttl) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            return Mono.empty();
+        }
+        return redisTemplate.opsForValue().set(ENTRY_PREFIX + key, json, ttl)
+                .then()
+                .onErrorResume(e -> {
+                    logger.warn("Failed to cache response {}: {}", key, e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    @Override
+    public Mono<Void> invalidate(String resource, Duration ttl) {
+        return redisTemplate.opsForValue().set(WRITE_PREFIX + resource, String.valueOf(System.currentTimeMillis()), ttl)
+                .then()
+                .onErrorResume(e -> {
+                    // Stale responses can then be served until their ttl runs out
+                    logger.warn("Failed to invalidate cached responses of {}: {}", resource, e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private CachedResponse read(String json) {
+        try {
+            return objectMapper.readValue(json, CachedResponse.class);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.ruberoo.api_gateway.cache;
+
+import com.ruberoo.api_gateway.jwt.JwtValidationFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Caches successful GET responses of a route at the gateway.
+ *
+ * Responses are cached for the route's ttl, keyed by route, path, query, Accept header
+ * and authenticated user, so one user is never served another user's response. Every
+ * response on a cached path gets an ETag, and a matching If-None-Match is answered with
+ * 304 without a body. Any other method (PUT, DELETE, ...) on a path invalidates the
+ * cached responses of that path for all users, both before it is forwarded and after
+ * it completes.
+ *
+ * Runs just before {@link NettyWriteResponseFilter} so the backend body can be captured;
+ * authentication filters must run before it.
+ */
+@Component
+public class ResponseCacheFilter extends AbstractGatewayFilterFactory<ResponseCacheFilter.Config> {
+
+    public static final int ORDER = NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1;
+
+    private static final String ANONYMOUS = "-";
+
+    private final ResponseCacheStore store;
+    private final boolean enabled;
+    private final long maxEntryBytes;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter notModified;
+
+    public ResponseCacheFilter(ResponseCacheStore store,
+                               MeterRegistry meterRegistry,
+                               @Value("${ruberoo.gateway.response-cache.enabled:true}") boolean enabled,
+                               @Value("${ruberoo.gateway.response-cache.max-entry-size:256KB}") DataSize maxEntrySize) {
+        super(Config.class);
+        this.store = store;
+        this.enabled = enabled;
+        this.maxEntryBytes = maxEntrySize.toBytes();
+
+        this.hits = Counter.builder("gateway.response.cache")
+                .tag("result", "hit")
+                .description("GET responses served from the gateway cache")
+                .register(meterRegistry);
+        this.misses = Counter.builder("gateway.response.cache")
+                .tag("result", "miss")
+                .description("Cacheable GET requests forwarded to the backend")
+                .register(meterRegistry);
+        this.notModified = Counter.builder("gateway.response.cache")
+                .tag("result", "not_modified")
+                .description("Requests answered with 304 because If-None-Match matched")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return new OrderedGatewayFilter((exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            if (!enabled || !config.matches(request.getPath().pathWithinApplication())) {
+                return chain.filter(exchange);
+            }
+
+            String resource = resource(exchange);
+            HttpMethod method = request.getMethod();
+            if (HttpMethod.HEAD.equals(method) || HttpMethod.OPTIONS.equals(method)) {
+                return chain.filter(exchange);
+            }
+            if (!HttpMethod.GET.equals(method)) {
+                return Mono.defer(() -> store.invalidate(resource, config.getTtl()))
+                        .then(chain.filter(exchange))
+                        .then(Mono.defer(() -> store.invalidate(resource, config.getTtl())));
+            }
+
+            String key = key(exchange);
+            long requestedAt = System.currentTimeMillis();
+            // Optional so that serving a hit (an empty Mono<Void>) is not mistaken for a miss
+            return store.get(key, resource)
+                    .map(Optional::of)
+                    .defaultIfEmpty(Optional.empty())
+                    .flatMap(cached -> {
+                        if (cached.isPresent()) {
+                            return serve(exchange, cached.get());
+                        }
+                        misses.increment();
+                        return forward(exchange, chain, config, key, resource, requestedAt);
+                    });
+        }, ORDER);
+    }
+
+    private Mono<Void> serve(ServerWebExchange exchange, CachedResponse cached) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.getHeaders().setETag(cached.etag());
+        response.getHeaders().set("X-Cache", "HIT");
+        if (matchesIfNoneMatch(exchange.getRequest(), cached.etag())) {
+            notModified.increment();
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            return response.setComplete();
+        }
+        hits.increment();
+        response.setStatusCode(HttpStatus.OK);
+        if (cached.contentType() != null) {
+            response.getHeaders().set(HttpHeaders.CONTENT_TYPE, cached.contentType());
+        }
+        response.getHeaders().setContentLength(cached.body().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.body())));
+    }
+
+    private Mono<Void> forward(ServerWebExchange exchange, GatewayFilterChain chain, Config config,
+                               String key, String resource, long requestedAt) {
+        ServerHttpResponseDecorator capturing = new ServerHttpResponseDecorator(exchange.getResponse()) {
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                if (!isCacheable(this)) {
+                    return super.writeWith(body);
+                }
+                return DataBufferUtils.join(Flux.from(body)).flatMap(joined -> {
+                    byte[] bytes = new byte[joined.readableByteCount()];
+                    joined.read(bytes);
+                    DataBufferUtils.release(joined);
+
+                    HttpHeaders headers = getHeaders();
+                    String etag = headers.getETag() != null ? headers.getETag() : etagOf(bytes);
+                    headers.setETag(etag);
+                    headers.set("X-Cache", "MISS");
+                    if (bytes.length <= maxEntryBytes) {
+                        String contentType = headers.getContentType() == null ? null : headers.getContentType().toString();
+                        // Stored in the background, the client does not wait for the cache
+                        store.put(key, resource, new CachedResponse(contentType, etag, bytes, requestedAt), config.getTtl())
+                                .subscribe();
+                    }
+
+                    if (matchesIfNoneMatch(exchange.getRequest(), etag)) {
+                        notModified.increment();
+                        setStatusCode(HttpStatus.NOT_MODIFIED);
+                        headers.remove(HttpHeaders.CONTENT_LENGTH);
+                        headers.remove(HttpHeaders.TRANSFER_ENCODING);
+                        return setComplete();
+                    }
+                    return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+                });
+            }
+        };
+        return chain.filter(exchange.mutate().response(capturing).build());
+    }
+
+    private static boolean isCacheable(ServerHttpResponse response) {
+        if (!HttpStatus.OK.equals(response.getStatusCode())) {
+            return false;
+        }
+        HttpHeaders headers = response.getHeaders();
+        String cacheControl = headers.getCacheControl();
+        return headers.getFirst(HttpHeaders.SET_COOKIE) == null
+                && (cacheControl == null || !cacheControl.contains("no-store"));
+    }
+
+    private static boolean matchesIfNoneMatch(ServerHttpRequest request, String etag) {
+        List<String> ifNoneMatch = request.getHeaders().getIfNoneMatch();
+        String opaque = stripWeak(etag);
+        for (String candidate : ifNoneMatch) {
+            if ("*".equals(candidate) || stripWeak(candidate).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeak(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    // First 128 bits of the SHA-256 of the body
+    private static String etagOf(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 16)) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String routeId(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        return route == null ? "" : route.getId();
+    }
+
+    private static String resource(ServerWebExchange exchange) {
+        return routeId(exchange) + ":" + exchange.getRequest().getPath().value();
+    }
+
+    // Verified subject set by the JWT filter, never a client-supplied header
+    private static String key(ServerWebExchange exchange) {
+        ServerHttpRequest request = exchange.getRequest();
+        String user = exchange.getAttributeOrDefault(JwtValidationFilter.AUTH_USER_ATTRIBUTE, ANONYMOUS);
+        String accept = request.getHeaders().getFirst(HttpHeaders.ACCEPT);
+        String query = request.getURI().getRawQuery();
+        return routeId(exchange) + ":" + request.getPath().value() + (query == null ? "" : "?" + query)
+                + "|" + (accept == null ? "" : accept) + "|" + user;
+    }
+
+    public static class Config {
+
+        private Duration ttl = Duration.ofSeconds(30);
+        private List<PathPattern> paths = List.of();
+
+        public Config() {
+        }
+
+        /**
+         * @param ttl How long responses of this route are cached
+         * @param paths Path patterns whose GET responses are cached, e.g. /api/users/{id}
+         */
+        public Config(Duration ttl, String... paths) {
+            setTtl(ttl);
+            setPaths(List.of(paths));
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        public void setPaths(List<String> paths) {
+            this.paths = paths.stream().map(PathPatternParser.defaultInstance::parse).toList();
+        }
+
+        boolean matches(PathContainer path) {
+            for (PathPattern pattern : paths) {
+                if (pattern.matches(path)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
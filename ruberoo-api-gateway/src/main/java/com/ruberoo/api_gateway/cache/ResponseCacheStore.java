@@ -0,0 +1,33 @@
+package com.ruberoo.api_gateway.cache;
+
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Storage for {@link ResponseCacheFilter}.
+ *
+ * Implementations are selected with {@code ruberoo.gateway.response-cache.type}:
+ * - memory - in-process, size-bounded; writes only invalidate this gateway instance
+ * - redis  - shared by every gateway replica
+ *
+ * Entries are keyed by route, path, query, Accept header and user. Writes are tracked
+ * per resource (route and path): an entry is only served if its request was forwarded
+ * after the last write to its resource. Store failures behave as misses.
+ */
+public interface ResponseCacheStore {
+
+    /**
+     * @return The cached response, or empty if absent, expired or invalidated
+     */
+    Mono<CachedResponse> get(String key, String resource);
+
+    Mono<Void> put(String key, String resource, CachedResponse response, Duration ttl);
+
+    /**
+     * Invalidate every cached response of the resource, for all users.
+     *
+     * @param ttl Longest time an entry of this resource can be cached
+     */
+    Mono<Void> invalidate(String resource, Duration ttl);
+}
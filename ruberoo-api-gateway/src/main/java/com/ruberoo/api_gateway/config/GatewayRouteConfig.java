@@ -1,38 +1,138 @@
 package com.ruberoo.api_gateway.config;
 
+import com.ruberoo.api_gateway.cache.ResponseCacheFilter;
+import com.ruberoo.api_gateway.jwt.AuthPolicy;
 import com.ruberoo.api_gateway.jwt.JwtValidationFilter;
+import com.ruberoo.api_gateway.ratelimit.RateLimitFilter;
+import com.ruberoo.api_gateway.resilience.RouteResilience;
+import com.ruberoo.api_gateway.websocket.RideAffinityFilter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.gateway.route.RouteLocator;
 import org.springframework.cloud.gateway.route.builder.RouteLocatorBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
 
 @Configuration
 public class GatewayRouteConfig {
 
     @Autowired
-    private JwtValidationFilter jwtValidationFilter;
+    private ResponseCacheFilter responseCacheFilter;
+
+    @Autowired
+    private RateLimitFilter rateLimitFilter;
+
+    @Autowired
+    private RideAffinityFilter rideAffinityFilter;
+
+    // Timeouts, bulkhead, circuit breaker and retries per route (ruberoo.gateway.resilience.{name}.*)
+    @Autowired
+    private RouteResilience routeResilience;
+
+    // Who may call each route (public, authenticated or roles:ROLE[,ROLE...]), enforced by the
+    // global JwtValidationFilter; the public paths in ruberoo.jwt.public-paths are always open
+    @Value("${ruberoo.gateway.auth-policy.users:authenticated}")
+    private String usersAuthPolicy;
+
+    @Value("${ruberoo.gateway.auth-policy.rides:authenticated}")
+    private String ridesAuthPolicy;
+
+    @Value("${ruberoo.gateway.auth-policy.tracking:authenticated}")
+    private String trackingAuthPolicy;
+
+    // Gateway response cache ttl per route
+    @Value("${ruberoo.gateway.response-cache.users.ttl:60s}")
+    private Duration usersCacheTtl;
+
+    @Value("${ruberoo.gateway.response-cache.rides.ttl:30s}")
+    private Duration ridesCacheTtl;
+
+    @Value("${ruberoo.gateway.response-cache.tracking.ttl:2s}")
+    private Duration trackingCacheTtl;
+
+    // Rate limit per client and route: sustained requests/second and burst size
+    @Value("${ruberoo.gateway.rate-limit.users.replenish-rate:10}")
+    private double usersReplenishRate;
+
+    @Value("${ruberoo.gateway.rate-limit.users.burst-capacity:20}")
+    private int usersBurstCapacity;
+
+    @Value("${ruberoo.gateway.rate-limit.rides.replenish-rate:20}")
+    private double ridesReplenishRate;
+
+    @Value("${ruberoo.gateway.rate-limit.rides.burst-capacity:40}")
+    private int ridesBurstCapacity;
+
+    @Value("${ruberoo.gateway.rate-limit.tracking.replenish-rate:50}")
+    private double trackingReplenishRate;
+
+    @Value("${ruberoo.gateway.rate-limit.tracking.burst-capacity:100}")
+    private int trackingBurstCapacity;
 
     @Bean
     public RouteLocator customRouteLocator(RouteLocatorBuilder builder) {
         return builder.routes()
+                // Endpoints the services only call on each other (e.g. /internal/tracking/** between the
+                // tracking-service replicas) are never exposed: answered 404 here, ahead of the discovery
+                // locator routes (/tracking-service/internal/...) that would otherwise forward them
+                .route("internal-endpoints-deny-route", r -> r
+                        .order(Ordered.HIGHEST_PRECEDENCE)
+                        .path("/internal/**", "/*/internal/**")
+                        .filters(f -> f.filter((exchange, chain) -> {
+                            exchange.getResponse().setStatusCode(HttpStatus.NOT_FOUND);
+                            return exchange.getResponse().setComplete();
+                        }))
+                        .metadata(AuthPolicy.METADATA_KEY, AuthPolicy.PUBLIC)
+                        .uri("no://op"))
+
                 // User Service Routes - routes /api/users/** to user-service
-                // JWT filter will skip validation for public paths (/api/users/auth/** and POST /api/users)
+                // JWT validation is skipped for public paths (/api/users/auth/** and POST /api/users)
                 .route("user-service-route", r -> r
                         .path("/api/users/**")
-                        .filters(f -> f.filter(jwtValidationFilter.apply(new JwtValidationFilter.Config())))
+                        .filters(f -> routeResilience.apply(f
+                                .filter(rateLimitFilter.apply(new RateLimitFilter.Config(usersReplenishRate, usersBurstCapacity)))
+                                .filter(responseCacheFilter.apply(new ResponseCacheFilter.Config(usersCacheTtl, "/api/users/{id}"))), "users"))
+                        .metadata(routeResilience.timeouts("users"))
+                        .metadata(AuthPolicy.METADATA_KEY, AuthPolicy.parse(usersAuthPolicy))
                         .uri("lb://USER-SERVICE"))
                 
-                // Ride Management Service Routes
+                // Ride Management Service Routes (GET /api/rides/{id} is cached at the gateway)
                 .route("ride-management-service-route", r -> r
                         .path("/api/rides/**")
-                        .filters(f -> f.filter(jwtValidationFilter.apply(new JwtValidationFilter.Config())))
+                        .filters(f -> routeResilience.apply(f
+                                .filter(rateLimitFilter.apply(new RateLimitFilter.Config(ridesReplenishRate, ridesBurstCapacity)))
+                                .filter(responseCacheFilter.apply(new ResponseCacheFilter.Config(ridesCacheTtl, "/api/rides/{id}"))), "rides"))
+                        .metadata(routeResilience.timeouts("rides"))
+                        .metadata(AuthPolicy.METADATA_KEY, AuthPolicy.parse(ridesAuthPolicy))
                         .uri("lb://RIDE-MANAGEMENT-SERVICE"))
                 
-                // Tracking Service Routes
+                // Tracking Service Routes (last known location is cached briefly, drivers update it over WebSocket)
                 .route("tracking-service-route", r -> r
                         .path("/api/tracking/**")
-                        .filters(f -> f.filter(jwtValidationFilter.apply(new JwtValidationFilter.Config())))
+                        .filters(f -> routeResilience.apply(f
+                                .filter(rateLimitFilter.apply(new RateLimitFilter.Config(trackingReplenishRate, trackingBurstCapacity)))
+                                .filter(responseCacheFilter.apply(new ResponseCacheFilter.Config(trackingCacheTtl, "/api/tracking/rides/{id}/location"))), "tracking"))
+                        .metadata(routeResilience.timeouts("tracking"))
+                        .metadata(AuthPolicy.METADATA_KEY, AuthPolicy.parse(trackingAuthPolicy))
+                        .uri("lb://TRACKING-SERVICE"))
+
+                // Tracking WebSocket/SockJS endpoints, every connection of a ride on the same replica so
+                // drivers and riders share its STOMP broker. /ws/rides/{rideId}/tracking[-binary] carries
+                // the ride id in the path, the plain endpoints take it from X-Ride-Id or ?rideId=.
+                // The JWT is checked once on the handshake (browsers pass it as ?access_token=); no
+                // timeouts, retries or circuit breaker, a connection lives as long as the ride.
+                .route("tracking-websocket-route", r -> r
+                        .path("/ws/rides/{rideId}/tracking/**", "/ws/rides/{rideId}/tracking-binary/**",
+                                "/ws/tracking/**", "/ws/tracking-binary/**")
+                        .filters(f -> f
+                                .rewritePath("/ws/rides/(?<rideId>[^/]+)/(?<endpoint>.*)", "/ws/${endpoint}")
+                                .filter(rideAffinityFilter.apply(new RideAffinityFilter.Config("/ws/tracking"))))
+                        .metadata(AuthPolicy.METADATA_KEY, AuthPolicy.parse(trackingAuthPolicy))
+                        .metadata(JwtValidationFilter.TOKEN_PARAM_METADATA_KEY, "access_token")
                         .uri("lb://TRACKING-SERVICE"))
                 
                 .build();
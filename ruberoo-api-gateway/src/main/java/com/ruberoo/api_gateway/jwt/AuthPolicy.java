@@ -0,0 +1,66 @@
+package com.ruberoo.api_gateway.jwt;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Who may call a route: anyone ("public"), any holder of a valid JWT ("authenticated"),
+ * or a valid JWT with at least one of the listed roles ("roles:ADMIN,DRIVER").
+ *
+ * Set per route with the {@link #METADATA_KEY} route metadata, either as a policy or as
+ * its text form. Routes from the discovery locator carry their service instance's
+ * metadata, so a service can declare its policy in eureka.instance.metadata-map.
+ */
+public record AuthPolicy(boolean tokenRequired, Set<String> roles) {
+
+    public static final String METADATA_KEY = "auth-policy";
+
+    public static final AuthPolicy PUBLIC = new AuthPolicy(false, Set.of());
+    public static final AuthPolicy AUTHENTICATED = new AuthPolicy(true, Set.of());
+
+    private static final String ROLES_PREFIX = "roles:";
+
+    public static AuthPolicy roles(String... roles) {
+        if (roles.length == 0) {
+            throw new IllegalArgumentException("A role-restricted policy needs at least one role");
+        }
+        return new AuthPolicy(true, Set.of(roles));
+    }
+
+    /**
+     * @param text "public", "authenticated" or "roles:ROLE[,ROLE...]"
+     * @throws IllegalArgumentException If the text is none of these
+     */
+    public static AuthPolicy parse(String text) {
+        String policy = text.trim();
+        if (policy.equalsIgnoreCase("public")) {
+            return PUBLIC;
+        }
+        if (policy.equalsIgnoreCase("authenticated")) {
+            return AUTHENTICATED;
+        }
+        if (policy.toLowerCase(Locale.ROOT).startsWith(ROLES_PREFIX)) {
+            return roles(Arrays.stream(policy.substring(ROLES_PREFIX.length()).split(","))
+                    .map(String::trim)
+                    .filter(role -> !role.isEmpty())
+                    .collect(Collectors.toSet())
+                    .toArray(String[]::new));
+        }
+        throw new IllegalArgumentException("Unknown auth policy '" + text
+                + "', expected public, authenticated or roles:ROLE[,ROLE...]");
+    }
+
+    public boolean roleRestricted() {
+        return !roles.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        if (!tokenRequired) {
+            return "public";
+        }
+        return roleRestricted() ? ROLES_PREFIX + String.join(",", roles) : "authenticated";
+    }
+}
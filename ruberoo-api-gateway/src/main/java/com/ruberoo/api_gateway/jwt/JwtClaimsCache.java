@@ -0,0 +1,216 @@
+package com.ruberoo.api_gateway.jwt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded cache of already-verified JWT claims, keyed by the SHA-256 hash of the token.
+ *
+ * A token that was verified once and has not expired yet is served from here without
+ * running the HMAC check again. Entries never outlive the token's own "exp" claim and
+ * are additionally capped by {@code ruberoo.jwt.cache.max-ttl}. Entries verified with a
+ * signing key that has since been rotated are treated as misses. When full, the least
+ * valuable entries are evicted in amortized constant time (Caffeine's W-TinyLFU).
+ */
+@Component
+public class JwtClaimsCache {
+
+    private final JwtTokenProvider jwtTokenProvider;
+    private final Cache<TokenHash, CachedClaims> entries;
+    private final boolean enabled;
+    private final long maxTtlMillis;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public JwtClaimsCache(JwtTokenProvider jwtTokenProvider,
+                          MeterRegistry meterRegistry,
+                          @Value("${ruberoo.jwt.cache.enabled:true}") boolean enabled,
+                          @Value("${ruberoo.jwt.cache.max-entries:10000}") int maxEntries,
+                          @Value("${ruberoo.jwt.cache.max-ttl:5m}") Duration maxTtl) {
+        this.jwtTokenProvider = jwtTokenProvider;
+        this.enabled = enabled;
+        this.maxTtlMillis = maxTtl.toMillis();
+
+        this.hits = Counter.builder("gateway.jwt.claims.cache")
+                .tag("result", "hit")
+                .description("Tokens served from the verified-claims cache")
+                .register(meterRegistry);
+        this.misses = Counter.builder("gateway.jwt.claims.cache")
+                .tag("result", "miss")
+                .description("Tokens that required signature verification")
+                .register(meterRegistry);
+        this.evictions = Counter.builder("gateway.jwt.claims.cache.evictions")
+                .description("Entries removed because they expired or the cache was full")
+                .register(meterRegistry);
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfter(new UntilTokenExpiry())
+                .evictionListener((hash, claims, cause) -> evictions.increment())
+                .build();
+        Gauge.builder("gateway.jwt.claims.cache.size", entries, Cache::estimatedSize)
+                .description("Number of verified tokens currently cached")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the verified claims for the token, verifying the signature only on a cache miss.
+     *
+     * @param token compact JWS string
+     * @return the claims, or null if the token is invalid or expired
+     */
+    public Claims getClaims(String token) {
+        return getClaims(token, 0);
+    }
+
+    /**
+     * Same as {@link #getClaims(String)} for a token embedded in a longer string, such as
+     * an Authorization header value. The token is only copied out on a cache miss.
+     *
+     * @param text string ending with the compact JWS
+     * @param tokenStart index of the first character of the token in {@code text}
+     * @return the claims, or null if the token is invalid or expired
+     */
+    public Claims getClaims(String text, int tokenStart) {
+        if (!enabled) {
+            return jwtTokenProvider.parseClaims(text.substring(tokenStart));
+        }
+
+        TokenHash hash = TokenHash.of(text, tokenStart);
+        if (hash == null) {
+            // A compact JWS is plain ASCII
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        int generation = jwtTokenProvider.getKeyGeneration();
+
+        CachedClaims cached = entries.getIfPresent(hash);
+        if (cached != null) {
+            if (cached.expiresAtMillis() > now && cached.keyGeneration() == generation) {
+                hits.increment();
+                return cached.claims();
+            }
+            if (entries.asMap().remove(hash, cached)) {
+                evictions.increment();
+            }
+        }
+
+        misses.increment();
+        Claims claims = jwtTokenProvider.parseClaims(text.substring(tokenStart));
+        if (claims != null) {
+            put(hash, claims, generation, now);
+        }
+        return claims;
+    }
+
+    /**
+     * Drops every cached token, e.g. after the signing secret changed.
+     */
+    public void clear() {
+        entries.invalidateAll();
+    }
+
+    private void put(TokenHash hash, Claims claims, int generation, long now) {
+        long expiresAt = now + maxTtlMillis;
+        Date expiration = claims.getExpiration();
+        if (expiration != null) {
+            expiresAt = Math.min(expiresAt, expiration.getTime());
+        }
+        if (expiresAt <= now) {
+            return;
+        }
+        entries.put(hash, new CachedClaims(claims, generation, expiresAt));
+    }
+
+    private record CachedClaims(Claims claims, int keyGeneration, long expiresAtMillis) {
+    }
+
+    // Each entry lives until its own expiry, fixed when it is cached
+    private static final class UntilTokenExpiry implements Expiry<TokenHash, CachedClaims> {
+
+        @Override
+        public long expireAfterCreate(TokenHash hash, CachedClaims claims, long currentTime) {
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, claims.expiresAtMillis() - System.currentTimeMillis()));
+        }
+
+        @Override
+        public long expireAfterUpdate(TokenHash hash, CachedClaims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(hash, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(TokenHash hash, CachedClaims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    // 256-bit digest held as four longs so the map key does not retain the raw token
+    private record TokenHash(long h0, long h1, long h2, long h3) {
+
+        private static final VarHandle LONGS = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+        // Digest and buffers reused per thread, hashing does not copy the token
+        private static final ThreadLocal<Hasher> HASHERS = ThreadLocal.withInitial(Hasher::new);
+
+        // null if the token has a non-ASCII character
+        static TokenHash of(String text, int from) {
+            Hasher hasher = HASHERS.get();
+            MessageDigest digest = hasher.digest;
+            byte[] chunk = hasher.chunk;
+            int length = 0;
+            for (int i = from; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c > 0x7F) {
+                    digest.reset();
+                    return null;
+                }
+                chunk[length++] = (byte) c;
+                if (length == chunk.length) {
+                    digest.update(chunk, 0, length);
+                    length = 0;
+                }
+            }
+            digest.update(chunk, 0, length);
+            byte[] out = hasher.out;
+            try {
+                digest.digest(out, 0, out.length);
+            } catch (DigestException e) {
+                throw new IllegalStateException("SHA-256 digest failed", e);
+            }
+            return new TokenHash((long) LONGS.get(out, 0), (long) LONGS.get(out, 8),
+                    (long) LONGS.get(out, 16), (long) LONGS.get(out, 24));
+        }
+    }
+
+    private static final class Hasher {
+
+        final MessageDigest digest;
+        final byte[] chunk = new byte[256];
+        final byte[] out = new byte[32];
+
+        Hasher() {
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 not available", e);
+            }
+        }
+    }
+}
@@ -1,46 +1,99 @@
 package com.ruberoo.api_gateway.jwt;
 
 import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.Jws;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
-import org.springframework.beans.factory.annotation.Value;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Component;
 
-import java.security.Key;
-
 @Component
 public class JwtTokenProvider {
 
-    // This key is loaded from the Config Server via the @Value annotation
-    @Value("${ruberoo.jwt.secret-key}")
-    private String secretKey;
+    private static final Logger logger = LoggerFactory.getLogger(JwtTokenProvider.class);
+
+    static final String SECRET_KEY_PROPERTY = "ruberoo.jwt.secret-key";
+
+    private final Environment env;
+
+    // Immutable and thread-safe; built on first use and rebuilt only when the secret is rotated
+    private volatile JwtParser parser;
+    private volatile int keyGeneration;
+
+    public JwtTokenProvider(Environment env) {
+        this.env = env;
+        // The key is loaded from the Config Server; fail at startup if it is missing altogether
+        env.getRequiredProperty(SECRET_KEY_PROPERTY);
+    }
 
     // JWT Subject is typically the username or user ID
     public String getUsernameFromToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        Claims claims = parseClaims(token);
+        return claims == null ? null : claims.getSubject();
     }
 
     // Validation logic
     public boolean validateToken(String token) {
+        return parseClaims(token) != null;
+    }
+
+    /**
+     * Verifies the signature and expiry of the token in a single pass.
+     *
+     * @param token compact JWS string
+     * @return the verified claims, or null if the token is invalid or expired
+     */
+    public Claims parseClaims(String token) {
         try {
-            Jwts.parserBuilder().setSigningKey(key()).build().parseClaimsJws(token);
-            return true;
+            return parser().parseClaimsJws(token).getBody();
         } catch (JwtException | IllegalArgumentException e) {
             // In a real application, you would log the specific validation failure here
-            return false;
+            return null;
         }
     }
 
-    private Key key() {
-        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey));
+    /**
+     * Incremented every time the signing key is rebuilt, so callers caching
+     * verification results can tell they were produced with an older secret.
+     */
+    public int getKeyGeneration() {
+        return keyGeneration;
+    }
+
+    /**
+     * Rebuilds the parser when the Config Server pushes a new secret (POST /actuator/refresh).
+     */
+    @EventListener
+    public void onEnvironmentChange(EnvironmentChangeEvent event) {
+        if (event.getKeys().contains(SECRET_KEY_PROPERTY) || event.getKeys().contains("RUBEROO_JWT_SECRET_KEY")) {
+            synchronized (this) {
+                parser = null;
+                keyGeneration++;
+            }
+            logger.info("JWT secret rotated, signing key will be rebuilt (generation {})", keyGeneration);
+        }
     }
-}
 
+    private JwtParser parser() {
+        JwtParser current = parser;
+        if (current == null) {
+            synchronized (this) {
+                current = parser;
+                if (current == null) {
+                    String secretKey = env.getRequiredProperty(SECRET_KEY_PROPERTY);
+                    current = Jwts.parserBuilder()
+                            .setSigningKey(Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey)))
+                            .build();
+                    parser = current;
+                }
+            }
+        }
+        return current;
+    }
+}
@@ -1,98 +1,198 @@
 package com.ruberoo.api_gateway.jwt;
 
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cloud.gateway.filter.GatewayFilter;
-import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import io.jsonwebtoken.Claims;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
+import java.util.Collection;
 import java.util.List;
-
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Authentication for every gateway route, discovery locator routes included, as a single
+ * global filter. What a route requires is its {@link AuthPolicy} route metadata, or
+ * ruberoo.jwt.default-policy when it has none; the public-path rules take precedence over both.
+ */
 @Component
-public class JwtValidationFilter extends AbstractGatewayFilterFactory<JwtValidationFilter.Config> implements GatewayFilter {
+public class JwtValidationFilter implements GlobalFilter, Ordered {
+
+    // Exchange attribute holding the verified subject, for filters that run after this one
+    public static final String AUTH_USER_ATTRIBUTE = "ruberoo.authUser";
+
+    // Request header carrying the verified subject to the downstream services
+    public static final String AUTH_USER_HEADER = "X-Auth-User";
+
+    // Exchange attribute holding the policy the request passed, so it is only checked once
+    public static final String AUTH_POLICY_ATTRIBUTE = "ruberoo.authPolicy";
 
-    @Autowired
-    private JwtTokenProvider jwtTokenProvider;
+    // Route metadata naming a query parameter that may carry the token instead of the
+    // Authorization header, for browser WebSocket/SockJS handshakes that cannot set headers
+    public static final String TOKEN_PARAM_METADATA_KEY = "auth-token-param";
+
+    // Requests that need no token unless ruberoo.jwt.public-paths is set: login and refresh,
+    // registration (every POST under /api/users, as before the rules existed), actuator and Eureka
+    public static final String DEFAULT_PUBLIC_PATHS = "/api/users/auth/**,POST /api/users/**,/actuator/**,/eureka/**";
 
     private static final String BEARER = "Bearer ";
 
-    public JwtValidationFilter() {
-        super(Config.class);
+    // Header names are case-insensitive; looking up the lower-case form lets a case-insensitive
+    // header map use the name as is instead of lower-casing a copy on every request
+    private static final String AUTH_USER_HEADER_KEY = AUTH_USER_HEADER.toLowerCase(Locale.ROOT);
+
+    private final JwtClaimsCache jwtClaimsCache;
+
+    // Requests that need no token, compiled once from ruberoo.jwt.public-paths
+    private final PathRules<AuthPolicy> publicPaths;
+
+    // For routes without auth-policy metadata
+    private final AuthPolicy defaultPolicy;
+
+    // Claim listing the roles of the subject, as a JSON array or a comma-separated string
+    private final String rolesClaim;
+
+    // Policies parsed from route metadata text, there is one entry per distinct text
+    private final Map<String, AuthPolicy> parsedPolicies = new ConcurrentHashMap<>();
+
+    public JwtValidationFilter(JwtClaimsCache jwtClaimsCache,
+                               @Value("${ruberoo.jwt.public-paths:" + DEFAULT_PUBLIC_PATHS + "}")
+                               List<String> publicPaths,
+                               @Value("${ruberoo.jwt.default-policy:authenticated}") String defaultPolicy,
+                               @Value("${ruberoo.jwt.roles-claim:roles}") String rolesClaim) {
+        this.jwtClaimsCache = jwtClaimsCache;
+        PathRules.Builder<AuthPolicy> rules = PathRules.builder();
+        publicPaths.forEach(rule -> rules.add(rule, AuthPolicy.PUBLIC));
+        this.publicPaths = rules.build();
+        this.defaultPolicy = AuthPolicy.parse(defaultPolicy);
+        this.rolesClaim = rolesClaim;
     }
 
     @Override
-    public Mono<Void> filter(ServerWebExchange exchange, org.springframework.cloud.gateway.filter.GatewayFilterChain chain) {
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
         ServerHttpRequest request = exchange.getRequest();
-        String path = request.getURI().getPath();
+        AuthPolicy policy = publicPaths.match(request.getMethod(), request.getURI().getPath());
+        if (policy == null) {
+            policy = routePolicy(exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR));
+        }
 
-        // Skip JWT validation for public endpoints
-        if (isPublicPath(path, request.getMethod().toString())) {
+        // Skip JWT validation for public endpoints, but never pass on a client-supplied identity.
+        // Nothing is recorded on the exchange: running this again costs no more than skipping it
+        if (!policy.tokenRequired()) {
+            if (request.getHeaders().containsKey(AUTH_USER_HEADER_KEY)) {
+                return chain.filter(exchange.mutate()
+                        .request(builder -> builder.headers(headers -> headers.remove(AUTH_USER_HEADER)))
+                        .build());
+            }
             return chain.filter(exchange);
         }
 
-        // 1. Check for Authorization header
-        List<String> authHeaders = request.getHeaders().get("Authorization");
-        if (authHeaders == null || authHeaders.isEmpty()) {
-            return this.onError(exchange, "Authorization header is missing", HttpStatus.UNAUTHORIZED);
+        // Already let through under this policy, e.g. when a forward: route sends the exchange
+        // through the gateway again
+        if (policy.equals(exchange.getAttribute(AUTH_POLICY_ATTRIBUTE))) {
+            return chain.filter(exchange);
         }
 
-        String token = authHeaders.get(0).replace(BEARER, "");
+        // 1. Check for Authorization header, or the token parameter of a WebSocket route
+        String authorization = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        int tokenStart;
+        if (authorization != null) {
+            tokenStart = tokenStart(authorization);
+        } else {
+            authorization = queryToken(exchange);
+            tokenStart = 0;
+        }
+        if (authorization == null) {
+            return this.onError(exchange, "Authorization header is missing", HttpStatus.UNAUTHORIZED);
+        }
 
-        // 2. Validate token
-        if (!jwtTokenProvider.validateToken(token)) {
+        // 2. Validate token (signature is only checked once per token, see JwtClaimsCache);
+        // the token is looked up in place, without copying it out of the header
+        Claims claims = jwtClaimsCache.getClaims(authorization, tokenStart);
+        if (claims == null) {
             return this.onError(exchange, "Invalid or expired JWT token", HttpStatus.UNAUTHORIZED);
         }
+        if (policy.roleRestricted() && !hasAnyRole(claims, policy)) {
+            return this.onError(exchange, "Missing role for this route", HttpStatus.FORBIDDEN);
+        }
 
         // 3. Add user info to request header for downstream services
         // This is crucial: we pass the validated user identity (username/ID)
         // to the microservice so it knows who is making the request.
-        String username = jwtTokenProvider.getUsernameFromToken(token);
-
-        exchange.getRequest().mutate()
-                .header("X-Auth-User", username)
-                .build();
-
-        // 4. Continue the filter chain
-        return chain.filter(exchange);
+        String username = claims.getSubject();
+        exchange.getAttributes().put(AUTH_USER_ATTRIBUTE, username);
+        exchange.getAttributes().put(AUTH_POLICY_ATTRIBUTE, policy);
+
+        // 4. Continue the filter chain with the header set (replacing any sent by the client)
+        return chain.filter(exchange.mutate()
+                .request(builder -> builder.headers(headers -> headers.set(AUTH_USER_HEADER, username)))
+                .build());
     }
 
-    // Helper method to check if path is public
-    private boolean isPublicPath(String path, String method) {
-        // Public paths that don't require authentication
-        if (path.startsWith("/api/users/auth/")) {
-            return true; // Login endpoint
+    private AuthPolicy routePolicy(Route route) {
+        Object policy = route == null ? null : route.getMetadata().get(AuthPolicy.METADATA_KEY);
+        if (policy == null) {
+            return defaultPolicy;
         }
-        // Registration endpoint: POST /api/users or any POST to /api/users/** 
-        // This allows POST /api/users, POST /api/users/register, etc.
-        if (path.startsWith("/api/users") && "POST".equalsIgnoreCase(method)) {
-            // Only allow POST for registration - GET/PUT/DELETE require auth
-            return true; // Registration endpoint (POST /api/users/**)
+        if (policy instanceof AuthPolicy authPolicy) {
+            return authPolicy;
         }
-        if (path.startsWith("/actuator/")) {
-            return true; // Health checks
+        // An invalid policy fails every request on the route rather than opening it
+        return parsedPolicies.computeIfAbsent(policy.toString(), AuthPolicy::parse);
+    }
+
+    // Only routes that opt in accept a token in the URL, where it may end up in access logs
+    private static String queryToken(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        Object param = route == null ? null : route.getMetadata().get(TOKEN_PARAM_METADATA_KEY);
+        if (param == null) {
+            return null;
         }
-        if (path.startsWith("/eureka/")) {
-            return true; // Eureka endpoints
+        String token = exchange.getRequest().getQueryParams().getFirst(param.toString());
+        return token == null || token.isEmpty() ? null : token;
+    }
+
+    private boolean hasAnyRole(Claims claims, AuthPolicy policy) {
+        Object granted = claims.get(rolesClaim);
+        if (granted instanceof Collection<?> roles) {
+            for (Object role : roles) {
+                if (policy.roles().contains(String.valueOf(role))) {
+                    return true;
+                }
+            }
+        } else if (granted instanceof String roles) {
+            for (String role : roles.split(",")) {
+                if (policy.roles().contains(role.trim())) {
+                    return true;
+                }
+            }
         }
         return false;
     }
 
+    // The "Bearer " scheme is case-insensitive; a bare token is accepted as before
+    private static int tokenStart(String authorization) {
+        return authorization.regionMatches(true, 0, BEARER, 0, BEARER.length()) ? BEARER.length() : 0;
+    }
+
     private Mono<Void> onError(ServerWebExchange exchange, String err, HttpStatus httpStatus) {
         exchange.getResponse().setStatusCode(httpStatus);
         return exchange.getResponse().setComplete();
     }
 
-    // Required for AbstractGatewayFilterFactory
+    // Runs ahead of every other filter, e.g. the response cache must not serve unauthenticated requests
     @Override
-    public GatewayFilter apply(Config config) {
-        return this;
-    }
-
-    public static class Config {
-        // Empty class needed for AbstractGatewayFilterFactory
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
     }
 }
-
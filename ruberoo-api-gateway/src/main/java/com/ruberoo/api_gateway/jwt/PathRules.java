@@ -0,0 +1,210 @@
+package com.ruberoo.api_gateway.jwt;
+
+import org.springframework.http.HttpMethod;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Table of method + path rules, sorted once so that the first matching rule is the most
+ * specific one.
+ *
+ * A rule is written "[METHOD[,METHOD...]] /path/pattern", e.g. "POST /api/users/**" or
+ * "/actuator/**"; without methods it applies to every method. A pattern segment is a
+ * literal, "*" or "{name}" (any single segment), or a trailing "**" (any number of
+ * segments, including none).
+ *
+ * {@link #match} returns the value of the most specific matching rule: literal segments
+ * win over "*", which wins over "**", and a method-specific rule wins over one for all
+ * methods at the same place. A rule made of literals only (the usual case) is matched
+ * with a single prefix comparison; matching allocates nothing. The table is immutable and
+ * thread-safe once built.
+ */
+public final class PathRules<V> {
+
+    private static final HttpMethod[] METHODS = {
+            HttpMethod.GET, HttpMethod.HEAD, HttpMethod.POST, HttpMethod.PUT,
+            HttpMethod.PATCH, HttpMethod.DELETE, HttpMethod.OPTIONS, HttpMethod.TRACE};
+    // Bit for non-standard methods, which only rules without methods match
+    private static final int ANY_METHOD = METHODS.length;
+    private static final int ALL_METHODS = (1 << (ANY_METHOD + 1)) - 1;
+
+    // Most specific first
+    private final Rule<V>[] rules;
+
+    private PathRules(Rule<V>[] rules) {
+        this.rules = rules;
+    }
+
+    public static <V> Builder<V> builder() {
+        return new Builder<>();
+    }
+
+    /**
+     * @param path Request path starting with "/"
+     * @return the value of the most specific rule matching the method and path, or null
+     */
+    public V match(HttpMethod method, String path) {
+        if (!path.isEmpty() && path.charAt(0) != '/') {
+            return null;
+        }
+        int methodBit = 1 << methodIndex(method);
+        for (Rule<V> rule : rules) {
+            if ((rule.methods & methodBit) != 0 && rule.matches(path)) {
+                return rule.value;
+            }
+        }
+        return null;
+    }
+
+    // HttpMethod.valueOf returns the shared constants for the standard methods, so the
+    // identity check covers every request; equals only runs for a non-standard method
+    private static int methodIndex(HttpMethod method) {
+        for (int i = 0; i < METHODS.length; i++) {
+            if (METHODS[i] == method) {
+                return i;
+            }
+        }
+        for (int i = 0; i < METHODS.length; i++) {
+            if (METHODS[i].equals(method)) {
+                return i;
+            }
+        }
+        return ANY_METHOD;
+    }
+
+    private static final class Rule<V> {
+
+        // Literal segments, with null for "*" and "{name}"
+        private final String[] segments;
+        private final boolean rest;
+        private final int methods;
+        private final V value;
+        // "/" + the segments joined by "/" when they are all literals, otherwise null
+        private final String prefix;
+
+        Rule(String[] segments, boolean rest, int methods, V value) {
+            this.segments = segments;
+            this.rest = rest;
+            this.methods = methods;
+            this.value = value;
+            this.prefix = Arrays.asList(segments).contains(null) ? null
+                    : segments.length == 0 ? "" : "/" + String.join("/", segments);
+        }
+
+        boolean matches(String path) {
+            if (prefix != null) {
+                int length = prefix.length();
+                if (!path.startsWith(prefix)) {
+                    return false;
+                }
+                return path.length() == length || (rest && path.charAt(length) == '/');
+            }
+            int pathLength = path.length();
+            // Index of the current path segment, just after a '/', or -1 once the path is used up
+            int from = pathLength == 0 ? -1 : 1;
+            for (String segment : segments) {
+                if (from < 0) {
+                    return false;
+                }
+                int end = path.indexOf('/', from);
+                if (end < 0) {
+                    end = pathLength;
+                }
+                if (segment == null ? end == from
+                        : end - from != segment.length() || !path.startsWith(segment, from)) {
+                    return false;
+                }
+                from = end == pathLength ? -1 : end + 1;
+            }
+            return rest || from < 0;
+        }
+
+        // Literal < wildcard at the first position where two rules differ; a rule ending
+        // there sorts after both, exact before "**"; then method-specific before all methods
+        static int compare(Rule<?> a, Rule<?> b) {
+            int common = Math.min(a.segments.length, b.segments.length);
+            for (int i = 0; i < common; i++) {
+                boolean aWildcard = a.segments[i] == null;
+                if (aWildcard != (b.segments[i] == null)) {
+                    return aWildcard ? 1 : -1;
+                }
+            }
+            if (a.segments.length != b.segments.length) {
+                return a.segments.length > common ? -1 : 1;
+            }
+            if (a.rest != b.rest) {
+                return a.rest ? 1 : -1;
+            }
+            return Boolean.compare(a.methods == ALL_METHODS, b.methods == ALL_METHODS);
+        }
+    }
+
+    public static final class Builder<V> {
+
+        private final List<Rule<V>> rules = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Add a rule. When two rules have the same pattern and method, the first one added wins.
+         *
+         * @param rule "[METHOD[,METHOD...]] /path/pattern"
+         * @throws IllegalArgumentException If the rule cannot be parsed
+         */
+        public Builder<V> add(String rule, V value) {
+            String trimmed = rule.trim();
+            int space = trimmed.indexOf(' ');
+            String pattern = space < 0 ? trimmed : trimmed.substring(space + 1).trim();
+            int methods = space < 0 ? ALL_METHODS : parseMethods(trimmed.substring(0, space), rule);
+            if (!pattern.startsWith("/")) {
+                throw new IllegalArgumentException("Path pattern must start with '/': " + rule);
+            }
+
+            List<String> segments = new ArrayList<>();
+            String[] parts = pattern.substring(1).split("/", -1);
+            boolean rest = false;
+            for (int i = 0; i < parts.length; i++) {
+                String segment = parts[i];
+                if ("**".equals(segment)) {
+                    if (i != parts.length - 1) {
+                        throw new IllegalArgumentException("'**' is only supported as the last segment: " + rule);
+                    }
+                    rest = true;
+                } else if (!(segment.isEmpty() && i == parts.length - 1 && i > 0)) {
+                    segments.add(isWildcard(segment) ? null : segment);
+                }
+            }
+            rules.add(new Rule<>(segments.toArray(new String[0]), rest, methods, value));
+            return this;
+        }
+
+        @SuppressWarnings("unchecked")
+        public PathRules<V> build() {
+            // The sort is stable, so of two rules with the same pattern and method the first added wins
+            Rule<V>[] sorted = rules.toArray(new Rule[0]);
+            Arrays.sort(sorted, Rule::compare);
+            return new PathRules<>(sorted);
+        }
+
+        private static boolean isWildcard(String segment) {
+            return "*".equals(segment) || (segment.startsWith("{") && segment.endsWith("}"));
+        }
+
+        private static int parseMethods(String methods, String rule) {
+            int bits = 0;
+            for (String name : methods.split(",")) {
+                int index = methodIndex(HttpMethod.valueOf(name.trim().toUpperCase(Locale.ROOT)));
+                if (index == ANY_METHOD) {
+                    throw new IllegalArgumentException("Unsupported method '" + name + "' in rule: " + rule);
+                }
+                bits |= 1 << index;
+            }
+            return bits;
+        }
+    }
+}
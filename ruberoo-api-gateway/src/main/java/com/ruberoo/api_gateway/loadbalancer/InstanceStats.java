@@ -0,0 +1,123 @@
+package com.ruberoo.api_gateway.loadbalancer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * What the gateway has observed of one service instance: requests in flight, peak-EWMA
+ * latency, consecutive failures, and when it was ejected or started taking traffic.
+ *
+ * Updated by {@link LatencyTrackingFilter} as requests complete and read by
+ * {@link LatencyAwareLoadBalancer}. Times are System.nanoTime() values passed in by the
+ * caller, so simulations can run on a virtual clock.
+ */
+final class InstanceStats {
+
+    // Ejections past this many in a row no longer lengthen the ejection time
+    private static final int MAX_EJECTION_MULTIPLIER = 10;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    // Guarded by this
+    private double latencyNanos;
+    private long lastSampleAt;
+    private boolean sampled;
+    private int ejections;
+    private long ejectedUntil;
+    private long warmingSince;
+
+    InstanceStats(long now) {
+        this.warmingSince = now;
+        this.lastSampleAt = now;
+        this.ejectedUntil = now;
+    }
+
+    void requestStarted() {
+        inFlight.incrementAndGet();
+    }
+
+    void requestFinished() {
+        inFlight.decrementAndGet();
+    }
+
+    int inFlight() {
+        return Math.max(inFlight.get(), 0);
+    }
+
+    /**
+     * Peak EWMA: a response slower than the average takes over right away, faster ones pull
+     * the average down with a weight that grows with the time since the previous response.
+     */
+    void recordResponse(long now, long latencyNanos, boolean failed, long decayNanos) {
+        synchronized (this) {
+            double weight = decay(now, decayNanos);
+            double current = this.latencyNanos * weight;
+            this.latencyNanos = !sampled || latencyNanos > current
+                    ? latencyNanos : current + latencyNanos * (1 - weight);
+            sampled = true;
+            lastSampleAt = now;
+        }
+        if (failed) {
+            consecutiveFailures.incrementAndGet();
+        } else {
+            consecutiveFailures.set(0);
+        }
+    }
+
+    /**
+     * The average also decays towards 0 while no response comes in, so an instance that was
+     * slow once and stopped being chosen for it is tried again after a while.
+     *
+     * @return the latency average, or -1 before the first response
+     */
+    synchronized double latencyNanos(long now, long decayNanos) {
+        return sampled ? latencyNanos * decay(now, decayNanos) : -1;
+    }
+
+    private double decay(long now, long decayNanos) {
+        return Math.exp(-(double) Math.max(now - lastSampleAt, 0) / decayNanos);
+    }
+
+    /**
+     * Ejects the instance if it has failed consecutiveFailures times in a row, for
+     * baseEjectionNanos times the number of ejections in a row.
+     *
+     * @return true if the instance has just been ejected
+     */
+    boolean ejectIfFailing(long now, int consecutiveFailures, long baseEjectionNanos) {
+        if (this.consecutiveFailures.get() < consecutiveFailures) {
+            return false;
+        }
+        synchronized (this) {
+            if (ejected(now) || this.consecutiveFailures.get() < consecutiveFailures) {
+                return false;
+            }
+            // A long healthy stretch since the last ejection starts the multiplier over
+            if (now - ejectedUntil > baseEjectionNanos * MAX_EJECTION_MULTIPLIER) {
+                ejections = 0;
+            }
+            ejections++;
+            ejectedUntil = now + baseEjectionNanos * Math.min(ejections, MAX_EJECTION_MULTIPLIER);
+            // Back from ejection, the instance goes through slow start again
+            warmingSince = ejectedUntil;
+            this.consecutiveFailures.set(0);
+            return true;
+        }
+    }
+
+    synchronized boolean ejected(long now) {
+        return now - ejectedUntil < 0;
+    }
+
+    /**
+     * Share of traffic the instance is ready for, ramping up linearly from minWeight to 1
+     * over slowStartNanos after it appeared or came back from ejection.
+     */
+    synchronized double weight(long now, long slowStartNanos, double minWeight) {
+        long warming = now - warmingSince;
+        if (slowStartNanos <= 0 || warming >= slowStartNanos) {
+            return 1;
+        }
+        return Math.max(minWeight, (double) Math.max(warming, 0) / slowStartNanos);
+    }
+}
@@ -0,0 +1,163 @@
+package com.ruberoo.api_gateway.loadbalancer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.SelectedInstanceCallback;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+
+/**
+ * Chooses among the instances of a service by observed latency instead of in turn, so a
+ * replica stuck in a GC pause or on a noisy node gets less traffic.
+ *
+ * Power of two choices: two random instances are compared by peak-EWMA latency times
+ * (requests in flight + 1), and the cheaper one wins. Instances that fail several times in
+ * a row are ejected for a while, and new or returning instances ramp up over a slow-start
+ * window. The measurements come from {@link LatencyTrackingFilter}.
+ */
+public class LatencyAwareLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    private static final Logger logger = LoggerFactory.getLogger(LatencyAwareLoadBalancer.class);
+
+    // Share of traffic of an instance that has just appeared, relative to a warmed up one
+    static final double MIN_WEIGHT = 0.1;
+
+    private final ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider;
+    private final String serviceId;
+    private final LatencyAwareProperties properties;
+    private final LatencyTrackingFilter tracker;
+    private final Counter ejections;
+    private final LongSupplier nanoClock;
+
+    // Last instance list seen, stats of instances no longer in it are dropped when it changes
+    private volatile List<ServiceInstance> lastInstances;
+
+    public LatencyAwareLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+                                    String serviceId, LatencyAwareProperties properties,
+                                    LatencyTrackingFilter tracker, MeterRegistry meterRegistry) {
+        this(serviceInstanceListSupplierProvider, serviceId, properties, tracker, meterRegistry, System::nanoTime);
+    }
+
+    LatencyAwareLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+                             String serviceId, LatencyAwareProperties properties,
+                             LatencyTrackingFilter tracker, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this.serviceInstanceListSupplierProvider = serviceInstanceListSupplierProvider;
+        this.serviceId = serviceId;
+        this.properties = properties;
+        this.tracker = tracker;
+        this.nanoClock = nanoClock;
+        this.ejections = Counter.builder("gateway.lb.ejections")
+                .tag("service", serviceId)
+                .description("Instances taken out of load balancing after consecutive failures")
+                .register(meterRegistry);
+        tracker.track(serviceId, properties);
+    }
+
+    @Override
+    @SuppressWarnings("rawtypes")
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = serviceInstanceListSupplierProvider.getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return supplier.get(request).next().map(instances -> {
+            Response<ServiceInstance> response = choose(instances);
+            if (supplier instanceof SelectedInstanceCallback callback && response.hasServer()) {
+                callback.selectedServiceInstance(response.getServer());
+            }
+            return response;
+        });
+    }
+
+    Response<ServiceInstance> choose(List<ServiceInstance> instances) {
+        if (instances.isEmpty()) {
+            logger.warn("No servers available for service: {}", serviceId);
+            return new EmptyResponse();
+        }
+        if (instances != lastInstances) {
+            tracker.retain(serviceId, instances);
+            lastInstances = instances;
+        }
+        long now = nanoClock.getAsLong();
+
+        List<ServiceInstance> candidates = new ArrayList<>(instances.size());
+        List<InstanceStats> candidateStats = new ArrayList<>(instances.size());
+        collectCandidates(instances, now, candidates, candidateStats);
+        if (candidates.isEmpty()) {
+            // Everything is ejected (max-ejection-percent=100): better any instance than none
+            candidates = instances;
+            candidateStats = new ArrayList<>(instances.size());
+            for (ServiceInstance instance : instances) {
+                candidateStats.add(tracker.stats(serviceId, instance, now));
+            }
+        }
+
+        int count = candidates.size();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(count);
+        if (count == 1) {
+            return new DefaultResponse(candidates.get(first));
+        }
+        int second = random.nextInt(count - 1);
+        if (second >= first) {
+            second++;
+        }
+        InstanceStats a = candidateStats.get(first);
+        InstanceStats b = candidateStats.get(second);
+        // An instance without a response yet is assumed as fast as the other one
+        long decayNanos = properties.decayTime().toNanos();
+        double latencyA = a.latencyNanos(now, decayNanos);
+        double latencyB = b.latencyNanos(now, decayNanos);
+        if (latencyA < 0) {
+            latencyA = latencyB < 0 ? 1 : latencyB;
+        }
+        if (latencyB < 0) {
+            latencyB = latencyA;
+        }
+        return new DefaultResponse(cost(a, latencyA, now) <= cost(b, latencyB, now)
+                ? candidates.get(first) : candidates.get(second));
+    }
+
+    private void collectCandidates(List<ServiceInstance> instances, long now,
+                                   List<ServiceInstance> candidates, List<InstanceStats> candidateStats) {
+        int ejected = 0;
+        InstanceStats[] stats = new InstanceStats[instances.size()];
+        for (int i = 0; i < stats.length; i++) {
+            stats[i] = tracker.stats(serviceId, instances.get(i), now);
+            if (stats[i].ejected(now)) {
+                ejected++;
+            }
+        }
+        long baseEjectionNanos = properties.baseEjectionTime().toNanos();
+        for (int i = 0; i < stats.length; i++) {
+            // Never eject more than max-ejection-percent of the instances
+            if ((ejected + 1) * 100L <= (long) properties.maxEjectionPercent() * stats.length
+                    && stats[i].ejectIfFailing(now, properties.consecutiveFailures(), baseEjectionNanos)) {
+                ejected++;
+                ejections.increment();
+                logger.warn("Ejected {} instance {}:{} after {} consecutive failures", serviceId,
+                        instances.get(i).getHost(), instances.get(i).getPort(), properties.consecutiveFailures());
+            }
+            if (!stats[i].ejected(now)) {
+                candidates.add(instances.get(i));
+                candidateStats.add(stats[i]);
+            }
+        }
+    }
+
+    private double cost(InstanceStats stats, double latencyNanos, long now) {
+        return latencyNanos * (stats.inFlight() + 1) / stats.weight(now, properties.slowStart().toNanos(), MIN_WEIGHT);
+    }
+}
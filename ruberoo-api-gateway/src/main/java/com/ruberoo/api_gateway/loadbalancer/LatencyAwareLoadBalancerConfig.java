@@ -0,0 +1,55 @@
+package com.ruberoo.api_gateway.loadbalancer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+
+/**
+ * Load balancing strategy of each lb:// service, from ruberoo.gateway.load-balancer.{service}.strategy
+ * (or ruberoo.gateway.load-balancer.strategy): round-robin, Spring Cloud LoadBalancer's
+ * default, or latency-aware ({@link LatencyAwareLoadBalancer}).
+ */
+@Configuration
+@LoadBalancerClients(defaultConfiguration = LatencyAwareLoadBalancerConfig.PerService.class)
+public class LatencyAwareLoadBalancerConfig {
+
+    /**
+     * Created in the load balancer context of every service; not a @Configuration so that
+     * component scanning leaves it out of the application context. Without a balancer bean
+     * here, the service gets the round-robin one.
+     */
+    public static class PerService {
+
+        @Bean
+        @Conditional(LatencyAwareStrategy.class)
+        public ReactorLoadBalancer<ServiceInstance> latencyAwareLoadBalancer(Environment env,
+                                                                             LoadBalancerClientFactory clientFactory,
+                                                                             LatencyTrackingFilter tracker,
+                                                                             MeterRegistry meterRegistry) {
+            String serviceId = LoadBalancerClientFactory.getName(env);
+            return new LatencyAwareLoadBalancer(clientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class),
+                    serviceId, LatencyAwareProperties.of(env, serviceId), tracker, meterRegistry);
+        }
+    }
+
+    static class LatencyAwareStrategy implements Condition {
+
+        @Override
+        public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+            Environment env = context.getEnvironment();
+            String serviceId = LoadBalancerClientFactory.getName(env);
+            return serviceId != null
+                    && LatencyAwareProperties.LATENCY_AWARE.equals(LatencyAwareProperties.strategy(env, serviceId));
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.ruberoo.api_gateway.loadbalancer;
+
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Load balancing settings of one service, read from ruberoo.gateway.load-balancer.{service}.*
+ * with ruberoo.gateway.load-balancer.* as the default for all services. The service id is
+ * the lower-case host of the lb:// route URI, e.g. user-service.
+ *
+ * @param decayTime How fast the latency average forgets a slow response
+ * @param slowStart Time over which a new or returning instance ramps up to its full share
+ * @param consecutiveFailures Failures in a row (connection errors, timeouts, 5xx) that eject an instance
+ * @param baseEjectionTime How long the first ejection lasts, every next one in a row lasts longer
+ * @param maxEjectionPercent Instances that may be ejected at once, as a percentage of the service
+ */
+public record LatencyAwareProperties(Duration decayTime,
+                                     Duration slowStart,
+                                     int consecutiveFailures,
+                                     Duration baseEjectionTime,
+                                     int maxEjectionPercent) {
+
+    public static final String ROUND_ROBIN = "round-robin";
+    public static final String LATENCY_AWARE = "latency-aware";
+
+    private static final String PREFIX = "ruberoo.gateway.load-balancer.";
+
+    public static LatencyAwareProperties of(Environment env, String serviceId) {
+        return new LatencyAwareProperties(
+                duration(env, serviceId, "decay-time", Duration.ofSeconds(10)),
+                duration(env, serviceId, "slow-start", Duration.ofSeconds(30)),
+                property(env, serviceId, "consecutive-failures", Integer.class, 5),
+                duration(env, serviceId, "base-ejection-time", Duration.ofSeconds(30)),
+                property(env, serviceId, "max-ejection-percent", Integer.class, 50));
+    }
+
+    /**
+     * @return {@link #ROUND_ROBIN} or {@link #LATENCY_AWARE}
+     * @throws IllegalStateException If the configured strategy is neither
+     */
+    public static String strategy(Environment env, String serviceId) {
+        String strategy = property(env, serviceId, "strategy", String.class, ROUND_ROBIN).trim().toLowerCase(Locale.ROOT);
+        if (!strategy.equals(ROUND_ROBIN) && !strategy.equals(LATENCY_AWARE)) {
+            throw new IllegalStateException("Unknown load balancer strategy '" + strategy + "' for " + serviceId
+                    + ", expected " + ROUND_ROBIN + " or " + LATENCY_AWARE);
+        }
+        return strategy;
+    }
+
+    // Load balancer contexts do not convert "10s" style durations, so they are parsed here
+    private static Duration duration(Environment env, String serviceId, String key, Duration defaultValue) {
+        String value = property(env, serviceId, key, String.class, null);
+        return value != null ? DurationStyle.detectAndParse(value) : defaultValue;
+    }
+
+    private static <T> T property(Environment env, String serviceId, String key, Class<T> type, T defaultValue) {
+        T value = env.getProperty(PREFIX + serviceId.toLowerCase(Locale.ROOT) + "." + key, type);
+        return value != null ? value : env.getProperty(PREFIX + key, type, defaultValue);
+    }
+}
@@ -0,0 +1,110 @@
+package com.ruberoo.api_gateway.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records in-flight requests, latency and failures per instance of the services that use
+ * {@link LatencyAwareLoadBalancer}, for it to choose by.
+ *
+ * Runs right after the instance has been chosen, so the latency is the time to the response
+ * headers of that instance (the body is written by an earlier filter, after this one returns).
+ * A retry chooses and is measured again.
+ */
+@Component
+public class LatencyTrackingFilter implements GlobalFilter, Ordered {
+
+    public static final int ORDER = ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 1;
+
+    // Stats per service id and instance; only services with a latency-aware balancer are tracked
+    private final Map<String, TrackedService> services = new ConcurrentHashMap<>();
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Response<ServiceInstance> chosen = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+        if (chosen == null || !chosen.hasServer()) {
+            return chain.filter(exchange);
+        }
+        TrackedService service = services.get(serviceKey(chosen.getServer().getServiceId()));
+        if (service == null) {
+            return chain.filter(exchange);
+        }
+        long start = System.nanoTime();
+        InstanceStats stats = service.instances().computeIfAbsent(instanceKey(chosen.getServer()), key -> new InstanceStats(start));
+        long decayNanos = service.properties().decayTime().toNanos();
+
+        stats.requestStarted();
+        return chain.filter(exchange)
+                .doOnSuccess(done -> {
+                    HttpStatusCode status = exchange.getResponse().getStatusCode();
+                    long now = System.nanoTime();
+                    stats.recordResponse(now, now - start, status != null && status.is5xxServerError(), decayNanos);
+                })
+                .doOnError(error -> {
+                    long now = System.nanoTime();
+                    stats.recordResponse(now, now - start, true, decayNanos);
+                })
+                // Cancelled requests (client gone, overall timeout) only leave the in-flight count
+                .doFinally(signal -> stats.requestFinished());
+    }
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    /**
+     * Starts tracking a service, as its latency-aware balancer is created.
+     */
+    void track(String serviceId, LatencyAwareProperties properties) {
+        services.compute(serviceKey(serviceId), (key, tracked) -> new TrackedService(properties,
+                tracked != null ? tracked.instances() : new ConcurrentHashMap<>()));
+    }
+
+    InstanceStats stats(String serviceId, ServiceInstance instance, long now) {
+        return services.get(serviceKey(serviceId)).instances()
+                .computeIfAbsent(instanceKey(instance), key -> new InstanceStats(now));
+    }
+
+    /**
+     * Forgets the instances that have left the registry.
+     */
+    void retain(String serviceId, Collection<ServiceInstance> current) {
+        TrackedService service = services.get(serviceKey(serviceId));
+        Map<String, InstanceStats> instances = service != null ? service.instances() : Map.of();
+        if (instances.size() > current.size()) {
+            Set<String> keys = new HashSet<>();
+            current.forEach(instance -> keys.add(instanceKey(instance)));
+            instances.keySet().retainAll(keys);
+        }
+    }
+
+    private record TrackedService(LatencyAwareProperties properties, Map<String, InstanceStats> instances) {
+    }
+
+    // Routes may use the service id in either case (the discovery locator lower-cases it)
+    private static String serviceKey(String serviceId) {
+        return serviceId.toLowerCase(Locale.ROOT);
+    }
+
+    private static String instanceKey(ServiceInstance instance) {
+        String instanceId = instance.getInstanceId();
+        return instanceId != null ? instanceId : instance.getHost() + ":" + instance.getPort();
+    }
+}
@@ -0,0 +1,99 @@
+package com.ruberoo.api_gateway.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process {@link TokenBucketLimiter} for single-instance deployments.
+ *
+ * Each key is one AtomicLong updated with a compare-and-set loop, no locks. A bucket left
+ * alone for burst-capacity / replenish-rate has refilled completely and carries no state,
+ * so it expires then. At most {@code ruberoo.gateway.rate-limit.max-keys} keys are tracked;
+ * beyond that Caffeine's frequency-based admission keeps the buckets of active clients, so
+ * a client rotating through many addresses cannot push them out and reset their limits.
+ */
+@Component
+@ConditionalOnProperty(name = "ruberoo.gateway.rate-limit.type", havingValue = "memory", matchIfMissing = true)
+public class MemoryTokenBucketLimiter implements TokenBucketLimiter {
+
+    private final Cache<String, Bucket> buckets;
+
+    public MemoryTokenBucketLimiter(MeterRegistry meterRegistry,
+                                    @Value("${ruberoo.gateway.rate-limit.max-keys:100000}") int maxKeys) {
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfter(new UntilRefilled())
+                .executor(Runnable::run)
+                .build();
+        Gauge.builder("gateway.rate.limit.keys", buckets, Cache::estimatedSize)
+                .description("Number of clients with a rate limit bucket")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<RateLimitResult> tryAcquire(String key, RateLimitFilter.Config limit) {
+        return Mono.just(acquire(key, limit, System.nanoTime()));
+    }
+
+    RateLimitResult acquire(String key, RateLimitFilter.Config limit, long now) {
+        long interval = limit.intervalNanos();
+        long tolerance = interval * limit.getBurstCapacity();
+
+        // Moment the bucket is full again; starts full
+        Bucket bucket = buckets.getIfPresent(key);
+        if (bucket == null) {
+            bucket = buckets.get(key, k -> new Bucket(new AtomicLong(now), tolerance));
+        }
+        AtomicLong fullAt = bucket.fullAt();
+
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, now) + interval;
+            long allowAt = next - tolerance;
+            if (allowAt > now) {
+                return new RateLimitResult(false, 0, toMillis(current - now), toMillis(allowAt - now));
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return new RateLimitResult(true, (now - allowAt) / interval, toMillis(next - now), 0);
+            }
+        }
+    }
+
+    private static long toMillis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(Math.max(0, nanos));
+    }
+
+    /**
+     * @param refillNanos Time an untouched bucket takes to refill from empty
+     */
+    private record Bucket(AtomicLong fullAt, long refillNanos) {
+    }
+
+    private static final class UntilRefilled implements Expiry<String, Bucket> {
+
+        @Override
+        public long expireAfterCreate(String key, Bucket bucket, long currentTime) {
+            return bucket.refillNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Bucket bucket, long currentTime, long currentDuration) {
+            return bucket.refillNanos();
+        }
+
+        @Override
+        public long expireAfterRead(String key, Bucket bucket, long currentTime, long currentDuration) {
+            return bucket.refillNanos();
+        }
+    }
+}
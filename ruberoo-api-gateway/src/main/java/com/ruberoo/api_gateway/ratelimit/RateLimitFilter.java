@@ -0,0 +1,135 @@
+package com.ruberoo.api_gateway.ratelimit;
+
+import com.ruberoo.api_gateway.cache.ResponseCacheFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-route rate limiting at the gateway.
+ *
+ * Clients are identified by the userKeyResolver bean: the verified JWT subject, or the
+ * client IP for unauthenticated requests. Every response carries RateLimit-Limit,
+ * RateLimit-Remaining and RateLimit-Reset (seconds until the bucket is full again);
+ * rejected requests get 429 with Retry-After.
+ *
+ * Runs after authentication and before the response cache, so cache hits count too.
+ */
+@Component
+public class RateLimitFilter extends AbstractGatewayFilterFactory<RateLimitFilter.Config> {
+
+    public static final int ORDER = ResponseCacheFilter.ORDER - 1;
+
+    private static final String UNKNOWN_CLIENT = "unknown";
+
+    private final TokenBucketLimiter limiter;
+    private final KeyResolver keyResolver;
+    private final boolean enabled;
+
+    private final Counter allowed;
+    private final Counter rejected;
+
+    public RateLimitFilter(TokenBucketLimiter limiter,
+                           @Qualifier("userKeyResolver") KeyResolver keyResolver,
+                           MeterRegistry meterRegistry,
+                           @Value("${ruberoo.gateway.rate-limit.enabled:true}") boolean enabled) {
+        super(Config.class);
+        this.limiter = limiter;
+        this.keyResolver = keyResolver;
+        this.enabled = enabled;
+
+        this.allowed = Counter.builder("gateway.rate.limit")
+                .tag("result", "allowed")
+                .description("Requests within their client's rate limit")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("gateway.rate.limit")
+                .tag("result", "rejected")
+                .description("Requests rejected with 429")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return new OrderedGatewayFilter((exchange, chain) -> {
+            if (!enabled) {
+                return chain.filter(exchange);
+            }
+            Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+            String routeId = route == null ? "" : route.getId();
+
+            return keyResolver.resolve(exchange)
+                    .defaultIfEmpty(UNKNOWN_CLIENT)
+                    .flatMap(client -> limiter.tryAcquire(routeId + ":" + client, config))
+                    .flatMap(result -> {
+                        ServerHttpResponse response = exchange.getResponse();
+                        HttpHeaders headers = response.getHeaders();
+                        headers.set("RateLimit-Limit", String.valueOf(config.getBurstCapacity()));
+                        headers.set("RateLimit-Remaining", String.valueOf(result.remaining()));
+                        headers.set("RateLimit-Reset", String.valueOf(seconds(result.resetMillis())));
+                        if (result.allowed()) {
+                            allowed.increment();
+                            return chain.filter(exchange);
+                        }
+                        rejected.increment();
+                        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, seconds(result.retryAfterMillis()))));
+                        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+                        return response.setComplete();
+                    });
+        }, ORDER);
+    }
+
+    private static long seconds(long millis) {
+        return (millis + 999) / 1000;
+    }
+
+    public static class Config {
+
+        private double replenishRate = 10;
+        private int burstCapacity = 20;
+
+        public Config() {
+        }
+
+        /**
+         * @param replenishRate Sustained requests per second per client
+         * @param burstCapacity Requests a client may send at once after being idle
+         */
+        public Config(double replenishRate, int burstCapacity) {
+            setReplenishRate(replenishRate);
+            setBurstCapacity(burstCapacity);
+        }
+
+        public double getReplenishRate() {
+            return replenishRate;
+        }
+
+        public void setReplenishRate(double replenishRate) {
+            this.replenishRate = replenishRate;
+        }
+
+        public int getBurstCapacity() {
+            return burstCapacity;
+        }
+
+        public void setBurstCapacity(int burstCapacity) {
+            this.burstCapacity = Math.max(1, burstCapacity);
+        }
+
+        long intervalNanos() {
+            return (long) (TimeUnit.SECONDS.toNanos(1) / replenishRate);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.ruberoo.api_gateway.ratelimit;
+
+/**
+ * Outcome of a {@link TokenBucketLimiter} call.
+ *
+ * @param allowed Whether the request may proceed
+ * @param remaining Requests still allowed right now
+ * @param resetMillis Time until the bucket is full again
+ * @param retryAfterMillis Time until the next request is allowed, 0 if allowed now
+ */
+public record RateLimitResult(boolean allowed, long remaining, long resetMillis, long retryAfterMillis) {
+}
@@ -0,0 +1,65 @@
+package com.ruberoo.api_gateway.ratelimit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Redis-backed {@link TokenBucketLimiter} shared by all gateway replicas.
+ *
+ * Each request is one EVALSHA of a script that reads, checks and updates the key's
+ * timestamp atomically, using the Redis server clock so replica clocks do not matter.
+ * Keys expire once their bucket has refilled. If Redis is unreachable requests are
+ * allowed, an outage of the limiter must not take the API down with it.
+ */
+@Component
+@ConditionalOnProperty(name = "ruberoo.gateway.rate-limit.type", havingValue = "redis")
+public class RedisTokenBucketLimiter implements TokenBucketLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisTokenBucketLimiter.class);
+
+    private static final String KEY_PREFIX = "gateway:rate-limit:";
+
+    // ARGV: emission interval and burst tolerance in microseconds
+    // Returns: allowed (0/1), remaining, microseconds until full, microseconds until allowed
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static final RedisScript<List<Long>> SCRIPT = (RedisScript) RedisScript.of("""
+            local interval = tonumber(ARGV[1])
+            local tolerance = tonumber(ARGV[2])
+            local time = redis.call('TIME')
+            local now = tonumber(time[1]) * 1000000 + tonumber(time[2])
+            local full_at = tonumber(redis.call('GET', KEYS[1]) or now)
+            local next = math.max(full_at, now) + interval
+            local allow_at = next - tolerance
+            if allow_at > now then
+              return {0, 0, math.max(full_at - now, 0), allow_at - now}
+            end
+            redis.call('SET', KEYS[1], string.format('%d', next), 'PX', math.ceil((next - now) / 1000) + 1)
+            return {1, math.floor((now - allow_at) / interval), next - now, 0}
+            """, List.class);
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+
+    public RedisTokenBucketLimiter(ReactiveStringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    public Mono<RateLimitResult> tryAcquire(String key, RateLimitFilter.Config limit) {
+        long interval = limit.intervalNanos() / 1000;
+        long tolerance = interval * limit.getBurstCapacity();
+        return redisTemplate.execute(SCRIPT, List.of(KEY_PREFIX + key), List.of(String.valueOf(interval), String.valueOf(tolerance)))
+                .next()
+                .map(r -> new RateLimitResult(r.get(0) == 1, r.get(1), r.get(2) / 1000, r.get(3) / 1000))
+                .onErrorResume(e -> {
+                    logger.warn("Rate limiter unavailable, allowing request: {}", e.getMessage());
+                    return Mono.just(new RateLimitResult(true, limit.getBurstCapacity(), 0, 0));
+                });
+    }
+}
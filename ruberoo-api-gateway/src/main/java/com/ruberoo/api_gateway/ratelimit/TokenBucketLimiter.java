@@ -0,0 +1,20 @@
+package com.ruberoo.api_gateway.ratelimit;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Token bucket per key: holds up to {@code burstCapacity} requests and refills at
+ * {@code replenishRate} requests per second.
+ *
+ * Implementations are selected with {@code ruberoo.gateway.rate-limit.type}:
+ * - memory - in-process and lock-free, limits apply per gateway instance
+ * - redis  - one atomic script call per request, limits shared by all replicas
+ *
+ * Both keep a single timestamp per key (the GCRA form of a token bucket): the moment
+ * the bucket would be full again. A request is allowed if taking one token from it
+ * does not push that moment further than the whole burst ahead.
+ */
+public interface TokenBucketLimiter {
+
+    Mono<RateLimitResult> tryAcquire(String key, RateLimitFilter.Config limit);
+}
@@ -0,0 +1,106 @@
+package com.ruberoo.api_gateway.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Caps the number of requests a route has in flight to its backend.
+ *
+ * A slow backend can then only tie up its own share of gateway connections: once a
+ * route is at its limit further requests get 503 with Retry-After right away instead of
+ * queueing, and the other routes are unaffected. A permit is held until the backend
+ * response headers arrive, retries included.
+ *
+ * Runs after the rate limit and the response cache, so neither rejected requests nor
+ * cache hits take a permit.
+ */
+@Component
+public class BulkheadFilter extends AbstractGatewayFilterFactory<BulkheadFilter.Config> {
+
+    public static final int ORDER = NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER + 1;
+
+    private static final Duration RETRY_AFTER = Duration.ofSeconds(1);
+
+    private final MeterRegistry meterRegistry;
+
+    // One bulkhead per name, kept when routes are rebuilt so in-flight permits are not lost
+    private final Map<String, Semaphore> bulkheads = new ConcurrentHashMap<>();
+
+    public BulkheadFilter(MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        String name = config.getName();
+        int maxConcurrentCalls = config.getMaxConcurrentCalls();
+        Semaphore permits = bulkheads.computeIfAbsent(name, key -> {
+            Semaphore semaphore = new Semaphore(maxConcurrentCalls);
+            Gauge.builder("gateway.bulkhead.active", semaphore, s -> maxConcurrentCalls - s.availablePermits())
+                    .tag("name", key)
+                    .description("Requests of the route in flight to its backend")
+                    .register(meterRegistry);
+            return semaphore;
+        });
+        Counter rejected = Counter.builder("gateway.bulkhead.rejected")
+                .tag("name", name)
+                .description("Requests refused with 503 because the route was at its concurrency limit")
+                .register(meterRegistry);
+
+        return new OrderedGatewayFilter((exchange, chain) -> Mono.defer(() -> {
+            if (!permits.tryAcquire()) {
+                rejected.increment();
+                return Fallbacks.write(exchange.getResponse(), HttpStatus.SERVICE_UNAVAILABLE, name, "bulkhead_full", RETRY_AFTER);
+            }
+            return chain.filter(exchange).doFinally(signal -> permits.release());
+        }), ORDER);
+    }
+
+    public static class Config {
+
+        private String name = "default";
+        private int maxConcurrentCalls = 100;
+
+        public Config() {
+        }
+
+        /**
+         * @param name Bulkhead name, shared by routes that should share the limit
+         * @param maxConcurrentCalls Requests allowed in flight at once
+         */
+        public Config(String name, int maxConcurrentCalls) {
+            setName(name);
+            setMaxConcurrentCalls(maxConcurrentCalls);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public int getMaxConcurrentCalls() {
+            return maxConcurrentCalls;
+        }
+
+        public void setMaxConcurrentCalls(int maxConcurrentCalls) {
+            this.maxConcurrentCalls = Math.max(1, maxConcurrentCalls);
+        }
+    }
+}
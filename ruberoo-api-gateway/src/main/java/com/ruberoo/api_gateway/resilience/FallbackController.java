@@ -0,0 +1,68 @@
+package com.ruberoo.api_gateway.resilience;
+
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Answers requests a route's circuit breaker did not let through to the backend:
+ * 503 while the circuit is open (Retry-After is the time until the next trial call),
+ * 504 when the route timeout ran out and 503 when the backend failed.
+ */
+@RestController
+public class FallbackController {
+
+    public static final String PATH = "/fallback";
+
+    private final Environment env;
+    private final MeterRegistry meterRegistry;
+
+    public FallbackController(Environment env, MeterRegistry meterRegistry) {
+        this.env = env;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @RequestMapping(PATH + "/{service}")
+    public Mono<Void> fallback(@PathVariable String service, ServerWebExchange exchange) {
+        Throwable cause = exchange.getAttribute(ServerWebExchangeUtils.CIRCUITBREAKER_EXECUTION_EXCEPTION_ATTR);
+        HttpStatus status = HttpStatus.SERVICE_UNAVAILABLE;
+        Duration retryAfter = Duration.ofSeconds(1);
+        String reason;
+        if (cause instanceof CallNotPermittedException) {
+            reason = "circuit_open";
+            retryAfter = RouteResilienceProperties.of(env, service).waitInOpenState();
+        } else if (isTimeout(cause)) {
+            reason = "timeout";
+            status = HttpStatus.GATEWAY_TIMEOUT;
+        } else {
+            reason = "unavailable";
+        }
+
+        Counter.builder("gateway.fallback")
+                .tag("name", service)
+                .tag("reason", reason)
+                .description("Requests answered by the fallback instead of the backend")
+                .register(meterRegistry)
+                .increment();
+        return Fallbacks.write(exchange.getResponse(), status, service, reason, retryAfter);
+    }
+
+    // The route timeout (time limiter) or the response timeout of the last attempt
+    private static boolean isTimeout(Throwable cause) {
+        return cause instanceof TimeoutException
+                || (cause instanceof ResponseStatusException statusException
+                && statusException.getStatusCode().value() == HttpStatus.GATEWAY_TIMEOUT.value());
+    }
+}
@@ -0,0 +1,32 @@
+package com.ruberoo.api_gateway.resilience;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * Writes the JSON error returned instead of a backend response, e.g.
+ * {"status":503,"service":"rides","reason":"circuit_open"}.
+ */
+final class Fallbacks {
+
+    private Fallbacks() {
+    }
+
+    static Mono<Void> write(ServerHttpResponse response, HttpStatus status, String service, String reason,
+                            Duration retryAfter) {
+        byte[] body = ("{\"status\":" + status.value() + ",\"service\":\"" + service + "\",\"reason\":\"" + reason + "\"}")
+                .getBytes(StandardCharsets.UTF_8);
+        response.setStatusCode(status);
+        HttpHeaders headers = response.getHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.setContentLength(body.length);
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, (retryAfter.toMillis() + 999) / 1000)));
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    }
+}
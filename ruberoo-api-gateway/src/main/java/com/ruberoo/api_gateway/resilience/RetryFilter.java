@@ -0,0 +1,163 @@
+package com.ruberoo.api_gateway.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.filter.factory.RetryGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.TimeoutException;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.retry.Backoff;
+import reactor.retry.Jitter;
+import reactor.retry.Repeat;
+import reactor.retry.Retry;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Retries idempotent requests (GET, HEAD) that failed to reach a backend or got 502, 503
+ * or 504, with exponential backoff and random jitter so that retries from many requests
+ * do not hit a recovering backend in lockstep.
+ *
+ * Same retry conditions and exchange reset as Spring Cloud Gateway's retry filter, which
+ * has no jitter. Every attempt goes through the load balancer again, so a retry usually
+ * lands on another instance. Runs inside the circuit breaker, which only sees the outcome
+ * of the last attempt.
+ */
+@Component
+public class RetryFilter extends AbstractGatewayFilterFactory<RetryFilter.Config> {
+
+    public static final int ORDER = RouteResilience.CIRCUIT_BREAKER_ORDER + 1;
+
+    // Each delay is randomly up to 50% shorter or longer than the exponential backoff
+    private static final double JITTER_FACTOR = 0.5;
+
+    private final RetryGatewayFilterFactory retryGatewayFilterFactory;
+    private final MeterRegistry meterRegistry;
+
+    public RetryFilter(RetryGatewayFilterFactory retryGatewayFilterFactory, MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.retryGatewayFilterFactory = retryGatewayFilterFactory;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        if (config.getRetries() <= 0) {
+            return new OrderedGatewayFilter((exchange, chain) -> chain.filter(exchange), ORDER);
+        }
+        RetryGatewayFilterFactory.RetryConfig retryConfig = new RetryGatewayFilterFactory.RetryConfig()
+                .setRetries(config.getRetries())
+                .setMethods(HttpMethod.GET, HttpMethod.HEAD)
+                .setStatuses(HttpStatus.BAD_GATEWAY, HttpStatus.SERVICE_UNAVAILABLE, HttpStatus.GATEWAY_TIMEOUT)
+                .setExceptions(IOException.class, TimeoutException.class);
+        Backoff backoff = Backoff.exponential(config.getFirstBackoff(), config.getMaxBackoff(), 2, false);
+        Jitter jitter = Jitter.random(JITTER_FACTOR);
+        Counter retries = Counter.builder("gateway.retries")
+                .tag("name", config.getName())
+                .description("Requests sent to the backend again after a failed attempt")
+                .register(meterRegistry);
+
+        // Retry on a 502/503/504 response
+        Repeat<ServerWebExchange> repeat = Repeat.<ServerWebExchange>onlyIf(context -> {
+                    ServerWebExchange exchange = context.applicationContext();
+                    return mayRetry(exchange, retryConfig)
+                            && retryConfig.getStatuses().contains(exchange.getResponse().getStatusCode());
+                })
+                .doOnRepeat(context -> {
+                    retries.increment();
+                    retryGatewayFilterFactory.reset(context.applicationContext());
+                })
+                .backoff(backoff)
+                .jitter(jitter);
+
+        // Retry on a connection failure or response timeout
+        Retry<ServerWebExchange> retry = Retry.<ServerWebExchange>onlyIf(context ->
+                        mayRetry(context.applicationContext(), retryConfig) && isRetryable(context.exception(), retryConfig))
+                .doOnRetry(context -> {
+                    retries.increment();
+                    retryGatewayFilterFactory.reset(context.applicationContext());
+                })
+                .retryMax(config.getRetries())
+                .backoff(backoff)
+                .jitter(jitter);
+
+        return new OrderedGatewayFilter(retryGatewayFilterFactory.apply(config.getName(), repeat, retry), ORDER);
+    }
+
+    private boolean mayRetry(ServerWebExchange exchange, RetryGatewayFilterFactory.RetryConfig retryConfig) {
+        return !retryGatewayFilterFactory.exceedsMaxIterations(exchange, retryConfig)
+                && retryConfig.getMethods().contains(exchange.getRequest().getMethod());
+    }
+
+    private static boolean isRetryable(Throwable exception, RetryGatewayFilterFactory.RetryConfig retryConfig) {
+        for (Class<? extends Throwable> retryable : retryConfig.getExceptions()) {
+            if (retryable.isInstance(exception)
+                    || (exception != null && retryable.isInstance(exception.getCause()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static class Config {
+
+        private String name = "default";
+        private int retries = 2;
+        private Duration firstBackoff = Duration.ofMillis(50);
+        private Duration maxBackoff = Duration.ofMillis(500);
+
+        public Config() {
+        }
+
+        /**
+         * @param name Name used in the gateway.retries metric
+         * @param retries Extra attempts after the first one, 0 disables retries
+         * @param firstBackoff Delay before the first retry, doubled for each next one
+         * @param maxBackoff Upper bound of the delay
+         */
+        public Config(String name, int retries, Duration firstBackoff, Duration maxBackoff) {
+            setName(name);
+            setRetries(retries);
+            setFirstBackoff(firstBackoff);
+            setMaxBackoff(maxBackoff);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public int getRetries() {
+            return retries;
+        }
+
+        public void setRetries(int retries) {
+            this.retries = retries;
+        }
+
+        public Duration getFirstBackoff() {
+            return firstBackoff;
+        }
+
+        public void setFirstBackoff(Duration firstBackoff) {
+            this.firstBackoff = firstBackoff;
+        }
+
+        public Duration getMaxBackoff() {
+            return maxBackoff;
+        }
+
+        public void setMaxBackoff(Duration maxBackoff) {
+            this.maxBackoff = maxBackoff;
+        }
+    }
+}
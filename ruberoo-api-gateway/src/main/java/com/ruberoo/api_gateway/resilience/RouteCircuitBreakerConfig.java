@@ -0,0 +1,70 @@
+package com.ruberoo.api_gateway.resilience;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.circuitbreaker.resilience4j.ReactiveResilience4JCircuitBreakerFactory;
+import org.springframework.cloud.circuitbreaker.resilience4j.Resilience4JConfigBuilder;
+import org.springframework.cloud.client.circuitbreaker.Customizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.util.Locale;
+
+/**
+ * Circuit breaker and time limiter of each route, configured from
+ * ruberoo.gateway.resilience.{name}.* (see {@link RouteResilienceProperties}).
+ *
+ * Besides the resilience4j.circuitbreaker.* metrics (state, calls, failure rate), every
+ * state change is counted as gateway.circuit.breaker.transitions{name,from,to}.
+ */
+@Configuration
+public class RouteCircuitBreakerConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(RouteCircuitBreakerConfig.class);
+
+    @Bean
+    public Customizer<ReactiveResilience4JCircuitBreakerFactory> routeCircuitBreakers(Environment env, MeterRegistry meterRegistry) {
+        return factory -> {
+            factory.configureDefault(name -> {
+                RouteResilienceProperties properties = RouteResilienceProperties.of(env, name);
+                return new Resilience4JConfigBuilder(name)
+                        .circuitBreakerConfig(CircuitBreakerConfig.custom()
+                                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+                                .slidingWindowSize(properties.slidingWindowSize())
+                                .minimumNumberOfCalls(properties.minimumNumberOfCalls())
+                                .failureRateThreshold(properties.failureRateThreshold())
+                                .slowCallRateThreshold(properties.failureRateThreshold())
+                                .slowCallDurationThreshold(properties.slowCallDuration())
+                                .waitDurationInOpenState(properties.waitInOpenState())
+                                .build())
+                        .timeLimiterConfig(TimeLimiterConfig.custom()
+                                .timeoutDuration(properties.timeout())
+                                .build())
+                        .build();
+            });
+            factory.getCircuitBreakerRegistry().getEventPublisher()
+                    .onEntryAdded(event -> countTransitions(event.getAddedEntry(), meterRegistry));
+        };
+    }
+
+    private static void countTransitions(CircuitBreaker circuitBreaker, MeterRegistry meterRegistry) {
+        circuitBreaker.getEventPublisher().onStateTransition(event -> {
+            CircuitBreaker.State from = event.getStateTransition().getFromState();
+            CircuitBreaker.State to = event.getStateTransition().getToState();
+            logger.warn("Circuit breaker {} went from {} to {}", circuitBreaker.getName(), from, to);
+            Counter.builder("gateway.circuit.breaker.transitions")
+                    .tag("name", circuitBreaker.getName())
+                    .tag("from", from.name().toLowerCase(Locale.ROOT))
+                    .tag("to", to.name().toLowerCase(Locale.ROOT))
+                    .description("Circuit breaker state changes")
+                    .register(meterRegistry)
+                    .increment();
+        });
+    }
+}
@@ -0,0 +1,80 @@
+package com.ruberoo.api_gateway.resilience;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.factory.SpringCloudCircuitBreakerFilterFactory;
+import org.springframework.cloud.gateway.route.builder.GatewayFilterSpec;
+import org.springframework.cloud.gateway.support.RouteMetadataUtils;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Isolation of one downstream route: timeouts, a bulkhead, a circuit breaker and retries,
+ * all configured from ruberoo.gateway.resilience.{name}.* (see {@link RouteResilienceProperties}).
+ *
+ * From the outside in: the bulkhead caps requests in flight, the circuit breaker fails
+ * fast while the backend is unhealthy and bounds the whole request by the route timeout,
+ * the retry filter repeats failed idempotent attempts, and every attempt is bounded by the
+ * connect and response timeouts. Requests the breaker refuses or that time out are
+ * answered by {@link FallbackController}. ruberoo.gateway.resilience.enabled=false leaves
+ * only the timeouts.
+ */
+@Component
+public class RouteResilience {
+
+    public static final int CIRCUIT_BREAKER_ORDER = BulkheadFilter.ORDER + 1;
+
+    // Backend responses that count as failures for the circuit breaker
+    private static final Set<String> FAILURE_STATUSES = Set.of("502", "503", "504");
+
+    private final Environment env;
+    private final SpringCloudCircuitBreakerFilterFactory circuitBreakerFilterFactory;
+    private final BulkheadFilter bulkheadFilter;
+    private final RetryFilter retryFilter;
+    private final boolean enabled;
+
+    public RouteResilience(Environment env,
+                           SpringCloudCircuitBreakerFilterFactory circuitBreakerFilterFactory,
+                           BulkheadFilter bulkheadFilter,
+                           RetryFilter retryFilter,
+                           @Value("${ruberoo.gateway.resilience.enabled:true}") boolean enabled) {
+        this.env = env;
+        this.circuitBreakerFilterFactory = circuitBreakerFilterFactory;
+        this.bulkheadFilter = bulkheadFilter;
+        this.retryFilter = retryFilter;
+        this.enabled = enabled;
+    }
+
+    /**
+     * Add the bulkhead, circuit breaker and retry filters of a route.
+     *
+     * @param name Route name in the ruberoo.gateway.resilience properties, also the circuit breaker name
+     */
+    public GatewayFilterSpec apply(GatewayFilterSpec filters, String name) {
+        if (!enabled) {
+            return filters;
+        }
+        RouteResilienceProperties properties = RouteResilienceProperties.of(env, name);
+        SpringCloudCircuitBreakerFilterFactory.Config circuitBreaker = new SpringCloudCircuitBreakerFilterFactory.Config()
+                .setName(name)
+                .setFallbackUri("forward:" + FallbackController.PATH + "/" + name)
+                .setStatusCodes(FAILURE_STATUSES);
+        return filters
+                .filter(bulkheadFilter.apply(new BulkheadFilter.Config(name, properties.maxConcurrentCalls())))
+                .filter(circuitBreakerFilterFactory.apply(circuitBreaker), CIRCUIT_BREAKER_ORDER)
+                .filter(retryFilter.apply(new RetryFilter.Config(name, properties.retries(),
+                        properties.retryFirstBackoff(), properties.retryMaxBackoff())));
+    }
+
+    /**
+     * Route metadata with the connect and response timeouts of each attempt.
+     */
+    public Map<String, Object> timeouts(String name) {
+        RouteResilienceProperties properties = RouteResilienceProperties.of(env, name);
+        return Map.of(
+                RouteMetadataUtils.CONNECT_TIMEOUT_ATTR, (int) properties.connectTimeout().toMillis(),
+                RouteMetadataUtils.RESPONSE_TIMEOUT_ATTR, properties.responseTimeout().toMillis());
+    }
+}
@@ -0,0 +1,55 @@
+package com.ruberoo.api_gateway.resilience;
+
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+
+/**
+ * Resilience settings of one downstream route, read from
+ * ruberoo.gateway.resilience.{name}.* so they can be tuned per route from the Config Server.
+ *
+ * @param failureRateThreshold Percentage of failed or slow calls that opens the circuit
+ * @param slowCallDuration Calls slower than this count as slow
+ * @param slidingWindowSize Number of recent calls the failure rate is computed over
+ * @param minimumNumberOfCalls Calls needed in the window before the circuit can open
+ * @param waitInOpenState How long the circuit stays open before letting trial calls through
+ * @param timeout Overall time budget of a request, retries included
+ * @param connectTimeout Time to open a connection to a backend instance
+ * @param responseTimeout Time to receive the response headers of one attempt
+ * @param retries Extra attempts for GET and HEAD, 0 disables retries
+ * @param retryFirstBackoff Delay before the first retry, doubled (with jitter) for each next one
+ * @param retryMaxBackoff Upper bound of the delay between retries
+ * @param maxConcurrentCalls Requests the route may have in flight at once
+ */
+public record RouteResilienceProperties(float failureRateThreshold,
+                                        Duration slowCallDuration,
+                                        int slidingWindowSize,
+                                        int minimumNumberOfCalls,
+                                        Duration waitInOpenState,
+                                        Duration timeout,
+                                        Duration connectTimeout,
+                                        Duration responseTimeout,
+                                        int retries,
+                                        Duration retryFirstBackoff,
+                                        Duration retryMaxBackoff,
+                                        int maxConcurrentCalls) {
+
+    private static final String PREFIX = "ruberoo.gateway.resilience.";
+
+    public static RouteResilienceProperties of(Environment env, String name) {
+        String prefix = PREFIX + name + ".";
+        return new RouteResilienceProperties(
+                env.getProperty(prefix + "failure-rate-threshold", Float.class, 50f),
+                env.getProperty(prefix + "slow-call-duration", Duration.class, Duration.ofSeconds(2)),
+                env.getProperty(prefix + "sliding-window-size", Integer.class, 20),
+                env.getProperty(prefix + "minimum-number-of-calls", Integer.class, 10),
+                env.getProperty(prefix + "wait-in-open-state", Duration.class, Duration.ofSeconds(10)),
+                env.getProperty(prefix + "timeout", Duration.class, Duration.ofSeconds(5)),
+                env.getProperty(prefix + "connect-timeout", Duration.class, Duration.ofSeconds(1)),
+                env.getProperty(prefix + "response-timeout", Duration.class, Duration.ofSeconds(3)),
+                env.getProperty(prefix + "retries", Integer.class, 2),
+                env.getProperty(prefix + "retry-first-backoff", Duration.class, Duration.ofMillis(50)),
+                env.getProperty(prefix + "retry-max-backoff", Duration.class, Duration.ofMillis(500)),
+                env.getProperty(prefix + "max-concurrent-calls", Integer.class, 100));
+    }
+}
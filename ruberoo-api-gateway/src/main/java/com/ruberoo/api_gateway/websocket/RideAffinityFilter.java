@@ -0,0 +1,169 @@
+package com.ruberoo.api_gateway.websocket;
+
+import com.ruberoo.common.shard.RendezvousHash;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerUriTools;
+import org.springframework.cloud.client.loadbalancer.RequestData;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.DelegatingServiceInstance;
+import org.springframework.cloud.gateway.support.NotFoundException;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+
+/**
+ * Sends every connection of a ride to the same replica of an lb:// service, so the driver
+ * and the riders of a ride meet in the same in-memory STOMP broker.
+ *
+ * The ride id comes from the {rideId} path variable of the route, the X-Ride-Id handshake
+ * header or the rideId query parameter (SockJS repeats the query string of the endpoint
+ * URL on all its requests). Without one, the SockJS session id in the path keeps the
+ * requests of one SockJS session together; anything else is left to the load balancer.
+ *
+ * The replica is picked by {@link RendezvousHash} over the instances' shard-member metadata
+ * (set by the tracking service, else the instance id), the same way the tracking service
+ * assigns rides to its replicas; so a ride's connections land on the replica owning its
+ * state, and a replica joining or leaving only moves the rides it gains or loses. Runs
+ * right before ReactiveLoadBalancerClientFilter, which skips requests that already have a URL.
+ * Long-lived connections are deliberately not reported as load balancer responses, so
+ * they do not count as (very slow) requests for the latency-aware balancer.
+ */
+@Component
+public class RideAffinityFilter extends AbstractGatewayFilterFactory<RideAffinityFilter.Config> {
+
+    public static final int ORDER = ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER - 1;
+
+    public static final String RIDE_ID_VARIABLE = "rideId";
+    public static final String RIDE_ID_HEADER = "X-Ride-Id";
+    public static final String RIDE_ID_PARAM = "rideId";
+
+    // Eureka metadata entry with the stable id a tracking-service replica shards rides by
+    public static final String MEMBER_METADATA_KEY = "shard-member";
+
+    private final LoadBalancerClientFactory clientFactory;
+    private final MeterRegistry meterRegistry;
+
+    public RideAffinityFilter(LoadBalancerClientFactory clientFactory, MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.clientFactory = clientFactory;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        Counter byRide = affinityCounter("ride");
+        Counter bySession = affinityCounter("session");
+        Counter none = affinityCounter("none");
+
+        return new OrderedGatewayFilter((exchange, chain) -> {
+            URI url = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR);
+            if (url == null || !"lb".equals(url.getScheme())) {
+                return chain.filter(exchange);
+            }
+            String rideId = rideId(exchange);
+            String key = rideId != null ? rideId : sockJsSession(exchange.getRequest(), config.getSockJsPrefix());
+            if (key == null) {
+                none.increment();
+                return chain.filter(exchange);
+            }
+            (rideId != null ? byRide : bySession).increment();
+
+            String serviceId = url.getHost();
+            ServiceInstanceListSupplier supplier = clientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class)
+                    .getIfAvailable();
+            if (supplier == null) {
+                return Mono.error(NotFoundException.create(false, "No servers available for service: " + serviceId));
+            }
+            ServerWebExchangeUtils.addOriginalRequestUrl(exchange, url);
+            return supplier.get(new DefaultRequest<>(new RequestDataContext(new RequestData(exchange.getRequest()))))
+                    .next()
+                    .mapNotNull(instances -> RendezvousHash.owner(instances, RideAffinityFilter::memberHash,
+                            RendezvousHash.hash(key)))
+                    .switchIfEmpty(Mono.error(() -> NotFoundException.create(false, "No servers available for service: " + serviceId)))
+                    .flatMap(instance -> {
+                        // Same URL as ReactiveLoadBalancerClientFilter would build for the instance
+                        String overrideScheme = instance.isSecure() ? "https" : "http";
+                        if (exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_SCHEME_PREFIX_ATTR) != null) {
+                            overrideScheme = url.getScheme();
+                        }
+                        URI requestUrl = LoadBalancerUriTools.reconstructURI(
+                                new DelegatingServiceInstance(instance, overrideScheme), exchange.getRequest().getURI());
+                        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR, requestUrl);
+                        return chain.filter(exchange);
+                    });
+        }, ORDER);
+    }
+
+    private static String rideId(ServerWebExchange exchange) {
+        String rideId = ServerWebExchangeUtils.getUriTemplateVariables(exchange).get(RIDE_ID_VARIABLE);
+        if (rideId == null) {
+            rideId = exchange.getRequest().getHeaders().getFirst(RIDE_ID_HEADER);
+        }
+        if (rideId == null) {
+            rideId = exchange.getRequest().getQueryParams().getFirst(RIDE_ID_PARAM);
+        }
+        return rideId == null || rideId.isBlank() ? null : rideId;
+    }
+
+    // SockJS requests are {prefix}/{server-id}/{session-id}/{transport}
+    private static String sockJsSession(ServerHttpRequest request, String prefix) {
+        String path = request.getURI().getRawPath();
+        if (!path.startsWith(prefix + "/")) {
+            return null;
+        }
+        String[] segments = path.substring(prefix.length() + 1).split("/");
+        return segments.length == 3 ? segments[1] : null;
+    }
+
+    // Ids are stable across registry refreshes, so an instance keeps its rides
+    private static long memberHash(ServiceInstance instance) {
+        String member = instance.getMetadata().get(MEMBER_METADATA_KEY);
+        if (member == null) {
+            member = instance.getInstanceId() != null ? instance.getInstanceId() : instance.getHost() + ":" + instance.getPort();
+        }
+        return RendezvousHash.hash(member);
+    }
+
+    private Counter affinityCounter(String key) {
+        return Counter.builder("gateway.websocket.affinity")
+                .tag("key", key)
+                .description("Tracking WebSocket/SockJS requests routed by ride id, by SockJS session or by the load balancer")
+                .register(meterRegistry);
+    }
+
+    public static class Config {
+
+        private String sockJsPrefix = "/ws/tracking";
+
+        public Config() {
+        }
+
+        /**
+         * @param sockJsPrefix Path of the SockJS endpoint on the backend, after any rewrite
+         */
+        public Config(String sockJsPrefix) {
+            setSockJsPrefix(sockJsPrefix);
+        }
+
+        public String getSockJsPrefix() {
+            return sockJsPrefix;
+        }
+
+        public void setSockJsPrefix(String sockJsPrefix) {
+            this.sockJsPrefix = sockJsPrefix;
+        }
+    }
+}
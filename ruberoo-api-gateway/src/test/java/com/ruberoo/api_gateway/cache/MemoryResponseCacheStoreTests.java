@@ -0,0 +1,59 @@
+package com.ruberoo.api_gateway.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MemoryResponseCacheStoreTests {
+
+    private static final Duration TTL = Duration.ofMinutes(1);
+
+    @Test
+    void writeInvalidatesResponsesRequestedBeforeIt() throws InterruptedException {
+        MemoryResponseCacheStore store = new MemoryResponseCacheStore(new SimpleMeterRegistry(), DataSize.ofMegabytes(1));
+        long before = System.currentTimeMillis();
+        store.put("rides:/api/rides/1|alice", "rides:/api/rides/1", response(10, before), TTL).block();
+        store.put("rides:/api/rides/2|alice", "rides:/api/rides/2", response(10, before), TTL).block();
+        assertNotNull(store.get("rides:/api/rides/1|alice", "rides:/api/rides/1").block());
+
+        Thread.sleep(2);
+        store.invalidate("rides:/api/rides/1", TTL).block();
+
+        assertNull(store.get("rides:/api/rides/1|alice", "rides:/api/rides/1").block());
+        assertNotNull(store.get("rides:/api/rides/2|alice", "rides:/api/rides/2").block());
+
+        // A response whose request was forwarded before the write completed is not stored either
+        store.put("rides:/api/rides/1|bob", "rides:/api/rides/1", response(10, before), TTL).block();
+        assertNull(store.get("rides:/api/rides/1|bob", "rides:/api/rides/1").block());
+
+        Thread.sleep(2);
+        store.put("rides:/api/rides/1|bob", "rides:/api/rides/1", response(10, System.currentTimeMillis()), TTL).block();
+        assertNotNull(store.get("rides:/api/rides/1|bob", "rides:/api/rides/1").block());
+    }
+
+    @Test
+    void staysWithinItsMemoryBudget() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MemoryResponseCacheStore store = new MemoryResponseCacheStore(registry, DataSize.ofKilobytes(64));
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 1000; i++) {
+            store.put("users:/api/users/" + i, "users:/api/users/" + i, response(1024, now), TTL).block();
+        }
+
+        double memory = registry.get("gateway.response.cache.memory").gauge().value();
+        assertTrue(memory <= 64 * 1024, "memory " + memory);
+        assertEquals(1000 - registry.get("gateway.response.cache.evictions").counter().count(),
+                registry.get("gateway.response.cache.size").gauge().value());
+    }
+
+    private static CachedResponse response(int size, long requestedAtMillis) {
+        return new CachedResponse("application/json", "\"etag\"", new byte[size], requestedAtMillis);
+    }
+}
@@ -0,0 +1,111 @@
+package com.ruberoo.api_gateway.cache;
+
+import com.ruberoo.api_gateway.jwt.JwtValidationFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Conditional requests, the per-user cache key and invalidation by writes, against the
+ * in-process store and a backend that answers with the path and the user it was called for.
+ */
+class ResponseCacheFilterTests {
+
+    private final AtomicInteger backendCalls = new AtomicInteger();
+
+    private final GatewayFilterChain backend = exchange -> {
+        backendCalls.incrementAndGet();
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.OK);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        String body = "{\"path\":\"" + exchange.getRequest().getPath() + "\",\"user\":\""
+                + exchange.getAttribute(JwtValidationFilter.AUTH_USER_ATTRIBUTE) + "\"}";
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body.getBytes(StandardCharsets.UTF_8))));
+    };
+
+    private final GatewayFilter filter = new ResponseCacheFilter(
+            new MemoryResponseCacheStore(new SimpleMeterRegistry(), DataSize.ofMegabytes(1)),
+            new SimpleMeterRegistry(), true, DataSize.ofKilobytes(256))
+            .apply(new ResponseCacheFilter.Config(Duration.ofMinutes(1), "/api/rides/{id}"));
+
+    @Test
+    void matchingIfNoneMatchIsAnsweredWithNotModified() {
+        MockServerWebExchange first = send(MockServerHttpRequest.get("/api/rides/1"), "alice");
+        String etag = first.getResponse().getHeaders().getETag();
+        assertNotNull(etag);
+        assertEquals("MISS", first.getResponse().getHeaders().getFirst("X-Cache"));
+
+        MockServerWebExchange revalidated = send(MockServerHttpRequest.get("/api/rides/1").ifNoneMatch(etag), "alice");
+        assertEquals(HttpStatus.NOT_MODIFIED, revalidated.getResponse().getStatusCode());
+        assertEquals("HIT", revalidated.getResponse().getHeaders().getFirst("X-Cache"));
+        assertEquals(etag, revalidated.getResponse().getHeaders().getETag());
+        assertEquals("", revalidated.getResponse().getBodyAsString().defaultIfEmpty("").block());
+        assertEquals(1, backendCalls.get());
+
+        // Not cached for bob yet: forwarded, and the backend's body is still answered with 304
+        MockServerWebExchange forwarded = send(MockServerHttpRequest.get("/api/rides/1").ifNoneMatch("*"), "bob");
+        assertEquals(HttpStatus.NOT_MODIFIED, forwarded.getResponse().getStatusCode());
+        assertEquals(2, backendCalls.get());
+    }
+
+    @Test
+    void responsesAreCachedPerUserAndAcceptHeader() {
+        String alice = body(send(MockServerHttpRequest.get("/api/rides/1"), "alice"));
+        String bob = body(send(MockServerHttpRequest.get("/api/rides/1"), "bob"));
+        assertEquals(2, backendCalls.get());
+
+        MockServerWebExchange cached = send(MockServerHttpRequest.get("/api/rides/1"), "alice");
+        assertEquals("HIT", cached.getResponse().getHeaders().getFirst("X-Cache"));
+        assertEquals(alice, body(cached));
+        assertEquals(bob, body(send(MockServerHttpRequest.get("/api/rides/1"), "bob")));
+        assertEquals(2, backendCalls.get());
+
+        send(MockServerHttpRequest.get("/api/rides/1").accept(MediaType.APPLICATION_NDJSON), "alice");
+        assertEquals(3, backendCalls.get());
+    }
+
+    @Test
+    void writesInvalidateThePathForEveryUser() {
+        for (HttpMethod write : List.of(HttpMethod.POST, HttpMethod.PUT, HttpMethod.DELETE)) {
+            send(MockServerHttpRequest.get("/api/rides/1"), "alice");
+            send(MockServerHttpRequest.get("/api/rides/2"), "alice");
+            int calls = backendCalls.get();
+
+            send(MockServerHttpRequest.method(write, "/api/rides/1"), "bob");
+            assertEquals(calls + 1, backendCalls.get(), write.name());
+
+            MockServerWebExchange refetched = send(MockServerHttpRequest.get("/api/rides/1"), "alice");
+            assertEquals("MISS", refetched.getResponse().getHeaders().getFirst("X-Cache"), write.name());
+            MockServerWebExchange other = send(MockServerHttpRequest.get("/api/rides/2"), "alice");
+            assertEquals("HIT", other.getResponse().getHeaders().getFirst("X-Cache"), write.name());
+        }
+    }
+
+    private MockServerWebExchange send(MockServerHttpRequest.BaseBuilder<?> request, String user) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        exchange.getAttributes().put(JwtValidationFilter.AUTH_USER_ATTRIBUTE, user);
+        filter.filter(exchange, backend).block();
+        return exchange;
+    }
+
+    private static String body(MockServerWebExchange exchange) {
+        return exchange.getResponse().getBodyAsString().block();
+    }
+}
@@ -0,0 +1,65 @@
+package com.ruberoo.api_gateway.config;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.net.URI;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The gateway in front of a local stub of tracking-service, reached through the discovery
+ * locator route /tracking-service/**, answering every request with the path it got.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.cloud.config.enabled=false",
+        "eureka.client.enabled=false",
+        "ruberoo.jwt.secret-key=dummy-secret-key-for-testing",
+        "ruberoo.jwt.default-policy=public"})
+class InternalEndpointRoutingTests {
+
+    private static final DisposableServer TRACKING = HttpServer.create()
+            .port(0)
+            .handle((request, response) -> response.sendString(Mono.just(request.fullPath())))
+            .bindNow();
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void tracking(DynamicPropertyRegistry registry) {
+        registry.add("spring.cloud.discovery.client.simple.instances.[TRACKING-SERVICE][0].uri",
+                () -> "http://localhost:" + TRACKING.port());
+    }
+
+    @AfterAll
+    static void stopTracking() {
+        TRACKING.disposeNow();
+    }
+
+    @Test
+    void internalEndpointsAreNotRouted() {
+        assertEquals("200 /api/tracking/rides/1/location", get("/tracking-service/api/tracking/rides/1/location"));
+
+        assertEquals("404 ", get("/tracking-service/internal/tracking/rides/1/location"));
+        assertEquals("404 ", get("/tracking-service/%69nternal/tracking/rides/1/location"));
+        assertEquals("404 ", get("/internal/tracking/rides/1/location"));
+    }
+
+    private String get(String path) {
+        // As sent, without encoding the path again
+        return WebClient.create().get().uri(URI.create("http://localhost:" + port + path))
+                .exchangeToMono(response -> response.bodyToMono(String.class).defaultIfEmpty("")
+                        .map(body -> response.statusCode().value() + " " + body))
+                .block(Duration.ofSeconds(5));
+    }
+}
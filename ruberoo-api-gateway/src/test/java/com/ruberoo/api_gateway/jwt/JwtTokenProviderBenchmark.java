@@ -0,0 +1,70 @@
+package com.ruberoo.api_gateway.jwt;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of token verification, in tokens/s: with the parser built once
+ * ({@link JwtTokenProvider#parseClaims}) against decoding the secret and building the key and
+ * parser for every token, as the provider used to. Not run by the build; after
+ * {@code mvn -pl ruberoo-api-gateway test-compile dependency:build-classpath -Dmdep.outputFile=target/test-classpath.txt},
+ * run from ruberoo-api-gateway with
+ * {@code java -cp target/test-classes:target/classes:$(cat target/test-classpath.txt) com.ruberoo.api_gateway.jwt.JwtTokenProviderBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtTokenProviderBenchmark {
+
+    private JwtTokenProvider provider;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        provider = new JwtTokenProvider(new MockEnvironment()
+                .withProperty(JwtTokenProvider.SECRET_KEY_PROPERTY, JwtValidationFilterTests.SECRET));
+        token = JwtValidationFilterTests.token("alice");
+    }
+
+    @Benchmark
+    public Claims verifyWithPrebuiltParser() {
+        return provider.parseClaims(token);
+    }
+
+    @Benchmark
+    public Claims verifyRebuildingKeyPerToken() {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(Decoders.BASE64.decode(JwtValidationFilterTests.SECRET)))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtTokenProviderBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
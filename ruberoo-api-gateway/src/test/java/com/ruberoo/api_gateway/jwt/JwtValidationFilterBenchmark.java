@@ -0,0 +1,72 @@
+package com.ruberoo.api_gateway.jwt;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of the JWT filter's overhead per request: a public path, and an
+ * authenticated request whose token is already in the verified-claims cache (the
+ * steady state). Not run by the build; after {@code mvn -pl ruberoo-api-gateway test-compile
+ * dependency:build-classpath -Dmdep.outputFile=target/test-classpath.txt}, run from
+ * ruberoo-api-gateway with
+ * {@code java -cp target/test-classes:target/classes:$(cat target/test-classpath.txt) com.ruberoo.api_gateway.jwt.JwtValidationFilterBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtValidationFilterBenchmark {
+
+    private static final GatewayFilterChain DOWNSTREAM = exchange -> Mono.empty();
+
+    private JwtValidationFilter filter;
+    private MockServerWebExchange publicRequest;
+    private MockServerWebExchange authenticatedRequest;
+
+    @Setup
+    public void setUp() {
+        filter = JwtValidationFilterTests.filter();
+        publicRequest = MockServerWebExchange.from(MockServerHttpRequest.post("/api/users/auth/login"));
+        authenticatedRequest = MockServerWebExchange.from(MockServerHttpRequest.get("/api/rides/42")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + JwtValidationFilterTests.token("alice")));
+        // Verify the token once, as the first request with it would
+        filter.filter(authenticatedRequest, DOWNSTREAM).block();
+    }
+
+    @Benchmark
+    public Mono<Void> publicPath() {
+        return filter.filter(publicRequest, DOWNSTREAM);
+    }
+
+    @Benchmark
+    public Mono<Void> authenticatedCachedToken() {
+        return filter.filter(authenticatedRequest, DOWNSTREAM);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtValidationFilterBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
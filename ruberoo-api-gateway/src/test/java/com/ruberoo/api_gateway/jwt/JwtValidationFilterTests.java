@@ -0,0 +1,240 @@
+package com.ruberoo.api_gateway.jwt;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Public-path rules, route auth policies and the identity the JWT filter passes to the
+ * downstream services.
+ */
+class JwtValidationFilterTests {
+
+    static final String SECRET = Base64.getEncoder().encodeToString("0123456789abcdef".repeat(4).getBytes());
+    static final List<String> PUBLIC_PATHS = List.of(JwtValidationFilter.DEFAULT_PUBLIC_PATHS.split(","));
+
+    @Test
+    void mostSpecificRuleWins() {
+        PathRules<String> rules = PathRules.<String>builder()
+                .add("/api/**", "api")
+                .add("GET /api/rides/{id}", "ride")
+                .add("/api/rides/*/location", "location")
+                .add("POST,PUT /api/rides/**", "write")
+                .add("/api/rides/history", "history")
+                .build();
+
+        assertEquals("ride", rules.match(HttpMethod.GET, "/api/rides/42"));
+        assertEquals("write", rules.match(HttpMethod.POST, "/api/rides/42"));
+        assertEquals("api", rules.match(HttpMethod.DELETE, "/api/rides/42"));
+        assertEquals("history", rules.match(HttpMethod.GET, "/api/rides/history"));
+        assertEquals("location", rules.match(HttpMethod.GET, "/api/rides/42/location"));
+        // "**" also matches the path it is attached to
+        assertEquals("write", rules.match(HttpMethod.PUT, "/api/rides"));
+        assertEquals("api", rules.match(HttpMethod.valueOf("PROPFIND"), "/api/rides/42"));
+        assertNull(rules.match(HttpMethod.GET, "/apix/rides"));
+        assertNull(rules.match(HttpMethod.GET, "/"));
+        assertThrows(IllegalArgumentException.class, () -> PathRules.builder().add("/api/**/rides", "x"));
+    }
+
+    @Test
+    void defaultPublicPathsMatchThePreviousChecks() {
+        PathRules.Builder<Boolean> builder = PathRules.builder();
+        PUBLIC_PATHS.forEach(rule -> builder.add(rule, Boolean.TRUE));
+        PathRules<Boolean> rules = builder.build();
+
+        assertEquals(Boolean.TRUE, rules.match(HttpMethod.POST, "/api/users/auth/login"));
+        assertEquals(Boolean.TRUE, rules.match(HttpMethod.GET, "/api/users/auth/refresh"));
+        assertEquals(Boolean.TRUE, rules.match(HttpMethod.POST, "/api/users"));
+        assertEquals(Boolean.TRUE, rules.match(HttpMethod.POST, "/api/users/register"));
+        assertEquals(Boolean.TRUE, rules.match(HttpMethod.GET, "/actuator/health"));
+        assertNull(rules.match(HttpMethod.GET, "/api/users/42"));
+        assertNull(rules.match(HttpMethod.DELETE, "/api/users/42"));
+        assertNull(rules.match(HttpMethod.GET, "/api/rides/7"));
+    }
+
+    @Test
+    void verifiedSubjectReachesDownstreamAndClientValueIsReplaced() {
+        JwtValidationFilter filter = filter();
+        AtomicReference<ServerWebExchange> forwarded = new AtomicReference<>();
+        GatewayFilterChain downstream = exchange -> {
+            forwarded.set(exchange);
+            return Mono.empty();
+        };
+
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/rides/7")
+                .header(HttpHeaders.AUTHORIZATION, "bearer " + token("alice"))
+                .header(JwtValidationFilter.AUTH_USER_HEADER, "mallory"));
+        filter.filter(exchange, downstream).block();
+        assertEquals(List.of("alice"), forwarded.get().getRequest().getHeaders().get(JwtValidationFilter.AUTH_USER_HEADER));
+        assertEquals("alice", forwarded.get().getAttribute(JwtValidationFilter.AUTH_USER_ATTRIBUTE));
+
+        // Public paths do not require a token, and do not pass on a spoofed identity either
+        MockServerWebExchange login = MockServerWebExchange.from(MockServerHttpRequest.post("/api/users/auth/login")
+                .header(JwtValidationFilter.AUTH_USER_HEADER, "mallory"));
+        filter.filter(login, downstream).block();
+        assertNull(forwarded.get().getRequest().getHeaders().get(JwtValidationFilter.AUTH_USER_HEADER));
+    }
+
+    @Test
+    void rejectsMissingAndInvalidTokens() {
+        JwtValidationFilter filter = filter();
+        GatewayFilterChain downstream = exchange -> Mono.error(new AssertionError("must not be forwarded"));
+
+        MockServerWebExchange missing = MockServerWebExchange.from(MockServerHttpRequest.get("/api/rides/7"));
+        filter.filter(missing, downstream).block();
+        assertEquals(HttpStatus.UNAUTHORIZED, missing.getResponse().getStatusCode());
+
+        String token = token("alice");
+        MockServerWebExchange tampered = MockServerWebExchange.from(MockServerHttpRequest.get("/api/rides/7")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token.substring(0, token.length() - 2) + "éA"));
+        filter.filter(tampered, downstream).block();
+        assertEquals(HttpStatus.UNAUTHORIZED, tampered.getResponse().getStatusCode());
+    }
+
+    @Test
+    void routePolicyDecidesWhoMayCallTheRoute() {
+        JwtValidationFilter filter = filter();
+        AtomicInteger forwarded = new AtomicInteger();
+        GatewayFilterChain downstream = exchange -> Mono.fromRunnable(forwarded::incrementAndGet);
+
+        // Discovery locator routes carry no policy of ours and fall back to the default one
+        assertEquals(HttpStatus.UNAUTHORIZED, status(filter, downstream, route(null), "/user-service/api/users/1", null));
+        assertEquals(HttpStatus.UNAUTHORIZED, status(filter, downstream, null, "/api/rides/1", null));
+        assertEquals(0, forwarded.get());
+
+        assertNull(status(filter, downstream, route("public"), "/api/tracking/rides/1/location", null));
+        assertNull(status(filter, downstream, route(AuthPolicy.AUTHENTICATED), "/api/rides/1", token("alice")));
+        assertEquals(2, forwarded.get());
+
+        // Role-restricted: roles as a JSON array or a comma-separated string
+        Object admins = "roles:ADMIN, SUPPORT";
+        assertEquals(HttpStatus.FORBIDDEN, status(filter, downstream, route(admins), "/api/rides/1", token("alice")));
+        assertNull(status(filter, downstream, route(admins), "/api/rides/1", token("bob", List.of("RIDER", "SUPPORT"))));
+        assertNull(status(filter, downstream, route(AuthPolicy.roles("ADMIN")), "/api/rides/1", token("carol", "ADMIN,DRIVER")));
+        assertEquals(4, forwarded.get());
+
+        // Public paths are open whatever the route says
+        assertNull(status(filter, downstream, route(admins), "/api/users/auth/login", null));
+        assertEquals(5, forwarded.get());
+        assertThrows(IllegalArgumentException.class, () -> AuthPolicy.parse("roles:"));
+        assertThrows(IllegalArgumentException.class, () -> AuthPolicy.parse("admin"));
+    }
+
+    @Test
+    void checksTheExchangeOnlyOncePerPolicy() {
+        JwtValidationFilter filter = filter();
+        AtomicReference<ServerWebExchange> forwarded = new AtomicReference<>();
+        GatewayFilterChain downstream = exchange -> Mono.fromRunnable(() -> forwarded.set(exchange));
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/rides/7")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token("alice")));
+        exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route("authenticated"));
+        filter.filter(exchange, downstream).block();
+
+        // The same exchange through the filter again, as after a forward: to another route; it
+        // is not checked again (it would fail without the token)
+        ServerWebExchange again = forwarded.getAndSet(null).mutate()
+                .request(builder -> builder.headers(headers -> headers.remove(HttpHeaders.AUTHORIZATION)))
+                .build();
+        filter.filter(again, downstream).block();
+        assertEquals(List.of("alice"), forwarded.get().getRequest().getHeaders().get(JwtValidationFilter.AUTH_USER_HEADER));
+        assertNull(exchange.getResponse().getStatusCode());
+
+        // ...but it is against a stricter policy than the one it was let through with
+        forwarded.set(null);
+        again.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route("roles:ADMIN"));
+        filter.filter(again, downstream).block();
+        assertNull(forwarded.get());
+        assertEquals(HttpStatus.UNAUTHORIZED, exchange.getResponse().getStatusCode());
+    }
+
+    @Test
+    void webSocketRoutesAcceptTheTokenAsAQueryParameter() {
+        JwtValidationFilter filter = filter();
+        AtomicReference<ServerWebExchange> forwarded = new AtomicReference<>();
+        GatewayFilterChain downstream = exchange -> Mono.fromRunnable(() -> forwarded.set(exchange));
+        Route webSocketRoute = Route.async().id("ws").uri("lb://TRACKING-SERVICE")
+                .asyncPredicate(exchange -> Mono.just(true))
+                .metadata(JwtValidationFilter.TOKEN_PARAM_METADATA_KEY, "access_token")
+                .build();
+
+        MockServerWebExchange handshake = MockServerWebExchange.from(
+                MockServerHttpRequest.get("/ws/tracking-binary").queryParam("access_token", token("alice")));
+        handshake.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, webSocketRoute);
+        filter.filter(handshake, downstream).block();
+        assertEquals(List.of("alice"), forwarded.get().getRequest().getHeaders().get(JwtValidationFilter.AUTH_USER_HEADER));
+
+        // Other routes only take the Authorization header
+        forwarded.set(null);
+        MockServerWebExchange rest = MockServerWebExchange.from(
+                MockServerHttpRequest.get("/api/rides/7").queryParam("access_token", token("alice")));
+        rest.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route(null));
+        filter.filter(rest, downstream).block();
+        assertNull(forwarded.get());
+        assertEquals(HttpStatus.UNAUTHORIZED, rest.getResponse().getStatusCode());
+    }
+
+    private static HttpStatusCode status(JwtValidationFilter filter, GatewayFilterChain downstream,
+                                         Route route, String path, String token) {
+        MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.post(path);
+        if (token != null) {
+            request.header(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+        }
+        MockServerWebExchange exchange = MockServerWebExchange.from(request);
+        if (route != null) {
+            exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, route);
+        }
+        filter.filter(exchange, downstream).block();
+        return exchange.getResponse().getStatusCode();
+    }
+
+    private static Route route(Object policy) {
+        Route.AsyncBuilder route = Route.async().id("test").uri("http://localhost").asyncPredicate(exchange -> Mono.just(true));
+        if (policy != null) {
+            route.metadata(AuthPolicy.METADATA_KEY, policy);
+        }
+        return route.build();
+    }
+
+    static JwtValidationFilter filter() {
+        MockEnvironment env = new MockEnvironment().withProperty(JwtTokenProvider.SECRET_KEY_PROPERTY, SECRET);
+        JwtClaimsCache cache = new JwtClaimsCache(new JwtTokenProvider(env), new SimpleMeterRegistry(), true, 1000, Duration.ofMinutes(5));
+        return new JwtValidationFilter(cache, PUBLIC_PATHS, "authenticated", "roles");
+    }
+
+    static String token(String subject) {
+        return token(subject, null);
+    }
+
+    static String token(String subject, Object roles) {
+        return Jwts.builder()
+                .setSubject(subject)
+                .claim("roles", roles)
+                .setExpiration(new Date(System.currentTimeMillis() + 3_600_000))
+                .signWith(Keys.hmacShaKeyFor(Base64.getDecoder().decode(SECRET)))
+                .compact();
+    }
+}
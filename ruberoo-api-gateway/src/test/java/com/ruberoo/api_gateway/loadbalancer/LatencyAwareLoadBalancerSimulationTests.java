@@ -0,0 +1,205 @@
+package com.ruberoo.api_gateway.loadbalancer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.LongPredicate;
+import java.util.function.LongUnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the latency-aware balancer against simulated backends on a virtual clock: a request
+ * arrives every millisecond, is sent where the balancer chooses and completes after the
+ * latency of that backend at that moment, feeding the stats as LatencyTrackingFilter does.
+ */
+class LatencyAwareLoadBalancerSimulationTests {
+
+    private static final String SERVICE = "ride-management-service";
+    private static final long MS = 1_000_000L;
+    private static final long SECOND = 1000 * MS;
+
+    private static final LatencyAwareProperties PROPERTIES = new LatencyAwareProperties(
+            Duration.ofSeconds(2), Duration.ofSeconds(30), 5, Duration.ofSeconds(5), 50);
+
+    @Test
+    void replicaInAGcPauseGetsLittleTrafficAndWinsItBackAfterwards() {
+        Simulation simulation = new Simulation();
+        simulation.add(backend("a", now -> 10 * MS));
+        simulation.add(backend("b", now -> 10 * MS));
+        // 500ms responses from 10s to 12s
+        simulation.add(backend("c", now -> now >= 10 * SECOND && now < 12 * SECOND ? 500 * MS : 10 * MS));
+
+        simulation.runUntil(10 * SECOND);
+        assertShare(simulation.shareOf("c"), 0.25, 0.42);
+
+        simulation.runUntil(14 * SECOND);
+        // Round-robin would have sent a third of these to the paused replica
+        assertShare(simulation.shareOf("c"), 0, 0.02);
+
+        simulation.runUntil(25 * SECOND);
+        simulation.runUntil(35 * SECOND);
+        assertShare(simulation.shareOf("c"), 0.25, 0.42);
+    }
+
+    @Test
+    void slowerReplicaGetsLessTrafficThanRoundRobinWould() {
+        Simulation simulation = new Simulation();
+        simulation.add(backend("a", now -> 10 * MS));
+        simulation.add(backend("b", now -> 10 * MS));
+        simulation.add(backend("noisy", now -> 60 * MS));
+
+        simulation.runUntil(20 * SECOND);
+        assertShare(simulation.shareOf("noisy"), 0, 0.15);
+        assertTrue(simulation.meanLatency() < 20 * MS, "mean latency " + simulation.meanLatency() / MS + "ms");
+    }
+
+    @Test
+    void failingReplicaIsEjectedThenProbedAgainWithSlowStart() {
+        Simulation simulation = new Simulation();
+        simulation.add(backend("a", now -> 10 * MS));
+        simulation.add(backend("b", now -> 10 * MS));
+        // Fails fast from 5s to 15s, then recovers
+        LongPredicate failing = now -> now >= 5 * SECOND && now < 15 * SECOND;
+        simulation.add(new Backend(new DefaultServiceInstance("c", SERVICE, "c", 8080, false),
+                now -> failing.test(now) ? 2 * MS : 10 * MS, failing));
+
+        simulation.runUntil(5 * SECOND);
+        simulation.runUntil(10 * SECOND);
+        // Five failures in a row, then out for 5s: it served little more than those
+        assertTrue(simulation.served("c") < 20, "served " + simulation.served("c"));
+        assertEquals(1, simulation.ejections());
+        assertTrue(simulation.tracker.stats(SERVICE, simulation.instance("c"), simulation.now).ejected(simulation.now));
+
+        // Probed at 10s, failing again: ejected for twice as long
+        simulation.runUntil(15 * SECOND);
+        assertEquals(2, simulation.ejections());
+
+        // Back at 20s, ramping up over the slow-start window rather than taking a third at once
+        simulation.runUntil(20 * SECOND);
+        simulation.runUntil(25 * SECOND);
+        assertShare(simulation.shareOf("c"), 0.01, 0.2);
+        simulation.runUntil(55 * SECOND);
+        simulation.runUntil(65 * SECOND);
+        assertShare(simulation.shareOf("c"), 0.25, 0.42);
+    }
+
+    @Test
+    void neverEjectsMoreThanMaxEjectionPercent() {
+        Simulation simulation = new Simulation();
+        simulation.add(new Backend(new DefaultServiceInstance("a", SERVICE, "a", 8080, false), now -> 10 * MS, now -> true));
+        simulation.add(new Backend(new DefaultServiceInstance("b", SERVICE, "b", 8080, false), now -> 10 * MS, now -> true));
+
+        simulation.runUntil(3 * SECOND);
+        // One of the two may be ejected (50%), the other keeps serving
+        assertEquals(1, simulation.ejections());
+        assertTrue(simulation.served("a") + simulation.served("b") > 1000);
+    }
+
+    @Test
+    void newInstanceRampsUpOverSlowStart() {
+        Simulation simulation = new Simulation();
+        simulation.add(backend("a", now -> 10 * MS));
+        simulation.add(backend("b", now -> 10 * MS));
+        simulation.runUntil(40 * SECOND);
+
+        simulation.add(backend("new", now -> 10 * MS));
+        simulation.runUntil(43 * SECOND);
+        assertShare(simulation.shareOf("new"), 0, 0.15);
+        simulation.runUntil(70 * SECOND);
+        simulation.runUntil(80 * SECOND);
+        assertShare(simulation.shareOf("new"), 0.25, 0.42);
+    }
+
+    private static void assertShare(double share, double min, double max) {
+        assertTrue(share >= min && share <= max, "share " + share + " not in [" + min + ", " + max + "]");
+    }
+
+    private static Backend backend(String host, LongUnaryOperator latency) {
+        return new Backend(new DefaultServiceInstance(host, SERVICE, host, 8080, false), latency, now -> false);
+    }
+
+    private record Backend(ServiceInstance instance, LongUnaryOperator latency, LongPredicate failing) {
+    }
+
+    private record Pending(long completesAt, long startedAt, boolean failed, InstanceStats stats) {
+    }
+
+    private static final class Simulation {
+
+        final LatencyTrackingFilter tracker = new LatencyTrackingFilter();
+        final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        final LatencyAwareLoadBalancer balancer;
+        final List<Backend> backends = new ArrayList<>();
+        final PriorityQueue<Pending> pending = new PriorityQueue<>(Comparator.comparingLong(Pending::completesAt));
+        // Requests and latency per instance since the last runUntil
+        final Map<String, Integer> served = new HashMap<>();
+        long requests;
+        long totalLatency;
+        long now;
+
+        Simulation() {
+            // Instances are passed to choose(List) directly, no supplier needed
+            balancer = new LatencyAwareLoadBalancer(null, SERVICE, PROPERTIES, tracker, meterRegistry, () -> now);
+        }
+
+        void add(Backend backend) {
+            backends.add(backend);
+        }
+
+        void runUntil(long end) {
+            served.clear();
+            requests = 0;
+            totalLatency = 0;
+            List<ServiceInstance> instances = backends.stream().map(Backend::instance).toList();
+            while (now < end) {
+                now += MS;
+                while (!pending.isEmpty() && pending.peek().completesAt() <= now) {
+                    Pending done = pending.poll();
+                    done.stats().recordResponse(done.completesAt(), done.completesAt() - done.startedAt(),
+                            done.failed(), PROPERTIES.decayTime().toNanos());
+                    done.stats().requestFinished();
+                }
+                ServiceInstance chosen = balancer.choose(instances).getServer();
+                Backend backend = backends.stream().filter(b -> b.instance() == chosen).findFirst().orElseThrow();
+                InstanceStats stats = tracker.stats(SERVICE, chosen, now);
+                long latency = backend.latency().applyAsLong(now);
+                stats.requestStarted();
+                pending.add(new Pending(now + latency, now, backend.failing().test(now), stats));
+                served.merge(chosen.getHost(), 1, Integer::sum);
+                requests++;
+                totalLatency += latency;
+            }
+        }
+
+        ServiceInstance instance(String host) {
+            return backends.stream().map(Backend::instance).filter(i -> i.getHost().equals(host)).findFirst().orElseThrow();
+        }
+
+        int served(String host) {
+            return served.getOrDefault(host, 0);
+        }
+
+        double shareOf(String host) {
+            return (double) served(host) / requests;
+        }
+
+        double meanLatency() {
+            return (double) totalLatency / requests;
+        }
+
+        int ejections() {
+            return (int) meterRegistry.counter("gateway.lb.ejections", "service", SERVICE).count();
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.ruberoo.api_gateway.loadbalancer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The gateway in front of three local stub replicas of one service, reached through its
+ * discovery locator route: a fast one, a slow one and one answering 503.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.cloud.config.enabled=false",
+        "eureka.client.enabled=false",
+        "ruberoo.jwt.secret-key=dummy-secret-key-for-testing",
+        "ruberoo.jwt.default-policy=public",
+        "ruberoo.gateway.load-balancer.stub-service.strategy=latency-aware",
+        "ruberoo.gateway.load-balancer.stub-service.slow-start=0s"})
+class LatencyAwareRoutingTests {
+
+    private static final DisposableServer FAST = stub("fast", Duration.ZERO, 200);
+    private static final DisposableServer SLOW = stub("slow", Duration.ofMillis(300), 200);
+    private static final DisposableServer BROKEN = stub("broken", Duration.ZERO, 503);
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void stubInstances(DynamicPropertyRegistry registry) {
+        DisposableServer[] stubs = {FAST, SLOW, BROKEN};
+        for (int i = 0; i < stubs.length; i++) {
+            int stubPort = stubs[i].port();
+            registry.add("spring.cloud.discovery.client.simple.instances.stub-service[" + i + "].uri",
+                    () -> "http://localhost:" + stubPort);
+        }
+    }
+
+    @AfterAll
+    static void stopStubs() {
+        FAST.disposeNow();
+        SLOW.disposeNow();
+        BROKEN.disposeNow();
+    }
+
+    @Test
+    void prefersTheFastReplicaAndEjectsTheFailingOne() {
+        WebClient client = WebClient.create("http://localhost:" + port);
+        Map<String, Integer> served = new HashMap<>();
+        for (int i = 0; i < 100; i++) {
+            String body = client.get().uri("/stub-service/api/rides/1")
+                    .exchangeToMono(response -> response.bodyToMono(String.class))
+                    .block(Duration.ofSeconds(5));
+            served.merge(body, 1, Integer::sum);
+        }
+
+        // Round-robin would have sent a third of them to each
+        assertTrue(served.getOrDefault("fast", 0) >= 80, served.toString());
+        assertTrue(served.getOrDefault("broken", 0) <= 10, served.toString());
+        assertTrue(meterRegistry.counter("gateway.lb.ejections", "service", "stub-service").count() >= 1);
+    }
+
+    private static DisposableServer stub(String name, Duration delay, int status) {
+        return HttpServer.create()
+                .port(0)
+                .handle((request, response) -> response.status(status)
+                        .sendString(Mono.just(name).delayElement(delay)))
+                .bindNow();
+    }
+}
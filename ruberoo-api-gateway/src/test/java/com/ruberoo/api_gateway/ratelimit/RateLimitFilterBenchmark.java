@@ -0,0 +1,116 @@
+package com.ruberoo.api_gateway.ratelimit;
+
+import com.ruberoo.api_gateway.jwt.JwtValidationFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * JMH benchmark of the rate limit filter's overhead per request, 4 threads spread over
+ * 1000 users, against the same filter with rate limiting disabled; and of the limiter
+ * seeing a new client while it already tracks max-keys of them. Not run by the build; after
+ * {@code mvn -pl ruberoo-api-gateway test-compile dependency:build-classpath -Dmdep.outputFile=target/test-classpath.txt},
+ * run from ruberoo-api-gateway with
+ * {@code java -cp target/test-classes:target/classes:$(cat target/test-classpath.txt) com.ruberoo.api_gateway.ratelimit.RateLimitFilterBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class RateLimitFilterBenchmark {
+
+    private static final int USERS = 1000;
+    private static final int MAX_KEYS = 100_000;
+    private static final KeyResolver USER_KEY = exchange ->
+            Mono.justOrEmpty(exchange.<String>getAttribute(JwtValidationFilter.AUTH_USER_ATTRIBUTE));
+    private static final GatewayFilterChain BACKEND = exchange -> Mono.empty();
+    // High enough that every request is let through: the common case being measured
+    private static final RateLimitFilter.Config LIMIT = new RateLimitFilter.Config(1_000_000, 2_000_000);
+
+    private GatewayFilter passThrough;
+    private GatewayFilter limited;
+    private MemoryTokenBucketLimiter fullLimiter;
+    private final AtomicLong newClients = new AtomicLong();
+
+    @Setup
+    public void setUp() {
+        passThrough = filter(false).apply(LIMIT);
+        limited = filter(true).apply(LIMIT);
+        fullLimiter = new MemoryTokenBucketLimiter(new SimpleMeterRegistry(), MAX_KEYS);
+        long now = System.nanoTime();
+        for (int i = 0; i < MAX_KEYS; i++) {
+            fullLimiter.acquire("client" + i, LIMIT, now);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Requests {
+
+        private final MockServerWebExchange[] exchanges = new MockServerWebExchange[USERS];
+        private int next;
+
+        @Setup
+        public void setUp() {
+            for (int i = 0; i < USERS; i++) {
+                exchanges[i] = MockServerWebExchange.from(MockServerHttpRequest.get("/api/rides/1"));
+                exchanges[i].getAttributes().put(JwtValidationFilter.AUTH_USER_ATTRIBUTE, "user" + i);
+            }
+        }
+
+        MockServerWebExchange next() {
+            next = (next + 1) % USERS;
+            return exchanges[next];
+        }
+    }
+
+    @Benchmark
+    public void passThrough(Requests requests) {
+        passThrough.filter(requests.next(), BACKEND).block();
+    }
+
+    @Benchmark
+    public void limited(Requests requests) {
+        limited.filter(requests.next(), BACKEND).block();
+    }
+
+    @Benchmark
+    public RateLimitResult newClientAtMaxKeys() {
+        return fullLimiter.acquire("new" + newClients.incrementAndGet(), LIMIT, System.nanoTime());
+    }
+
+    private static RateLimitFilter filter(boolean enabled) {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        return new RateLimitFilter(new MemoryTokenBucketLimiter(registry, MAX_KEYS), USER_KEY, registry, enabled);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RateLimitFilterBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
@@ -0,0 +1,95 @@
+package com.ruberoo.api_gateway.ratelimit;
+
+import com.ruberoo.api_gateway.jwt.JwtValidationFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Behaviour of the rate limit filter with the in-process limiter. Its overhead per request
+ * is measured by {@link RateLimitFilterBenchmark}.
+ */
+class RateLimitFilterTests {
+
+    private static final KeyResolver USER_KEY = exchange ->
+            Mono.justOrEmpty(exchange.<String>getAttribute(JwtValidationFilter.AUTH_USER_ATTRIBUTE));
+    private static final GatewayFilterChain BACKEND = exchange -> Mono.empty();
+
+    @Test
+    void rejectsBeyondTheBurstWithStandardHeaders() {
+        GatewayFilter filter = filter(true).apply(new RateLimitFilter.Config(1, 3));
+
+        for (int i = 2; i >= 0; i--) {
+            MockServerWebExchange exchange = exchange("alice");
+            filter.filter(exchange, BACKEND).block();
+            assertNotEquals(HttpStatus.TOO_MANY_REQUESTS, exchange.getResponse().getStatusCode());
+            assertEquals("3", exchange.getResponse().getHeaders().getFirst("RateLimit-Limit"));
+            assertEquals(String.valueOf(i), exchange.getResponse().getHeaders().getFirst("RateLimit-Remaining"));
+        }
+
+        MockServerWebExchange rejected = exchange("alice");
+        filter.filter(rejected, BACKEND).block();
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, rejected.getResponse().getStatusCode());
+        assertEquals("1", rejected.getResponse().getHeaders().getFirst("Retry-After"));
+        assertEquals("0", rejected.getResponse().getHeaders().getFirst("RateLimit-Remaining"));
+
+        // Other clients have their own bucket
+        MockServerWebExchange other = exchange("bob");
+        filter.filter(other, BACKEND).block();
+        assertNotEquals(HttpStatus.TOO_MANY_REQUESTS, other.getResponse().getStatusCode());
+    }
+
+    @Test
+    void refillsAtTheReplenishRate() {
+        MemoryTokenBucketLimiter limiter = new MemoryTokenBucketLimiter(new SimpleMeterRegistry(), 1000);
+        RateLimitFilter.Config limit = new RateLimitFilter.Config(10, 1);
+        long start = 0;
+
+        assertTrue(limiter.acquire("k", limit, start).allowed());
+        RateLimitResult early = limiter.acquire("k", limit, start + TimeUnit.MILLISECONDS.toNanos(50));
+        assertTrue(!early.allowed() && early.retryAfterMillis() == 50);
+        assertTrue(limiter.acquire("k", limit, start + TimeUnit.MILLISECONDS.toNanos(100)).allowed());
+    }
+
+    @Test
+    void clientsRotatingThroughKeysDoNotResetActiveBuckets() {
+        MemoryTokenBucketLimiter limiter = new MemoryTokenBucketLimiter(new SimpleMeterRegistry(), 100);
+        RateLimitFilter.Config limit = new RateLimitFilter.Config(1, 3);
+        long now = System.nanoTime();
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.acquire("alice", limit, now).allowed());
+        }
+        // Far more one-off keys than max-keys while alice keeps calling: her bucket stays empty
+        for (int i = 0; i < 10_000; i++) {
+            limiter.acquire("spoofed-" + i, limit, now);
+            if (i % 10 == 0) {
+                assertFalse(limiter.acquire("alice", limit, now).allowed(), "alice's bucket was reset at " + i);
+            }
+        }
+    }
+
+    private static RateLimitFilter filter(boolean enabled) {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        return new RateLimitFilter(new MemoryTokenBucketLimiter(registry, 100_000), USER_KEY, registry, enabled);
+    }
+
+    private static MockServerWebExchange exchange(String user) {
+        MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/rides/1"));
+        exchange.getAttributes().put(JwtValidationFilter.AUTH_USER_ATTRIBUTE, user);
+        return exchange;
+    }
+}
@@ -0,0 +1,114 @@
+package com.ruberoo.api_gateway.resilience;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.factory.RetryGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.TimeoutException;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Bulkhead and retry filters against a simulated backend.
+ */
+class RouteResilienceFilterTests {
+
+    @Test
+    void bulkheadRejectsBeyondMaxConcurrentCallsUntilAPermitIsReleased() {
+        GatewayFilter bulkhead = new BulkheadFilter(new SimpleMeterRegistry()).apply(new BulkheadFilter.Config("rides", 2));
+        List<Sinks.Empty<Void>> inFlight = new ArrayList<>();
+        GatewayFilterChain slowBackend = exchange -> {
+            Sinks.Empty<Void> response = Sinks.empty();
+            inFlight.add(response);
+            return response.asMono();
+        };
+
+        Disposable first = bulkhead.filter(get("/api/rides/1"), slowBackend).subscribe();
+        Disposable second = bulkhead.filter(get("/api/rides/2"), slowBackend).subscribe();
+        assertEquals(2, inFlight.size());
+
+        MockServerWebExchange rejected = get("/api/rides/3");
+        bulkhead.filter(rejected, slowBackend).block();
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, rejected.getResponse().getStatusCode());
+        assertEquals("1", rejected.getResponse().getHeaders().getFirst("Retry-After"));
+        assertTrue(rejected.getResponse().getBodyAsString().block().contains("\"reason\":\"bulkhead_full\""));
+        assertEquals(2, inFlight.size());
+
+        // A completed request frees its permit, and so does a cancelled one
+        inFlight.get(0).tryEmitEmpty();
+        second.dispose();
+        MockServerWebExchange third = get("/api/rides/3");
+        MockServerWebExchange fourth = get("/api/rides/4");
+        bulkhead.filter(third, slowBackend).subscribe();
+        bulkhead.filter(fourth, slowBackend).subscribe();
+        assertEquals(4, inFlight.size());
+        assertNotEquals(HttpStatus.SERVICE_UNAVAILABLE, third.getResponse().getStatusCode());
+        assertNotEquals(HttpStatus.SERVICE_UNAVAILABLE, fourth.getResponse().getStatusCode());
+        first.dispose();
+    }
+
+    @Test
+    void retriesIdempotentRequestsOnUnavailableBackend() {
+        GatewayFilter retry = retryFilter(2);
+        AtomicInteger attempts = new AtomicInteger();
+        // Deferred like the real chain, so every retry calls the backend again
+        GatewayFilterChain recovering = exchange -> Mono.fromRunnable(() ->
+                exchange.getResponse().setStatusCode(attempts.incrementAndGet() < 3
+                        ? HttpStatus.SERVICE_UNAVAILABLE : HttpStatus.OK));
+
+        MockServerWebExchange get = get("/api/rides/1");
+        retry.filter(get, recovering).block(Duration.ofSeconds(5));
+        assertEquals(3, attempts.get());
+        assertEquals(HttpStatus.OK, get.getResponse().getStatusCode());
+
+        // POST is not idempotent: one attempt, the 503 goes back to the client
+        attempts.set(0);
+        MockServerWebExchange post = MockServerWebExchange.from(MockServerHttpRequest.post("/api/rides").build());
+        retry.filter(post, recovering).block(Duration.ofSeconds(5));
+        assertEquals(1, attempts.get());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, post.getResponse().getStatusCode());
+    }
+
+    @Test
+    void retriesResponseTimeoutsAtMostRetriesTimes() {
+        GatewayFilter retry = retryFilter(2);
+        AtomicInteger attempts = new AtomicInteger();
+        // What the routing filter raises when the response timeout of an attempt runs out
+        GatewayFilterChain hanging = exchange -> Mono.defer(() -> {
+            attempts.incrementAndGet();
+            return Mono.error(new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT, "timeout",
+                    new TimeoutException("Response took longer than timeout")));
+        });
+
+        Throwable error = retry.filter(get("/api/rides/1"), hanging)
+                .then(Mono.<Throwable>empty())
+                .onErrorResume(Mono::just)
+                .block(Duration.ofSeconds(5));
+        assertEquals(3, attempts.get());
+        assertTrue(error instanceof ResponseStatusException, String.valueOf(error));
+    }
+
+    private static GatewayFilter retryFilter(int retries) {
+        RetryFilter factory = new RetryFilter(new RetryGatewayFilterFactory(), new SimpleMeterRegistry());
+        return factory.apply(new RetryFilter.Config("rides", retries, Duration.ofMillis(5), Duration.ofMillis(20)));
+    }
+
+    private static MockServerWebExchange get(String path) {
+        return MockServerWebExchange.from(MockServerHttpRequest.get(path).build());
+    }
+}
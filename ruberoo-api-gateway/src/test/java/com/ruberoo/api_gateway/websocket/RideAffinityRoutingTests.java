@@ -0,0 +1,120 @@
+package com.ruberoo.api_gateway.websocket;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.client.ReactorNettyWebSocketClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The gateway in front of three local stub replicas of tracking-service, answering WebSocket
+ * handshakes and plain requests (as SockJS sends) with their name and the path they got.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.cloud.config.enabled=false",
+        "eureka.client.enabled=false",
+        "ruberoo.jwt.secret-key=dummy-secret-key-for-testing",
+        "ruberoo.gateway.auth-policy.tracking=public"})
+class RideAffinityRoutingTests {
+
+    private static final DisposableServer[] REPLICAS = {stub("tracking-1"), stub("tracking-2"), stub("tracking-3")};
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void replicas(DynamicPropertyRegistry registry) {
+        for (int i = 0; i < REPLICAS.length; i++) {
+            int replicaPort = REPLICAS[i].port();
+            registry.add("spring.cloud.discovery.client.simple.instances.[TRACKING-SERVICE][" + i + "].uri",
+                    () -> "http://localhost:" + replicaPort);
+        }
+    }
+
+    @AfterAll
+    static void stopReplicas() {
+        for (DisposableServer replica : REPLICAS) {
+            replica.disposeNow();
+        }
+    }
+
+    @Test
+    void everyConnectionOfARideReachesTheSameReplica() {
+        Set<String> replicas = new HashSet<>();
+        for (int ride = 0; ride < 30; ride++) {
+            String handshake = webSocket("/ws/rides/" + ride + "/tracking-binary");
+            String replica = handshake.split(" ")[0];
+            // The ride id is taken out of the path the replica sees
+            assertEquals(replica + " /ws/tracking-binary", handshake);
+            assertEquals(replica, webSocket("/ws/tracking-binary?rideId=" + ride).split(" ")[0]);
+            assertEquals(replica, get("/ws/tracking/info?rideId=" + ride, null).split(" ")[0]);
+            assertEquals(replica, get("/ws/tracking/123/abcdef/xhr_streaming", String.valueOf(ride)).split(" ")[0]);
+            replicas.add(replica);
+        }
+        assertEquals(3, replicas.size());
+    }
+
+    @Test
+    void sockJsSessionWithoutRideIdStaysOnOneReplica() {
+        String replica = get("/ws/tracking/123/session-1/xhr", null);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(replica.split(" ")[0], get("/ws/tracking/123/session-1/xhr_send", null).split(" ")[0]);
+        }
+        assertTrue(replica.endsWith(" /ws/tracking/123/session-1/xhr"), replica);
+    }
+
+    private String get(String path, String rideId) {
+        return WebClient.create("http://localhost:" + port).get().uri(path)
+                .headers(headers -> {
+                    if (rideId != null) {
+                        headers.set(RideAffinityFilter.RIDE_ID_HEADER, rideId);
+                    }
+                })
+                .retrieve()
+                .bodyToMono(String.class)
+                .block(Duration.ofSeconds(5));
+    }
+
+    private String webSocket(String path) {
+        AtomicReference<String> greeting = new AtomicReference<>();
+        new ReactorNettyWebSocketClient()
+                .execute(URI.create("ws://localhost:" + port + path), session -> session.receive()
+                        .next()
+                        .map(WebSocketMessage::getPayloadAsText)
+                        .doOnNext(greeting::set)
+                        .then())
+                .block(Duration.ofSeconds(5));
+        return greeting.get();
+    }
+
+    private static DisposableServer stub(String name) {
+        return HttpServer.create()
+                .port(0)
+                .handle((request, response) -> {
+                    String greeting = name + " " + request.fullPath();
+                    if (request.requestHeaders().containsValue("Upgrade", "websocket", true)) {
+                        // Greets, then stays open until the client closes the connection
+                        return response.sendWebsocket((in, out) -> out.sendString(Mono.just(greeting))
+                                .then(in.receive().then()));
+                    }
+                    return response.sendString(Mono.just(greeting));
+                })
+                .bindNow();
+    }
+}
@@ -0,0 +1,100 @@
+package com.ruberoo.common.cache;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.core.env.Environment;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Hibernate second-level cache: bounded, in-process JCache regions backed by Caffeine.
+ *
+ * Each service declares its own regions from a {@code SecondLevelCacheConfig}: a
+ * {@link CacheManager} bean built with {@link #newCacheManager} and {@link #createRegion},
+ * and the {@link #hibernateProperties} customizer. Every region is sized and expired from
+ * ruberoo.cache.l2.{region}.max-entries and .ttl, so both can be tuned per service from the
+ * Config Server. Hits, misses and puts are exported as hibernate.second.level.cache.* metrics.
+ *
+ * Entries are local to each replica and only expire there, so credentials and other data
+ * that must not be served stale after a write elsewhere do not belong in a region.
+ *
+ * The query cache is only enabled in a service that declares its regions with
+ * {@link #createQueryCacheRegions}. Each cacheable query then names a bounded region of its
+ * own; a write through this replica invalidates the cached results right away, one made on
+ * another replica only once they expire.
+ */
+public final class SecondLevelCache {
+
+    public static final String QUERY_RESULTS_REGION = "default-query-results-region";
+    public static final String UPDATE_TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    private SecondLevelCache() {
+    }
+
+    /**
+     * @return A manager of its own, caches are not shared with other contexts in the JVM
+     */
+    public static CacheManager newCacheManager() {
+        return Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("ruberoo-l2:" + UUID.randomUUID()), SecondLevelCache.class.getClassLoader());
+    }
+
+    /**
+     * Declare a bounded region, overridable from ruberoo.cache.l2.{region}.ttl and .max-entries.
+     */
+    public static void createRegion(CacheManager cacheManager, Environment env, String region,
+                                    Duration defaultTtl, long defaultMaxEntries) {
+        Duration ttl = env.getProperty("ruberoo.cache.l2." + region + ".ttl", Duration.class, defaultTtl);
+        long maxEntries = env.getProperty("ruberoo.cache.l2." + region + ".max-entries", Long.class, defaultMaxEntries);
+
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxEntries));
+        configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        // Hibernate already stores immutable disassembled state, no need to copy on every access
+        configuration.setStoreByValue(false);
+        configuration.setStatisticsEnabled(true);
+        cacheManager.createCache(region, configuration);
+    }
+
+    /**
+     * Declare the regions the query cache always needs: the default results region (bounded
+     * like any other) and the table modification times used to invalidate cached results.
+     */
+    public static void createQueryCacheRegions(CacheManager cacheManager, Environment env) {
+        createRegion(cacheManager, env, QUERY_RESULTS_REGION, Duration.ofMinutes(1), 1_000);
+        // One entry per table, and must never expire: a missing time would let stale results through
+        CaffeineConfiguration<Object, Object> timestamps = new CaffeineConfiguration<>();
+        timestamps.setStoreByValue(false);
+        timestamps.setStatisticsEnabled(true);
+        cacheManager.createCache(UPDATE_TIMESTAMPS_REGION, timestamps);
+    }
+
+    /**
+     * Points Hibernate at the regions of the manager, or turns the cache off when there is none
+     * (ruberoo.cache.l2.enabled=false). The query cache is on when its regions are declared.
+     */
+    public static HibernatePropertiesCustomizer hibernateProperties(ObjectProvider<CacheManager> hibernateCacheManager) {
+        return properties -> {
+            CacheManager cacheManager = hibernateCacheManager.getIfAvailable();
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, cacheManager != null);
+            properties.put(AvailableSettings.USE_QUERY_CACHE,
+                    cacheManager != null && cacheManager.getCache(UPDATE_TIMESTAMPS_REGION) != null);
+            if (cacheManager != null) {
+                properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+                properties.put(ConfigSettings.CACHE_MANAGER, cacheManager);
+                // Every region is declared up front; an unknown one would be unbounded
+                properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+                properties.put(AvailableSettings.GENERATE_STATISTICS, true);
+            }
+        };
+    }
+}
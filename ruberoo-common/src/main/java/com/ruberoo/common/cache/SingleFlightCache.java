@@ -0,0 +1,133 @@
+package com.ruberoo.common.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Request-coalescing loader with a small near-cache behind it.
+ *
+ * Concurrent {@link #get} calls for the same key share one in-flight load and its
+ * result, so a burst of requests for a hot id costs a single database query.
+ * Loaded values are then kept for {@code ttl}, at most {@code maxEntries} of them;
+ * null results are shared with the concurrent callers but not cached.
+ *
+ * Every caller gets the same instance, so values must be immutable: cache records
+ * or DTOs, never JPA entities.
+ *
+ * Call {@link #invalidate} after every write to the underlying row. A load that was
+ * already in flight when the key was invalidated is not cached. Other replicas only
+ * see the change once their own entry expires, keep the ttl short.
+ */
+public class SingleFlightCache<K, V> {
+
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Cache<K, V> entries;
+
+    private final Counter hits;
+    private final Counter loads;
+    private final Counter coalesced;
+
+    public SingleFlightCache(String name, MeterRegistry meterRegistry, int maxEntries, Duration ttl) {
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .build();
+
+        this.hits = Counter.builder("lookup.cache")
+                .tag("cache", name)
+                .tag("result", "hit")
+                .description("Lookups served from the near-cache")
+                .register(meterRegistry);
+        this.loads = Counter.builder("lookup.cache")
+                .tag("cache", name)
+                .tag("result", "load")
+                .description("Lookups that queried the database")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("lookup.cache")
+                .tag("cache", name)
+                .tag("result", "coalesced")
+                .description("Lookups that joined a query already in flight for the same key")
+                .register(meterRegistry);
+        Gauge.builder("lookup.cache.size", entries, Cache::estimatedSize)
+                .tag("cache", name)
+                .description("Number of entries in the near-cache")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Return the cached value, or load it, sharing the load with concurrent callers for the same key.
+     *
+     * @param key Lookup key
+     * @param loader Queries the database; exceptions are rethrown to every waiting caller
+     * @return The value, or null if the loader found nothing
+     */
+    public V get(K key, Function<K, V> loader) {
+        V cached = entries.getIfPresent(key);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            coalesced.increment();
+            return join(existing);
+        }
+
+        loads.increment();
+        try {
+            V value = loader.apply(key);
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            // Cache the result only if the key was not invalidated while it was loading
+            inFlight.computeIfPresent(key, (k, current) -> {
+                if (current == flight) {
+                    // getNow would throw for a failed load
+                    V value = flight.isCompletedExceptionally() ? null : flight.getNow(null);
+                    if (value != null) {
+                        entries.put(k, value);
+                    }
+                    return null;
+                }
+                return current;
+            });
+        }
+    }
+
+    /**
+     * Drop the key, including any load still in flight for it.
+     */
+    public void invalidate(K key) {
+        inFlight.remove(key);
+        entries.invalidate(key);
+    }
+
+    private static <V> V join(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
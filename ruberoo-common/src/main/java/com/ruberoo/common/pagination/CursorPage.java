@@ -0,0 +1,44 @@
+package com.ruberoo.common.pagination;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * One page of a keyset-paginated listing.
+ * Pass nextCursor back as ?cursor= to get the following page; it is null on the last page.
+ */
+public record CursorPage<T>(List<T> items, String nextCursor) {
+
+    /**
+     * Build a page from a query that fetched one row more than the page size.
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int limit, ToLongFunction<T> idOf) {
+        if (rows.size() <= limit) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, limit);
+        return new CursorPage<>(items, encodeCursor(idOf.applyAsLong(items.get(limit - 1))));
+    }
+
+    // The cursor is the last id returned, kept opaque so the key can change later
+    public static String encodeCursor(long lastId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(ByteBuffer.allocate(8).putLong(lastId).array());
+    }
+
+    /**
+     * @return the last id of the previous page, or 0 when there is no cursor
+     * @throws IllegalArgumentException if the cursor was not produced by {@link #encodeCursor}
+     */
+    public static long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return 0L;
+        }
+        byte[] bytes = Base64.getUrlDecoder().decode(cursor);
+        if (bytes.length != 8) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        return ByteBuffer.wrap(bytes).getLong();
+    }
+}
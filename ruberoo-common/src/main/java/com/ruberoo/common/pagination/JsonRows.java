@@ -0,0 +1,49 @@
+package com.ruberoo.common.pagination;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Full listings written row by row as they are read, so memory stays flat regardless of
+ * table size: a JSON array, or one row per line for NDJSON. The counterpart of
+ * {@link CursorPage} for clients that want everything in one response.
+ */
+public final class JsonRows {
+
+    public static final String NDJSON = "application/x-ndjson";
+
+    private JsonRows() {
+    }
+
+    /**
+     * @param forEachRow Calls its argument once per row, e.g. a service's forEach over a database stream
+     */
+    public static <T> void write(ObjectMapper objectMapper, OutputStream out, boolean ndjson,
+                                 Consumer<Consumer<T>> forEachRow) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            if (ndjson) {
+                generator.setRootValueSeparator(null);
+            } else {
+                generator.writeStartArray();
+            }
+            forEachRow.accept(row -> {
+                try {
+                    generator.writeObject(row);
+                    if (ndjson) {
+                        generator.writeRaw('\n');
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            if (!ndjson) {
+                generator.writeEndArray();
+            }
+        }
+    }
+}
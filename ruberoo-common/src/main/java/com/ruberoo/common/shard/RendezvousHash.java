@@ -0,0 +1,71 @@
+package com.ruberoo.common.shard;
+
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Rendezvous (highest random weight) hashing: every member gets a pseudo-random weight
+ * for a key and the member with the highest weight owns it.
+ *
+ * Adding a member only moves the keys it now wins, about 1/n of them; removing one only
+ * moves the keys it owned, spread over all the others. No ring or table to rebuild, a
+ * lookup is one multiply-and-mix per member.
+ *
+ * The tracking service assigns rides to its replicas with it and the api-gateway places
+ * tracking WebSocket connections with it, so both agree on which replica owns a ride.
+ * Changing the hash moves every ride: roll out the gateway and all replicas together.
+ */
+public final class RendezvousHash {
+
+    private RendezvousHash() {
+    }
+
+    /**
+     * @param members Candidates, in any order
+     * @param memberHash {@link #hash(String)} of the stable id of a member
+     * @param keyHash {@link #hash(String)} of the key
+     * @return The owner of the key, or null if there are no members
+     */
+    public static <T> T owner(List<T> members, ToLongFunction<T> memberHash, long keyHash) {
+        T owner = null;
+        long ownerHash = 0;
+        long best = 0;
+        for (T member : members) {
+            long hash = memberHash.applyAsLong(member);
+            long weight = weight(hash, keyHash);
+            // Ties are broken on the member hash so the order of the members does not matter
+            if (owner == null || weight > best || (weight == best && hash > ownerHash)) {
+                owner = member;
+                ownerHash = hash;
+                best = weight;
+            }
+        }
+        return owner;
+    }
+
+    static long weight(long memberHash, long keyHash) {
+        return mix(memberHash ^ keyHash * 0x9e3779b97f4a7c15L);
+    }
+
+    /**
+     * 64-bit FNV-1a over the characters, then the MurmurHash3 finalizer so that ids
+     * differing only in their last characters (ride 41, ride 42) spread out.
+     */
+    public static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,95 @@
+package com.ruberoo.common.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of a hot-key workload: 32 client threads, 90% of lookups on 5 ids, against
+ * a simulated database taking 2 ms per query. Compares lookups/s and database queries/s
+ * (the "queries" counter) without the cache, with coalescing only, and with the near-cache.
+ * Not run by the build; after {@code mvn -pl ruberoo-common test-compile dependency:build-classpath -Dmdep.outputFile=target/test-classpath.txt},
+ * run from ruberoo-common with
+ * {@code java -cp target/test-classes:target/classes:$(cat target/test-classpath.txt) com.ruberoo.common.cache.SingleFlightCacheBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(32)
+public class SingleFlightCacheBenchmark {
+
+    private static final long QUERY_MILLIS = 2;
+
+    private SingleFlightCache<Long, String> coalescing;
+    private SingleFlightCache<Long, String> nearCached;
+
+    @Setup
+    public void setUp() {
+        // Entries expire immediately: only concurrent lookups share a query
+        coalescing = new SingleFlightCache<>("benchmark", new SimpleMeterRegistry(), 10_000, Duration.ZERO);
+        nearCached = new SingleFlightCache<>("benchmark", new SimpleMeterRegistry(), 10_000, Duration.ofSeconds(10));
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Database {
+
+        public long queries;
+
+        String query(Long id) {
+            queries++;
+            try {
+                Thread.sleep(QUERY_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "user-" + id;
+        }
+    }
+
+    @Benchmark
+    public String direct(Database database) {
+        return database.query(nextId());
+    }
+
+    @Benchmark
+    public String singleFlight(Database database) {
+        return coalescing.get(nextId(), database::query);
+    }
+
+    @Benchmark
+    public String singleFlightWithNearCache(Database database) {
+        return nearCached.get(nextId(), database::query);
+    }
+
+    private static long nextId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return random.nextInt(10) < 9 ? random.nextInt(5) : 5 + random.nextInt(1000);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(SingleFlightCacheBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,131 @@
+package com.ruberoo.common.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Coalescing and invalidation of the single-flight cache. Its throughput against a slow
+ * database is measured by {@link SingleFlightCacheBenchmark}.
+ */
+class SingleFlightCacheTests {
+
+    private static final int CALLERS = 16;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void concurrentLookupsOfOneKeyShareASingleLoad() throws Exception {
+        // Coalescing only: nothing is kept once the load is done
+        SingleFlightCache<Long, String> cache = new SingleFlightCache<>("users", meterRegistry, 100, Duration.ZERO);
+        AtomicInteger queries = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<CompletableFuture<String>> results = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(CompletableFuture.supplyAsync(() -> cache.get(1L, id -> {
+                    queries.incrementAndGet();
+                    await(release);
+                    return "user-" + id;
+                }), callers));
+            }
+            // Every caller but the loading one has joined the load before it completes
+            while (count("coalesced") < CALLERS - 1) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            String first = results.get(0).get(5, TimeUnit.SECONDS);
+            for (CompletableFuture<String> result : results) {
+                assertSame(first, result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+        assertEquals(1, queries.get());
+        assertEquals(1, count("load"));
+
+        // The next lookup queries again
+        cache.get(1L, id -> "user-" + queries.incrementAndGet());
+        assertEquals(2, queries.get());
+    }
+
+    @Test
+    void nearCacheServesRepeatedLookups() {
+        SingleFlightCache<Long, String> cache = new SingleFlightCache<>("users", meterRegistry, 100, Duration.ofMinutes(1));
+        AtomicInteger queries = new AtomicInteger();
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals("user-1", cache.get(1L, id -> {
+                queries.incrementAndGet();
+                return "user-" + id;
+            }));
+        }
+        assertEquals(1, queries.get());
+        assertEquals(9, count("hit"));
+    }
+
+    @Test
+    void failuresAndMissesAreSharedButNotCached() {
+        SingleFlightCache<Long, String> cache = new SingleFlightCache<>("users", meterRegistry, 100, Duration.ofMinutes(1));
+
+        assertThrows(IllegalStateException.class, () -> cache.get(1L, id -> {
+            throw new IllegalStateException("database down");
+        }));
+        assertEquals(null, cache.get(2L, id -> null));
+
+        assertEquals("user-1", cache.get(1L, id -> "user-1"));
+        assertEquals("user-2", cache.get(2L, id -> "user-2"));
+        assertEquals(4, count("load"));
+    }
+
+    @Test
+    void invalidateDropsCachedValueAndInFlightLoad() {
+        SingleFlightCache<Long, String> cache = new SingleFlightCache<>("users", meterRegistry, 100, Duration.ofMinutes(1));
+        String[] row = {"v1"};
+
+        assertEquals("v1", cache.get(1L, id -> row[0]));
+        row[0] = "v2";
+        assertEquals("v1", cache.get(1L, id -> row[0]));
+
+        cache.invalidate(1L);
+        assertEquals("v2", cache.get(1L, id -> row[0]));
+
+        // A load that was in flight while the key was invalidated must not be cached
+        String stale = cache.get(2L, id -> {
+            cache.invalidate(2L);
+            return "stale";
+        });
+        assertEquals("stale", stale);
+        assertEquals("fresh", cache.get(2L, id -> "fresh"));
+    }
+
+    private long count(String result) {
+        return (long) meterRegistry.get("lookup.cache").tag("result", result).counter().count();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.ruberoo.common.pagination;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class JsonRowsTests {
+
+    record Row(long id, String name) {
+    }
+
+    private static final List<Row> ROWS = List.of(new Row(1, "a"), new Row(2, "b"));
+
+    @Test
+    void writesAnArrayOrOneRowPerLine() throws IOException {
+        assertEquals("[{\"id\":1,\"name\":\"a\"},{\"id\":2,\"name\":\"b\"}]", write(false, ROWS::forEach));
+        assertEquals("{\"id\":1,\"name\":\"a\"}\n{\"id\":2,\"name\":\"b\"}\n", write(true, ROWS::forEach));
+    }
+
+    @Test
+    void noRows() throws IOException {
+        assertEquals("[]", write(false, action -> { }));
+        assertEquals("", write(true, action -> { }));
+    }
+
+    private static String write(boolean ndjson, Consumer<Consumer<Row>> forEachRow) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JsonRows.write(new ObjectMapper(), out, ndjson, forEachRow);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
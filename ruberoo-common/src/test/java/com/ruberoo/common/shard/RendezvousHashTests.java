@@ -0,0 +1,86 @@
+package com.ruberoo.common.shard;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * How rides spread over the tracking-service replicas, and how many move when one joins or leaves.
+ */
+class RendezvousHashTests {
+
+    private static final int RIDES = 30_000;
+
+    @Test
+    void spreadsRidesEvenly() {
+        List<String> replicas = List.of("tracking-1", "tracking-2", "tracking-3", "tracking-4");
+        Map<String, Integer> rides = new HashMap<>();
+        for (int ride = 0; ride < RIDES; ride++) {
+            rides.merge(owner(replicas, ride), 1, Integer::sum);
+        }
+        assertEquals(4, rides.size());
+        rides.values().forEach(count -> assertTrue(Math.abs(count - RIDES / 4) < RIDES / 4 * 0.1, rides.toString()));
+    }
+
+    @Test
+    void replicaJoiningTakesOnlyItsShareOfRides() {
+        List<String> before = List.of("tracking-1", "tracking-2", "tracking-3");
+        List<String> after = List.of("tracking-1", "tracking-2", "tracking-3", "tracking-4");
+        int moved = 0;
+        for (int ride = 0; ride < RIDES; ride++) {
+            String owner = owner(after, ride);
+            if (!owner.equals(owner(before, ride))) {
+                // Rides only ever move to the new replica, never between the old ones
+                assertEquals("tracking-4", owner);
+                moved++;
+            }
+        }
+        // About a quarter; rehashing modulo the replica count would move three quarters
+        assertTrue(moved > RIDES * 0.2 && moved < RIDES * 0.3, moved + " rides moved");
+    }
+
+    @Test
+    void replicaLeavingMovesOnlyItsOwnRides() {
+        List<String> before = List.of("tracking-1", "tracking-2", "tracking-3", "tracking-4");
+        List<String> after = List.of("tracking-1", "tracking-3", "tracking-4");
+        Map<String, Integer> takenOver = new HashMap<>();
+        for (int ride = 0; ride < RIDES; ride++) {
+            String owner = owner(before, ride);
+            if (owner.equals("tracking-2")) {
+                takenOver.merge(owner(after, ride), 1, Integer::sum);
+            } else {
+                assertEquals(owner, owner(after, ride));
+            }
+        }
+        // ...and they are spread over all the remaining replicas
+        assertEquals(3, takenOver.size(), takenOver.toString());
+    }
+
+    @Test
+    void sameReplicasGiveTheSameOwnerWhateverTheirOrder() {
+        List<String> replicas = List.of("tracking-1", "tracking-2", "tracking-3");
+        List<String> reordered = List.of("tracking-3", "tracking-1", "tracking-2");
+        for (int ride = 0; ride < 1000; ride++) {
+            assertEquals(owner(replicas, ride), owner(reordered, ride));
+        }
+        assertNull(owner(List.of(), 42));
+    }
+
+    @Test
+    void hashAndWeightAreStable() {
+        // Fixed values: a replica or gateway running another build must pick the same owners
+        assertEquals(-9148190273557349140L, RendezvousHash.hash("42"));
+        assertEquals(8789066978517289363L,
+                RendezvousHash.weight(RendezvousHash.hash("10.0.0.5:8080"), RendezvousHash.hash("42")));
+    }
+
+    private static String owner(List<String> replicas, int ride) {
+        return RendezvousHash.owner(replicas, RendezvousHash::hash, RendezvousHash.hash(String.valueOf(ride)));
+    }
+}
@@ -0,0 +1,18 @@
+package com.ruberoo.ride_management_service.client;
+
+import com.ruberoo.ride_management_service.entity.User;
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.Collection;
+import java.util.List;
+
+// Resolved through Eureka; use UserLookupCache rather than calling this directly
+@FeignClient(name = "user-service")
+public interface UserClient {
+
+    // Batch lookup: GET /api/users?ids=1,2,3, unknown ids are left out
+    @GetMapping("/api/users")
+    List<User> getUsersByIds(@RequestParam("ids") Collection<Long> ids);
+}
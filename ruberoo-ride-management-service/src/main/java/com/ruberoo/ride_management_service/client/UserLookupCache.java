@@ -0,0 +1,120 @@
+package com.ruberoo.ride_management_service.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ruberoo.ride_management_service.entity.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bounded TTL cache of user projections in front of {@link UserClient}.
+ *
+ * Resolves a whole set of user ids with at most one call to user-service: ids found
+ * here are served locally and the rest are fetched in a single batch request.
+ * If user-service is unavailable, the cached users are returned and the rest are left out.
+ */
+@Component
+public class UserLookupCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserLookupCache.class);
+
+    private final UserClient userClient;
+    private final Cache<Long, User> entries;
+    private final boolean enabled;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+    private final Counter batchCalls;
+
+    public UserLookupCache(UserClient userClient,
+                           MeterRegistry meterRegistry,
+                           @Value("${ruberoo.ride.user-cache.enabled:true}") boolean enabled,
+                           @Value("${ruberoo.ride.user-cache.max-entries:10000}") int maxEntries,
+                           @Value("${ruberoo.ride.user-cache.ttl:5m}") Duration ttl) {
+        this.userClient = userClient;
+        this.enabled = enabled;
+
+        this.hits = Counter.builder("rides.user.cache")
+                .tag("result", "hit")
+                .description("User lookups served from the local cache")
+                .register(meterRegistry);
+        this.misses = Counter.builder("rides.user.cache")
+                .tag("result", "miss")
+                .description("User lookups that had to go to user-service")
+                .register(meterRegistry);
+        this.evictions = Counter.builder("rides.user.cache.evictions")
+                .description("Entries removed because they expired or the cache was full")
+                .register(meterRegistry);
+        this.batchCalls = Counter.builder("rides.user.batch.calls")
+                .description("Batch requests sent to user-service")
+                .register(meterRegistry);
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .evictionListener((id, user, cause) -> evictions.increment())
+                .build();
+        Gauge.builder("rides.user.cache.size", entries, Cache::estimatedSize)
+                .description("Number of users currently cached")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Resolve users by id.
+     *
+     * @param ids User ids, duplicates and nulls are ignored
+     * @return Users by id; ids that are unknown or could not be fetched are absent
+     */
+    public Map<Long, User> getUsers(Collection<Long> ids) {
+        Map<Long, User> found = new HashMap<>();
+        Set<Long> missing = new LinkedHashSet<>();
+
+        for (Long id : ids) {
+            if (id == null || found.containsKey(id) || missing.contains(id)) {
+                continue;
+            }
+            User cached = enabled ? entries.getIfPresent(id) : null;
+            if (cached != null) {
+                hits.increment();
+                found.put(id, cached);
+            } else {
+                misses.increment();
+                missing.add(id);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            for (User user : fetch(missing)) {
+                found.put(user.getId(), user);
+                if (enabled && user.getId() != null) {
+                    entries.put(user.getId(), user);
+                }
+            }
+        }
+        return found;
+    }
+
+    private List<User> fetch(Set<Long> ids) {
+        batchCalls.increment();
+        try {
+            List<User> users = userClient.getUsersByIds(ids);
+            return users == null ? List.of() : users;
+        } catch (RuntimeException e) {
+            logger.warn("Could not fetch {} users from user-service: {}", ids.size(), e.getMessage());
+            return List.of();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.ruberoo.ride_management_service.config;
+
+import com.ruberoo.common.cache.SingleFlightCache;
+import com.ruberoo.ride_management_service.dto.RideDetailsDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class CacheConfig {
+
+    // Coalesces concurrent GET /api/rides/{id} for the same id; invalidated by RideService on writes
+    @Bean
+    public SingleFlightCache<Long, RideDetailsDTO> rideLookupCache(MeterRegistry meterRegistry,
+                                                        @Value("${ruberoo.ride.lookup-cache.max-entries:10000}") int maxEntries,
+                                                        @Value("${ruberoo.ride.lookup-cache.ttl:10s}") Duration ttl) {
+        return new SingleFlightCache<>("rides", meterRegistry, maxEntries, ttl);
+    }
+}
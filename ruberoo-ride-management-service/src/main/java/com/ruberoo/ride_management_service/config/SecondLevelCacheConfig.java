@@ -0,0 +1,37 @@
+package com.ruberoo.ride_management_service.config;
+
+import com.ruberoo.common.cache.SecondLevelCache;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.cache.CacheManager;
+import java.time.Duration;
+
+/**
+ * Hibernate second-level cache regions of this service, see {@link SecondLevelCache}.
+ *
+ * The rides region is sized and expired from ruberoo.cache.l2.rides.max-entries and .ttl.
+ * ruberoo.cache.l2.enabled=false turns the cache off (on restart).
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    public static final String RIDES_REGION = "rides";
+
+    @Bean
+    @ConditionalOnProperty(name = "ruberoo.cache.l2.enabled", havingValue = "true", matchIfMissing = true)
+    public CacheManager hibernateCacheManager(Environment env) {
+        CacheManager cacheManager = SecondLevelCache.newCacheManager();
+        SecondLevelCache.createRegion(cacheManager, env, RIDES_REGION, Duration.ofMinutes(5), 10_000);
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheProperties(ObjectProvider<CacheManager> hibernateCacheManager) {
+        return SecondLevelCache.hibernateProperties(hibernateCacheManager);
+    }
+}
@@ -1,31 +1,80 @@
 package com.ruberoo.ride_management_service.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ruberoo.common.pagination.CursorPage;
+import com.ruberoo.common.pagination.JsonRows;
+import com.ruberoo.ride_management_service.dto.RideDetailsDTO;
+import com.ruberoo.ride_management_service.dto.RideResponseDTO;
 import com.ruberoo.ride_management_service.entity.Ride;
 import com.ruberoo.ride_management_service.service.RideService;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
+import java.io.IOException;
 
 @RestController
 @RequestMapping("/api/rides")
 public class RideController {
 
+    private static final int MAX_PAGE_SIZE = 500;
+
     @Autowired
     private RideService rideService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @PostMapping
     public Ride createRide(@RequestBody Ride ride) {
         return rideService.createRide(ride);
     }
 
+    /**
+     * Lists every ride as a JSON array, in id order.
+     * Rows are written as they are read, memory stays flat regardless of table size.
+     * Pass cursor or limit to get one page at a time instead.
+     */
+    @GetMapping(params = {"!cursor", "!limit"}, produces = MediaType.APPLICATION_JSON_VALUE)
+    public void getAllRides(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        JsonRows.write(objectMapper, response.getOutputStream(), false, rideService::forEachRide);
+    }
+
+    /**
+     * Lists rides one page at a time (?limit=, default 50), ordered by id, with the rider's
+     * details from user-service.
+     * Pass the returned nextCursor as ?cursor= to get the following page.
+     */
     @GetMapping
-    public List<Ride> getAllRides() {
-        return rideService.getAllRides();
+    public ResponseEntity<CursorPage<RideResponseDTO>> getRidesPage(@RequestParam(required = false) String cursor,
+                                                                    @RequestParam(defaultValue = "50") int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        long afterId;
+        try {
+            afterId = CursorPage.decodeCursor(cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(rideService.getRidesPage(afterId, limit));
+    }
+
+    /**
+     * Exports every ride as newline-delimited JSON (Accept: application/x-ndjson).
+     * Rows are written as they are read, memory stays flat regardless of table size.
+     */
+    @GetMapping(produces = JsonRows.NDJSON)
+    public void exportRides(HttpServletResponse response) throws IOException {
+        response.setContentType(JsonRows.NDJSON);
+        JsonRows.write(objectMapper, response.getOutputStream(), true, rideService::forEachRide);
     }
 
     @GetMapping("/{id}")
-    public Ride getRideById(@PathVariable Long id) {
+    public RideDetailsDTO getRideById(@PathVariable Long id) {
         return rideService.getRideById(id);
     }
 
@@ -39,11 +88,3 @@ public class RideController {
         rideService.deleteRide(id);
     }
 }
-
-
-
-
-
-
-
-
@@ -0,0 +1,22 @@
+package com.ruberoo.ride_management_service.dto;
+
+import com.ruberoo.ride_management_service.entity.Ride;
+
+/**
+ * Immutable copy of a ride with every field of the entity, route polyline included.
+ * What the ride lookup cache holds and hands to all its callers.
+ */
+public record RideDetailsDTO(Long id,
+                             String origin,
+                             String destination,
+                             String scheduledTime,
+                             Long userId,
+                             Double destinationLatitude,
+                             Double destinationLongitude,
+                             String routePolyline) {
+
+    public static RideDetailsDTO of(Ride ride) {
+        return new RideDetailsDTO(ride.getId(), ride.getOrigin(), ride.getDestination(), ride.getScheduledTime(),
+                ride.getUserId(), ride.getDestinationLatitude(), ride.getDestinationLongitude(), ride.getRoutePolyline());
+    }
+}
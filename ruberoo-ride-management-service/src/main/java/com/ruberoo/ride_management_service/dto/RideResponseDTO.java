@@ -1,19 +1,75 @@
 package com.ruberoo.ride_management_service.dto;
 
-import com.ruberoo.ride_management_service.entity.Ride;
 import com.ruberoo.ride_management_service.entity.User; // Replica of the User entity
 
 public class RideResponseDTO {
     // Fields from the Ride entity
     private Long id;
-    private String source;
+    private String origin;
     private String destination;
-    private String status;
+    private String scheduledTime;
     private Long userId;
 
-    // Field for the User details fetched from User Service
+    // Field for the User details fetched from User Service (null if unknown or user-service is down)
     private User user;
 
-    // Constructors, Getters, and Setters
-    // ... (You will need to implement these)
+    public RideResponseDTO() {
+    }
+
+    public RideResponseDTO(RideSummaryDTO ride, User user) {
+        this.id = ride.id();
+        this.origin = ride.origin();
+        this.destination = ride.destination();
+        this.scheduledTime = ride.scheduledTime();
+        this.userId = ride.userId();
+        this.user = user;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getOrigin() {
+        return origin;
+    }
+
+    public void setOrigin(String origin) {
+        this.origin = origin;
+    }
+
+    public String getDestination() {
+        return destination;
+    }
+
+    public void setDestination(String destination) {
+        this.destination = destination;
+    }
+
+    public String getScheduledTime() {
+        return scheduledTime;
+    }
+
+    public void setScheduledTime(String scheduledTime) {
+        this.scheduledTime = scheduledTime;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public void setUser(User user) {
+        this.user = user;
+    }
 }
@@ -0,0 +1,14 @@
+package com.ruberoo.ride_management_service.dto;
+
+/**
+ * Read-only projection of a ride for listings, selected straight from the query
+ * so no Ride entity is hydrated. Leaves out the route polyline.
+ */
+public record RideSummaryDTO(Long id,
+                             String origin,
+                             String destination,
+                             String scheduledTime,
+                             Long userId,
+                             Double destinationLatitude,
+                             Double destinationLongitude) {
+}
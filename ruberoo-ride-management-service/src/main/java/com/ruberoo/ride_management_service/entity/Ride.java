@@ -1,9 +1,14 @@
 package com.ruberoo.ride_management_service.entity;
 
+import com.ruberoo.ride_management_service.config.SecondLevelCacheConfig;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Table(name = "rides")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.RIDES_REGION)
 public class Ride {
 
     @Id
@@ -14,15 +19,34 @@ public class Ride {
     private String destination;
     private String scheduledTime;
 
+    // Rider who booked the ride (id in user-service)
+    private Long userId;
+
+    // Drop-off coordinates, used by tracking-service for live ETA
+    private Double destinationLatitude;
+    private Double destinationLongitude;
+
+    // Planned route as a Google encoded polyline, used by tracking-service for deviation alerts
+    @Column(columnDefinition = "TEXT")
+    private String routePolyline;
+
     // Manually-added Getters
     public Long getId() { return id; }
     public String getOrigin() { return origin; }
     public String getDestination() { return destination; }
     public String getScheduledTime() { return scheduledTime; }
+    public Long getUserId() { return userId; }
+    public Double getDestinationLatitude() { return destinationLatitude; }
+    public Double getDestinationLongitude() { return destinationLongitude; }
+    public String getRoutePolyline() { return routePolyline; }
 
     // Manually-added Setters
     public void setId(Long id) { this.id = id; }
     public void setOrigin(String origin) { this.origin = origin; }
     public void setDestination(String destination) { this.destination = destination; }
     public void setScheduledTime(String scheduledTime) { this.scheduledTime = scheduledTime; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    public void setDestinationLatitude(Double destinationLatitude) { this.destinationLatitude = destinationLatitude; }
+    public void setDestinationLongitude(Double destinationLongitude) { this.destinationLongitude = destinationLongitude; }
+    public void setRoutePolyline(String routePolyline) { this.routePolyline = routePolyline; }
 }
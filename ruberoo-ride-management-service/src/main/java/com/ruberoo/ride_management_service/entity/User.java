@@ -1,18 +1,21 @@
 package com.ruberoo.ride_management_service.entity;
 
 // IMPORTANT: This is NOT a JPA entity; it's a simple POJO for Feign deserialization.
+// Mirrors the public projection returned by user-service (never the password).
 public class User {
     private Long id;
-    private String firstName;
-    private String lastName;
+    private String name;
     private String email;
-    // Add any other fields you need from the User Service here!
 
     // Default (no-args) constructor is essential for JSON deserialization by Feign/Jackson
     public User() {
     }
 
-    // You should also add a parameterized constructor and all your Getters and Setters!
+    public User(Long id, String name, String email) {
+        this.id = id;
+        this.name = name;
+        this.email = email;
+    }
 
     public Long getId() {
         return id;
@@ -21,5 +24,20 @@ public class User {
     public void setId(Long id) {
         this.id = id;
     }
-    // ... (rest of the getters and setters)
-}
\ No newline at end of file
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+}
@@ -1,7 +1,30 @@
 package com.ruberoo.ride_management_service.repository;
 
+import com.ruberoo.ride_management_service.dto.RideSummaryDTO;
 import com.ruberoo.ride_management_service.entity.Ride;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 public interface RideRepository extends JpaRepository<Ride, Long> {
+
+    String SUMMARY = "select new com.ruberoo.ride_management_service.dto.RideSummaryDTO("
+            + "r.id, r.origin, r.destination, r.scheduledTime, r.userId, r.destinationLatitude, r.destinationLongitude) from Ride r ";
+
+    // Keyset page: seeks past the last id instead of skipping OFFSET rows
+    @Query(SUMMARY + "where r.id > :afterId order by r.id")
+    List<RideSummaryDTO> findSummariesAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    // Must be consumed inside a read-only transaction; rows are fetched from the driver in chunks
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query(SUMMARY + "order by r.id")
+    Stream<RideSummaryDTO> streamSummaries();
 }
@@ -1,11 +1,23 @@
 package com.ruberoo.ride_management_service.service;
 
+import com.ruberoo.common.cache.SingleFlightCache;
+import com.ruberoo.common.pagination.CursorPage;
+import com.ruberoo.ride_management_service.client.UserLookupCache;
+import com.ruberoo.ride_management_service.dto.RideDetailsDTO;
+import com.ruberoo.ride_management_service.dto.RideResponseDTO;
+import com.ruberoo.ride_management_service.dto.RideSummaryDTO;
 import com.ruberoo.ride_management_service.entity.Ride;
+import com.ruberoo.ride_management_service.entity.User;
 import com.ruberoo.ride_management_service.repository.RideRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class RideService {
@@ -13,16 +25,40 @@ public class RideService {
     @Autowired
     private RideRepository rideRepository;
 
+    @Autowired
+    private UserLookupCache userLookupCache;
+
+    @Autowired
+    private SingleFlightCache<Long, RideDetailsDTO> rideLookupCache;
+
     public Ride createRide(Ride ride) {
         return rideRepository.save(ride);
     }
 
-    public List<Ride> getAllRides() {
-        return rideRepository.findAll();
+    public CursorPage<RideResponseDTO> getRidesPage(long afterId, int limit) {
+        // One extra row tells whether there is a next page
+        List<RideSummaryDTO> rows = rideRepository.findSummariesAfter(afterId, PageRequest.ofSize(limit + 1));
+        CursorPage<RideSummaryDTO> page = CursorPage.of(rows, limit, RideSummaryDTO::id);
+
+        // Riders of the whole page are resolved with at most one call to user-service
+        Map<Long, User> users = userLookupCache.getUsers(page.items().stream().map(RideSummaryDTO::userId).toList());
+        List<RideResponseDTO> items = page.items().stream()
+                .map(ride -> new RideResponseDTO(ride, ride.userId() == null ? null : users.get(ride.userId())))
+                .toList();
+        return new CursorPage<>(items, page.nextCursor());
+    }
+
+    // Rows are handed to the action one by one, so memory does not grow with the table
+    @Transactional(readOnly = true)
+    public void forEachRide(Consumer<RideSummaryDTO> action) {
+        try (Stream<RideSummaryDTO> rides = rideRepository.streamSummaries()) {
+            rides.forEach(action);
+        }
     }
 
-    public Ride getRideById(Long id) {
-        return rideRepository.findById(id).orElse(null);
+    public RideDetailsDTO getRideById(Long id) {
+        // Concurrent lookups of the same id share one query, then hit the near-cache
+        return rideLookupCache.get(id, key -> rideRepository.findById(key).map(RideDetailsDTO::of).orElse(null));
     }
 
     public Ride updateRide(Long id, Ride rideDetails) {
@@ -31,12 +67,19 @@ public class RideService {
             ride.setOrigin(rideDetails.getOrigin());
             ride.setDestination(rideDetails.getDestination());
             ride.setScheduledTime(rideDetails.getScheduledTime());
-            return rideRepository.save(ride);
+            ride.setUserId(rideDetails.getUserId());
+            ride.setDestinationLatitude(rideDetails.getDestinationLatitude());
+            ride.setDestinationLongitude(rideDetails.getDestinationLongitude());
+            ride.setRoutePolyline(rideDetails.getRoutePolyline());
+            Ride saved = rideRepository.save(ride);
+            rideLookupCache.invalidate(id);
+            return saved;
         }
         return null;
     }
 
     public void deleteRide(Long id) {
         rideRepository.deleteById(id);
+        rideLookupCache.invalidate(id);
     }
 }
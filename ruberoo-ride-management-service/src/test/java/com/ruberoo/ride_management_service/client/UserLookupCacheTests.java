@@ -0,0 +1,62 @@
+package com.ruberoo.ride_management_service.client;
+
+import com.ruberoo.ride_management_service.entity.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserLookupCacheTests {
+
+    private final List<List<Long>> calls = new ArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final UserClient userClient = ids -> {
+        calls.add(List.copyOf(ids));
+        // user 99 does not exist
+        return ids.stream().filter(id -> id != 99L).map(id -> new User(id, "user" + id, id + "@ruberoo.com")).toList();
+    };
+
+    @Test
+    void resolvesAPageWithOneBatchCallAndServesRepeatsFromCache() {
+        UserLookupCache cache = new UserLookupCache(userClient, meterRegistry, true, 100, Duration.ofMinutes(5));
+
+        Map<Long, User> first = cache.getUsers(List.of(1L, 2L, 1L, 99L));
+        assertEquals(1, calls.size());
+        assertEquals(List.of(1L, 2L, 99L), calls.get(0));
+        assertEquals("user2", first.get(2L).getName());
+        assertFalse(first.containsKey(99L));
+
+        Map<Long, User> second = cache.getUsers(List.of(1L, 2L, 3L));
+        assertEquals(2, calls.size());
+        assertEquals(List.of(3L), calls.get(1));
+        assertEquals(3, second.size());
+
+        assertEquals(2.0, meterRegistry.counter("rides.user.cache", "result", "hit").count());
+        assertEquals(4.0, meterRegistry.counter("rides.user.cache", "result", "miss").count());
+    }
+
+    @Test
+    void returnsCachedUsersWhenUserServiceFails() {
+        boolean[] down = {false};
+        UserLookupCache cache = new UserLookupCache(ids -> {
+            if (down[0]) {
+                throw new IllegalStateException("user-service down");
+            }
+            return userClient.getUsersByIds(ids);
+        }, meterRegistry, true, 100, Duration.ofMinutes(5));
+        cache.getUsers(List.of(1L));
+
+        down[0] = true;
+        Map<Long, User> users = cache.getUsers(List.of(1L, 2L));
+        assertEquals(1, users.size());
+        assertTrue(users.containsKey(1L));
+    }
+}
@@ -0,0 +1,86 @@
+package com.ruberoo.ride_management_service.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ruberoo.common.pagination.CursorPage;
+import com.ruberoo.ride_management_service.dto.RideResponseDTO;
+import com.ruberoo.ride_management_service.dto.RideSummaryDTO;
+import com.ruberoo.ride_management_service.service.RideService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * GET /api/rides keeps answering a plain array; pages only when asked for with cursor or limit.
+ */
+class RideControllerTests {
+
+    private static final List<RideSummaryDTO> RIDES = List.of(
+            new RideSummaryDTO(1L, "A", "B", "09:00", 7L, null, null),
+            new RideSummaryDTO(2L, "C", "D", "10:00", 8L, null, null));
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        RideService rideService = mock(RideService.class);
+        doAnswer(invocation -> {
+            Consumer<RideSummaryDTO> action = invocation.getArgument(0);
+            RIDES.forEach(action);
+            return null;
+        }).when(rideService).forEachRide(any());
+        when(rideService.getRidesPage(anyLong(), anyInt())).thenReturn(new CursorPage<>(
+                List.of(new RideResponseDTO(RIDES.get(0), null)), CursorPage.encodeCursor(1L)));
+
+        RideController controller = new RideController();
+        ReflectionTestUtils.setField(controller, "rideService", rideService);
+        ReflectionTestUtils.setField(controller, "objectMapper", new ObjectMapper());
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    void listsAllRidesAsAnArrayByDefault() throws Exception {
+        mockMvc.perform(get("/api/rides"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[1].origin").value("C"));
+    }
+
+    @Test
+    void pagesWhenACursorOrLimitIsGiven() throws Exception {
+        mockMvc.perform(get("/api/rides").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.nextCursor").value(CursorPage.encodeCursor(1L)));
+        mockMvc.perform(get("/api/rides").param("cursor", "not a cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void streamsNdjsonWhenAskedFor() throws Exception {
+        mockMvc.perform(get("/api/rides").accept("application/x-ndjson"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string(startsWith("{\"id\":1,")))
+                .andExpect(content().string(containsString("}\n{\"id\":2,")));
+    }
+}
@@ -0,0 +1,31 @@
+package com.ruberoo.tracking_service.broker;
+
+import java.util.function.Consumer;
+
+/**
+ * Transport that carries encoded topic broadcasts between tracking-service replicas.
+ *
+ * When a bean of this type exists, {@link TopicFanout} publishes every local
+ * /topic broadcast on it and re-delivers broadcasts from other replicas to the
+ * local simple broker, so a rider on replica A sees driver updates that arrive
+ * on replica B.
+ *
+ * @author Ruberoo Team
+ * @version 1.0
+ */
+public interface BroadcastBus {
+
+    /**
+     * Send an encoded broadcast to every replica, including this one.
+     *
+     * @param frame Encoded broadcast, see {@link TopicFanout}
+     */
+    void publish(byte[] frame);
+
+    /**
+     * Register the callback invoked for every frame published by any replica.
+     *
+     * @param listener Frame consumer
+     */
+    void subscribe(Consumer<byte[]> listener);
+}
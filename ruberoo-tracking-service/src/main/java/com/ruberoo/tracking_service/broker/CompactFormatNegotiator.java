@@ -0,0 +1,102 @@
+package com.ruberoo.tracking_service.broker;
+
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lets clients opt into the binary location encoding per subscription.
+ *
+ * A SUBSCRIBE to /topic/tracking/{rideId} carrying the STOMP header
+ * {@code format:compact} receives {@link com.ruberoo.tracking_service.model.CompactLocationCodec}
+ * frames instead of JSON, see {@link CompactFrameTranscoder}. Subscriptions without
+ * the header keep getting JSON.
+ *
+ * Binary frames need a raw WebSocket, so the header is only honoured on sessions
+ * opened through /ws/tracking-binary, whose handshake this class marks. On the SockJS
+ * endpoint /ws/tracking (text-only transports) it is ignored and the subscription
+ * stays JSON.
+ *
+ * @author Ruberoo Team
+ * @version 1.0
+ */
+@Component
+public class CompactFormatNegotiator implements ChannelInterceptor, HandshakeInterceptor {
+
+    public static final String FORMAT_HEADER = "format";
+    public static final String COMPACT_FORMAT = "compact";
+
+    private static final String BINARY_SESSION_ATTRIBUTE = CompactFormatNegotiator.class.getName() + ".binary";
+    private static final String TOPIC_PREFIX = "/topic/tracking/";
+
+    // sessionId -> ids of its compact subscriptions
+    private final Map<String, Set<String>> compactSubscriptions = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        attributes.put(BINARY_SESSION_ATTRIBUTE, Boolean.TRUE);
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception exception) {
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null) {
+            return message;
+        }
+        StompCommand command = accessor.getCommand();
+        if (command == StompCommand.SUBSCRIBE) {
+            onSubscribe(accessor);
+        } else if (command == StompCommand.UNSUBSCRIBE) {
+            Set<String> subscriptions = compactSubscriptions.get(accessor.getSessionId());
+            if (subscriptions != null && accessor.getSubscriptionId() != null) {
+                subscriptions.remove(accessor.getSubscriptionId());
+            }
+        } else if (command == StompCommand.DISCONNECT) {
+            compactSubscriptions.remove(accessor.getSessionId());
+        }
+        return message;
+    }
+
+    /**
+     * @return true if frames for this subscription are to be sent in the compact format
+     */
+    public boolean isCompact(String sessionId, String subscriptionId) {
+        if (sessionId == null || subscriptionId == null) {
+            return false;
+        }
+        Set<String> subscriptions = compactSubscriptions.get(sessionId);
+        return subscriptions != null && subscriptions.contains(subscriptionId);
+    }
+
+    private void onSubscribe(StompHeaderAccessor accessor) {
+        String destination = accessor.getDestination();
+        Map<String, Object> sessionAttributes = accessor.getSessionAttributes();
+        if (destination == null || !destination.startsWith(TOPIC_PREFIX)
+                || !COMPACT_FORMAT.equalsIgnoreCase(accessor.getFirstNativeHeader(FORMAT_HEADER))
+                || sessionAttributes == null || !sessionAttributes.containsKey(BINARY_SESSION_ATTRIBUTE)
+                || accessor.getSubscriptionId() == null) {
+            return;
+        }
+        compactSubscriptions.computeIfAbsent(accessor.getSessionId(), id -> ConcurrentHashMap.newKeySet())
+                .add(accessor.getSubscriptionId());
+    }
+}
@@ -0,0 +1,58 @@
+package com.ruberoo.tracking_service.broker;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ruberoo.tracking_service.model.CompactLocationCodec;
+import com.ruberoo.tracking_service.model.LocationSample;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.IOException;
+
+/**
+ * Rewrites JSON location frames into {@link CompactLocationCodec} frames on their
+ * way out to subscriptions negotiated by {@link CompactFormatNegotiator}.
+ *
+ * Only the JSON broadcast is ever published, so the broker (in-memory, fanned out
+ * or relayed) carries nothing extra and rides without compact subscribers cost
+ * nothing. Frames that do not read as a location are passed through unchanged.
+ *
+ * @author Ruberoo Team
+ * @version 1.0
+ */
+@Component
+public class CompactFrameTranscoder implements ChannelInterceptor {
+
+    private final CompactFormatNegotiator negotiator;
+    private final ObjectMapper objectMapper;
+
+    public CompactFrameTranscoder(CompactFormatNegotiator negotiator, ObjectMapper objectMapper) {
+        this.negotiator = negotiator;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        MessageHeaders headers = message.getHeaders();
+        if (!(message.getPayload() instanceof byte[] json)
+                || !negotiator.isCompact(SimpMessageHeaderAccessor.getSessionId(headers),
+                        SimpMessageHeaderAccessor.getSubscriptionId(headers))) {
+            return message;
+        }
+        LocationSample location;
+        try {
+            location = objectMapper.readValue(json, LocationSample.class);
+        } catch (IOException e) {
+            return message;
+        }
+        MessageHeaderAccessor accessor = MessageHeaderAccessor.getMutableAccessor(message);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+        return MessageBuilder.createMessage(CompactLocationCodec.encode(location), accessor.getMessageHeaders());
+    }
+}
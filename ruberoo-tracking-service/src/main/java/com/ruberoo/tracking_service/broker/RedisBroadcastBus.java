@@ -0,0 +1,58 @@
+package com.ruberoo.tracking_service.broker;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * {@link BroadcastBus} over Redis pub/sub (ruberoo.tracking.broker.type=redis).
+ *
+ * @author Ruberoo Team
+ * @version 1.0
+ */
+@Component
+@ConditionalOnProperty(name = "ruberoo.tracking.broker.type", havingValue = "redis")
+public class RedisBroadcastBus implements BroadcastBus, DisposableBean {
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final String channel;
+    private final byte[] channelBytes;
+
+    public RedisBroadcastBus(StringRedisTemplate redisTemplate,
+                             RedisConnectionFactory connectionFactory,
+                             @Value("${ruberoo.tracking.broker.redis.channel:tracking:broadcast}") String channel) {
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+        this.channelBytes = channel.getBytes(StandardCharsets.UTF_8);
+        this.listenerContainer = new RedisMessageListenerContainer();
+        this.listenerContainer.setConnectionFactory(connectionFactory);
+        this.listenerContainer.afterPropertiesSet();
+        this.listenerContainer.start();
+    }
+
+    @Override
+    public void publish(byte[] frame) {
+        redisTemplate.execute((RedisCallback<Long>) connection -> connection.publish(channelBytes, frame));
+    }
+
+    @Override
+    public void subscribe(Consumer<byte[]> listener) {
+        listenerContainer.addMessageListener((message, pattern) -> listener.accept(message.getBody()),
+                new ChannelTopic(channel));
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        listenerContainer.destroy();
+    }
+}
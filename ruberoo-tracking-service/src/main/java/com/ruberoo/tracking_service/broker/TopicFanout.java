@@ -0,0 +1,140 @@
+package com.ruberoo.tracking_service.broker;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Cross-replica fan-out for the in-memory simple broker.
+ *
+ * Installed as an interceptor on the broker channel: every /topic MESSAGE sent on
+ * this replica is delivered locally as usual and also published on the
+ * {@link BroadcastBus}. Frames received from other replicas are re-injected into
+ * the local broker channel, marked with {@link #ORIGIN_HEADER} so they are not
+ * published again. Frames from this replica are ignored on receipt.
+ *
+ * Frame layout: origin id, destination, content type (UTF strings), then payload bytes.
+ *
+ * Inactive (pass-through) when no BroadcastBus bean is configured.
+ *
+ * @author Ruberoo Team
+ * @version 1.0
+ */
+@Component
+public class TopicFanout implements ChannelInterceptor, SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(TopicFanout.class);
+
+    static final String ORIGIN_HEADER = "ruberooFanoutOrigin";
+    private static final String TOPIC_PREFIX = "/topic/";
+
+    private final BroadcastBus bus;
+    private final MessageChannel brokerChannel;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    public TopicFanout(ObjectProvider<BroadcastBus> bus,
+                       @Lazy @Qualifier("brokerChannel") MessageChannel brokerChannel) {
+        this.bus = bus.getIfAvailable();
+        this.brokerChannel = brokerChannel;
+    }
+
+    public boolean isEnabled() {
+        return bus != null;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (bus != null) {
+            bus.subscribe(this::onRemoteFrame);
+            logger.info("Cross-replica topic fan-out enabled via {}", bus.getClass().getSimpleName());
+        }
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (bus == null) {
+            return message;
+        }
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        String destination = accessor.getDestination();
+        if (accessor.getMessageType() != SimpMessageType.MESSAGE
+                || destination == null || !destination.startsWith(TOPIC_PREFIX)
+                || accessor.getHeader(ORIGIN_HEADER) != null) {
+            return message;
+        }
+        byte[] payload = payloadBytes(message.getPayload());
+        if (payload != null) {
+            try {
+                bus.publish(encode(destination, accessor.getContentType(), payload));
+            } catch (RuntimeException e) {
+                // Local subscribers still get the message; remote ones miss this tick
+                logger.warn("Failed to fan out broadcast to {}: {}", destination, e.getMessage());
+            }
+        }
+        return message;
+    }
+
+    private void onRemoteFrame(byte[] frame) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(frame))) {
+            String origin = in.readUTF();
+            if (instanceId.equals(origin)) {
+                return;
+            }
+            String destination = in.readUTF();
+            String contentType = in.readUTF();
+            byte[] payload = in.readAllBytes();
+
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            accessor.setDestination(destination);
+            if (!contentType.isEmpty()) {
+                accessor.setContentType(MimeType.valueOf(contentType));
+            }
+            accessor.setHeader(ORIGIN_HEADER, origin);
+            brokerChannel.send(MessageBuilder.createMessage(payload, accessor.getMessageHeaders()));
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Dropping malformed fan-out frame: {}", e.getMessage());
+        }
+    }
+
+    private byte[] encode(String destination, MimeType contentType, byte[] payload) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(payload.length + 128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeUTF(instanceId);
+            out.writeUTF(destination);
+            out.writeUTF(contentType == null ? "" : contentType.toString());
+            out.write(payload);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] payloadBytes(Object payload) {
+        if (payload instanceof byte[] bytes) {
+            return bytes;
+        }
+        if (payload instanceof String text) {
+            return text.getBytes(StandardCharsets.UTF_8);
+        }
+        return null;
+    }
+}
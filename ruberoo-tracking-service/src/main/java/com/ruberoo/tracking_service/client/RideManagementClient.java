@@ -0,0 +1,89 @@
+package com.ruberoo.tracking_service.client;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * Non-blocking client for ride-management-service.
+ * Never called on the STOMP inbound thread in a blocking way.
+ *
+ * The route deviation detector and the ETA tracker both look a ride up when its first
+ * ping arrives. Lookups share one cached request per ride: concurrent callers wait for
+ * the same response, which is then kept for {@code cache-ttl}. Failed lookups are not
+ * cached, so the callers' retries reach the ride service.
+ *
+ * @author Ruberoo Team
+ * @version 1.0
+ */
+@Component
+public class RideManagementClient {
+
+    private final WebClient webClient;
+    private final Duration timeout;
+    private final Duration cacheTtl;
+    private final Cache<Long, Mono<RideView>> rides;
+
+    public RideManagementClient(WebClient.Builder webClientBuilder,
+                                @Value("${ruberoo.tracking.ride-service.url:http://ride-management-service}") String baseUrl,
+                                @Value("${ruberoo.tracking.ride-service.timeout:2s}") Duration timeout,
+                                @Value("${ruberoo.tracking.ride-service.cache-ttl:30s}") Duration cacheTtl,
+                                @Value("${ruberoo.tracking.ride-service.cache-max-entries:10000}") long cacheMaxEntries) {
+        this.webClient = webClientBuilder.baseUrl(baseUrl).build();
+        this.timeout = timeout;
+        this.cacheTtl = cacheTtl;
+        this.rides = Caffeine.newBuilder()
+                .maximumSize(cacheMaxEntries)
+                .expireAfterWrite(cacheTtl)
+                .build();
+    }
+
+    /**
+     * Fetch the drop-off coordinates of a ride.
+     *
+     * @param rideId The ride identifier
+     * @return The destination, or empty if the ride does not exist or has no coordinates
+     */
+    public Mono<RideDestination> getDestination(long rideId) {
+        return getRide(rideId)
+                .filter(ride -> ride.destinationLatitude() != null && ride.destinationLongitude() != null)
+                .map(ride -> new RideDestination(ride.destinationLatitude(), ride.destinationLongitude()));
+    }
+
+    /**
+     * Fetch the planned route of a ride.
+     *
+     * @param rideId The ride identifier
+     * @return The route as a Google encoded polyline, or empty if the ride does not exist or has no route
+     */
+    public Mono<String> getRoutePolyline(long rideId) {
+        return getRide(rideId)
+                .filter(ride -> ride.routePolyline() != null && !ride.routePolyline().isEmpty())
+                .map(RideView::routePolyline);
+    }
+
+    private Mono<RideView> getRide(long rideId) {
+        return rides.get(rideId, id -> fetchRide(id).cache(ride -> cacheTtl, error -> Duration.ZERO, () -> Duration.ZERO));
+    }
+
+    private Mono<RideView> fetchRide(long rideId) {
+        return webClient.get()
+                .uri("/api/rides/{id}", rideId)
+                .retrieve()
+                .bodyToMono(RideView.class)
+                .timeout(timeout);
+    }
+
+    public record RideDestination(double latitude, double longitude) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record RideView(Double destinationLatitude, Double destinationLongitude, String routePolyline) {
+    }
+}
@@ -0,0 +1,102 @@
+package com.ruberoo.tracking_service.client;
+
+import com.ruberoo.tracking_service.dto.RideHandoffDto;
+import com.ruberoo.tracking_service.model.LocationSample;
+import com.ruberoo.tracking_service.shard.ShardSecret;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Non-blocking client for the internal endpoints of the other tracking-service replicas
+ * (see ShardController).
+ *
+ * Each replica is called on the address it registered in Eureka, so this client is
+ * deliberately not load-balanced. Every call carries the {@link ShardSecret}.
+ *
+ * @author Ruberoo Team
+ * @version 1.0
+ */
+@Component
+public class ShardPeerClient {
+
+    private final WebClient webClient;
+    private final Duration timeout;
+
+    public ShardPeerClient(ShardSecret shardSecret,
+                           @Value("${ruberoo.tracking.shard.peer-timeout:2s}") Duration timeout) {
+        this.webClient = WebClient.builder()
+                .defaultHeader(ShardSecret.HEADER, shardSecret.value())
+                .build();
+        this.timeout = timeout;
+    }
+
+    /**
+     * Send a validated ping to the replica owning its ride.
+     *
+     * @param peer Base URI of the owner
+     * @param location Location update, stamped with its ride id and receive time
+     */
+    public Mono<Void> forwardUpdate(URI peer, LocationSample location) {
+        return webClient.post()
+                .uri(peer + "/internal/tracking/rides/{rideId}/updates", location.rideId())
+                .bodyValue(location)
+                .retrieve()
+                .toBodilessEntity()
+                .timeout(timeout)
+                .then();
+    }
+
+    /**
+     * @param peer Base URI of the owner
+     * @param rideId The ride identifier
+     * @return The last known location held by the owner, or empty if it has none
+     */
+    public Mono<LocationSample> getLastKnownLocation(URI peer, long rideId) {
+        return webClient.get()
+                .uri(peer + "/internal/tracking/rides/{rideId}/location", rideId)
+                .retrieve()
+                .bodyToMono(LocationSample.class)
+                .onErrorResume(WebClientResponseException.class,
+                        e -> e.getStatusCode() == HttpStatus.NOT_FOUND ? Mono.empty() : Mono.error(e))
+                .timeout(timeout);
+    }
+
+    /**
+     * @param peer Base URI of a replica
+     * @return The latest positions of the nearest drivers indexed by that replica only
+     */
+    public Mono<List<LocationSample>> findNearestDrivers(URI peer, double latitude, double longitude,
+                                                         double radiusKm, int limit) {
+        return webClient.get()
+                .uri(peer + "/internal/tracking/drivers/nearby?lat={lat}&lon={lon}&radiusKm={radiusKm}&limit={limit}",
+                        latitude, longitude, radiusKm, limit)
+                .retrieve()
+                .bodyToFlux(LocationSample.class)
+                .collectList()
+                .timeout(timeout);
+    }
+
+    /**
+     * Hand the state of some rides over to their new owner.
+     *
+     * @param peer Base URI of the new owner
+     * @param handoff The rides and their state
+     */
+    public Mono<Void> handOff(URI peer, RideHandoffDto handoff) {
+        return webClient.post()
+                .uri(peer + "/internal/tracking/rides/handoff")
+                .bodyValue(handoff)
+                .retrieve()
+                .toBodilessEntity()
+                .timeout(timeout)
+                .then();
+    }
+}
@@ -0,0 +1,23 @@
+package com.ruberoo.tracking_service.config;
+
+import org.springframework.cloud.client.loadbalancer.LoadBalanced;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.client.WebClient;
+
+/**
+ * WebClient used to call other Ruberoo services by their Eureka service id
+ * (e.g. http://ride-management-service).
+ *
+ * @author Ruberoo Team
+ * @version 1.0
+ */
+@Configuration
+public class WebClientConfig {
+
+    @Bean
+    @LoadBalanced
+    public WebClient.Builder loadBalancedWebClientBuilder() {
+        return WebClient.builder();
+    }
+}
@@ -0,0 +1,28 @@
+package com.ruberoo.tracking_service.config;
+
+import com.ruberoo.tracking_service.shard.ShardSecret;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Only the other tracking-service replicas, holding the shard secret, may call the
+ * /internal endpoints.
+ *
+ * @author Ruberoo Team
+ * @version 1.0
+ */
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    private final ShardSecret shardSecret;
+
+    public WebMvcConfig(ShardSecret shardSecret) {
+        this.shardSecret = shardSecret;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(shardSecret).addPathPatterns("/internal/**");
+    }
+}
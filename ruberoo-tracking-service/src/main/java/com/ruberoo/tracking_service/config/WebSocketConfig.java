@@ -1,6 +1,11 @@
 package com.ruberoo.tracking_service.config;
 
+import com.ruberoo.tracking_service.broker.CompactFormatNegotiator;
+import com.ruberoo.tracking_service.broker.CompactFrameTranscoder;
+import com.ruberoo.tracking_service.broker.TopicFanout;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
@@ -9,12 +14,22 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
 /**
  * WebSocket Configuration for Real-Time GPS Tracking
  * Enables STOMP over WebSocket for bidirectional communication
- * 
+ *
  * Endpoints:
- * - /ws/tracking - WebSocket handshake endpoint
+ * - /ws/tracking - WebSocket handshake endpoint (SockJS)
+ * - /ws/tracking-binary - raw WebSocket endpoint for clients using the compact binary format
  * - /topic/tracking/{rideId} - Subscribe to ride location updates
  * - /app/tracking/update - Send location updates from drivers
- * 
+ *
+ * On /ws/tracking-binary, subscribing with the STOMP header "format:compact" switches
+ * that subscription to binary frames, see CompactFormatNegotiator. The header is
+ * ignored on the SockJS endpoint.
+ *
+ * Broker modes (ruberoo.tracking.broker.type):
+ * - simple - in-memory broker, single replica only (default)
+ * - redis  - in-memory broker per replica, broadcasts fanned out over Redis pub/sub
+ * - relay  - STOMP broker relay to an external broker (RabbitMQ, ActiveMQ)
+ *
  * @author Ruberoo Team
  * @version 1.0
  */
@@ -22,21 +37,98 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final TopicFanout topicFanout;
+    private final CompactFormatNegotiator compactFormatNegotiator;
+    private final CompactFrameTranscoder compactFrameTranscoder;
+
+    @Value("${ruberoo.tracking.broker.type:simple}")
+    private String brokerType;
+
+    @Value("${ruberoo.tracking.broker.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${ruberoo.tracking.broker.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${ruberoo.tracking.broker.relay.login:guest}")
+    private String relayLogin;
+
+    @Value("${ruberoo.tracking.broker.relay.passcode:guest}")
+    private String relayPasscode;
+
+    @Value("${ruberoo.tracking.websocket.inbound.pool-size:#{T(java.lang.Runtime).getRuntime().availableProcessors() * 2}}")
+    private int inboundPoolSize;
+
+    @Value("${ruberoo.tracking.websocket.inbound.queue-capacity:10000}")
+    private int inboundQueueCapacity;
+
+    @Value("${ruberoo.tracking.websocket.outbound.pool-size:#{T(java.lang.Runtime).getRuntime().availableProcessors() * 2}}")
+    private int outboundPoolSize;
+
+    @Value("${ruberoo.tracking.websocket.outbound.queue-capacity:10000}")
+    private int outboundQueueCapacity;
+
+    public WebSocketConfig(TopicFanout topicFanout, CompactFormatNegotiator compactFormatNegotiator,
+                           CompactFrameTranscoder compactFrameTranscoder) {
+        this.topicFanout = topicFanout;
+        this.compactFormatNegotiator = compactFormatNegotiator;
+        this.compactFrameTranscoder = compactFrameTranscoder;
+    }
+
     /**
      * Configure message broker for pub/sub messaging
-     * - Simple broker handles /topic destinations for broadcasting
+     * - Simple broker (or external relay) handles /topic destinations for broadcasting
      * - Application destination prefix /app for client-to-server messages
      */
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        // Enable simple in-memory message broker for pub/sub
-        // Production should use RabbitMQ or Redis for scalability
-        config.enableSimpleBroker("/topic");
-        
+        if ("relay".equalsIgnoreCase(brokerType)) {
+            // External STOMP broker shares subscriptions across all replicas
+            config.enableStompBrokerRelay("/topic")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayLogin)
+                    .setClientPasscode(relayPasscode)
+                    .setSystemLogin(relayLogin)
+                    .setSystemPasscode(relayPasscode);
+        } else {
+            // In-memory broker; with a BroadcastBus configured, broadcasts are fanned out to other replicas
+            config.enableSimpleBroker("/topic");
+            if (topicFanout.isEnabled()) {
+                config.configureBrokerChannel().interceptors(topicFanout);
+            }
+        }
+
         // Set prefix for messages bound for @MessageMapping methods
         config.setApplicationDestinationPrefixes("/app");
     }
 
+    /**
+     * Driver pings are handled on this pool; size it for CPU-bound handling
+     * and keep the queue bounded so a burst cannot exhaust the heap.
+     */
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(inboundPoolSize)
+                .maxPoolSize(inboundPoolSize)
+                .queueCapacity(inboundQueueCapacity);
+        registration.interceptors(compactFormatNegotiator);
+    }
+
+    /**
+     * Broadcast frames to riders are written on this pool, after transcoding
+     * those bound for compact subscriptions.
+     */
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor()
+                .corePoolSize(outboundPoolSize)
+                .maxPoolSize(outboundPoolSize)
+                .queueCapacity(outboundQueueCapacity);
+        registration.interceptors(compactFrameTranscoder);
+    }
+
     /**
      * Register STOMP endpoints for WebSocket handshake
      * - Endpoint: /ws/tracking
@@ -48,5 +140,10 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         registry.addEndpoint("/ws/tracking")
                 .setAllowedOriginPatterns("*") // TODO: Configure specific origins for production
                 .withSockJS(); // Fallback for browsers without WebSocket support
+
+        // SockJS transports are text-only, binary frames need a plain WebSocket
+        registry.addEndpoint("/ws/tracking-binary")
+                .addInterceptors(compactFormatNegotiator)
+                .setAllowedOriginPatterns("*");
     }
 }
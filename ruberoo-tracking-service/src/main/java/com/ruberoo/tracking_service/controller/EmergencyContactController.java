@@ -1,27 +1,74 @@
 package com.ruberoo.tracking_service.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ruberoo.common.pagination.CursorPage;
+import com.ruberoo.common.pagination.JsonRows;
+import com.ruberoo.tracking_service.dto.EmergencyContactDto;
 import com.ruberoo.tracking_service.entity.EmergencyContact;
 import com.ruberoo.tracking_service.service.EmergencyContactService;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
+import java.io.IOException;
 
 @RestController
 @RequestMapping("/api/emergency-contacts")
 public class EmergencyContactController {
 
+    private static final int MAX_PAGE_SIZE = 500;
+
     @Autowired
     private EmergencyContactService contactService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @PostMapping
     public EmergencyContact createContact(@RequestBody EmergencyContact contact) {
         return contactService.createContact(contact);
     }
 
+    /**
+     * Lists every contact as a JSON array, in id order.
+     * Rows are written as they are read, memory stays flat regardless of table size.
+     * Pass cursor or limit to get one page at a time instead.
+     */
+    @GetMapping(params = {"!cursor", "!limit"}, produces = MediaType.APPLICATION_JSON_VALUE)
+    public void getAllContacts(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        JsonRows.write(objectMapper, response.getOutputStream(), false, contactService::forEachContact);
+    }
+
+    /**
+     * Lists contacts one page at a time (?limit=, default 50), ordered by id.
+     * Pass the returned nextCursor as ?cursor= to get the following page.
+     */
     @GetMapping
-    public List<EmergencyContact> getAllContacts() {
-        return contactService.getAllContacts();
+    public ResponseEntity<CursorPage<EmergencyContactDto>> getContactsPage(@RequestParam(required = false) String cursor,
+                                                                           @RequestParam(defaultValue = "50") int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        long afterId;
+        try {
+            afterId = CursorPage.decodeCursor(cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(contactService.getContactsPage(afterId, limit));
+    }
+
+    /**
+     * Exports every contact as newline-delimited JSON (Accept: application/x-ndjson).
+     * Rows are written as they are read, memory stays flat regardless of table size.
+     */
+    @GetMapping(produces = JsonRows.NDJSON)
+    public void exportContacts(HttpServletResponse response) throws IOException {
+        response.setContentType(JsonRows.NDJSON);
+        JsonRows.write(objectMapper, response.getOutputStream(), true, contactService::forEachContact);
     }
 
     @GetMapping("/{id}")
@@ -0,0 +1,96 @@
+package com.ruberoo.tracking_service.controller;
+
+import com.ruberoo.tracking_service.dto.RideHandoffDto;
+import com.ruberoo.tracking_service.model.LocationSample;
+import com.ruberoo.tracking_service.service.DriverGeoIndex;
+import com.ruberoo.tracking_service.service.LastKnownLocationStore;
+import com.ruberoo.tracking_service.service.LocationUpdatePipeline;
+import com.ruberoo.tracking_service.shard.RideShards;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Endpoints the tracking-service replicas call on each other (see RideShards and
+ * ShardPeerClient). Requests without the shard secret are refused (see ShardSecret), and
+ * the api-gateway does not route /internal paths.
+ *
+ * - POST /internal/tracking/rides/{rideId}/updates - ping forwarded to the owner of the ride
+ * - GET /internal/tracking/rides/{rideId}/location - last known location held by this replica
+ * - POST /internal/tracking/rides/handoff - state of rides this replica now owns
+ * - GET /internal/tracking/drivers/nearby - nearest drivers in this replica's own index
+ *   (see NearbyDriverSearch)
+ *
+ * @author Ruberoo Team
+ * @version 1.0
+ */
+@RestController
+@RequestMapping("/internal/tracking")
+public class ShardController {
+
+    private final LocationUpdatePipeline locationUpdatePipeline;
+    private final LastKnownLocationStore lastKnownLocationStore;
+    private final DriverGeoIndex driverGeoIndex;
+    private final RideShards rideShards;
+
+    public ShardController(LocationUpdatePipeline locationUpdatePipeline,
+                           LastKnownLocationStore lastKnownLocationStore,
+                           DriverGeoIndex driverGeoIndex,
+                           RideShards rideShards) {
+        this.locationUpdatePipeline = locationUpdatePipeline;
+        this.lastKnownLocationStore = lastKnownLocationStore;
+        this.driverGeoIndex = driverGeoIndex;
+        this.rideShards = rideShards;
+    }
+
+    /**
+     * Handled here even if this replica thinks another one owns the ride, a forwarded
+     * ping is never forwarded again.
+     */
+    @PostMapping("/rides/{rideId}/updates")
+    public ResponseEntity<Void> forwardedUpdate(@PathVariable long rideId, @RequestBody LocationSample location) {
+        if (location.rideId() != rideId || !locationUpdatePipeline.isValidLocation(location)) {
+            return ResponseEntity.badRequest().build();
+        }
+        // Shutting down: the sender handles the ping itself
+        if (rideShards.isLeaving()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        locationUpdatePipeline.process(location);
+        return ResponseEntity.accepted().build();
+    }
+
+    @GetMapping("/rides/{rideId}/location")
+    public ResponseEntity<LocationSample> localLocation(@PathVariable long rideId) {
+        LocationSample location = lastKnownLocationStore.get(rideId);
+        return location == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(location);
+    }
+
+    @GetMapping("/drivers/nearby")
+    public List<LocationSample> localNearbyDrivers(@RequestParam double lat,
+                                                   @RequestParam double lon,
+                                                   @RequestParam double radiusKm,
+                                                   @RequestParam int limit) {
+        return driverGeoIndex.findNearest(lat, lon, radiusKm, limit).stream()
+                .map(DriverGeoIndex.NearbyDriver::location)
+                .toList();
+    }
+
+    @PostMapping("/rides/handoff")
+    public ResponseEntity<Void> handoff(@RequestBody RideHandoffDto handoff) {
+        // Shutting down: the sender keeps the rides and retries on its next refresh
+        if (rideShards.isLeaving()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        rideShards.accept(handoff);
+        return ResponseEntity.noContent().build();
+    }
+}
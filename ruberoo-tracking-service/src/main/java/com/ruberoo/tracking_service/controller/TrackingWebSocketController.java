@@ -1,18 +1,25 @@
 package com.ruberoo.tracking_service.controller;
 
+import com.ruberoo.tracking_service.client.ShardPeerClient;
 import com.ruberoo.tracking_service.dto.LocationUpdateDto;
+import com.ruberoo.tracking_service.dto.NearbyDriverDto;
+import com.ruberoo.tracking_service.model.LocationSample;
+import com.ruberoo.tracking_service.service.LastKnownLocationStore;
+import com.ruberoo.tracking_service.service.LocationUpdatePipeline;
+import com.ruberoo.tracking_service.shard.NearbyDriverSearch;
+import com.ruberoo.tracking_service.shard.RideShards;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
-import org.springframework.messaging.handler.annotation.SendTo;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 
-import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * WebSocket Controller for Real-Time GPS Tracking
@@ -21,10 +28,12 @@ import java.time.LocalDateTime;
  * WebSocket Endpoints:
  * - /app/tracking/update/{rideId} - Drivers send location updates
  * - /topic/tracking/{rideId} - Riders subscribe to location updates
+ * - /topic/ride-alerts/{rideId} - Route deviation alerts
  * 
  * REST Endpoints:
  * - GET /api/tracking/health - Health check
  * - GET /api/tracking/rides/{rideId}/location - Get last known location
+ * - GET /api/tracking/drivers/nearby - Nearest drivers to a point
  * 
  * @author Ruberoo Team
  * @version 1.0
@@ -38,45 +47,60 @@ public class TrackingWebSocketController {
     private static final Logger logger = LoggerFactory.getLogger(TrackingWebSocketController.class);
     
     private final SimpMessagingTemplate messagingTemplate;
+    private final LastKnownLocationStore lastKnownLocationStore;
+    private final LocationUpdatePipeline locationUpdatePipeline;
+    private final NearbyDriverSearch nearbyDriverSearch;
+    private final RideShards rideShards;
+    private final ShardPeerClient shardPeerClient;
     
-    public TrackingWebSocketController(SimpMessagingTemplate messagingTemplate) {
+    public TrackingWebSocketController(SimpMessagingTemplate messagingTemplate,
+                                       LastKnownLocationStore lastKnownLocationStore,
+                                       LocationUpdatePipeline locationUpdatePipeline,
+                                       NearbyDriverSearch nearbyDriverSearch,
+                                       RideShards rideShards,
+                                       ShardPeerClient shardPeerClient) {
         this.messagingTemplate = messagingTemplate;
+        this.lastKnownLocationStore = lastKnownLocationStore;
+        this.locationUpdatePipeline = locationUpdatePipeline;
+        this.nearbyDriverSearch = nearbyDriverSearch;
+        this.rideShards = rideShards;
+        this.shardPeerClient = shardPeerClient;
     }
     
     /**
      * WebSocket Message Mapping: Driver sends location update
      * Message sent to: /app/tracking/update/{rideId}
-     * Broadcast to: /topic/tracking/{rideId}
+     * Broadcast to: /topic/tracking/{rideId} (rate limited per ride, see LocationBroadcastCoalescer)
+     * by the replica owning the ride
+     * 
+     * The payload is read straight into a primitive {@link LocationSample};
+     * its JSON shape is the same as {@link LocationUpdateDto}.
      * 
      * @param rideId The ride identifier
-     * @param locationUpdate GPS location data from driver
-     * @return Location update to be broadcast to all subscribers
+     * @param payload GPS location data from driver
      */
     @MessageMapping("/tracking/update/{rideId}")
-    @SendTo("/topic/tracking/{rideId}")
-    public LocationUpdateDto handleLocationUpdate(
-            @DestinationVariable Long rideId,
-            @Payload LocationUpdateDto locationUpdate) {
-        
-        logger.info("Received location update for ride {}: lat={}, lon={}, speed={}", 
-                    rideId, locationUpdate.getLatitude(), locationUpdate.getLongitude(), 
-                    locationUpdate.getSpeed());
+    public void handleLocationUpdate(
+            @DestinationVariable long rideId,
+            @Payload LocationSample payload) {
         
         // Set timestamp and rideId
-        locationUpdate.setRideId(rideId);
-        locationUpdate.setTimestamp(LocalDateTime.now());
+        LocationSample locationUpdate = payload.received(rideId, System.currentTimeMillis());
+        
+        if (logger.isDebugEnabled()) {
+            logger.debug("Received location update for ride {}: lat={}, lon={}, speed={}", 
+                        rideId, locationUpdate.latitude(), locationUpdate.longitude(), 
+                        locationUpdate.speed());
+        }
         
         // Validate location data
-        if (!isValidLocation(locationUpdate)) {
+        if (!locationUpdatePipeline.isValidLocation(locationUpdate)) {
             logger.warn("Invalid location data received for ride {}", rideId);
-            return null;
+            return;
         }
         
-        // TODO: Persist location to database for historical tracking
-        // TODO: Calculate ETA and distance remaining
-        // TODO: Detect route deviation and send alerts
-        
-        return locationUpdate;
+        // Handled here if this replica owns the ride, else forwarded to the owner (see RideShards)
+        rideShards.dispatch(locationUpdate);
     }
     
     /**
@@ -93,64 +117,61 @@ public class TrackingWebSocketController {
     
     /**
      * REST Endpoint: Get last known location for a ride
+     * (read from the replica owning the ride)
      * 
      * @param rideId The ride identifier
      * @return Last known location or 404 if not found
      */
     @GetMapping("/rides/{rideId}/location")
-    public ResponseEntity<LocationUpdateDto> getLastKnownLocation(@PathVariable Long rideId) {
+    public Mono<ResponseEntity<LocationUpdateDto>> getLastKnownLocation(@PathVariable Long rideId) {
         logger.info("REST request for last known location of ride {}", rideId);
         
-        // TODO: Retrieve from cache (Redis) or database
-        // For now, return not found
-        return ResponseEntity.notFound().build();
+        RideShards.Member owner = rideShards.remoteOwner(rideId);
+        Mono<LocationSample> location = owner == null
+                ? Mono.justOrEmpty(lastKnownLocationStore.get(rideId))
+                : shardPeerClient.getLastKnownLocation(owner.uri(), rideId);
+        return location
+                .map(sample -> ResponseEntity.ok(sample.toDto()))
+                .defaultIfEmpty(ResponseEntity.notFound().build());
     }
     
     /**
-     * REST Endpoint: Health check
+     * REST Endpoint: k nearest drivers within a radius of a point
+     * (searched on every replica, each indexes the drivers of its own rides)
      * 
-     * @return Health status
+     * @param lat Latitude of the point (e.g. pickup)
+     * @param lon Longitude of the point
+     * @param radiusKm Search radius in km
+     * @param limit Maximum number of drivers returned
+     * @return Drivers ordered by increasing distance, or 400 for invalid input
      */
-    @GetMapping("/health")
-    public ResponseEntity<String> healthCheck() {
-        return ResponseEntity.ok("Tracking WebSocket service is running");
+    @GetMapping("/drivers/nearby")
+    public Mono<ResponseEntity<List<NearbyDriverDto>>> getNearbyDrivers(@RequestParam double lat,
+                                                                        @RequestParam double lon,
+                                                                        @RequestParam(defaultValue = "5") double radiusKm,
+                                                                        @RequestParam(defaultValue = "10") int limit) {
+        if (lat < -90 || lat > 90 || lon < -180 || lon > 180 || radiusKm <= 0 || limit <= 0 || limit > 100) {
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+        
+        return nearbyDriverSearch.findNearest(lat, lon, radiusKm, limit)
+                .map(hits -> ResponseEntity.ok(hits.stream()
+                        .map(hit -> {
+                            LocationUpdateDto location = hit.location().toDto();
+                            return new NearbyDriverDto(location.getDriverId(), location.getRideId(),
+                                    location.getLatitude(), location.getLongitude(), hit.distanceMeters() / 1000,
+                                    location.getHeading(), location.getStatus(), location.getTimestamp());
+                        })
+                        .toList()));
     }
     
     /**
-     * Validate location data
+     * REST Endpoint: Health check
      * 
-     * @param location Location data to validate
-     * @return true if valid, false otherwise
+     * @return Health status
      */
-    private boolean isValidLocation(LocationUpdateDto location) {
-        if (location == null) {
-            return false;
-        }
-        
-        // Validate latitude (-90 to 90)
-        if (location.getLatitude() == null || 
-            location.getLatitude() < -90 || location.getLatitude() > 90) {
-            return false;
-        }
-        
-        // Validate longitude (-180 to 180)
-        if (location.getLongitude() == null || 
-            location.getLongitude() < -180 || location.getLongitude() > 180) {
-            return false;
-        }
-        
-        // Validate speed (0 to 200 km/h reasonable max)
-        if (location.getSpeed() != null && 
-            (location.getSpeed() < 0 || location.getSpeed() > 200)) {
-            return false;
-        }
-        
-        // Validate heading (0 to 360 degrees)
-        if (location.getHeading() != null && 
-            (location.getHeading() < 0 || location.getHeading() > 360)) {
-            return false;
-        }
-        
-        return true;
+    @GetMapping("/health")
+    public ResponseEntity<String> healthCheck() {
+        return ResponseEntity.ok("Tracking WebSocket service is running");
     }
 }
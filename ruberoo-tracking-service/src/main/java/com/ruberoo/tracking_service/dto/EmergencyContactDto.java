@@ -0,0 +1,11 @@
+package com.ruberoo.tracking_service.dto;
+
+/**
+ * Read-only projection of an emergency contact for listings,
+ * selected straight from the query so no entity is hydrated
+ * 
+ * @author Ruberoo Team
+ * @version 1.0
+ */
+public record EmergencyContactDto(Long id, Long userId, String contactName, String contactNumber) {
+}
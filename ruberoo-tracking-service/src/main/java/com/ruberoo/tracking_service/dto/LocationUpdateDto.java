@@ -19,6 +19,8 @@ public class LocationUpdateDto {
     private Double heading; // degrees (0-360)
     private LocalDateTime timestamp;
     private String status; // MOVING, STOPPED, IDLE
+    private Double distanceRemainingKm; // to the ride's destination, set by the server
+    private Long etaSeconds; // estimated time to destination, set by the server
     
     // Default constructor
     public LocationUpdateDto() {
@@ -103,6 +105,22 @@ public class LocationUpdateDto {
         this.status = status;
     }
     
+    public Double getDistanceRemainingKm() {
+        return distanceRemainingKm;
+    }
+    
+    public void setDistanceRemainingKm(Double distanceRemainingKm) {
+        this.distanceRemainingKm = distanceRemainingKm;
+    }
+    
+    public Long getEtaSeconds() {
+        return etaSeconds;
+    }
+    
+    public void setEtaSeconds(Long etaSeconds) {
+        this.etaSeconds = etaSeconds;
+    }
+    
     @Override
     public String toString() {
         return "LocationUpdateDto{" +
@@ -114,6 +132,8 @@ public class LocationUpdateDto {
                 ", heading=" + heading +
                 ", timestamp=" + timestamp +
                 ", status='" + status + '\'' +
+                ", distanceRemainingKm=" + distanceRemainingKm +
+                ", etaSeconds=" + etaSeconds +
                 '}';
     }
 }
@@ -0,0 +1,103 @@
+package com.ruberoo.tracking_service.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Data Transfer Object for a driver returned by the nearby-driver search
+ * 
+ * @author Ruberoo Team
+ * @version 1.0
+ */
+public class NearbyDriverDto {
+    
+    private Long driverId;
+    private Long rideId;
+    private Double latitude;
+    private Double longitude;
+    private Double distanceKm;
+    private Double heading; // degrees (0-360)
+    private String status; // MOVING, STOPPED, IDLE
+    private LocalDateTime lastSeen;
+    
+    // Default constructor
+    public NearbyDriverDto() {
+    }
+    
+    // Full constructor
+    public NearbyDriverDto(Long driverId, Long rideId, Double latitude, Double longitude,
+                           Double distanceKm, Double heading, String status, LocalDateTime lastSeen) {
+        this.driverId = driverId;
+        this.rideId = rideId;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.distanceKm = distanceKm;
+        this.heading = heading;
+        this.status = status;
+        this.lastSeen = lastSeen;
+    }
+    
+    // Getters and Setters
+    public Long getDriverId() {
+        return driverId;
+    }
+    
+    public void setDriverId(Long driverId) {
+        this.driverId = driverId;
+    }
+    
+    public Long getRideId() {
+        return rideId;
+    }
+    
+    public void setRideId(Long rideId) {
+        this.rideId = rideId;
+    }
+    
+    public Double getLatitude() {
+        return latitude;
+    }
+    
+    public void setLatitude(Double latitude) {
+        this.latitude = latitude;
+    }
+    
+    public Double getLongitude() {
+        return longitude;
+    }
+    
+    public void setLongitude(Double longitude) {
+        this.longitude = longitude;
+    }
+    
+    public Double getDistanceKm() {
+        return distanceKm;
+    }
+    
+    public void setDistanceKm(Double distanceKm) {
+        this.distanceKm = distanceKm;
+    }
+    
+    public Double getHeading() {
+        return heading;
+    }
+    
+    public void setHeading(Double heading) {
+        this.heading = heading;
+    }
+    
+    public String getStatus() {
+        return status;
+    }
+    
+    public void setStatus(String status) {
+        this.status = status;
+    }
+    
+    public LocalDateTime getLastSeen() {
+        return lastSeen;
+    }
+    
+    public void setLastSeen(LocalDateTime lastSeen) {
+        this.lastSeen = lastSeen;
+    }
+}
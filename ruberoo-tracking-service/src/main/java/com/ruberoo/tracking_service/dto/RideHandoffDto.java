@@ -0,0 +1,23 @@
+package com.ruberoo.tracking_service.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-ride state sent by a tracking-service replica to the new owner of the rides.
+ *
+ * @param from Shard member id of the sending replica
+ * @param rides The rides handed over
+ *
+ * @author Ruberoo Team
+ * @version 1.0
+ */
+public record RideHandoffDto(String from, List<RideState> rides) {
+
+    /**
+     * @param rideId The ride identifier
+     * @param state Snapshot of each kind of ride state, keyed by ShardedRideState name
+     */
+    public record RideState(long rideId, Map<String, Object> state) {
+    }
+}
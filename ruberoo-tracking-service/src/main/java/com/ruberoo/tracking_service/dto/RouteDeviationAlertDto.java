@@ -0,0 +1,103 @@
+package com.ruberoo.tracking_service.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Data Transfer Object for a route deviation alert
+ * Published to /topic/ride-alerts/{rideId}
+ * 
+ * @author Ruberoo Team
+ * @version 1.0
+ */
+public class RouteDeviationAlertDto {
+        private String type; // OFF_ROUTE, BACK_ON_ROUTE
+    private Long rideId;
+    private Long driverId;
+    private Double latitude;
+    private Double longitude;
+    private Double distanceFromRouteMeters;
+    private Long offRouteSeconds;
+    private LocalDateTime timestamp;
+    
+    // Default constructor
+    public RouteDeviationAlertDto() {
+    }
+    
+    // Full constructor
+    public RouteDeviationAlertDto(String type, Long rideId, Long driverId, Double latitude,
+                                  Double longitude, Double distanceFromRouteMeters, Long offRouteSeconds, LocalDateTime timestamp) {
+        this.type = type;
+        this.rideId = rideId;
+        this.driverId = driverId;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.distanceFromRouteMeters = distanceFromRouteMeters;
+        this.offRouteSeconds = offRouteSeconds;
+        this.timestamp = timestamp;
+    }
+    
+    // Getters and Setters
+    public String getType() {
+        return type;
+    }
+    
+    public void setType(String type) {
+        this.type = type;
+    }
+    
+    public Long getRideId() {
+        return rideId;
+    }
+    
+    public void setRideId(Long rideId) {
+        this.rideId = rideId;
+    }
+    
+    public Long getDriverId() {
+        return driverId;
+    }
+    
+    public void setDriverId(Long driverId) {
+        this.driverId = driverId;
+    }
+    
+    public Double getLatitude() {
+        return latitude;
+    }
+    
+    public void setLatitude(Double latitude) {
+        this.latitude = latitude;
+    }
+    
+    public Double getLongitude() {
+        return longitude;
+    }
+    
+    public void setLongitude(Double longitude) {
+        this.longitude = longitude;
+    }
+    
+    public Double getDistanceFromRouteMeters() {
+        return distanceFromRouteMeters;
+    }
+    
+    public void setDistanceFromRouteMeters(Double distanceFromRouteMeters) {
+        this.distanceFromRouteMeters = distanceFromRouteMeters;
+    }
+    
+    public Long getOffRouteSeconds() {
+        return offRouteSeconds;
+    }
+    
+    public void setOffRouteSeconds(Long offRouteSeconds) {
+        this.offRouteSeconds = offRouteSeconds;
+    }
+    
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+    
+    public void setTimestamp(LocalDateTime timestamp) {
+        this.timestamp = timestamp;
+    }
+}
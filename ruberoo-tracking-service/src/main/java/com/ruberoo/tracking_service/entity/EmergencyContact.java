@@ -1,9 +1,14 @@
 package com.ruberoo.tracking_service.entity;
 
+import com.ruberoo.tracking_service.config.SecondLevelCacheConfig;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Table(name = "emergency_contacts")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.EMERGENCY_CONTACTS_REGION)
 public class EmergencyContact {
 
     @Id
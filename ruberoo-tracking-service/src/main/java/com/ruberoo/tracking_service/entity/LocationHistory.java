@@ -0,0 +1,50 @@
+package com.ruberoo.tracking_service.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One GPS ping of a ride, kept for historical tracking.
+ * Rows are written in JDBC batches by LocationHistoryWriter, not through a repository.
+ */
+@Entity
+@Table(name = "location_history",
+       indexes = @Index(name = "idx_location_history_ride", columnList = "ride_id, recorded_at"))
+public class LocationHistory {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long rideId;
+    private Long driverId;
+    private Double latitude;
+    private Double longitude;
+    private Double speed;
+    private Double heading;
+    private String status;
+    private LocalDateTime recordedAt;
+
+    // Manually-added Getters
+    public Long getId() { return id; }
+    public Long getRideId() { return rideId; }
+    public Long getDriverId() { return driverId; }
+    public Double getLatitude() { return latitude; }
+    public Double getLongitude() { return longitude; }
+    public Double getSpeed() { return speed; }
+    public Double getHeading() { return heading; }
+    public String getStatus() { return status; }
+    public LocalDateTime getRecordedAt() { return recordedAt; }
+
+    // Manually-added Setters
+    public void setId(Long id) { this.id = id; }
+    public void setRideId(Long rideId) { this.rideId = rideId; }
+    public void setDriverId(Long driverId) { this.driverId = driverId; }
+    public void setLatitude(Double latitude) { this.latitude = latitude; }
+    public void setLongitude(Double longitude) { this.longitude = longitude; }
+    public void setSpeed(Double speed) { this.speed = speed; }
+    public void setHeading(Double heading) { this.heading = heading; }
+    public void setStatus(String status) { this.status = status; }
+    public void setRecordedAt(LocalDateTime recordedAt) { this.recordedAt = recordedAt; }
+}
@@ -0,0 +1,121 @@
+package com.ruberoo.tracking_service.model;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Binary encoding of a {@link LocationSample} for bandwidth-constrained clients.
+ *
+ * Layout (big-endian), 22 to 48 bytes instead of ~250 bytes of JSON:
+ * <pre>
+ * byte   version          (1)
+ * byte   flags            bit0 driverId, bit1 speed, bit2 heading, bit3 progress,
+ *                         bits 4-5 status (0 none, 1 MOVING, 2 STOPPED, 3 IDLE)
+ * long   rideId
+ * long   driverId         if bit0
+ * int    latitude  * 1e7  (fixed point, ~1 cm)
+ * int    longitude * 1e7
+ * short  speed     * 10   if bit1 (km/h)
+ * short  heading   * 10   if bit2 (degrees)
+ * long   timestamp        epoch millis
+ * int    distance left    if bit3 (meters)
+ * int    eta              if bit3 (seconds, -1 unknown)
+ * </pre>
+ *
+ * The progress fields come last so decoders that predate them can still read the frame.
+ *
+ * Frames are absolute rather than delta-encoded so that a rider who subscribes
+ * mid-ride can decode the very first frame received.
+ *
+ * @author Ruberoo Team
+ * @version 1.0
+ */
+public final class CompactLocationCodec {
+
+    public static final byte VERSION = 1;
+
+    private static final int FLAG_DRIVER = 1;
+    private static final int FLAG_SPEED = 1 << 1;
+    private static final int FLAG_HEADING = 1 << 2;
+    private static final int FLAG_PROGRESS = 1 << 3;
+    private static final int STATUS_SHIFT = 4;
+
+    private static final double COORDINATE_SCALE = 1e7;
+    private static final double MEASUREMENT_SCALE = 10;
+
+    private static final MovementStatus[] STATUSES = MovementStatus.values();
+
+    private CompactLocationCodec() {
+    }
+
+    public static byte[] encode(LocationSample sample) {
+        int flags = 0;
+        int size = 1 + 1 + 8 + 4 + 4 + 8;
+        if (sample.hasDriverId()) {
+            flags |= FLAG_DRIVER;
+            size += 8;
+        }
+        if (sample.hasSpeed()) {
+            flags |= FLAG_SPEED;
+            size += 2;
+        }
+        if (sample.hasHeading()) {
+            flags |= FLAG_HEADING;
+            size += 2;
+        }
+        if (sample.hasProgress()) {
+            flags |= FLAG_PROGRESS;
+            size += 8;
+        }
+        if (sample.status() != null) {
+            flags |= (sample.status().ordinal() + 1) << STATUS_SHIFT;
+        }
+
+        ByteBuffer buf = ByteBuffer.allocate(size);
+        buf.put(VERSION);
+        buf.put((byte) flags);
+        buf.putLong(sample.rideId());
+        if (sample.hasDriverId()) {
+            buf.putLong(sample.driverId());
+        }
+        buf.putInt((int) Math.round(sample.latitude() * COORDINATE_SCALE));
+        buf.putInt((int) Math.round(sample.longitude() * COORDINATE_SCALE));
+        if (sample.hasSpeed()) {
+            buf.putShort((short) Math.round(sample.speed() * MEASUREMENT_SCALE));
+        }
+        if (sample.hasHeading()) {
+            buf.putShort((short) Math.round(sample.heading() * MEASUREMENT_SCALE));
+        }
+        buf.putLong(sample.timestampMillis());
+        if (sample.hasProgress()) {
+            buf.putInt((int) Math.round(sample.distanceRemainingKm() * 1000));
+            buf.putInt(Double.isNaN(sample.etaSeconds()) ? -1 : (int) Math.round(sample.etaSeconds()));
+        }
+        return buf.array();
+    }
+
+    public static LocationSample decode(byte[] frame) {
+        ByteBuffer buf = ByteBuffer.wrap(frame);
+        byte version = buf.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported compact location frame version " + version);
+        }
+        int flags = buf.get();
+        long rideId = buf.getLong();
+        long driverId = (flags & FLAG_DRIVER) != 0 ? buf.getLong() : LocationSample.NO_ID;
+        double latitude = buf.getInt() / COORDINATE_SCALE;
+        double longitude = buf.getInt() / COORDINATE_SCALE;
+        double speed = (flags & FLAG_SPEED) != 0 ? buf.getShort() / MEASUREMENT_SCALE : Double.NaN;
+        double heading = (flags & FLAG_HEADING) != 0 ? buf.getShort() / MEASUREMENT_SCALE : Double.NaN;
+        long timestampMillis = buf.getLong();
+        double distanceRemainingKm = Double.NaN;
+        double etaSeconds = Double.NaN;
+        if ((flags & FLAG_PROGRESS) != 0) {
+            distanceRemainingKm = buf.getInt() / 1000.0;
+            int eta = buf.getInt();
+            etaSeconds = eta < 0 ? Double.NaN : eta;
+        }
+        int status = (flags >> STATUS_SHIFT) & 0x3;
+        return new LocationSample(rideId, driverId, latitude, longitude, speed, heading, timestampMillis,
+                status == 0 ? null : STATUSES[status - 1], distanceRemainingKm, etaSeconds);
+    }
+}
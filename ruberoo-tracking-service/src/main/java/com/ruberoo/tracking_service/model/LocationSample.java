@@ -0,0 +1,105 @@
+package com.ruberoo.tracking_service.model;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.ruberoo.tracking_service.dto.LocationUpdateDto;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Compact, immutable GPS ping used on the tracking hot path
+ * (validation, broadcast, last known location and history).
+ *
+ * All values are primitives so a ping costs a single allocation. Missing values
+ * are encoded as {@link #NO_ID} for ids and {@code NaN} for measurements.
+ * Distance remaining and ETA are filled in server-side, see RideEtaTracker.
+ * On the wire it reads and writes exactly the same JSON as {@link LocationUpdateDto}.
+ *
+ * @author Ruberoo Team
+ * @version 1.0
+ */
+@JsonSerialize(using = LocationSampleJsonSerializer.class)
+@JsonDeserialize(using = LocationSampleJsonDeserializer.class)
+public record LocationSample(long rideId,
+                             long driverId,
+                             double latitude,
+                             double longitude,
+                             double speed,     // km/h
+                             double heading,   // degrees (0-360)
+                             long timestampMillis,
+                             MovementStatus status,
+                             double distanceRemainingKm,
+                             double etaSeconds) {
+
+    public static final long NO_ID = Long.MIN_VALUE;
+
+    static final ZoneId ZONE = ZoneId.systemDefault();
+
+    /**
+     * Stamp a ping received from a driver with its ride id and server receive time.
+     */
+    public LocationSample received(long rideId, long timestampMillis) {
+        return new LocationSample(rideId, driverId, latitude, longitude, speed, heading, timestampMillis, status,
+                Double.NaN, Double.NaN);
+    }
+
+    /**
+     * Attach the distance remaining to the destination and the estimated time of arrival.
+     */
+    public LocationSample withProgress(double distanceRemainingKm, double etaSeconds) {
+        return new LocationSample(rideId, driverId, latitude, longitude, speed, heading, timestampMillis, status,
+                distanceRemainingKm, etaSeconds);
+    }
+
+    public boolean hasDriverId() {
+        return driverId != NO_ID;
+    }
+
+    public boolean hasSpeed() {
+        return !Double.isNaN(speed);
+    }
+
+    public boolean hasHeading() {
+        return !Double.isNaN(heading);
+    }
+
+    public boolean hasProgress() {
+        return !Double.isNaN(distanceRemainingKm);
+    }
+
+    public static LocationSample fromDto(LocationUpdateDto dto) {
+        LocalDateTime timestamp = dto.getTimestamp();
+        return new LocationSample(
+                dto.getRideId() == null ? NO_ID : dto.getRideId(),
+                dto.getDriverId() == null ? NO_ID : dto.getDriverId(),
+                dto.getLatitude() == null ? Double.NaN : dto.getLatitude(),
+                dto.getLongitude() == null ? Double.NaN : dto.getLongitude(),
+                dto.getSpeed() == null ? Double.NaN : dto.getSpeed(),
+                dto.getHeading() == null ? Double.NaN : dto.getHeading(),
+                timestamp == null ? 0L : timestamp.atZone(ZONE).toInstant().toEpochMilli(),
+                MovementStatus.parse(dto.getStatus()),
+                dto.getDistanceRemainingKm() == null ? Double.NaN : dto.getDistanceRemainingKm(),
+                dto.getEtaSeconds() == null ? Double.NaN : dto.getEtaSeconds());
+    }
+
+    public LocationUpdateDto toDto() {
+        LocationUpdateDto dto = new LocationUpdateDto();
+        dto.setRideId(rideId == NO_ID ? null : rideId);
+        dto.setDriverId(hasDriverId() ? driverId : null);
+        dto.setLatitude(Double.isNaN(latitude) ? null : latitude);
+        dto.setLongitude(Double.isNaN(longitude) ? null : longitude);
+        dto.setSpeed(hasSpeed() ? speed : null);
+        dto.setHeading(hasHeading() ? heading : null);
+        dto.setTimestamp(timestampMillis == 0L ? null : toLocalDateTime(timestampMillis));
+        dto.setStatus(status == null ? null : status.name());
+        dto.setDistanceRemainingKm(hasProgress() ? distanceRemainingKm : null);
+        dto.setEtaSeconds(Double.isNaN(etaSeconds) ? null : Math.round(etaSeconds));
+        return dto;
+    }
+
+    public static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZONE);
+    }
+}
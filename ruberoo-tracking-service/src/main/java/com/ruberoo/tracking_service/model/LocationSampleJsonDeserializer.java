@@ -0,0 +1,80 @@
+package com.ruberoo.tracking_service.model;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Reads LocationUpdateDto-shaped JSON directly into a {@link LocationSample}
+ * without boxing any of the numeric fields. Unknown properties are ignored.
+ *
+ * @author Ruberoo Team
+ * @version 1.0
+ */
+public class LocationSampleJsonDeserializer extends StdDeserializer<LocationSample> {
+
+    public LocationSampleJsonDeserializer() {
+        super(LocationSample.class);
+    }
+
+    @Override
+    public LocationSample deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        long rideId = LocationSample.NO_ID;
+        long driverId = LocationSample.NO_ID;
+        double latitude = Double.NaN;
+        double longitude = Double.NaN;
+        double speed = Double.NaN;
+        double heading = Double.NaN;
+        long timestampMillis = 0L;
+        MovementStatus status = null;
+        double distanceRemainingKm = Double.NaN;
+        double etaSeconds = Double.NaN;
+
+        if (p.currentToken() != JsonToken.START_OBJECT) {
+            return (LocationSample) ctxt.handleUnexpectedToken(LocationSample.class, p);
+        }
+        String field;
+        while ((field = p.nextFieldName()) != null) {
+            JsonToken token = p.nextToken();
+            if (token == JsonToken.VALUE_NULL) {
+                continue;
+            }
+            switch (field) {
+                case "rideId" -> rideId = p.getValueAsLong();
+                case "driverId" -> driverId = p.getValueAsLong();
+                case "latitude" -> latitude = p.getValueAsDouble(Double.NaN);
+                case "longitude" -> longitude = p.getValueAsDouble(Double.NaN);
+                case "speed" -> speed = p.getValueAsDouble(Double.NaN);
+                case "heading" -> heading = p.getValueAsDouble(Double.NaN);
+                case "timestamp" -> timestampMillis = parseTimestamp(p.getValueAsString());
+                case "status" -> status = MovementStatus.parse(p.getValueAsString());
+                case "distanceRemainingKm" -> distanceRemainingKm = p.getValueAsDouble(Double.NaN);
+                case "etaSeconds" -> etaSeconds = p.getValueAsDouble(Double.NaN);
+                default -> p.skipChildren();
+            }
+        }
+        return new LocationSample(rideId, driverId, latitude, longitude, speed, heading, timestampMillis, status,
+                distanceRemainingKm, etaSeconds);
+    }
+
+    // Accepts both local ISO timestamps (our own output) and UTC instants ("...Z") sent by browsers
+    private static long parseTimestamp(String value) {
+        if (value == null || value.isEmpty()) {
+            return 0L;
+        }
+        try {
+            if (value.endsWith("Z")) {
+                return Instant.parse(value).toEpochMilli();
+            }
+            return LocalDateTime.parse(value).atZone(LocationSample.ZONE).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return 0L;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.ruberoo.tracking_service.model;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Writes a {@link LocationSample} straight from its primitive fields, producing the
+ * same JSON shape as LocationUpdateDto (nulls for missing values, ISO local timestamp).
+ *
+ * @author Ruberoo Team
+ * @version 1.0
+ */
+public class LocationSampleJsonSerializer extends StdSerializer<LocationSample> {
+
+    public LocationSampleJsonSerializer() {
+        super(LocationSample.class);
+    }
+
+    @Override
+    public void serialize(LocationSample sample, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        gen.writeStartObject();
+        writeId(gen, "rideId", sample.rideId());
+        writeId(gen, "driverId", sample.driverId());
+        writeDouble(gen, "latitude", sample.latitude());
+        writeDouble(gen, "longitude", sample.longitude());
+        writeDouble(gen, "speed", sample.speed());
+        writeDouble(gen, "heading", sample.heading());
+        if (sample.timestampMillis() == 0L) {
+            gen.writeNullField("timestamp");
+        } else {
+            gen.writeStringField("timestamp",
+                    DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(LocationSample.toLocalDateTime(sample.timestampMillis())));
+        }
+        if (sample.status() == null) {
+            gen.writeNullField("status");
+        } else {
+            gen.writeStringField("status", sample.status().name());
+        }
+        writeDouble(gen, "distanceRemainingKm", sample.distanceRemainingKm());
+        if (Double.isNaN(sample.etaSeconds())) {
+            gen.writeNullField("etaSeconds");
+        } else {
+            gen.writeNumberField("etaSeconds", Math.round(sample.etaSeconds()));
+        }
+        gen.writeEndObject();
+    }
+
+    private static void writeId(JsonGenerator gen, String name, long value) throws IOException {
+        if (value == LocationSample.NO_ID) {
+            gen.writeNullField(name);
+        } else {
+            gen.writeNumberField(name, value);
+        }
+    }
+
+    private static void writeDouble(JsonGenerator gen, String name, double value) throws IOException {
+        if (Double.isNaN(value)) {
+            gen.writeNullField(name);
+        } else {
+            gen.writeNumberField(name, value);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.ruberoo.tracking_service.model;
+
+/**
+ * Driver movement status reported with each GPS ping.
+ *
+ * @author Ruberoo Team
+ * @version 1.0
+ */
+public enum MovementStatus {
+    MOVING,
+    STOPPED,
+    IDLE;
+
+    private static final MovementStatus[] VALUES = values();
+
+    /**
+     * Case-insensitive lookup that does not throw for unknown values.
+     *
+     * @param value Status string from the client
+     * @return Matching status, or null if the value is null or unknown
+     */
+    public static MovementStatus parse(String value) {
+        if (value == null) {
+            return null;
+        }
+        for (MovementStatus status : VALUES) {
+            if (status.name().equalsIgnoreCase(value)) {
+                return status;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,119 @@
+package com.ruberoo.tracking_service.model;
+
+import com.ruberoo.tracking_service.util.GeoUtils;
+
+import java.util.Arrays;
+
+/**
+ * Planned route of a ride, held as a flat array of points projected to meters.
+ *
+ * Points are projected once (equirectangular, around the first point of the route),
+ * so the distance from a ping to a segment is plain 2D arithmetic: no trigonometry
+ * per segment. The error of the projection stays well under 1% over city distances.
+ * A route costs 8 bytes per point.
+ *
+ * @author Ruberoo Team
+ * @version 1.0
+ */
+public final class PlannedRoute {
+
+    private static final double METERS_PER_DEGREE = Math.toRadians(1) * GeoUtils.EARTH_RADIUS_METERS;
+
+    private final double originLatitude;
+    private final double originLongitude;
+    private final double metersPerDegreeLongitude;
+    // Interleaved x, y in meters from the origin
+    private final float[] points;
+
+    private PlannedRoute(double originLatitude, double originLongitude, float[] points) {
+        this.originLatitude = originLatitude;
+        this.originLongitude = originLongitude;
+        this.metersPerDegreeLongitude = METERS_PER_DEGREE * Math.cos(Math.toRadians(originLatitude));
+        this.points = points;
+    }
+
+    /**
+     * Build a route from a Google encoded polyline (precision 1e5).
+     *
+     * @param encoded Encoded polyline
+     * @return The route, or null if it has fewer than two points or is malformed
+     */
+    public static PlannedRoute fromEncodedPolyline(String encoded) {
+        int length = encoded.length();
+        double[] coordinates = new double[16];
+        int count = 0;
+        int index = 0;
+        int[] value = new int[2];
+        while (index < length) {
+            // Each point is a (latitude, longitude) delta from the previous one
+            for (int k = 0; k < 2; k++) {
+                int result = 0;
+                int shift = 0;
+                int b;
+                do {
+                    if (index >= length) {
+                        return null;
+                    }
+                    b = encoded.charAt(index++) - 63;
+                    result |= (b & 0x1f) << shift;
+                    shift += 5;
+                } while (b >= 0x20);
+                value[k] += (result & 1) != 0 ? ~(result >> 1) : (result >> 1);
+            }
+            if (count + 2 > coordinates.length) {
+                coordinates = Arrays.copyOf(coordinates, coordinates.length * 2);
+            }
+            coordinates[count++] = value[0] / 1e5;
+            coordinates[count++] = value[1] / 1e5;
+        }
+        if (count < 4) {
+            return null;
+        }
+
+        PlannedRoute route = new PlannedRoute(coordinates[0], coordinates[1], new float[count]);
+        for (int i = 0; i < count; i += 2) {
+            route.points[i] = (float) route.x(coordinates[i + 1]);
+            route.points[i + 1] = (float) route.y(coordinates[i]);
+        }
+        return route;
+    }
+
+    public int segmentCount() {
+        return points.length / 2 - 1;
+    }
+
+    /**
+     * Project a position into this route's plane.
+     */
+    public double x(double longitude) {
+        return (longitude - originLongitude) * metersPerDegreeLongitude;
+    }
+
+    public double y(double latitude) {
+        return (latitude - originLatitude) * METERS_PER_DEGREE;
+    }
+
+    /**
+     * Distance from a projected point to a segment of the route.
+     *
+     * @param segment Segment index, from 0 to segmentCount() - 1
+     * @return Distance in meters
+     */
+    public double distanceToSegment(int segment, double x, double y) {
+        int i = segment * 2;
+        double ax = points[i];
+        double ay = points[i + 1];
+        double dx = points[i + 2] - ax;
+        double dy = points[i + 3] - ay;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared == 0 ? 0 : ((x - ax) * dx + (y - ay) * dy) / lengthSquared;
+        if (t < 0) {
+            t = 0;
+        } else if (t > 1) {
+            t = 1;
+        }
+        double px = ax + t * dx - x;
+        double py = ay + t * dy - y;
+        return Math.sqrt(px * px + py * py);
+    }
+}
@@ -1,7 +1,30 @@
 package com.ruberoo.tracking_service.repository;
 
+import com.ruberoo.tracking_service.dto.EmergencyContactDto;
 import com.ruberoo.tracking_service.entity.EmergencyContact;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 public interface EmergencyContactRepository extends JpaRepository<EmergencyContact, Long> {
+
+    String SUMMARY = "select new com.ruberoo.tracking_service.dto.EmergencyContactDto("
+            + "c.id, c.userId, c.contactName, c.contactNumber) from EmergencyContact c ";
+
+    // Keyset page: seeks past the last id instead of skipping OFFSET rows
+    @Query(SUMMARY + "where c.id > :afterId order by c.id")
+    List<EmergencyContactDto> findSummariesAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    // Must be consumed inside a read-only transaction; rows are fetched from the driver in chunks
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query(SUMMARY + "order by c.id")
+    Stream<EmergencyContactDto> streamSummaries();
 }
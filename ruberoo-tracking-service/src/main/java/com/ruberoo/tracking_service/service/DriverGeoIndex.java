@@ -0,0 +1,270 @@
+package com.ruberoo.tracking_service.service;
+
+import com.ruberoo.tracking_service.model.LocationSample;
+import com.ruberoo.tracking_service.util.GeoUtils;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory spatial index of every driver's latest position, used to answer
+ * "k nearest drivers within X km" queries for ride matching.
+ *
+ * The world is split into a fixed lat/lon grid ({@code cell-size-degrees}). Each
+ * cell holds the ids of the drivers currently inside it. A query walks rings of
+ * cells outward from the query point and stops as soon as the k-th best candidate
+ * is closer than anything an unvisited ring could contain. Cells narrow towards
+ * the poles, so each ring spans proportionally more longitude cells than latitude
+ * cells, never more than the whole parallel: the walk stays bounded everywhere.
+ *
+ * Writers for different drivers never contend: a driver's move between cells is
+ * guarded by one of {@link #LOCK_STRIPES} striped locks chosen by driver id, and
+ * cells themselves are concurrent sets. Readers take no locks. Drivers that have
+ * not reported for {@code ttl} are skipped by queries and evicted periodically.
+ *
+ * Cells do not wrap around the antimeridian.
+ *
+ * @author Ruberoo Team
+ * @version 1.0
+ */
+@Service
+public class DriverGeoIndex {
+
+    private static final int LOCK_STRIPES = 64;
+    // Closer to a pole than this, rings span the whole parallel rather than 1/cos(latitude) columns
+    private static final double MAX_RING_LATITUDE = 89.9;
+    private static final double METERS_PER_DEGREE = Math.toRadians(1) * GeoUtils.EARTH_RADIUS_METERS;
+
+    private final Map<Long, DriverPosition> drivers = new ConcurrentHashMap<>();
+    private final Map<Long, Set<Long>> cells = new ConcurrentHashMap<>();
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    private final double cellSizeDegrees;
+    private final long ttlMillis;
+    private final double maxRadiusKm;
+
+    public DriverGeoIndex(MeterRegistry meterRegistry,
+                          @Value("${ruberoo.tracking.geo-index.cell-size-degrees:0.01}") double cellSizeDegrees,
+                          @Value("${ruberoo.tracking.geo-index.ttl:2m}") Duration ttl,
+                          @Value("${ruberoo.tracking.geo-index.max-radius-km:50}") double maxRadiusKm) {
+        this.cellSizeDegrees = cellSizeDegrees;
+        this.ttlMillis = ttl.toMillis();
+        this.maxRadiusKm = maxRadiusKm;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        Gauge.builder("tracking.geo.drivers", drivers, Map::size)
+                .description("Drivers currently in the nearby-driver index")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Record a driver's latest position. Updates without a driver id are ignored.
+     *
+     * @param location Validated location update
+     */
+    public void update(LocationSample location) {
+        if (!location.hasDriverId()) {
+            return;
+        }
+        long driverId = location.driverId();
+        long cell = cellKey(location.latitude(), location.longitude());
+        DriverPosition position = new DriverPosition(cell, location);
+
+        synchronized (lockFor(driverId)) {
+            DriverPosition previous = drivers.put(driverId, position);
+            if (previous == null || previous.cell() != cell) {
+                addToCell(cell, driverId);
+                if (previous != null) {
+                    removeFromCell(previous.cell(), driverId);
+                }
+            }
+        }
+    }
+
+    /**
+     * Drop a driver from the index, e.g. when they go offline.
+     *
+     * @param driverId The driver identifier
+     */
+    public void remove(long driverId) {
+        synchronized (lockFor(driverId)) {
+            DriverPosition previous = drivers.remove(driverId);
+            if (previous != null) {
+                removeFromCell(previous.cell(), driverId);
+            }
+        }
+    }
+
+    /**
+     * Find the nearest drivers to a point.
+     *
+     * @param latitude Query latitude
+     * @param longitude Query longitude
+     * @param radiusKm Search radius, capped at {@code max-radius-km}
+     * @param limit Maximum number of drivers to return
+     * @return Drivers ordered by increasing distance
+     */
+    public List<NearbyDriver> findNearest(double latitude, double longitude, double radiusKm, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        double radiusMeters = Math.min(radiusKm, maxRadiusKm) * 1000;
+        long staleBefore = System.currentTimeMillis() - ttlMillis;
+
+        // Max-heap on distance holding the best `limit` candidates seen so far
+        PriorityQueue<NearbyDriver> best = new PriorityQueue<>(limit + 1,
+                Comparator.comparingDouble(NearbyDriver::distanceMeters).reversed());
+
+        int latIndex = index(Math.max(-90, Math.min(90, latitude)));
+        int lonIndex = index(longitude);
+        int minLatIndex = index(-90);
+        int maxLatIndex = index(90);
+        int minLonIndex = Math.min(index(-180), lonIndex);
+        int maxLonIndex = Math.max(index(180), lonIndex);
+
+        // Cells are narrowest at the latitude farthest from the equator within the radius; each ring
+        // reaches one more row and lonPerRing more columns, so it reaches at least one cell height further
+        double farthestLat = Math.abs(latitude) + radiusMeters / METERS_PER_DEGREE;
+        long lonPerRing = farthestLat < MAX_RING_LATITUDE
+                ? (long) Math.ceil(1 / Math.cos(Math.toRadians(farthestLat)))
+                : maxLonIndex - minLonIndex;
+        double cellMeters = cellSizeDegrees * METERS_PER_DEGREE;
+
+        int westmost = lonIndex;
+        int eastmost = lonIndex;
+        for (int ring = 0; ; ring++) {
+            int previousWestmost = westmost;
+            int previousEastmost = eastmost;
+            westmost = (int) Math.max(minLonIndex, lonIndex - ring * lonPerRing);
+            eastmost = (int) Math.min(maxLonIndex, lonIndex + ring * lonPerRing);
+            for (int row = Math.max(minLatIndex, latIndex - ring); row <= Math.min(maxLatIndex, latIndex + ring); row++) {
+                if (ring == 0 || Math.abs(row - latIndex) == ring) {
+                    collect(row, westmost, eastmost, latitude, longitude, radiusMeters, staleBefore, limit, best);
+                } else {
+                    // Inner rows: only the columns the previous ring did not reach
+                    collect(row, westmost, previousWestmost - 1, latitude, longitude, radiusMeters, staleBefore, limit, best);
+                    collect(row, previousEastmost + 1, eastmost, latitude, longitude, radiusMeters, staleBefore, limit, best);
+                }
+            }
+            double covered = ring * cellMeters;
+            boolean wholeGrid = latIndex - ring <= minLatIndex && latIndex + ring >= maxLatIndex
+                    && westmost == minLonIndex && eastmost == maxLonIndex;
+            if (covered >= radiusMeters || wholeGrid
+                    || (best.size() == limit && best.peek().distanceMeters() <= covered)) {
+                break;
+            }
+        }
+
+        List<NearbyDriver> result = new ArrayList<>(best);
+        result.sort(Comparator.comparingDouble(NearbyDriver::distanceMeters));
+        return result;
+    }
+
+    /**
+     * Periodically drop drivers that stopped reporting.
+     */
+    @Scheduled(fixedDelayString = "${ruberoo.tracking.geo-index.sweep-interval:30000}")
+    public void evictStale() {
+        long staleBefore = System.currentTimeMillis() - ttlMillis;
+        for (DriverPosition position : drivers.values()) {
+            if (position.location().timestampMillis() < staleBefore) {
+                long driverId = position.location().driverId();
+                synchronized (lockFor(driverId)) {
+                    if (drivers.remove(driverId, position)) {
+                        removeFromCell(position.cell(), driverId);
+                    }
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return drivers.size();
+    }
+
+    private void collect(int row, int fromColumn, int toColumn, double latitude, double longitude,
+                         double radiusMeters, long staleBefore, int limit, PriorityQueue<NearbyDriver> best) {
+        for (int column = fromColumn; column <= toColumn; column++) {
+            collect(cellKey(row, column), latitude, longitude, radiusMeters, staleBefore, limit, best);
+        }
+    }
+
+    private void collect(long cell, double latitude, double longitude, double radiusMeters, long staleBefore,
+                         int limit, PriorityQueue<NearbyDriver> best) {
+        Set<Long> driverIds = cells.get(cell);
+        if (driverIds == null) {
+            return;
+        }
+        for (Long driverId : driverIds) {
+            DriverPosition position = drivers.get(driverId);
+            if (position == null || position.cell() != cell || position.location().timestampMillis() < staleBefore) {
+                continue;
+            }
+            LocationSample location = position.location();
+            double distance = GeoUtils.haversineMeters(latitude, longitude, location.latitude(), location.longitude());
+            if (distance > radiusMeters) {
+                continue;
+            }
+            if (best.size() < limit) {
+                best.add(new NearbyDriver(location, distance));
+            } else if (distance < best.peek().distanceMeters()) {
+                best.poll();
+                best.add(new NearbyDriver(location, distance));
+            }
+        }
+    }
+
+    // Caller holds the driver's stripe lock; compute() keeps add/remove atomic per cell
+    private void addToCell(long cell, long driverId) {
+        cells.compute(cell, (key, members) -> {
+            Set<Long> target = members == null ? ConcurrentHashMap.newKeySet() : members;
+            target.add(driverId);
+            return target;
+        });
+    }
+
+    // Caller holds the driver's stripe lock
+    private void removeFromCell(long cell, long driverId) {
+        cells.computeIfPresent(cell, (key, members) -> {
+            members.remove(driverId);
+            return members.isEmpty() ? null : members;
+        });
+    }
+
+    private Object lockFor(long driverId) {
+        return locks[(int) (driverId ^ (driverId >>> 32)) & (LOCK_STRIPES - 1)];
+    }
+
+    private int index(double degrees) {
+        return (int) Math.floor(degrees / cellSizeDegrees);
+    }
+
+    private long cellKey(double latitude, double longitude) {
+        return cellKey(index(latitude), index(longitude));
+    }
+
+    private static long cellKey(int latIndex, int lonIndex) {
+        return ((long) latIndex << 32) | (lonIndex & 0xffffffffL);
+    }
+
+    private record DriverPosition(long cell, LocationSample location) {
+    }
+
+    /**
+     * A query hit: the driver's latest location and its distance from the query point.
+     */
+    public record NearbyDriver(LocationSample location, double distanceMeters) {
+    }
+}
@@ -1,11 +1,17 @@
 package com.ruberoo.tracking_service.service;
 
+import com.ruberoo.common.pagination.CursorPage;
+import com.ruberoo.tracking_service.dto.EmergencyContactDto;
 import com.ruberoo.tracking_service.entity.EmergencyContact;
 import com.ruberoo.tracking_service.repository.EmergencyContactRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class EmergencyContactService {
@@ -17,8 +23,18 @@ public class EmergencyContactService {
         return contactRepository.save(contact);
     }
 
-    public List<EmergencyContact> getAllContacts() {
-        return contactRepository.findAll();
+    public CursorPage<EmergencyContactDto> getContactsPage(long afterId, int limit) {
+        // One extra row tells whether there is a next page
+        List<EmergencyContactDto> rows = contactRepository.findSummariesAfter(afterId, PageRequest.ofSize(limit + 1));
+        return CursorPage.of(rows, limit, EmergencyContactDto::id);
+    }
+
+    // Rows are handed to the action one by one, so memory does not grow with the table
+    @Transactional(readOnly = true)
+    public void forEachContact(Consumer<EmergencyContactDto> action) {
+        try (Stream<EmergencyContactDto> contacts = contactRepository.streamSummaries()) {
+            contacts.forEach(action);
+        }
     }
 
     public EmergencyContact getContactById(Long id) {
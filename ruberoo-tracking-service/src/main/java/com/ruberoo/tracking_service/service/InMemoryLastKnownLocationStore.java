@@ -0,0 +1,95 @@
+package com.ruberoo.tracking_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.ruberoo.tracking_service.model.LocationSample;
+import com.ruberoo.tracking_service.shard.ShardedRideState;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collection;
+
+/**
+ * In-process {@link LastKnownLocationStore} for single-node deployments.
+ *
+ * Reads and writes are O(1) map operations. Memory is bounded by
+ * {@code ruberoo.tracking.location-store.max-entries}; past the cap Caffeine drops
+ * the rides updated least often, at amortized O(1) cost on the writing thread. With several replicas each one
+ * holds the rides it owns, and hands them over when ownership changes (see RideShards).
+ *
+ * @author Ruberoo Team
+ * @version 1.0
+ */
+@Service
+@ConditionalOnProperty(name = "ruberoo.tracking.location-store.type", havingValue = "memory", matchIfMissing = true)
+public class InMemoryLastKnownLocationStore implements LastKnownLocationStore, ShardedRideState<LocationSample> {
+
+    private final Cache<Long, LocationSample> entries;
+
+    public InMemoryLastKnownLocationStore(
+            @Value("${ruberoo.tracking.location-store.ttl:10m}") Duration ttl,
+            @Value("${ruberoo.tracking.location-store.max-entries:100000}") int maxEntries) {
+        this.entries = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxEntries)
+                .build();
+    }
+
+    @Override
+    public void put(long rideId, LocationSample location) {
+        entries.put(rideId, location);
+    }
+
+    @Override
+    public LocationSample get(long rideId) {
+        return entries.getIfPresent(rideId);
+    }
+
+    @Override
+    public void remove(long rideId) {
+        entries.invalidate(rideId);
+    }
+
+    @Override
+    public String name() {
+        return "location";
+    }
+
+    @Override
+    public Class<LocationSample> stateType() {
+        return LocationSample.class;
+    }
+
+    @Override
+    public Collection<Long> rideIds() {
+        return entries.asMap().keySet();
+    }
+
+    @Override
+    public LocationSample export(long rideId) {
+        return get(rideId);
+    }
+
+    @Override
+    public void remove(long rideId, LocationSample snapshot) {
+        entries.asMap().remove(rideId, snapshot);
+    }
+
+    @Override
+    public void restore(long rideId, LocationSample location) {
+        entries.asMap().merge(rideId, location, (current, restored) ->
+                current.timestampMillis() > restored.timestampMillis() ? current : restored);
+    }
+
+    /**
+     * Periodically drop rides that stopped sending updates (finished or abandoned).
+     */
+    @Scheduled(fixedDelayString = "${ruberoo.tracking.location-store.sweep-interval:60000}")
+    public void evictExpired() {
+        // Caffeine otherwise expires entries only as a side effect of reads and writes
+        entries.cleanUp();
+    }
+}
@@ -0,0 +1,42 @@
+package com.ruberoo.tracking_service.service;
+
+import com.ruberoo.tracking_service.model.LocationSample;
+
+/**
+ * Holds the most recent location of every active ride so that riders who
+ * (re)connect can be shown the driver immediately instead of waiting for
+ * the next GPS tick.
+ *
+ * Implementations are selected with {@code ruberoo.tracking.location-store.type}:
+ * - memory - in-process map, suitable for a single tracking-service instance
+ * - redis  - shared store for multiple replicas
+ *
+ * Entries expire after {@code ruberoo.tracking.location-store.ttl} without updates,
+ * which is how finished rides are cleaned up.
+ *
+ * @author Ruberoo Team
+ * @version 1.0
+ */
+public interface LastKnownLocationStore {
+
+    /**
+     * Record the latest location of a ride, replacing the previous one.
+     *
+     * @param rideId The ride identifier
+     * @param location Validated location update
+     */
+    void put(long rideId, LocationSample location);
+
+    /**
+     * @param rideId The ride identifier
+     * @return Last known location, or null if the ride is unknown or expired
+     */
+    LocationSample get(long rideId);
+
+    /**
+     * Forget a ride, e.g. once it has been completed.
+     *
+     * @param rideId The ride identifier
+     */
+    void remove(long rideId);
+}
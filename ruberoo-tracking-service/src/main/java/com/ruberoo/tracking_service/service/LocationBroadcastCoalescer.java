@@ -0,0 +1,189 @@
+package com.ruberoo.tracking_service.service;
+
+import com.ruberoo.tracking_service.model.LocationSample;
+import com.ruberoo.tracking_service.util.GeoUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throttles driver location broadcasts per ride topic.
+ *
+ * Each ride forwards at most {@code max-rate} updates per second to
+ * /topic/tracking/{rideId}. Updates arriving faster than that replace the pending
+ * one, so only the newest position is sent when the interval elapses. Updates that
+ * moved less than {@code min-distance-meters} and turned less than
+ * {@code min-heading-change} degrees since the last forwarded one are dropped,
+ * unless the status changed or nothing was forwarded for {@code max-silence}.
+ *
+ * Forwarded updates go out as JSON only; subscriptions that negotiated the compact
+ * format get them transcoded on the way out, see CompactFrameTranscoder.
+ *
+ * @author Ruberoo Team
+ * @version 1.0
+ */
+@Service
+public class LocationBroadcastCoalescer implements DisposableBean {
+
+    private static final String TOPIC_PREFIX = "/topic/tracking/";
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final Map<Long, RideSlot> slots = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher;
+
+    private final boolean enabled;
+    private final long minIntervalNanos;
+    private final long maxSilenceNanos;
+    private final double minDistanceMeters;
+    private final double minHeadingChange;
+
+    private final Counter forwarded;
+    private final Counter coalesced;
+    private final Counter filtered;
+
+    public LocationBroadcastCoalescer(SimpMessagingTemplate messagingTemplate,
+                                      MeterRegistry meterRegistry,
+                                      @Value("${ruberoo.tracking.coalescer.enabled:true}") boolean enabled,
+                                      @Value("${ruberoo.tracking.coalescer.max-rate:2}") double maxRatePerSecond,
+                                      @Value("${ruberoo.tracking.coalescer.max-silence:5s}") Duration maxSilence,
+                                      @Value("${ruberoo.tracking.coalescer.min-distance-meters:5}") double minDistanceMeters,
+                                      @Value("${ruberoo.tracking.coalescer.min-heading-change:15}") double minHeadingChange) {
+        this.messagingTemplate = messagingTemplate;
+        this.enabled = enabled;
+        this.minIntervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / maxRatePerSecond);
+        this.maxSilenceNanos = maxSilence.toNanos();
+        this.minDistanceMeters = minDistanceMeters;
+        this.minHeadingChange = minHeadingChange;
+
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "location-broadcast-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        this.flusher = executor;
+
+        this.forwarded = Counter.builder("tracking.broadcast")
+                .tag("result", "forwarded")
+                .description("Location updates broadcast to ride topics")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("tracking.broadcast")
+                .tag("result", "coalesced")
+                .description("Location updates replaced by a newer one before they were sent")
+                .register(meterRegistry);
+        this.filtered = Counter.builder("tracking.broadcast")
+                .tag("result", "filtered")
+                .description("Location updates dropped because the driver barely moved")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Offer a validated update for broadcast to the ride's topic.
+     *
+     * @param location Validated location update
+     */
+    public void submit(LocationSample location) {
+        long rideId = location.rideId();
+        if (!enabled) {
+            messagingTemplate.convertAndSend(TOPIC_PREFIX + rideId, location);
+            forwarded.increment();
+            return;
+        }
+
+        RideSlot slot = slots.computeIfAbsent(rideId, id -> new RideSlot(TOPIC_PREFIX + id));
+        long now = System.nanoTime();
+        synchronized (slot) {
+            slot.touchedNanos = now;
+            if (slot.lastForwarded != null && !isSignificant(slot.lastForwarded, location, now - slot.lastForwardNanos)) {
+                filtered.increment();
+                return;
+            }
+            if (slot.lastForwarded == null || now - slot.lastForwardNanos >= minIntervalNanos) {
+                forward(slot, location, now);
+                return;
+            }
+            if (slot.pending != null) {
+                coalesced.increment();
+            }
+            slot.pending = location;
+            if (!slot.flushScheduled) {
+                slot.flushScheduled = true;
+                long delay = slot.lastForwardNanos + minIntervalNanos - now;
+                flusher.schedule(() -> flush(slot), delay, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    /**
+     * Forget per-ride state for rides that stopped sending updates.
+     */
+    @Scheduled(fixedDelayString = "${ruberoo.tracking.coalescer.sweep-interval:60000}")
+    public void evictIdle() {
+        long cutoff = System.nanoTime() - Math.max(maxSilenceNanos, TimeUnit.MINUTES.toNanos(5));
+        slots.values().removeIf(slot -> {
+            synchronized (slot) {
+                return slot.pending == null && slot.touchedNanos < cutoff;
+            }
+        });
+    }
+
+    @Override
+    public void destroy() {
+        flusher.shutdownNow();
+    }
+
+    private void flush(RideSlot slot) {
+        synchronized (slot) {
+            slot.flushScheduled = false;
+            if (slot.pending != null) {
+                forward(slot, slot.pending, System.nanoTime());
+            }
+        }
+    }
+
+    // Caller holds the slot lock, which keeps forwards of one ride in order
+    private void forward(RideSlot slot, LocationSample location, long now) {
+        slot.pending = null;
+        slot.lastForwarded = location;
+        slot.lastForwardNanos = now;
+        messagingTemplate.convertAndSend(slot.destination, location);
+        forwarded.increment();
+    }
+
+    private boolean isSignificant(LocationSample previous, LocationSample current, long sinceForwardNanos) {
+        if (sinceForwardNanos >= maxSilenceNanos || previous.status() != current.status()) {
+            return true;
+        }
+        double moved = GeoUtils.haversineMeters(previous.latitude(), previous.longitude(),
+                current.latitude(), current.longitude());
+        if (moved >= minDistanceMeters) {
+            return true;
+        }
+        return previous.hasHeading() && current.hasHeading()
+                && GeoUtils.headingDelta(previous.heading(), current.heading()) >= minHeadingChange;
+    }
+
+    private static final class RideSlot {
+        final String destination;
+        LocationSample lastForwarded;
+        long lastForwardNanos;
+        LocationSample pending;
+        boolean flushScheduled;
+        long touchedNanos;
+
+        RideSlot(String destination) {
+            this.destination = destination;
+        }
+    }
+}
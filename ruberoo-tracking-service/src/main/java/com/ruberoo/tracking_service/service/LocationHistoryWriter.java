@@ -0,0 +1,237 @@
+package com.ruberoo.tracking_service.service;
+
+import com.ruberoo.tracking_service.model.LocationSample;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind persistence of GPS history.
+ *
+ * The STOMP inbound thread only enqueues the update; a single background thread
+ * drains the bounded queue and writes rows with JDBC batch inserts, flushing when
+ * a batch is full or the flush interval has elapsed, whichever comes first.
+ * Remaining updates are flushed on graceful shutdown.
+ *
+ * When the queue is full the configured {@link OverflowPolicy} decides whether the
+ * newest or oldest ping is dropped, or whether the caller waits for room.
+ *
+ * @author Ruberoo Team
+ * @version 1.0
+ */
+@Service
+public class LocationHistoryWriter implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocationHistoryWriter.class);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO location_history (ride_id, driver_id, latitude, longitude, speed, heading, status, recorded_at) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    public enum OverflowPolicy {
+        /** Reject the incoming update */
+        DROP_NEWEST,
+        /** Discard the oldest queued update to make room */
+        DROP_OLDEST,
+        /** Wait up to the offer timeout for room, then drop the incoming update */
+        BLOCK
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BlockingQueue<LocationSample> queue;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long offerTimeoutMillis;
+    private final OverflowPolicy overflowPolicy;
+
+    private final Counter dropped;
+    private final Counter written;
+    private final Counter failed;
+    private final DistributionSummary batchSizes;
+    private final Timer flushLatency;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public LocationHistoryWriter(JdbcTemplate jdbcTemplate,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${ruberoo.tracking.history.queue-capacity:50000}") int queueCapacity,
+                                 @Value("${ruberoo.tracking.history.batch-size:500}") int batchSize,
+                                 @Value("${ruberoo.tracking.history.flush-interval:1s}") Duration flushInterval,
+                                 @Value("${ruberoo.tracking.history.offer-timeout:50ms}") Duration offerTimeout,
+                                 @Value("${ruberoo.tracking.history.overflow-policy:DROP_OLDEST}") OverflowPolicy overflowPolicy) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.offerTimeoutMillis = offerTimeout.toMillis();
+        this.overflowPolicy = overflowPolicy;
+
+        Gauge.builder("tracking.history.queue.depth", queue, BlockingQueue::size)
+                .description("GPS updates waiting to be persisted")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("tracking.history.dropped")
+                .description("GPS updates discarded because the queue was full")
+                .register(meterRegistry);
+        this.written = Counter.builder("tracking.history.written")
+                .description("GPS updates persisted")
+                .register(meterRegistry);
+        this.failed = Counter.builder("tracking.history.failed")
+                .description("GPS updates lost because a batch insert failed")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("tracking.history.batch.size")
+                .description("Rows per batch insert")
+                .register(meterRegistry);
+        this.flushLatency = Timer.builder("tracking.history.flush.latency")
+                .description("Time spent writing one batch")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queue an update for persistence. Never blocks longer than the offer timeout.
+     *
+     * @param location Validated location update
+     * @return true if the update was queued
+     */
+    public boolean enqueue(LocationSample location) {
+        if (!running) {
+            dropped.increment();
+            return false;
+        }
+        switch (overflowPolicy) {
+            case DROP_OLDEST:
+                while (!queue.offer(location)) {
+                    if (queue.poll() != null) {
+                        dropped.increment();
+                    }
+                }
+                return true;
+            case BLOCK:
+                try {
+                    if (queue.offer(location, offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                        return true;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                dropped.increment();
+                return false;
+            case DROP_NEWEST:
+            default:
+                if (queue.offer(location)) {
+                    return true;
+                }
+                dropped.increment();
+                return false;
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        worker = new Thread(this::drainLoop, "location-history-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            // The worker keeps draining until the queue is empty
+            worker.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            logger.warn("Shutting down with {} GPS updates not persisted", queue.size());
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void drainLoop() {
+        List<LocationSample> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                LocationSample first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                        break;
+                    }
+                    LocationSample next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next != null) {
+                        batch.add(next);
+                    }
+                }
+            } catch (InterruptedException e) {
+                running = false;
+                queue.drainTo(batch);
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<LocationSample> batch) {
+        batchSizes.record(batch.size());
+        try {
+            flushLatency.record(() -> jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, location) -> {
+                ps.setLong(1, location.rideId());
+                if (location.hasDriverId()) {
+                    ps.setLong(2, location.driverId());
+                } else {
+                    ps.setNull(2, Types.BIGINT);
+                }
+                ps.setDouble(3, location.latitude());
+                ps.setDouble(4, location.longitude());
+                if (location.hasSpeed()) {
+                    ps.setDouble(5, location.speed());
+                } else {
+                    ps.setNull(5, Types.DOUBLE);
+                }
+                if (location.hasHeading()) {
+                    ps.setDouble(6, location.heading());
+                } else {
+                    ps.setNull(6, Types.DOUBLE);
+                }
+                ps.setString(7, location.status() == null ? null : location.status().name());
+                ps.setTimestamp(8, new Timestamp(location.timestampMillis()));
+            }));
+            written.increment(batch.size());
+        } catch (DataAccessException e) {
+            failed.increment(batch.size());
+            logger.error("Failed to persist {} GPS updates: {}", batch.size(), e.getMessage());
+        }
+    }
+}
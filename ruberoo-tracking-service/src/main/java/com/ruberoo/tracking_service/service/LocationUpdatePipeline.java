@@ -0,0 +1,100 @@
+package com.ruberoo.tracking_service.service;
+
+import com.ruberoo.tracking_service.model.LocationSample;
+import org.springframework.stereotype.Service;
+
+/**
+ * Everything done with a driver's GPS ping on the replica owning the ride: progress,
+ * last known location, nearby-driver index, history, route deviation and the broadcast
+ * to riders. Pings arrive here from the STOMP handler, or forwarded by another replica
+ * (see RideShards).
+ *
+ * @author Ruberoo Team
+ * @version 1.0
+ */
+@Service
+public class LocationUpdatePipeline {
+
+    private final LastKnownLocationStore lastKnownLocationStore;
+    private final LocationHistoryWriter locationHistoryWriter;
+    private final LocationBroadcastCoalescer broadcastCoalescer;
+    private final DriverGeoIndex driverGeoIndex;
+    private final RideEtaTracker rideEtaTracker;
+    private final RouteDeviationDetector routeDeviationDetector;
+
+    public LocationUpdatePipeline(LastKnownLocationStore lastKnownLocationStore,
+                                  LocationHistoryWriter locationHistoryWriter,
+                                  LocationBroadcastCoalescer broadcastCoalescer,
+                                  DriverGeoIndex driverGeoIndex,
+                                  RideEtaTracker rideEtaTracker,
+                                  RouteDeviationDetector routeDeviationDetector) {
+        this.lastKnownLocationStore = lastKnownLocationStore;
+        this.locationHistoryWriter = locationHistoryWriter;
+        this.broadcastCoalescer = broadcastCoalescer;
+        this.driverGeoIndex = driverGeoIndex;
+        this.rideEtaTracker = rideEtaTracker;
+        this.routeDeviationDetector = routeDeviationDetector;
+    }
+
+    /**
+     * Process a ping stamped with its ride id and receive time.
+     *
+     * @param location Location update that passed {@link #isValidLocation(LocationSample)}
+     */
+    public void process(LocationSample location) {
+        // Attach distance remaining and ETA to the destination (in-memory, no DB reads)
+        LocationSample locationUpdate = rideEtaTracker.track(location);
+
+        // Remember latest position so reconnecting riders see the driver immediately
+        lastKnownLocationStore.put(locationUpdate.rideId(), locationUpdate);
+
+        // Keep the driver searchable for ride matching (each replica indexes the drivers of its own
+        // rides, NearbyDriverSearch asks all of them)
+        driverGeoIndex.update(locationUpdate);
+
+        // Persist location for historical tracking (batched off the inbound thread)
+        locationHistoryWriter.enqueue(locationUpdate);
+
+        // Compare against the planned route, alerts go to /topic/ride-alerts/{rideId}
+        routeDeviationDetector.check(locationUpdate);
+
+        // Broadcast to riders, at most max-rate updates per second per ride
+        broadcastCoalescer.submit(locationUpdate);
+    }
+
+    /**
+     * Validate location data
+     *
+     * @param location Location data to validate
+     * @return true if valid, false otherwise
+     */
+    public boolean isValidLocation(LocationSample location) {
+        if (location == null) {
+            return false;
+        }
+
+        // Validate latitude (-90 to 90), NaN means missing
+        if (!(location.latitude() >= -90 && location.latitude() <= 90)) {
+            return false;
+        }
+
+        // Validate longitude (-180 to 180), NaN means missing
+        if (!(location.longitude() >= -180 && location.longitude() <= 180)) {
+            return false;
+        }
+
+        // Validate speed (0 to 200 km/h reasonable max)
+        if (location.hasSpeed() &&
+            (location.speed() < 0 || location.speed() > 200)) {
+            return false;
+        }
+
+        // Validate heading (0 to 360 degrees)
+        if (location.hasHeading() &&
+            (location.heading() < 0 || location.heading() > 360)) {
+            return false;
+        }
+
+        return true;
+    }
+}
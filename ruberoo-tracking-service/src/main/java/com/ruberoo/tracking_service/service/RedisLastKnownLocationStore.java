@@ -0,0 +1,75 @@
+package com.ruberoo.tracking_service.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ruberoo.tracking_service.model.LocationSample;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * Redis-backed {@link LastKnownLocationStore} shared by all tracking-service replicas.
+ *
+ * Each ride is a single string key holding the JSON location, written with
+ * SET ... EX so Redis expires finished rides on its own. Reads are a single GET.
+ *
+ * @author Ruberoo Team
+ * @version 1.0
+ */
+@Service
+@ConditionalOnProperty(name = "ruberoo.tracking.location-store.type", havingValue = "redis")
+public class RedisLastKnownLocationStore implements LastKnownLocationStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisLastKnownLocationStore.class);
+
+    private static final String KEY_PREFIX = "tracking:ride:";
+    private static final String KEY_SUFFIX = ":location";
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+
+    public RedisLastKnownLocationStore(StringRedisTemplate redisTemplate,
+                                       ObjectMapper objectMapper,
+                                       @Value("${ruberoo.tracking.location-store.ttl:10m}") Duration ttl) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+    }
+
+    @Override
+    public void put(long rideId, LocationSample location) {
+        try {
+            redisTemplate.opsForValue().set(key(rideId), objectMapper.writeValueAsString(location), ttl);
+        } catch (JsonProcessingException | DataAccessException e) {
+            // Losing one update is fine, the next GPS tick overwrites it anyway
+            logger.warn("Failed to store last known location for ride {}: {}", rideId, e.getMessage());
+        }
+    }
+
+    @Override
+    public LocationSample get(long rideId) {
+        try {
+            String json = redisTemplate.opsForValue().get(key(rideId));
+            return json == null ? null : objectMapper.readValue(json, LocationSample.class);
+        } catch (JsonProcessingException | DataAccessException e) {
+            logger.warn("Failed to read last known location for ride {}: {}", rideId, e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public void remove(long rideId) {
+        redisTemplate.delete(key(rideId));
+    }
+
+    private String key(long rideId) {
+        return KEY_PREFIX + rideId + KEY_SUFFIX;
+    }
+}
@@ -0,0 +1,259 @@
+package com.ruberoo.tracking_service.service;
+
+import com.ruberoo.tracking_service.client.RideManagementClient;
+import com.ruberoo.tracking_service.model.LocationSample;
+import com.ruberoo.tracking_service.shard.ShardedRideState;
+import com.ruberoo.tracking_service.util.GeoUtils;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Incremental distance-remaining and ETA per ride.
+ *
+ * Each ping updates an exponentially weighted moving average of the reported speed
+ * and the haversine distance to the ride's destination, so an update is O(1) and
+ * never touches the database. The destination is fetched once from
+ * ride-management-service when the first ping of a ride arrives, asynchronously;
+ * until it is known, pings are broadcast without progress.
+ *
+ * Straight-line distance under-estimates the road distance, it is scaled by
+ * {@code route-factor} before it is reported.
+ *
+ * The destination and smoothed speed move with the ride when another replica takes
+ * it over, so the new owner neither looks the ride up again nor restarts the average.
+ *
+ * @author Ruberoo Team
+ * @version 1.0
+ */
+@Service
+public class RideEtaTracker implements ShardedRideState<RideEtaTracker.EtaState> {
+
+    private static final Logger logger = LoggerFactory.getLogger(RideEtaTracker.class);
+
+    private final RideManagementClient rideManagementClient;
+    private final Map<Long, RideProgress> rides = new ConcurrentHashMap<>();
+
+    private final boolean enabled;
+    private final double alpha;
+    private final double minSpeedKmh;
+    private final double routeFactor;
+    private final double arrivalRadiusKm;
+    private final long lookupRetryMillis;
+    private final long idleTimeoutMillis;
+
+    public RideEtaTracker(RideManagementClient rideManagementClient,
+                          MeterRegistry meterRegistry,
+                          @Value("${ruberoo.tracking.eta.enabled:true}") boolean enabled,
+                          @Value("${ruberoo.tracking.eta.speed-smoothing:0.3}") double alpha,
+                          @Value("${ruberoo.tracking.eta.min-speed-kmh:5}") double minSpeedKmh,
+                          @Value("${ruberoo.tracking.eta.route-factor:1.3}") double routeFactor,
+                          @Value("${ruberoo.tracking.eta.arrival-radius-meters:50}") double arrivalRadiusMeters,
+                          @Value("${ruberoo.tracking.eta.lookup-retry:1m}") Duration lookupRetry,
+                          @Value("${ruberoo.tracking.eta.idle-timeout:10m}") Duration idleTimeout) {
+        this.rideManagementClient = rideManagementClient;
+        this.enabled = enabled;
+        this.alpha = alpha;
+        this.minSpeedKmh = minSpeedKmh;
+        this.routeFactor = routeFactor;
+        this.arrivalRadiusKm = arrivalRadiusMeters / 1000;
+        this.lookupRetryMillis = lookupRetry.toMillis();
+        this.idleTimeoutMillis = idleTimeout.toMillis();
+
+        Gauge.builder("tracking.eta.rides", rides, Map::size)
+                .description("Rides with ETA state held in memory")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Update the ride's progress with a validated ping.
+     *
+     * @param location Validated location update, stamped with its ride id
+     * @return The same ping with distance remaining and ETA attached,
+     *         or unchanged while the destination is not known
+     */
+    public LocationSample track(LocationSample location) {
+        if (!enabled) {
+            return location;
+        }
+
+        long rideId = location.rideId();
+        long now = System.currentTimeMillis();
+        RideProgress progress = rides.get(rideId);
+        if (progress == null) {
+            RideProgress created = new RideProgress();
+            progress = rides.putIfAbsent(rideId, created);
+            if (progress == null) {
+                progress = created;
+            }
+        }
+
+        double distanceKm;
+        double speedKmh;
+        boolean lookup = false;
+        synchronized (progress) {
+            progress.touchedMillis = now;
+            if (location.hasSpeed()) {
+                progress.smoothedSpeedKmh = Double.isNaN(progress.smoothedSpeedKmh)
+                        ? location.speed()
+                        : alpha * location.speed() + (1 - alpha) * progress.smoothedSpeedKmh;
+            }
+            if (progress.hasDestination) {
+                distanceKm = GeoUtils.haversineMeters(location.latitude(), location.longitude(),
+                        progress.destinationLatitude, progress.destinationLongitude) / 1000 * routeFactor;
+                speedKmh = progress.smoothedSpeedKmh;
+            } else {
+                distanceKm = Double.NaN;
+                speedKmh = Double.NaN;
+                lookup = !progress.lookupInFlight && now >= progress.nextLookupMillis;
+                progress.lookupInFlight |= lookup;
+            }
+        }
+
+        if (Double.isNaN(distanceKm)) {
+            if (lookup) {
+                loadDestination(rideId, progress);
+            }
+            return location;
+        }
+
+        if (distanceKm <= arrivalRadiusKm) {
+            return location.withProgress(distanceKm, 0);
+        }
+        double etaSeconds = Double.isNaN(speedKmh)
+                ? Double.NaN
+                : distanceKm / Math.max(speedKmh, minSpeedKmh) * 3600;
+        return location.withProgress(distanceKm, etaSeconds);
+    }
+
+    /**
+     * Forget rides that stopped sending updates.
+     */
+    @Scheduled(fixedDelayString = "${ruberoo.tracking.eta.sweep-interval:60000}")
+    public void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleTimeoutMillis;
+        rides.values().removeIf(progress -> {
+            synchronized (progress) {
+                return progress.touchedMillis < cutoff;
+            }
+        });
+    }
+
+    @Override
+    public String name() {
+        return "eta";
+    }
+
+    @Override
+    public Class<EtaState> stateType() {
+        return EtaState.class;
+    }
+
+    @Override
+    public Collection<Long> rideIds() {
+        return rides.keySet();
+    }
+
+    @Override
+    public EtaState export(long rideId) {
+        RideProgress progress = rides.get(rideId);
+        if (progress == null) {
+            return null;
+        }
+        synchronized (progress) {
+            return snapshot(progress);
+        }
+    }
+
+    @Override
+    public void restore(long rideId, EtaState state) {
+        RideProgress progress = rides.computeIfAbsent(rideId, id -> new RideProgress());
+        synchronized (progress) {
+            // The destination does not change, take it whichever state is newer
+            if (!progress.hasDestination && state.destinationLatitude() != null && state.destinationLongitude() != null) {
+                progress.destinationLatitude = state.destinationLatitude();
+                progress.destinationLongitude = state.destinationLongitude();
+                progress.hasDestination = true;
+            }
+            if (progress.touchedMillis <= state.touchedMillis()) {
+                progress.smoothedSpeedKmh = state.smoothedSpeedKmh() == null ? Double.NaN : state.smoothedSpeedKmh();
+                progress.touchedMillis = state.touchedMillis();
+            }
+        }
+    }
+
+    @Override
+    public void remove(long rideId, EtaState snapshot) {
+        RideProgress progress = rides.get(rideId);
+        if (progress == null) {
+            return;
+        }
+        synchronized (progress) {
+            if (snapshot(progress).equals(snapshot)) {
+                rides.remove(rideId, progress);
+            }
+        }
+    }
+
+    // Caller holds the progress lock
+    private static EtaState snapshot(RideProgress progress) {
+        return new EtaState(
+                progress.hasDestination ? progress.destinationLatitude : null,
+                progress.hasDestination ? progress.destinationLongitude : null,
+                Double.isNaN(progress.smoothedSpeedKmh) ? null : progress.smoothedSpeedKmh,
+                progress.touchedMillis);
+    }
+
+    private void loadDestination(long rideId, RideProgress progress) {
+        rideManagementClient.getDestination(rideId).subscribe(
+                destination -> {
+                    synchronized (progress) {
+                        progress.destinationLatitude = destination.latitude();
+                        progress.destinationLongitude = destination.longitude();
+                        progress.hasDestination = true;
+                        progress.lookupInFlight = false;
+                    }
+                },
+                error -> {
+                    logger.warn("Could not load destination of ride {}: {}", rideId, error.getMessage());
+                    retryLater(progress);
+                },
+                () -> retryLater(progress));
+    }
+
+    // Completes without effect once the destination is known (the success callback ran first)
+    private void retryLater(RideProgress progress) {
+        synchronized (progress) {
+            if (!progress.hasDestination) {
+                progress.lookupInFlight = false;
+                progress.nextLookupMillis = System.currentTimeMillis() + lookupRetryMillis;
+            }
+        }
+    }
+
+    /**
+     * ETA state of a ride handed over to another replica, null where not known yet.
+     */
+    public record EtaState(Double destinationLatitude, Double destinationLongitude, Double smoothedSpeedKmh,
+                           long touchedMillis) {
+    }
+
+    private static final class RideProgress {
+        boolean hasDestination;
+        double destinationLatitude;
+        double destinationLongitude;
+        boolean lookupInFlight;
+        long nextLookupMillis;
+        double smoothedSpeedKmh = Double.NaN;
+        long touchedMillis;
+    }
+}
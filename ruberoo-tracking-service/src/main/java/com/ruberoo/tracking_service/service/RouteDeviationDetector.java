@@ -0,0 +1,316 @@
+package com.ruberoo.tracking_service.service;
+
+import com.ruberoo.tracking_service.client.RideManagementClient;
+import com.ruberoo.tracking_service.dto.RouteDeviationAlertDto;
+import com.ruberoo.tracking_service.model.LocationSample;
+import com.ruberoo.tracking_service.model.PlannedRoute;
+import com.ruberoo.tracking_service.shard.ShardedRideState;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Detects drivers leaving the planned route of their ride.
+ *
+ * The route is fetched once from ride-management-service on the first ping of a ride.
+ * Each ride keeps a cursor on the segment the driver was last matched to; a ping is
+ * only compared against the segments just behind and ahead of it, so the cost per
+ * ping does not depend on the length of the route. The whole route is scanned only
+ * when that window finds the driver off route, which also re-synchronises the cursor
+ * after a GPS jump.
+ *
+ * An OFF_ROUTE alert is published to /topic/ride-alerts/{rideId} once the driver has
+ * stayed more than {@code threshold-meters} from the route for {@code min-duration},
+ * and a BACK_ON_ROUTE alert when they come back within {@code rejoin-meters}.
+ *
+ * When another replica takes the ride over, the cursor and alert state move with it;
+ * the route itself is fetched again by the new owner.
+ *
+ * @author Ruberoo Team
+ * @version 1.0
+ */
+@Service
+public class RouteDeviationDetector implements ShardedRideState<RouteDeviationDetector.DeviationState> {
+
+    private static final Logger logger = LoggerFactory.getLogger(RouteDeviationDetector.class);
+
+    public static final String ALERT_TOPIC_PREFIX = "/topic/ride-alerts/";
+
+    private static final String OFF_ROUTE = "OFF_ROUTE";
+    private static final String BACK_ON_ROUTE = "BACK_ON_ROUTE";
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final RideManagementClient rideManagementClient;
+    private final Map<Long, RideRoute> rides = new ConcurrentHashMap<>();
+
+    private final boolean enabled;
+    private final double thresholdMeters;
+    private final double rejoinMeters;
+    private final long minDurationMillis;
+    private final int windowSegments;
+    private final long lookupRetryMillis;
+    private final long idleTimeoutMillis;
+
+    private final Counter offRouteAlerts;
+    private final Counter backOnRouteAlerts;
+
+    public RouteDeviationDetector(SimpMessagingTemplate messagingTemplate,
+                                  RideManagementClient rideManagementClient,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${ruberoo.tracking.deviation.enabled:true}") boolean enabled,
+                                  @Value("${ruberoo.tracking.deviation.threshold-meters:150}") double thresholdMeters,
+                                  @Value("${ruberoo.tracking.deviation.rejoin-meters:75}") double rejoinMeters,
+                                  @Value("${ruberoo.tracking.deviation.min-duration:30s}") Duration minDuration,
+                                  @Value("${ruberoo.tracking.deviation.window-segments:8}") int windowSegments,
+                                  @Value("${ruberoo.tracking.deviation.lookup-retry:1m}") Duration lookupRetry,
+                                  @Value("${ruberoo.tracking.deviation.idle-timeout:10m}") Duration idleTimeout) {
+        this.messagingTemplate = messagingTemplate;
+        this.rideManagementClient = rideManagementClient;
+        this.enabled = enabled;
+        this.thresholdMeters = thresholdMeters;
+        this.rejoinMeters = Math.min(rejoinMeters, thresholdMeters);
+        this.minDurationMillis = minDuration.toMillis();
+        this.windowSegments = windowSegments;
+        this.lookupRetryMillis = lookupRetry.toMillis();
+        this.idleTimeoutMillis = idleTimeout.toMillis();
+
+        this.offRouteAlerts = Counter.builder("tracking.route.alerts")
+                .tag("type", "off_route")
+                .description("Drivers reported off their planned route")
+                .register(meterRegistry);
+        this.backOnRouteAlerts = Counter.builder("tracking.route.alerts")
+                .tag("type", "back_on_route")
+                .description("Drivers reported back on their planned route")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Match a validated ping against the ride's planned route.
+     *
+     * @param location Validated location update, stamped with its ride id and receive time
+     */
+    public void check(LocationSample location) {
+        if (!enabled) {
+            return;
+        }
+
+        long rideId = location.rideId();
+        long now = location.timestampMillis();
+        RideRoute ride = rides.get(rideId);
+        if (ride == null) {
+            RideRoute created = new RideRoute();
+            ride = rides.putIfAbsent(rideId, created);
+            if (ride == null) {
+                ride = created;
+            }
+        }
+
+        String alert = null;
+        double distance;
+        long offRouteMillis = 0;
+        boolean lookup = false;
+        synchronized (ride) {
+            ride.touchedMillis = now;
+            PlannedRoute route = ride.route;
+            if (route == null) {
+                lookup = !ride.lookupInFlight && now >= ride.nextLookupMillis;
+                ride.lookupInFlight |= lookup;
+                distance = Double.NaN;
+            } else {
+                distance = distanceFromRoute(ride, route, route.x(location.longitude()), route.y(location.latitude()));
+                if (distance > thresholdMeters) {
+                    if (ride.offRouteSinceMillis == 0) {
+                        ride.offRouteSinceMillis = now;
+                    }
+                    offRouteMillis = now - ride.offRouteSinceMillis;
+                    if (!ride.alerted && offRouteMillis >= minDurationMillis) {
+                        ride.alerted = true;
+                        alert = OFF_ROUTE;
+                    }
+                } else if (distance <= rejoinMeters) {
+                    if (ride.alerted) {
+                        offRouteMillis = now - ride.offRouteSinceMillis;
+                        ride.alerted = false;
+                        alert = BACK_ON_ROUTE;
+                    }
+                    ride.offRouteSinceMillis = 0;
+                }
+            }
+        }
+
+        if (lookup) {
+            loadRoute(rideId, ride);
+        }
+        if (alert != null) {
+            publish(alert, location, distance, offRouteMillis);
+        }
+    }
+
+    /**
+     * Forget rides that stopped sending updates.
+     */
+    @Scheduled(fixedDelayString = "${ruberoo.tracking.deviation.sweep-interval:60000}")
+    public void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleTimeoutMillis;
+        rides.values().removeIf(ride -> {
+            synchronized (ride) {
+                return ride.touchedMillis < cutoff;
+            }
+        });
+    }
+
+    @Override
+    public String name() {
+        return "deviation";
+    }
+
+    @Override
+    public Class<DeviationState> stateType() {
+        return DeviationState.class;
+    }
+
+    @Override
+    public Collection<Long> rideIds() {
+        return rides.keySet();
+    }
+
+    @Override
+    public DeviationState export(long rideId) {
+        RideRoute ride = rides.get(rideId);
+        if (ride == null) {
+            return null;
+        }
+        synchronized (ride) {
+            return snapshot(ride);
+        }
+    }
+
+    @Override
+    public void restore(long rideId, DeviationState state) {
+        RideRoute ride = rides.computeIfAbsent(rideId, id -> new RideRoute());
+        synchronized (ride) {
+            if (ride.touchedMillis > state.touchedMillis()) {
+                return;
+            }
+            ride.cursor = state.cursor();
+            ride.offRouteSinceMillis = state.offRouteSinceMillis();
+            ride.alerted = state.alerted();
+            ride.touchedMillis = state.touchedMillis();
+        }
+    }
+
+    @Override
+    public void remove(long rideId, DeviationState snapshot) {
+        RideRoute ride = rides.get(rideId);
+        if (ride == null) {
+            return;
+        }
+        synchronized (ride) {
+            if (snapshot(ride).equals(snapshot)) {
+                rides.remove(rideId, ride);
+            }
+        }
+    }
+
+    // Caller holds the ride lock
+    private static DeviationState snapshot(RideRoute ride) {
+        return new DeviationState(ride.cursor, ride.offRouteSinceMillis, ride.alerted, ride.touchedMillis);
+    }
+
+    // Caller holds the ride lock
+    private double distanceFromRoute(RideRoute ride, PlannedRoute route, double x, double y) {
+        int segments = route.segmentCount();
+        int from = Math.max(0, ride.cursor - 1);
+        int to = Math.min(segments - 1, ride.cursor + windowSegments);
+        int best = ride.cursor;
+        double bestDistance = Double.MAX_VALUE;
+        for (int i = from; i <= to; i++) {
+            double d = route.distanceToSegment(i, x, y);
+            if (d < bestDistance) {
+                bestDistance = d;
+                best = i;
+            }
+        }
+        if (bestDistance > thresholdMeters && (from > 0 || to < segments - 1)) {
+            for (int i = 0; i < segments; i++) {
+                double d = route.distanceToSegment(i, x, y);
+                if (d < bestDistance) {
+                    bestDistance = d;
+                    best = i;
+                }
+            }
+        }
+        ride.cursor = best;
+        return bestDistance;
+    }
+
+    private void publish(String type, LocationSample location, double distance, long offRouteMillis) {
+        long rideId = location.rideId();
+        logger.info("Ride {} {} ({} m from planned route)", rideId, type, Math.round(distance));
+        (OFF_ROUTE.equals(type) ? offRouteAlerts : backOnRouteAlerts).increment();
+
+        RouteDeviationAlertDto alert = new RouteDeviationAlertDto(type, rideId,
+                location.hasDriverId() ? location.driverId() : null,
+                location.latitude(), location.longitude(), (double) Math.round(distance),
+                offRouteMillis / 1000, LocationSample.toLocalDateTime(location.timestampMillis()));
+        messagingTemplate.convertAndSend(ALERT_TOPIC_PREFIX + rideId, alert);
+    }
+
+    private void loadRoute(long rideId, RideRoute ride) {
+        rideManagementClient.getRoutePolyline(rideId).subscribe(
+                polyline -> {
+                    PlannedRoute route = PlannedRoute.fromEncodedPolyline(polyline);
+                    if (route == null) {
+                        logger.warn("Ignoring malformed route polyline of ride {}", rideId);
+                        return;
+                    }
+                    synchronized (ride) {
+                        ride.route = route;
+                        // A cursor handed over with the ride stays where it was
+                        ride.cursor = Math.min(ride.cursor, route.segmentCount() - 1);
+                        ride.lookupInFlight = false;
+                    }
+                },
+                error -> {
+                    logger.warn("Could not load route of ride {}: {}", rideId, error.getMessage());
+                    retryLater(ride);
+                },
+                () -> retryLater(ride));
+    }
+
+    // Completes without effect once the route is known (the success callback ran first)
+    private void retryLater(RideRoute ride) {
+        synchronized (ride) {
+            if (ride.route == null) {
+                ride.lookupInFlight = false;
+                ride.nextLookupMillis = System.currentTimeMillis() + lookupRetryMillis;
+            }
+        }
+    }
+
+    /**
+     * Deviation state of a ride handed over to another replica.
+     */
+    public record DeviationState(int cursor, long offRouteSinceMillis, boolean alerted, long touchedMillis) {
+    }
+
+    private static final class RideRoute {
+        PlannedRoute route;
+        int cursor;
+        boolean lookupInFlight;
+        long nextLookupMillis;
+        long offRouteSinceMillis;
+        boolean alerted;
+        long touchedMillis;
+    }
+}
@@ -0,0 +1,98 @@
+package com.ruberoo.tracking_service.shard;
+
+import com.ruberoo.tracking_service.client.ShardPeerClient;
+import com.ruberoo.tracking_service.model.LocationSample;
+import com.ruberoo.tracking_service.service.DriverGeoIndex;
+import com.ruberoo.tracking_service.service.DriverGeoIndex.NearbyDriver;
+import com.ruberoo.tracking_service.util.GeoUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Nearest drivers to a point across all the tracking-service replicas.
+ *
+ * Each replica only indexes the drivers of the rides it owns (their pings are handled
+ * there, see RideShards), so the search asks every member for its own k nearest, in
+ * parallel, and keeps the k nearest of all. A driver found on two replicas (their ride
+ * changed owner, the old entry has not expired yet) counts once, with its latest position.
+ * A replica that does not answer in time is left out rather than failing the search.
+ *
+ * @author Ruberoo Team
+ * @version 1.0
+ */
+@Service
+public class NearbyDriverSearch {
+
+    private static final Logger logger = LoggerFactory.getLogger(NearbyDriverSearch.class);
+
+    private final DriverGeoIndex driverGeoIndex;
+    private final RideShards rideShards;
+    private final ShardPeerClient peerClient;
+    private final Counter peerFailures;
+
+    public NearbyDriverSearch(DriverGeoIndex driverGeoIndex,
+                              RideShards rideShards,
+                              ShardPeerClient peerClient,
+                              MeterRegistry meterRegistry) {
+        this.driverGeoIndex = driverGeoIndex;
+        this.rideShards = rideShards;
+        this.peerClient = peerClient;
+        this.peerFailures = Counter.builder("tracking.shard.nearby.failures")
+                .description("Nearby-driver searches answered without the drivers of a replica that could not be reached")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param latitude Query latitude
+     * @param longitude Query longitude
+     * @param radiusKm Search radius, capped at the index's max-radius-km
+     * @param limit Maximum number of drivers to return
+     * @return Drivers ordered by increasing distance
+     */
+    public Mono<List<NearbyDriver>> findNearest(double latitude, double longitude, double radiusKm, int limit) {
+        List<NearbyDriver> local = driverGeoIndex.findNearest(latitude, longitude, radiusKm, limit);
+        List<RideShards.Member> peers = rideShards.peers();
+        if (peers.isEmpty()) {
+            return Mono.just(local);
+        }
+        return Flux.fromIterable(peers)
+                .flatMap(peer -> peerClient.findNearestDrivers(peer.uri(), latitude, longitude, radiusKm, limit)
+                        .onErrorResume(error -> {
+                            logger.warn("Nearby-driver search without the drivers of {}: {}", peer.id(), error.getMessage());
+                            peerFailures.increment();
+                            return Mono.empty();
+                        }))
+                .flatMapIterable(locations -> locations)
+                .map(location -> new NearbyDriver(location,
+                        GeoUtils.haversineMeters(latitude, longitude, location.latitude(), location.longitude())))
+                .collectList()
+                .map(remote -> merge(local, remote, limit));
+    }
+
+    private static List<NearbyDriver> merge(List<NearbyDriver> local, List<NearbyDriver> remote, int limit) {
+        Map<Long, NearbyDriver> latest = new HashMap<>();
+        for (List<NearbyDriver> hits : List.of(local, remote)) {
+            for (NearbyDriver hit : hits) {
+                latest.merge(hit.location().driverId(), hit, (a, b) -> newer(a.location(), b.location()) ? a : b);
+            }
+        }
+        return latest.values().stream()
+                .sorted(Comparator.comparingDouble(NearbyDriver::distanceMeters))
+                .limit(limit)
+                .toList();
+    }
+
+    private static boolean newer(LocationSample a, LocationSample b) {
+        return a.timestampMillis() >= b.timestampMillis();
+    }
+}
@@ -0,0 +1,361 @@
+package com.ruberoo.tracking_service.shard;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ruberoo.common.shard.RendezvousHash;
+import com.ruberoo.tracking_service.client.ShardPeerClient;
+import com.ruberoo.tracking_service.dto.RideHandoffDto;
+import com.ruberoo.tracking_service.model.LocationSample;
+import com.ruberoo.tracking_service.service.LocationUpdatePipeline;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.client.serviceregistry.Registration;
+import org.springframework.cloud.client.serviceregistry.ServiceRegistry;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Splits the rides between the tracking-service replicas, so each one keeps the per-ride
+ * state (last location, ETA, route cursor) of its own rides only.
+ *
+ * Members are the tracking-service instances in Eureka carrying the shard-member metadata
+ * entry, a stable id set from ruberoo.tracking.shard.member-id. A ride belongs to the
+ * member winning {@link RendezvousHash} for its id; the api-gateway uses the same hash to
+ * send the WebSocket connections of a ride to its owner.
+ *
+ * - A ping that reaches another replica anyway (the registry views differ for a moment
+ *   while replicas come and go) is forwarded to the owner, or handled locally if the
+ *   owner cannot be reached.
+ * - On every registry refresh, state of rides owned elsewhere is pushed to their owner
+ *   and dropped here; a failed handoff is retried on the next refresh. So when a replica
+ *   joins, the others hand it the rides it now owns.
+ * - A replica shutting down first takes itself out of service in the registry, so the
+ *   api-gateway and the other replicas stop sending it rides, then hands all its rides
+ *   over; from then on it refuses forwarded pings and handoffs, which the sender keeps.
+ *
+ * With ruberoo.tracking.shard.enabled=false every replica keeps every ride it sees.
+ *
+ * @author Ruberoo Team
+ * @version 1.0
+ */
+@Component
+public class RideShards implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(RideShards.class);
+
+    // Eureka metadata entry holding the member id of a replica
+    public static final String MEMBER_METADATA_KEY = "shard-member";
+
+    // Registry status of a replica that is shutting down; Eureka only lists UP instances
+    private static final String OUT_OF_SERVICE = "OUT_OF_SERVICE";
+
+    private final DiscoveryClient discoveryClient;
+    private final ObjectProvider<ServiceRegistry<?>> serviceRegistry;
+    private final ObjectProvider<Registration> registration;
+    private final ShardPeerClient peerClient;
+    private final LocationUpdatePipeline pipeline;
+    private final Map<String, ShardedRideState<?>> states;
+    private final ObjectMapper objectMapper;
+
+    private final boolean enabled;
+    private final String serviceId;
+    private final Member self;
+    private final int handoffBatchSize;
+
+    private final Counter forwarded;
+    private final Counter forwardFailures;
+    private final Counter ridesSent;
+    private final Counter ridesReceived;
+
+    // This replica is always a member until it shuts down
+    private volatile List<Member> members;
+    private volatile boolean running;
+    private volatile boolean leaving;
+    private final AtomicBoolean handoffInFlight = new AtomicBoolean();
+
+    public RideShards(DiscoveryClient discoveryClient,
+                      ObjectProvider<ServiceRegistry<?>> serviceRegistry,
+                      ObjectProvider<Registration> registration,
+                      ShardPeerClient peerClient,
+                      LocationUpdatePipeline pipeline,
+                      List<ShardedRideState<?>> states,
+                      ObjectMapper objectMapper,
+                      MeterRegistry meterRegistry,
+                      @Value("${ruberoo.tracking.shard.enabled:true}") boolean enabled,
+                      @Value("${spring.application.name:tracking-service}") String serviceId,
+                      @Value("${ruberoo.tracking.shard.member-id:${spring.cloud.client.hostname}:${server.port:8080}}") String memberId,
+                      @Value("${ruberoo.tracking.shard.handoff-batch-size:500}") int handoffBatchSize) {
+        this.discoveryClient = discoveryClient;
+        this.serviceRegistry = serviceRegistry;
+        this.registration = registration;
+        this.peerClient = peerClient;
+        this.pipeline = pipeline;
+        this.states = states.stream().collect(Collectors.toMap(ShardedRideState::name, Function.identity()));
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.serviceId = serviceId;
+        this.self = new Member(memberId, null);
+        this.handoffBatchSize = handoffBatchSize;
+        this.members = List.of(self);
+
+        this.forwarded = Counter.builder("tracking.shard.forwarded")
+                .description("Pings forwarded to the replica owning their ride")
+                .register(meterRegistry);
+        this.forwardFailures = Counter.builder("tracking.shard.forward.failures")
+                .description("Pings handled locally because their owner could not be reached")
+                .register(meterRegistry);
+        this.ridesSent = Counter.builder("tracking.shard.handoff.rides")
+                .tag("direction", "sent")
+                .description("Rides whose state was handed over to or taken over from another replica")
+                .register(meterRegistry);
+        this.ridesReceived = Counter.builder("tracking.shard.handoff.rides")
+                .tag("direction", "received")
+                .description("Rides whose state was handed over to or taken over from another replica")
+                .register(meterRegistry);
+        Gauge.builder("tracking.shard.members", this, shards -> shards.members.size())
+                .description("Tracking-service replicas sharing the rides")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Handle a validated ping on this replica if it owns the ride, else forward it to the owner.
+     *
+     * @param location Location update, stamped with its ride id and receive time
+     */
+    public void dispatch(LocationSample location) {
+        Member owner = remoteOwner(location.rideId());
+        if (owner == null) {
+            pipeline.process(location);
+            return;
+        }
+        forwarded.increment();
+        peerClient.forwardUpdate(owner.uri(), location).subscribe(null, error -> {
+            // Better a split state for this ride until the next handoff than a lost ping
+            logger.warn("Could not forward ping of ride {} to {}, handling it here: {}",
+                    location.rideId(), owner.id(), error.getMessage());
+            forwardFailures.increment();
+            pipeline.process(location);
+        });
+    }
+
+    /**
+     * @param rideId The ride identifier
+     * @return The replica owning the ride, or null if it is this one
+     */
+    public Member remoteOwner(long rideId) {
+        if (!enabled) {
+            return null;
+        }
+        Member owner = RendezvousHash.owner(members, Member::hash, RendezvousHash.hash(Long.toString(rideId)));
+        return owner == null || owner == self ? null : owner;
+    }
+
+    /**
+     * @return The other replicas sharing the rides, empty when sharding is disabled
+     */
+    public List<Member> peers() {
+        if (!enabled) {
+            return List.of();
+        }
+        return members.stream().filter(member -> member != self).toList();
+    }
+
+    /**
+     * @return true once this replica has handed its rides over for shutting down; it must not
+     *         take rides or pings any more, they would be lost when it stops
+     */
+    public boolean isLeaving() {
+        return leaving;
+    }
+
+    /**
+     * Take over the rides handed over by another replica.
+     */
+    public void accept(RideHandoffDto handoff) {
+        for (RideHandoffDto.RideState ride : handoff.rides()) {
+            ride.state().forEach((name, snapshot) -> {
+                ShardedRideState<?> state = states.get(name);
+                if (state != null) {
+                    restore(state, ride.rideId(), snapshot);
+                }
+            });
+        }
+        ridesReceived.increment(handoff.rides().size());
+        logger.info("Took over {} rides from {}", handoff.rides().size(), handoff.from());
+    }
+
+    /**
+     * Re-read the members from the registry and hand over the rides now owned by others.
+     */
+    @Scheduled(fixedDelayString = "${ruberoo.tracking.shard.refresh-interval:5000}")
+    public synchronized void refresh() {
+        if (!enabled || leaving) {
+            return;
+        }
+        List<Member> view = new ArrayList<>();
+        Set<String> ids = new HashSet<>();
+        for (ServiceInstance instance : discoveryClient.getInstances(serviceId)) {
+            // Instances without a member id do not take rides, e.g. during a rolling upgrade
+            String id = instance.getMetadata().get(MEMBER_METADATA_KEY);
+            if (id != null && ids.add(id)) {
+                view.add(id.equals(self.id()) ? self : new Member(id, instance.getUri()));
+            }
+        }
+        // Serving, even when not (yet) in this copy of the registry
+        if (ids.add(self.id())) {
+            view.add(self);
+        }
+        if (!ids.equals(memberIds())) {
+            logger.info("Tracking shard members: {}", ids);
+        }
+        members = List.copyOf(view);
+        // Not waited for, this runs on the shared task scheduler; skipped while the previous one is in flight
+        if (handoffInFlight.compareAndSet(false, true)) {
+            handOff().doFinally(signal -> handoffInFlight.set(false)).subscribe();
+        }
+    }
+
+    private Set<String> memberIds() {
+        return members.stream().map(Member::id).collect(Collectors.toSet());
+    }
+
+    // Caller holds the lock; the snapshots are taken now, the rides are dropped once their owner
+    // has them and only if they did not change meanwhile
+    private Mono<Void> handOff() {
+        Map<Member, Map<Long, Map<String, Object>>> byOwner = new LinkedHashMap<>();
+        for (ShardedRideState<?> state : states.values()) {
+            for (Long rideId : state.rideIds()) {
+                Member owner = remoteOwner(rideId);
+                if (owner == null) {
+                    continue;
+                }
+                Object snapshot = state.export(rideId);
+                if (snapshot != null) {
+                    byOwner.computeIfAbsent(owner, o -> new LinkedHashMap<>())
+                            .computeIfAbsent(rideId, id -> new LinkedHashMap<>())
+                            .put(state.name(), snapshot);
+                }
+            }
+        }
+        List<Mono<Void>> sends = new ArrayList<>();
+        byOwner.forEach((owner, rides) -> {
+            List<RideHandoffDto.RideState> batch = new ArrayList<>(Math.min(rides.size(), handoffBatchSize));
+            for (Map.Entry<Long, Map<String, Object>> ride : rides.entrySet()) {
+                batch.add(new RideHandoffDto.RideState(ride.getKey(), ride.getValue()));
+                if (batch.size() == handoffBatchSize) {
+                    sends.add(send(owner, batch));
+                    batch = new ArrayList<>(handoffBatchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                sends.add(send(owner, batch));
+            }
+        });
+        return Flux.concat(sends).then();
+    }
+
+    private Mono<Void> send(Member owner, List<RideHandoffDto.RideState> rides) {
+        return peerClient.handOff(owner.uri(), new RideHandoffDto(self.id(), rides))
+                .doOnSuccess(done -> {
+                    for (RideHandoffDto.RideState ride : rides) {
+                        ride.state().forEach((name, snapshot) -> removeIfUnchanged(states.get(name), ride.rideId(), snapshot));
+                    }
+                    ridesSent.increment(rides.size());
+                    logger.info("Handed {} rides over to {}", rides.size(), owner.id());
+                })
+                .onErrorResume(e -> {
+                    logger.warn("Could not hand {} rides over to {}, keeping them for now: {}",
+                            rides.size(), owner.id(), e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private <S> void restore(ShardedRideState<S> state, long rideId, Object snapshot) {
+        state.restore(rideId, objectMapper.convertValue(snapshot, state.stateType()));
+    }
+
+    // A ping handled here since the snapshot was taken keeps the ride for the next handoff
+    private static <S> void removeIfUnchanged(ShardedRideState<S> state, long rideId, Object snapshot) {
+        state.remove(rideId, state.stateType().cast(snapshot));
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    /**
+     * Runs in the default phase, before the web server stops and before the registration is
+     * removed from Eureka in phase 0: the replica is taken out of service first, then pings
+     * still arriving are forwarded to the new owners.
+     */
+    @Override
+    public void stop() {
+        running = false;
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            leaving = true;
+            takeOutOfService();
+            members = members.stream().filter(member -> member != self).toList();
+            handOff().block();
+        }
+    }
+
+    private void takeOutOfService() {
+        ServiceRegistry<?> registry = serviceRegistry.getIfUnique();
+        Registration instance = registration.getIfUnique();
+        if (registry == null || instance == null) {
+            return;
+        }
+        try {
+            setStatus(registry, instance, OUT_OF_SERVICE);
+        } catch (RuntimeException e) {
+            // The others still drop this replica once its registration expires
+            logger.warn("Could not take this replica out of service: {}", e.getMessage());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <R extends Registration> void setStatus(ServiceRegistry<R> registry, Registration instance,
+                                                           String status) {
+        registry.setStatus((R) instance, status);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * @param id Stable member id, from the shard-member metadata
+     * @param uri Address of the replica, null for this one
+     */
+    public record Member(String id, URI uri, long hash) {
+
+        Member(String id, URI uri) {
+            this(id, uri, RendezvousHash.hash(id));
+        }
+    }
+}
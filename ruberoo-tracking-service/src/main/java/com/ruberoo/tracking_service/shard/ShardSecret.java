@@ -0,0 +1,65 @@
+package com.ruberoo.tracking_service.shard;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Shared secret the tracking-service replicas send on their calls to each other's
+ * /internal endpoints (see ShardPeerClient), and check on the requests they receive.
+ *
+ * Those endpoints take pings and ride state from whoever reaches the replica, so without
+ * the secret anyone on the network could inject locations or take rides over. Set
+ * ruberoo.tracking.shard.secret to the same value on every replica; startup fails without
+ * one while sharding is enabled. With sharding disabled and no secret, every request is
+ * refused.
+ *
+ * @author Ruberoo Team
+ * @version 1.0
+ */
+@Component
+public class ShardSecret implements HandlerInterceptor {
+
+    public static final String HEADER = "X-Shard-Secret";
+
+    private final String secret;
+    private final byte[] secretBytes;
+
+    public ShardSecret(@Value("${ruberoo.tracking.shard.enabled:true}") boolean enabled,
+                       @Value("${ruberoo.tracking.shard.secret:}") String secret) {
+        if (enabled && secret.isBlank()) {
+            throw new IllegalStateException(
+                    "ruberoo.tracking.shard.secret must be set while ruberoo.tracking.shard.enabled is true");
+        }
+        this.secret = secret;
+        this.secretBytes = secret.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return The value to send in the {@link #HEADER} header
+     */
+    public String value() {
+        return secret;
+    }
+
+    /**
+     * Answers 403 to a request without the secret.
+     */
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        String presented = request.getHeader(HEADER);
+        // Constant-time comparison, so the response time does not reveal how much of it matched
+        if (secretBytes.length > 0 && presented != null
+                && MessageDigest.isEqual(secretBytes, presented.getBytes(StandardCharsets.UTF_8))) {
+            return true;
+        }
+        response.setStatus(HttpStatus.FORBIDDEN.value());
+        return false;
+    }
+}
@@ -0,0 +1,52 @@
+package com.ruberoo.tracking_service.shard;
+
+import java.util.Collection;
+
+/**
+ * Per-ride state a replica keeps in memory for the rides it owns, handed over to the
+ * new owner by {@link RideShards} when replicas join or leave.
+ *
+ * @param <S> JSON-serializable snapshot of the state of one ride
+ *
+ * @author Ruberoo Team
+ * @version 1.0
+ */
+public interface ShardedRideState<S> {
+
+    /**
+     * @return Name of this state in a handoff, the same on every replica
+     */
+    String name();
+
+    Class<S> stateType();
+
+    /**
+     * @return Rides with state on this replica
+     */
+    Collection<Long> rideIds();
+
+    /**
+     * @param rideId The ride identifier
+     * @return A snapshot of the state of the ride, or null if there is none
+     */
+    S export(long rideId);
+
+    /**
+     * Take over the state of a ride from its previous owner. If this replica already has
+     * state for the ride (pings it got while the replicas disagreed on the owner), the
+     * newer of the two is kept.
+     *
+     * @param rideId The ride identifier
+     * @param state Snapshot exported by the previous owner
+     */
+    void restore(long rideId, S state);
+
+    /**
+     * Forget a ride once its state has been handed over, unless it changed since: a ping
+     * handled here after the snapshot was taken is then kept for the next handoff.
+     *
+     * @param rideId The ride identifier
+     * @param snapshot The snapshot that was handed over, from {@link #export}
+     */
+    void remove(long rideId, S snapshot);
+}
@@ -0,0 +1,40 @@
+package com.ruberoo.tracking_service.util;
+
+/**
+ * Small spherical-earth helpers shared by the tracking pipeline.
+ *
+ * @author Ruberoo Team
+ * @version 1.0
+ */
+public final class GeoUtils {
+
+    public static final double EARTH_RADIUS_METERS = 6_371_008.8;
+
+    private GeoUtils() {
+    }
+
+    /**
+     * Great-circle distance between two points.
+     *
+     * @return Distance in meters
+     */
+    public static double haversineMeters(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double sinLat = Math.sin(dLat / 2);
+        double sinLon = Math.sin(dLon / 2);
+        double a = sinLat * sinLat
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * sinLon * sinLon;
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    /**
+     * Smallest absolute difference between two compass headings.
+     *
+     * @return Angle in degrees between 0 and 180
+     */
+    public static double headingDelta(double heading1, double heading2) {
+        double delta = Math.abs(heading1 - heading2) % 360;
+        return delta > 180 ? 360 - delta : delta;
+    }
+}
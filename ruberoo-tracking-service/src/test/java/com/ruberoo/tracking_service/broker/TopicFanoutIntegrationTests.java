@@ -0,0 +1,192 @@
+package com.ruberoo.tracking_service.broker;
+
+import com.ruberoo.tracking_service.TrackingServiceApplication;
+import com.ruberoo.tracking_service.model.CompactLocationCodec;
+import com.ruberoo.tracking_service.model.LocationSample;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.converter.ByteArrayMessageConverter;
+import org.springframework.messaging.converter.CompositeMessageConverter;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Starts two tracking-service instances sharing an in-memory {@link BroadcastBus}
+ * (stand-in for Redis) and checks that a rider connected to instance A receives
+ * a driver update sent to instance B, in the format negotiated for its subscription.
+ */
+class TopicFanoutIntegrationTests {
+
+    private ConfigurableApplicationContext instanceA;
+    private ConfigurableApplicationContext instanceB;
+
+    @AfterEach
+    void tearDown() {
+        if (instanceA != null) {
+            instanceA.close();
+        }
+        if (instanceB != null) {
+            instanceB.close();
+        }
+    }
+
+    @Test
+    void updateOnOneReplicaReachesSubscriberOnAnother() throws Exception {
+        instanceA = start();
+        instanceB = start();
+
+        BlockingQueue<Map<?, ?>> received = new LinkedBlockingQueue<>();
+        StompSession rider = connect(instanceA);
+        rider.subscribe("/topic/tracking/42", new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return Map.class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                received.add((Map<?, ?>) payload);
+            }
+        });
+
+        StompSession driver = connect(instanceB);
+        Map<String, Object> update = Map.of("driverId", 7, "latitude", 12.97, "longitude", 77.59,
+                "speed", 30.0, "status", "MOVING");
+
+        // The SUBSCRIBE frame is processed asynchronously, so keep sending until the first update arrives
+        Map<?, ?> message = null;
+        for (int i = 0; i < 50 && message == null; i++) {
+            driver.send("/app/tracking/update/42", update);
+            message = received.poll(200, TimeUnit.MILLISECONDS);
+        }
+
+        assertThat(message).isNotNull();
+        assertThat(message.get("rideId")).isEqualTo(42);
+        assertThat(message.get("driverId")).isEqualTo(7);
+    }
+
+    @Test
+    void compactSubscriptionOnTheRawEndpointReceivesBinaryFrames() throws Exception {
+        instanceA = start();
+        instanceB = start();
+
+        StompHeaders compact = new StompHeaders();
+        compact.setDestination("/topic/tracking/43");
+        compact.add(CompactFormatNegotiator.FORMAT_HEADER, CompactFormatNegotiator.COMPACT_FORMAT);
+
+        BlockingQueue<byte[]> binary = new LinkedBlockingQueue<>();
+        connect(instanceA, "/ws/tracking-binary", false).subscribe(compact, handler(byte[].class, binary));
+
+        // SockJS cannot carry binary frames, so the same header is ignored there
+        BlockingQueue<Map<?, ?>> json = new LinkedBlockingQueue<>();
+        connect(instanceA).subscribe(compact, handler(Map.class, json));
+
+        StompSession driver = connect(instanceB);
+        Map<String, Object> update = Map.of("driverId", 7, "latitude", 12.97, "longitude", 77.59,
+                "speed", 30.0, "status", "MOVING");
+
+        byte[] frame = null;
+        Map<?, ?> message = null;
+        for (int i = 0; i < 50 && (frame == null || message == null); i++) {
+            driver.send("/app/tracking/update/43", update);
+            frame = frame != null ? frame : binary.poll(200, TimeUnit.MILLISECONDS);
+            message = message != null ? message : json.poll(200, TimeUnit.MILLISECONDS);
+        }
+
+        assertThat(frame).isNotNull();
+        LocationSample decoded = CompactLocationCodec.decode(frame);
+        assertThat(decoded.rideId()).isEqualTo(43);
+        assertThat(decoded.driverId()).isEqualTo(7);
+        assertThat(message).isNotNull();
+        assertThat(message.get("rideId")).isEqualTo(43);
+    }
+
+    private static ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(TrackingServiceApplication.class, SharedBusConfig.class)
+                .properties("server.port=0",
+                        "spring.cloud.config.enabled=false",
+                        "eureka.client.enabled=false")
+                .run();
+    }
+
+    private static StompSession connect(ConfigurableApplicationContext context) throws Exception {
+        return connect(context, "/ws/tracking", true);
+    }
+
+    private static StompSession connect(ConfigurableApplicationContext context, String endpoint, boolean sockJs)
+            throws Exception {
+        int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+        StandardWebSocketClient webSocketClient = new StandardWebSocketClient();
+        WebSocketStompClient client = new WebSocketStompClient(sockJs
+                ? new SockJsClient(List.of(new WebSocketTransport(webSocketClient)))
+                : webSocketClient);
+        client.setMessageConverter(new CompositeMessageConverter(
+                List.of(new ByteArrayMessageConverter(), new MappingJackson2MessageConverter())));
+        return client.connectAsync("ws://localhost:" + port + endpoint, new StompSessionHandlerAdapter() {
+        }).get(10, TimeUnit.SECONDS);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> StompFrameHandler handler(Class<?> payloadType, BlockingQueue<T> received) {
+        return new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return payloadType;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                received.add((T) payload);
+            }
+        };
+    }
+
+    @Configuration
+    static class SharedBusConfig {
+
+        private static final InMemoryBroadcastBus BUS = new InMemoryBroadcastBus();
+
+        @Bean
+        BroadcastBus broadcastBus() {
+            return BUS;
+        }
+    }
+
+    static class InMemoryBroadcastBus implements BroadcastBus {
+
+        private final List<Consumer<byte[]>> listeners = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void publish(byte[] frame) {
+            listeners.forEach(listener -> listener.accept(frame));
+        }
+
+        @Override
+        public void subscribe(Consumer<byte[]> listener) {
+            listeners.add(listener);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.ruberoo.tracking_service.client;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * The destination and route lookups of a ride share one request to ride-management-service.
+ */
+class RideManagementClientTests {
+
+    private static final String RIDE = "{\"id\":7,\"destinationLatitude\":40.4,\"destinationLongitude\":-3.7,"
+            + "\"routePolyline\":\"_p~iF~ps|U_ulLnnqC\"}";
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile HttpStatus status = HttpStatus.OK;
+
+    private final RideManagementClient client = new RideManagementClient(
+            WebClient.builder().exchangeFunction(request -> {
+                requests.incrementAndGet();
+                return Mono.just(ClientResponse.create(status)
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .body(status == HttpStatus.OK ? RIDE : "")
+                        .build());
+            }),
+            "http://ride-management-service", Duration.ofSeconds(2), Duration.ofMinutes(1), 100);
+
+    @Test
+    void destinationAndRouteShareOneRequest() {
+        RideManagementClient.RideDestination destination = client.getDestination(7).block();
+        String polyline = client.getRoutePolyline(7).block();
+
+        assertEquals(new RideManagementClient.RideDestination(40.4, -3.7), destination);
+        assertEquals("_p~iF~ps|U_ulLnnqC", polyline);
+        assertEquals(1, requests.get());
+    }
+
+    @Test
+    void failedLookupsAreRetriedNotCached() {
+        status = HttpStatus.SERVICE_UNAVAILABLE;
+        assertThrows(RuntimeException.class, () -> client.getDestination(7).block());
+
+        status = HttpStatus.OK;
+        assertEquals("_p~iF~ps|U_ulLnnqC", client.getRoutePolyline(7).block());
+        assertEquals(2, requests.get());
+    }
+}
@@ -0,0 +1,99 @@
+package com.ruberoo.tracking_service.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.ruberoo.tracking_service.dto.LocationUpdateDto;
+import com.ruberoo.tracking_service.service.LocationUpdatePipeline;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of what one GPS ping costs from the inbound JSON frame to the outbound
+ * broadcast frame: read, stamp with ride id and receive time, validate, write. Carried as a
+ * {@link LocationSample} against the boxed {@link LocationUpdateDto} it replaced; compare
+ * gc.alloc.rate.norm (bytes per ping). Not run by the build; after
+ * {@code mvn -pl ruberoo-tracking-service test-compile dependency:build-classpath -Dmdep.outputFile=target/test-classpath.txt},
+ * run from ruberoo-tracking-service with
+ * {@code java -cp target/test-classes:target/classes:$(cat target/test-classpath.txt) com.ruberoo.tracking_service.model.LocationSampleBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocationSampleBenchmark {
+
+    private static final long RIDE_ID = 42;
+    private static final byte[] PING = ("{\"driverId\":7,\"latitude\":40.4168,\"longitude\":-3.7038,"
+            + "\"speed\":38.5,\"heading\":92.0,\"status\":\"MOVING\"}").getBytes(StandardCharsets.UTF_8);
+
+    private ObjectMapper objectMapper;
+    private LocationUpdatePipeline pipeline;
+
+    @Setup
+    public void setUp() {
+        // Same modules as Spring Boot's ObjectMapper (java.time support for the DTO)
+        objectMapper = JsonMapper.builder().findAndAddModules().build();
+        // Validation needs none of the collaborators
+        pipeline = new LocationUpdatePipeline(null, null, null, null, null, null);
+    }
+
+    @Benchmark
+    public byte[] locationSample() throws IOException {
+        LocationSample ping = objectMapper.readValue(PING, LocationSample.class)
+                .received(RIDE_ID, System.currentTimeMillis());
+        if (!pipeline.isValidLocation(ping)) {
+            return null;
+        }
+        return objectMapper.writeValueAsBytes(ping);
+    }
+
+    @Benchmark
+    public byte[] boxedDto() throws IOException {
+        LocationUpdateDto ping = objectMapper.readValue(PING, LocationUpdateDto.class);
+        ping.setRideId(RIDE_ID);
+        ping.setTimestamp(LocalDateTime.now());
+        if (!isValid(ping)) {
+            return null;
+        }
+        return objectMapper.writeValueAsBytes(ping);
+    }
+
+    // The checks of LocationUpdatePipeline.isValidLocation, on the boxed fields
+    private static boolean isValid(LocationUpdateDto location) {
+        if (location.getLatitude() == null || location.getLatitude() < -90 || location.getLatitude() > 90) {
+            return false;
+        }
+        if (location.getLongitude() == null || location.getLongitude() < -180 || location.getLongitude() > 180) {
+            return false;
+        }
+        if (location.getSpeed() != null && (location.getSpeed() < 0 || location.getSpeed() > 200)) {
+            return false;
+        }
+        return location.getHeading() == null || (location.getHeading() >= 0 && location.getHeading() <= 360);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LocationSampleBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
@@ -0,0 +1,103 @@
+package com.ruberoo.tracking_service.service;
+
+import com.ruberoo.tracking_service.model.LocationSample;
+import com.ruberoo.tracking_service.model.MovementStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of the nearest-driver index holding 100k drivers spread over a 1 x 1 degree
+ * metropolitan area: position updates and 10-nearest-within-5-km queries, each alone on
+ * 4 threads and then mixed (3 updating threads, 1 querying). Not run by the build; after
+ * {@code mvn -pl ruberoo-tracking-service test-compile dependency:build-classpath -Dmdep.outputFile=target/test-classpath.txt},
+ * run from ruberoo-tracking-service with
+ * {@code java -cp target/test-classes:target/classes:$(cat target/test-classpath.txt) com.ruberoo.tracking_service.service.DriverGeoIndexBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DriverGeoIndexBenchmark {
+
+    private static final int DRIVERS = 100_000;
+    private static final double SOUTH = 40.0;
+    private static final double WEST = -4.2;
+    private static final double SPAN_DEGREES = 1.0;
+
+    private DriverGeoIndex index;
+
+    @Setup
+    public void setUp() {
+        index = new DriverGeoIndex(new SimpleMeterRegistry(), 0.01, Duration.ofHours(1), 50);
+        for (int driver = 0; driver < DRIVERS; driver++) {
+            index.update(randomPosition(driver));
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void update() {
+        index.update(randomPosition(ThreadLocalRandom.current().nextInt(DRIVERS)));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public List<DriverGeoIndex.NearbyDriver> findNearest() {
+        return query();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public void mixedUpdate() {
+        update();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public List<DriverGeoIndex.NearbyDriver> mixedFindNearest() {
+        return query();
+    }
+
+    private List<DriverGeoIndex.NearbyDriver> query() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return index.findNearest(SOUTH + random.nextDouble() * SPAN_DEGREES, WEST + random.nextDouble() * SPAN_DEGREES,
+                5, 10);
+    }
+
+    private static LocationSample randomPosition(long driverId) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return new LocationSample(LocationSample.NO_ID, driverId,
+                SOUTH + random.nextDouble() * SPAN_DEGREES, WEST + random.nextDouble() * SPAN_DEGREES,
+                30, 90, System.currentTimeMillis(), MovementStatus.MOVING, Double.NaN, Double.NaN);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(DriverGeoIndexBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,83 @@
+package com.ruberoo.tracking_service.service;
+
+import com.ruberoo.tracking_service.model.LocationSample;
+import com.ruberoo.tracking_service.model.MovementStatus;
+import com.ruberoo.tracking_service.util.GeoUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+/**
+ * Nearest-driver queries against a brute-force scan, from the equator to the poles.
+ * Update and query throughput are measured by {@link DriverGeoIndexBenchmark}.
+ */
+class DriverGeoIndexTests {
+
+    private static final double RADIUS_KM = 20;
+    private static final int LIMIT = 5;
+
+    @Test
+    void findsTheSameDriversAsAFullScanAtEveryLatitude() {
+        for (double latitude : new double[] {0, 45, 80, 89.5, 89.99, -89.99}) {
+            DriverGeoIndex index = index();
+            Random random = new Random(42);
+            List<LocationSample> drivers = IntStream.range(0, 500)
+                    .mapToObj(id -> driver(id, clampLatitude(latitude + random.nextGaussian() * 0.1),
+                            random.nextDouble() * 360 - 180))
+                    .toList();
+            drivers.forEach(index::update);
+
+            for (int query = 0; query < 20; query++) {
+                double queryLat = clampLatitude(latitude + random.nextGaussian() * 0.05);
+                double queryLon = random.nextDouble() * 360 - 180;
+                List<Long> expected = drivers.stream()
+                        .filter(driver -> distance(driver, queryLat, queryLon) <= RADIUS_KM * 1000)
+                        .sorted(Comparator.comparingDouble(driver -> distance(driver, queryLat, queryLon)))
+                        .limit(LIMIT)
+                        .map(LocationSample::driverId)
+                        .toList();
+                List<Long> found = index.findNearest(queryLat, queryLon, RADIUS_KM, LIMIT).stream()
+                        .map(hit -> hit.location().driverId())
+                        .toList();
+                assertEquals(expected, found, "query at " + queryLat + "," + queryLon);
+            }
+        }
+    }
+
+    @Test
+    void queryAtAPoleStaysBounded() {
+        DriverGeoIndex index = index();
+        index.update(driver(1, 89.95, 0));
+        index.update(driver(2, 89.95, 179));
+
+        // Both are within 11 km of the pole, on opposite sides of it
+        List<DriverGeoIndex.NearbyDriver> found = assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> index.findNearest(90, 0, 50, 10));
+        assertEquals(2, found.size());
+    }
+
+    private static DriverGeoIndex index() {
+        return new DriverGeoIndex(new SimpleMeterRegistry(), 0.01, Duration.ofMinutes(2), 50);
+    }
+
+    private static LocationSample driver(long driverId, double latitude, double longitude) {
+        return new LocationSample(LocationSample.NO_ID, driverId, latitude, longitude, Double.NaN, Double.NaN,
+                System.currentTimeMillis(), MovementStatus.MOVING, Double.NaN, Double.NaN);
+    }
+
+    private static double distance(LocationSample driver, double latitude, double longitude) {
+        return GeoUtils.haversineMeters(latitude, longitude, driver.latitude(), driver.longitude());
+    }
+
+    private static double clampLatitude(double latitude) {
+        return Math.max(-90, Math.min(90, latitude));
+    }
+}
@@ -0,0 +1,222 @@
+package com.ruberoo.tracking_service.shard;
+
+import com.ruberoo.common.shard.RendezvousHash;
+import com.ruberoo.tracking_service.TrackingServiceApplication;
+import com.ruberoo.tracking_service.service.InMemoryLastKnownLocationStore;
+import com.ruberoo.tracking_service.service.RideEtaTracker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Starts tracking-service replicas registered in an in-memory stand-in for Eureka, sends
+ * driver pings for many rides to one of them, then adds and removes replicas: every ride's
+ * state must end up on its owner only, and only the rides changing owner may move. The
+ * nearby-driver search, asked on any replica, must see the drivers of every replica's rides.
+ */
+class RideShardsIntegrationTests {
+
+    private static final String SERVICE_ID = "tracking-service";
+    private static final int RIDES = 60;
+
+    private final Map<String, ConfigurableApplicationContext> replicas = new LinkedHashMap<>();
+
+    @AfterEach
+    void tearDown() {
+        LocalRegistry.INSTANCES.clear();
+        replicas.values().forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Test
+    void ridesMoveToTheirNewOwnerWhenReplicasJoinAndLeave() throws Exception {
+        start("tracking-a");
+        start("tracking-b");
+        refreshAll();
+
+        // The driver app is connected to A; pings of rides owned by B are forwarded there
+        StompSession driver = connect(replicas.get("tracking-a"));
+        for (long ride = 1; ride <= RIDES; ride++) {
+            driver.send("/app/tracking/update/" + ride, Map.of("driverId", 1000 + ride,
+                    "latitude", 12.97, "longitude", 77.59, "speed", 30.0, "status", "MOVING"));
+        }
+        awaitRidesOnTheirOwners();
+        Map<Long, String> ownersBefore = locations();
+        assertThat(ownersBefore).containsValue("tracking-b");
+
+        // Riders may ask any replica for the last location
+        long rideOnB = ownersBefore.entrySet().stream().filter(e -> e.getValue().equals("tracking-b"))
+                .findFirst().orElseThrow().getKey();
+        Map<?, ?> location = WebClient.create("http://localhost:" + port(replicas.get("tracking-a")))
+                .get().uri("/api/tracking/rides/{rideId}/location", rideOnB)
+                .retrieve().bodyToMono(Map.class).block(Duration.ofSeconds(5));
+        assertThat(location.get("rideId")).isEqualTo((int) rideOnB);
+
+        // C joins: it takes over the rides it now wins, and only those
+        start("tracking-c");
+        refreshAll();
+        awaitRidesOnTheirOwners();
+        Map<Long, String> ownersAfterJoin = locations();
+        int moved = 0;
+        for (long ride = 1; ride <= RIDES; ride++) {
+            if (!ownersAfterJoin.get(ride).equals(ownersBefore.get(ride))) {
+                assertThat(ownersAfterJoin.get(ride)).isEqualTo("tracking-c");
+                moved++;
+            }
+        }
+        assertThat(moved).isBetween(RIDES / 6, RIDES / 2);
+        assertThat(replicas.get("tracking-c").getBean(RideEtaTracker.class).rideIds()).hasSize(moved);
+
+        // B shuts down: it hands its rides over to A and C before it stops
+        LocalRegistry.INSTANCES.remove("tracking-b");
+        replicas.remove("tracking-b").close();
+        refreshAll();
+        awaitRidesOnTheirOwners();
+        Map<Long, String> ownersAfterLeave = locations();
+        for (long ride = 1; ride <= RIDES; ride++) {
+            if (!ownersAfterJoin.get(ride).equals("tracking-b")) {
+                assertThat(ownersAfterLeave.get(ride)).isEqualTo(ownersAfterJoin.get(ride));
+            }
+        }
+    }
+
+    @Test
+    void nearbyDriverSearchCoversTheRidesOfEveryReplica() throws Exception {
+        start("tracking-a");
+        start("tracking-b");
+        refreshAll();
+
+        StompSession driver = connect(replicas.get("tracking-a"));
+        for (long ride = 1; ride <= RIDES; ride++) {
+            driver.send("/app/tracking/update/" + ride, Map.of("driverId", 1000 + ride,
+                    "latitude", 12.97 + ride * 0.0001, "longitude", 77.59, "speed", 30.0, "status", "MOVING"));
+        }
+        awaitRidesOnTheirOwners();
+        assertThat(locations()).containsValues("tracking-a", "tracking-b");
+
+        // Each replica only indexes the drivers of its own rides; asked anywhere, the search finds them all
+        List<Long> allDrivers = LongStream.rangeClosed(1001, 1000 + RIDES).boxed().toList();
+        for (ConfigurableApplicationContext replica : replicas.values()) {
+            List<?> nearby = WebClient.create("http://localhost:" + port(replica))
+                    .get().uri("/api/tracking/drivers/nearby?lat=12.97&lon=77.59&radiusKm=5&limit=100")
+                    .retrieve().bodyToMono(List.class).block(Duration.ofSeconds(5));
+            assertThat(nearby).extracting(hit -> ((Number) ((Map<?, ?>) hit).get("driverId")).longValue())
+                    .containsExactlyElementsOf(allDrivers);
+        }
+
+        // ...and the limit applies to the merged result, nearest first
+        List<?> nearest = WebClient.create("http://localhost:" + port(replicas.get("tracking-b")))
+                .get().uri("/api/tracking/drivers/nearby?lat=12.97&lon=77.59&radiusKm=5&limit=3")
+                .retrieve().bodyToMono(List.class).block(Duration.ofSeconds(5));
+        assertThat(nearest).extracting(hit -> ((Number) ((Map<?, ?>) hit).get("driverId")).longValue())
+                .containsExactly(1001L, 1002L, 1003L);
+    }
+
+    private void awaitRidesOnTheirOwners() throws InterruptedException {
+        List<String> members = new ArrayList<>(replicas.keySet());
+        Map<Long, String> expected = new HashMap<>();
+        for (long ride = 1; ride <= RIDES; ride++) {
+            expected.put(ride, RendezvousHash.owner(members, RendezvousHash::hash, RendezvousHash.hash(Long.toString(ride))));
+        }
+        // Pings handled by a non-owner (a forward that timed out while a replica warms up) are
+        // handed over on the next refresh, as the scheduled one would
+        for (int i = 0; i < 100 && !expected.equals(locations()); i++) {
+            Thread.sleep(100);
+            refreshAll();
+        }
+        assertThat(locations()).isEqualTo(expected);
+    }
+
+    // Replica holding the last location of each ride; a ride held by two replicas fails the comparison
+    private Map<Long, String> locations() {
+        Map<Long, String> holders = new HashMap<>();
+        replicas.forEach((member, context) -> context.getBean(InMemoryLastKnownLocationStore.class).rideIds()
+                .forEach(ride -> holders.merge(ride, member, (a, b) -> a + "," + b)));
+        return holders;
+    }
+
+    private void refreshAll() {
+        replicas.values().forEach(context -> context.getBean(RideShards.class).refresh());
+    }
+
+    private void start(String member) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(TrackingServiceApplication.class, LocalRegistry.class)
+                .properties("server.port=0",
+                        "spring.application.name=" + SERVICE_ID,
+                        "spring.cloud.config.enabled=false",
+                        "eureka.client.enabled=false",
+                        "ruberoo.tracking.shard.member-id=" + member,
+                        "ruberoo.tracking.shard.refresh-interval=3600000")
+                .run();
+        replicas.put(member, context);
+        LocalRegistry.INSTANCES.put(member, new DefaultServiceInstance(member, SERVICE_ID, "localhost", port(context), false,
+                Map.of(RideShards.MEMBER_METADATA_KEY, member)));
+    }
+
+    private static int port(ConfigurableApplicationContext context) {
+        return ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+    }
+
+    private static StompSession connect(ConfigurableApplicationContext context) throws Exception {
+        WebSocketStompClient client = new WebSocketStompClient(
+                new SockJsClient(List.of(new WebSocketTransport(new StandardWebSocketClient()))));
+        client.setMessageConverter(new MappingJackson2MessageConverter());
+        return client.connectAsync("ws://localhost:" + port(context) + "/ws/tracking", new StompSessionHandlerAdapter() {
+        }).get(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Registry shared by all the replicas of the test, in place of Eureka.
+     */
+    @Configuration
+    static class LocalRegistry {
+
+        static final Map<String, ServiceInstance> INSTANCES = new ConcurrentHashMap<>();
+
+        @Bean
+        DiscoveryClient localRegistry() {
+            return new DiscoveryClient() {
+                @Override
+                public String description() {
+                    return "Local registry";
+                }
+
+                @Override
+                public List<ServiceInstance> getInstances(String serviceId) {
+                    return INSTANCES.values().stream().filter(i -> i.getServiceId().equals(serviceId)).toList();
+                }
+
+                @Override
+                public List<String> getServices() {
+                    return List.of(SERVICE_ID);
+                }
+            };
+        }
+    }
+}
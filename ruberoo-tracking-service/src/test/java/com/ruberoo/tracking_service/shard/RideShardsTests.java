@@ -0,0 +1,111 @@
+package com.ruberoo.tracking_service.shard;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ruberoo.common.shard.RendezvousHash;
+import com.ruberoo.tracking_service.client.ShardPeerClient;
+import com.ruberoo.tracking_service.model.LocationSample;
+import com.ruberoo.tracking_service.model.MovementStatus;
+import com.ruberoo.tracking_service.service.InMemoryLastKnownLocationStore;
+import com.ruberoo.tracking_service.service.LocationUpdatePipeline;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.client.serviceregistry.Registration;
+import org.springframework.cloud.client.serviceregistry.ServiceRegistry;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Handoff of a ride whose state changes while its owner is receiving it, and of all
+ * rides when the replica stops.
+ */
+class RideShardsTests {
+
+    private final DiscoveryClient discoveryClient = mock(DiscoveryClient.class);
+    @SuppressWarnings("unchecked")
+    private final ServiceRegistry<Registration> serviceRegistry = mock(ServiceRegistry.class);
+    private final Registration registration = mock(Registration.class);
+    private final ShardPeerClient peerClient = mock(ShardPeerClient.class);
+    private final InMemoryLastKnownLocationStore store = new InMemoryLastKnownLocationStore(Duration.ofMinutes(10), 1000);
+    private final RideShards shards = new RideShards(discoveryClient, provider(serviceRegistry), provider(registration),
+            peerClient, mock(LocationUpdatePipeline.class), List.of(store), new ObjectMapper(),
+            new SimpleMeterRegistry(), true, "tracking-service", "tracking-a", 500);
+
+    @Test
+    void pingHandledDuringTheHandoffIsKeptForTheNextOne() {
+        withPeer();
+        long ride = rideOwnedBy("tracking-b");
+
+        // A ping for the ride is handled here while B takes over the earlier snapshot
+        LocationSample later = location(ride, 2000);
+        when(peerClient.handOff(any(), any())).thenReturn(Mono.fromRunnable(() -> store.put(ride, later)));
+        store.put(ride, location(ride, 1000));
+        shards.refresh();
+        assertSame(later, store.get(ride));
+
+        // Unchanged since the next snapshot: dropped once B has it
+        when(peerClient.handOff(any(), any())).thenReturn(Mono.empty());
+        shards.refresh();
+        assertNull(store.get(ride));
+    }
+
+    @Test
+    void stoppingTakesTheReplicaOutOfServiceBeforeHandingOff() {
+        withPeer();
+        shards.start();
+        shards.refresh();
+        long ride = rideOwnedBy("tracking-a");
+        store.put(ride, location(ride, 1000));
+        when(peerClient.handOff(any(), any())).thenReturn(Mono.empty());
+
+        shards.stop();
+
+        InOrder order = inOrder(serviceRegistry, peerClient);
+        order.verify(serviceRegistry).setStatus(registration, "OUT_OF_SERVICE");
+        order.verify(peerClient).handOff(eq(URI.create("http://10.0.0.6:8080")), any());
+        assertTrue(shards.isLeaving());
+        assertNull(store.get(ride));
+    }
+
+    private void withPeer() {
+        when(discoveryClient.getInstances("tracking-service")).thenReturn(List.of(
+                new DefaultServiceInstance("tracking-b", "tracking-service", "10.0.0.6", 8080, false,
+                        Map.of(RideShards.MEMBER_METADATA_KEY, "tracking-b"))));
+    }
+
+    private static long rideOwnedBy(String member) {
+        return LongStream.rangeClosed(1, 100)
+                .filter(id -> RendezvousHash.owner(List.of("tracking-a", "tracking-b"), RendezvousHash::hash,
+                        RendezvousHash.hash(Long.toString(id))).equals(member))
+                .findFirst().orElseThrow();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> ObjectProvider<T> provider(Object bean) {
+        ObjectProvider<T> provider = mock(ObjectProvider.class);
+        when(provider.getIfUnique()).thenReturn((T) bean);
+        return provider;
+    }
+
+    private static LocationSample location(long rideId, long timestampMillis) {
+        return new LocationSample(rideId, 7, 12.97, 77.59, 30, Double.NaN,
+                timestampMillis, MovementStatus.MOVING, Double.NaN, Double.NaN);
+    }
+}
@@ -0,0 +1,41 @@
+package com.ruberoo.tracking_service.shard;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ShardSecretTests {
+
+    @Test
+    void onlyRequestsCarryingTheSecretGetThrough() {
+        ShardSecret secret = new ShardSecret(true, "s3cret");
+        assertEquals(200, handle(secret, "s3cret").getStatus());
+        assertEquals(403, handle(secret, null).getStatus());
+        assertEquals(403, handle(secret, "s3cre").getStatus());
+        assertEquals(403, handle(secret, "s3cret ").getStatus());
+    }
+
+    @Test
+    void secretIsRequiredWhileShardingIsEnabled() {
+        assertThrows(IllegalStateException.class, () -> new ShardSecret(true, " "));
+
+        // Sharding disabled: nothing to call the endpoints, so nobody gets through
+        ShardSecret none = new ShardSecret(false, "");
+        assertEquals(403, handle(none, "").getStatus());
+        assertEquals(403, handle(none, null).getStatus());
+    }
+
+    private static MockHttpServletResponse handle(ShardSecret secret, String presented) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/internal/tracking/rides/handoff");
+        if (presented != null) {
+            request.addHeader(ShardSecret.HEADER, presented);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        // The handler only runs when preHandle lets the request through
+        assertEquals(secret.preHandle(request, response, new Object()), response.getStatus() == 200);
+        return response;
+    }
+}
@@ -2,25 +2,29 @@ package com.ruberoo.user_service;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 
 import org.springframework.boot.SpringApplication;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.retry.annotation.EnableRetry;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @EnableDiscoveryClient
 @SpringBootApplication
 @EnableRetry
+@EnableScheduling
 public class UserServiceApplication {
 
 	public static void main(String[] args) {
 		SpringApplication.run(UserServiceApplication.class, args);
 	}
 
-	// Provide PasswordEncoder bean for the application (used by AuthController)
+	// Provide PasswordEncoder bean for the application (used through PasswordHashingService)
+	// Raising the cost factor upgrades existing hashes on the next successful login
 	@Bean
-	public PasswordEncoder passwordEncoder() {
-		return new BCryptPasswordEncoder();
+	public PasswordEncoder passwordEncoder(@Value("${ruberoo.user.bcrypt.strength:10}") int strength) {
+		return new BCryptPasswordEncoder(strength);
 	}
 
 }
@@ -0,0 +1,124 @@
+package com.ruberoo.user_service.cache;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe counting Bloom filter of strings.
+ *
+ * {@link #mightContain} never returns false for a key that was added and not removed;
+ * it returns true for an absent key with roughly the configured false-positive rate.
+ * Each slot is a 4-bit counter (16 per long) so keys can also be removed. A counter
+ * that reaches 15 stays there, which can only cause false positives, never misses.
+ */
+public class CountingBloomFilter {
+
+    private static final int COUNTERS_PER_WORD = 16;
+    private static final long MAX_COUNT = 15;
+
+    private final AtomicLongArray words;
+    private final long counters;
+    private final int hashes;
+
+    private CountingBloomFilter(long counters, int hashes) {
+        long wordCount = (counters + COUNTERS_PER_WORD - 1) / COUNTERS_PER_WORD;
+        this.words = new AtomicLongArray(Math.toIntExact(wordCount));
+        this.counters = wordCount * COUNTERS_PER_WORD;
+        this.hashes = hashes;
+    }
+
+    /**
+     * Size a filter for the expected number of keys and target false-positive rate,
+     * capped at {@code maxBytes}. When the cap applies, the false-positive rate is higher.
+     */
+    public static CountingBloomFilter create(long expectedInsertions, double falsePositiveRate, long maxBytes) {
+        long n = Math.max(1, expectedInsertions);
+        double ln2 = Math.log(2);
+        long optimalCounters = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (ln2 * ln2));
+        long counters = Math.max(COUNTERS_PER_WORD, Math.min(optimalCounters, maxBytes * 2));
+        int hashes = (int) Math.max(1, Math.min(16, Math.round((double) counters / n * ln2)));
+        return new CountingBloomFilter(counters, hashes);
+    }
+
+    public void add(String key) {
+        long h1 = hash(key);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashes; i++) {
+            increment(Long.remainderUnsigned(h1 + i * h2, counters));
+        }
+    }
+
+    public void remove(String key) {
+        long h1 = hash(key);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashes; i++) {
+            decrement(Long.remainderUnsigned(h1 + i * h2, counters));
+        }
+    }
+
+    public boolean mightContain(String key) {
+        long h1 = hash(key);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashes; i++) {
+            if (count(Long.remainderUnsigned(h1 + i * h2, counters)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long memoryBytes() {
+        return (long) words.length() * Long.BYTES;
+    }
+
+    public int hashCount() {
+        return hashes;
+    }
+
+    private long count(long slot) {
+        int shift = (int) (slot % COUNTERS_PER_WORD) * 4;
+        return (words.get((int) (slot / COUNTERS_PER_WORD)) >>> shift) & 0xF;
+    }
+
+    private void increment(long slot) {
+        int index = (int) (slot / COUNTERS_PER_WORD);
+        int shift = (int) (slot % COUNTERS_PER_WORD) * 4;
+        long word;
+        do {
+            word = words.get(index);
+            if (((word >>> shift) & 0xF) == MAX_COUNT) {
+                return;
+            }
+        } while (!words.compareAndSet(index, word, word + (1L << shift)));
+    }
+
+    // Empty and saturated counters are left alone
+    private void decrement(long slot) {
+        int index = (int) (slot / COUNTERS_PER_WORD);
+        int shift = (int) (slot % COUNTERS_PER_WORD) * 4;
+        long word;
+        do {
+            word = words.get(index);
+            long count = (word >>> shift) & 0xF;
+            if (count == 0 || count == MAX_COUNT) {
+                return;
+            }
+        } while (!words.compareAndSet(index, word, word - (1L << shift)));
+    }
+
+    // 64-bit FNV-1a over the UTF-8 bytes, finished with a SplitMix64 mix
+    private static long hash(String key) {
+        long h = 0xCBF29CE484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xFF;
+            h *= 0x100000001B3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,22 @@
+package com.ruberoo.user_service.config;
+
+import com.ruberoo.common.cache.SingleFlightCache;
+import com.ruberoo.user_service.dto.UserSummaryDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class CacheConfig {
+
+    // Coalesces concurrent GET /api/users/{id} for the same id; invalidated by UserService on writes
+    @Bean
+    public SingleFlightCache<Long, UserSummaryDTO> userLookupCache(MeterRegistry meterRegistry,
+                                                        @Value("${ruberoo.user.lookup-cache.max-entries:10000}") int maxEntries,
+                                                        @Value("${ruberoo.user.lookup-cache.ttl:10s}") Duration ttl) {
+        return new SingleFlightCache<>("users", meterRegistry, maxEntries, ttl);
+    }
+}
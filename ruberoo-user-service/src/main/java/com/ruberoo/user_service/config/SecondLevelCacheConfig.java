@@ -0,0 +1,43 @@
+package com.ruberoo.user_service.config;
+
+import com.ruberoo.common.cache.SecondLevelCache;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.cache.CacheManager;
+import java.time.Duration;
+
+/**
+ * Hibernate second-level cache regions of this service, see {@link SecondLevelCache}.
+ *
+ * The users region (profiles only, passwords live in the uncached UserCredentials) and the
+ * users-by-email query region are sized and expired from ruberoo.cache.l2.{region}.max-entries
+ * and .ttl. An email registered or changed on another replica may be missed by the cached
+ * lookup until its entry expires, hence the shorter ttl.
+ * ruberoo.cache.l2.enabled=false turns the cache off (on restart).
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    public static final String USERS_REGION = "users";
+    public static final String USERS_BY_EMAIL_REGION = "users-by-email";
+
+    @Bean
+    @ConditionalOnProperty(name = "ruberoo.cache.l2.enabled", havingValue = "true", matchIfMissing = true)
+    public CacheManager hibernateCacheManager(Environment env) {
+        CacheManager cacheManager = SecondLevelCache.newCacheManager();
+        SecondLevelCache.createRegion(cacheManager, env, USERS_REGION, Duration.ofMinutes(10), 10_000);
+        SecondLevelCache.createRegion(cacheManager, env, USERS_BY_EMAIL_REGION, Duration.ofSeconds(30), 10_000);
+        SecondLevelCache.createQueryCacheRegions(cacheManager, env);
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheProperties(ObjectProvider<CacheManager> hibernateCacheManager) {
+        return SecondLevelCache.hibernateProperties(hibernateCacheManager);
+    }
+}
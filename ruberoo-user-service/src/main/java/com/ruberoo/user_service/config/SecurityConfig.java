@@ -17,7 +17,7 @@ public class SecurityConfig {
             .authorizeHttpRequests(auth -> auth
                 .requestMatchers("/api/users/auth/**").permitAll()
                 .requestMatchers("/api/users").permitAll()  // Allow public registration
-                .requestMatchers("/actuator/**").permitAll()  // Allow public access to actuator endpoints for health checks
+                .requestMatchers("/actuator/health/**", "/actuator/info").permitAll()  // Health checks only; metrics stay behind auth
                 .anyRequest().authenticated()
             )
             .httpBasic(Customizer.withDefaults());
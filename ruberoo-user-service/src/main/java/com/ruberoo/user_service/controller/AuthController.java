@@ -2,12 +2,16 @@ package com.ruberoo.user_service.controller;
 
 import com.ruberoo.user_service.dto.LoginRequest;
 import com.ruberoo.user_service.entity.User;
+import com.ruberoo.user_service.entity.UserCredentials;
 import com.ruberoo.user_service.jwt.JwtTokenGenerator;
+import com.ruberoo.user_service.repository.UserCredentialsRepository;
 import com.ruberoo.user_service.repository.UserRepository;
+import com.ruberoo.user_service.service.PasswordHashingService;
+import com.ruberoo.user_service.service.RegisteredEmailFilter;
+import com.ruberoo.user_service.service.UserService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -15,6 +19,8 @@ import org.springframework.web.bind.annotation.RestController;
 
 import java.util.Collections;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/users/auth")
@@ -23,54 +29,73 @@ public class AuthController {
     private static final Logger logger = LoggerFactory.getLogger(AuthController.class);
 
     private final UserRepository userRepository;
+    private final UserCredentialsRepository userCredentialsRepository;
+    private final UserService userService;
     private final JwtTokenGenerator jwtTokenGenerator;
-    private final PasswordEncoder passwordEncoder; // Used for secure password checking
+    private final PasswordHashingService passwordHashingService; // BCrypt work runs on its own bounded pool
+    private final RegisteredEmailFilter registeredEmailFilter; // Skips the DB for unknown emails
 
     public AuthController(UserRepository userRepository,
+                          UserCredentialsRepository userCredentialsRepository,
+                          UserService userService,
                           JwtTokenGenerator jwtTokenGenerator,
-                          PasswordEncoder passwordEncoder) {
+                          PasswordHashingService passwordHashingService,
+                          RegisteredEmailFilter registeredEmailFilter) {
         this.userRepository = userRepository;
+        this.userCredentialsRepository = userCredentialsRepository;
+        this.userService = userService;
         this.jwtTokenGenerator = jwtTokenGenerator;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingService = passwordHashingService;
+        this.registeredEmailFilter = registeredEmailFilter;
     }
 
     /**
      * Handles the user login request and generates a JWT token upon successful authentication.
+     * The password check runs on the hashing pool; 503 with Retry-After when that pool is full.
      * Endpoint: /api/users/auth/login
      */
     @PostMapping("/login")
-    public ResponseEntity<?> authenticateUser(@RequestBody LoginRequest loginRequest) {
+    public CompletableFuture<ResponseEntity<?>> authenticateUser(@RequestBody LoginRequest loginRequest) {
 
-        // 1. Find user by email
-        Optional<User> userOpt = userRepository.findByEmail(loginRequest.getEmail());
+        // 1. Find user by email (no query at all if the email is certainly not registered)
+        Optional<UserCredentials> userOpt = registeredEmailFilter.mightBeRegistered(loginRequest.getEmail())
+                ? userCredentialsRepository.findByEmail(loginRequest.getEmail())
+                : Optional.empty();
 
         if (userOpt.isEmpty()) {
             // Return 401 Unauthorized for security (do not confirm if user exists)
-            return ResponseEntity.status(401).body(Collections.singletonMap("error", "Invalid credentials."));
+            return CompletableFuture.completedFuture(
+                    ResponseEntity.status(401).body(Collections.singletonMap("error", "Invalid credentials.")));
         }
 
-        User user = userOpt.get();
+        UserCredentials user = userOpt.get();
 
         // 2. Verify password
         // Log length and match result for debugging
         String storedHash = user.getPassword();
-        boolean matches = false;
-        try {
-            matches = passwordEncoder.matches(loginRequest.getPassword(), storedHash);
-        } catch (Exception ex) {
-            logger.error("Error while matching password for user {}: {}", user.getEmail(), ex.getMessage());
-        }
-        logger.info("Auth attempt for email={} storedHashLength={} matches={}", user.getEmail(), (storedHash == null ? 0 : storedHash.length()), matches);
-
-        if (!matches) {
-            return ResponseEntity.status(401).body(Collections.singletonMap("error", "Invalid credentials."));
-        }
-
-        // 3. Generate JWT token
-        String jwt = jwtTokenGenerator.generateToken(user.getEmail(), user.getId());
-
-        // 4. Return the JWT to the client
-        return ResponseEntity.ok(Collections.singletonMap("token", jwt));
+        return passwordHashingService.matches(loginRequest.getPassword(), storedHash)
+                .exceptionally(ex -> {
+                    logger.error("Error while matching password for user {}: {}", user.getEmail(), ex.getMessage());
+                    return false;
+                })
+                .thenApply(matches -> {
+                    logger.info("Auth attempt for email={} storedHashLength={} matches={}", user.getEmail(), (storedHash == null ? 0 : storedHash.length()), matches);
+
+                    if (!matches) {
+                        return ResponseEntity.status(401).body(Collections.singletonMap("error", "Invalid credentials."));
+                    }
+
+                    // 3. Bring the hash up to the configured cost factor while the raw password is at hand
+                    if (passwordHashingService.needsRehash(storedHash)) {
+                        rehash(user.getId(), loginRequest.getPassword());
+                    }
+
+                    // 4. Generate JWT token
+                    String jwt = jwtTokenGenerator.generateToken(user.getEmail(), user.getId());
+
+                    // 5. Return the JWT to the client
+                    return ResponseEntity.ok(Collections.singletonMap("token", jwt));
+                });
     }
 
     /**
@@ -78,30 +103,50 @@ public class AuthController {
      * Endpoint: /api/users/auth/register
      */
     @PostMapping("/register")
-    public ResponseEntity<?> registerUser(@RequestBody User user) {
+    public CompletableFuture<ResponseEntity<?>> registerUser(@RequestBody User user) {
+        CompletableFuture<User> registration;
         try {
-            // Check if user already exists
-            if (userRepository.findByEmail(user.getEmail()).isPresent()) {
-                return ResponseEntity.badRequest()
-                    .body(Collections.singletonMap("error", "Email already registered"));
+            // Check if user already exists (no query at all if the email is certainly new)
+            if (registeredEmailFilter.mightBeRegistered(user.getEmail())
+                    && userRepository.findByEmail(user.getEmail()).isPresent()) {
+                return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                    .body(Collections.singletonMap("error", "Email already registered")));
             }
 
-            // Encode password before saving
-            user.setPassword(passwordEncoder.encode(user.getPassword()));
-            
-            // Save user
-            User savedUser = userRepository.save(user);
-            
-            // Remove password from response
-            savedUser.setPassword(null);
-            
+            // Encode password, then save the user off the hashing pool
+            registration = userService.registerUser(user);
+        } catch (RejectedExecutionException e) {
+            throw e; // Hashing pool full, answered with 503
+        } catch (Exception e) {
+            logger.error("Error registering user: {}", e.getMessage());
+            return CompletableFuture.completedFuture(registrationFailed());
+        }
+
+        return registration.<ResponseEntity<?>>thenApply(savedUser -> {
+            // The password is never part of the response
             logger.info("User registered successfully: {}", savedUser.getEmail());
             return ResponseEntity.ok(savedUser);
-            
-        } catch (Exception e) {
+        }).exceptionally(e -> {
             logger.error("Error registering user: {}", e.getMessage());
-            return ResponseEntity.internalServerError()
-                .body(Collections.singletonMap("error", "Registration failed"));
+            return registrationFailed();
+        });
+    }
+
+    private static ResponseEntity<?> registrationFailed() {
+        return ResponseEntity.internalServerError()
+            .body(Collections.singletonMap("error", "Registration failed"));
+    }
+
+    // Best effort: if the pool is busy or the save fails, the next login tries again
+    private void rehash(Long userId, String rawPassword) {
+        try {
+            userService.rehashPassword(userId, rawPassword)
+                    .exceptionally(ex -> {
+                        logger.warn("Could not upgrade password hash for user {}: {}", userId, ex.getMessage());
+                        return null;
+                    });
+        } catch (RejectedExecutionException e) {
+            logger.debug("Hashing pool busy, password hash of user {} not upgraded", userId);
         }
     }
 }
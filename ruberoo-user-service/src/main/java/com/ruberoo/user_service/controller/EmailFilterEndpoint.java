@@ -0,0 +1,37 @@
+package com.ruberoo.user_service.controller;
+
+import com.ruberoo.user_service.service.RegisteredEmailFilter;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Operations on the registered-email filter, behind actuator authentication.
+ * Endpoint: POST /actuator/emailfilter (202, or 409 if a rebuild is already running)
+ */
+@Component
+@Endpoint(id = "emailfilter")
+public class EmailFilterEndpoint {
+
+    private final RegisteredEmailFilter registeredEmailFilter;
+
+    public EmailFilterEndpoint(RegisteredEmailFilter registeredEmailFilter) {
+        this.registeredEmailFilter = registeredEmailFilter;
+    }
+
+    /**
+     * Rebuilds the filter from the users table in the background.
+     */
+    @WriteOperation
+    public WebEndpointResponse<Map<String, String>> rebuild() {
+        if (!registeredEmailFilter.rebuild()) {
+            return new WebEndpointResponse<>(Collections.singletonMap("error", "Rebuild already running or filter disabled"),
+                    409);
+        }
+        return new WebEndpointResponse<>(Collections.singletonMap("status", "Rebuild started"), 202);
+    }
+}
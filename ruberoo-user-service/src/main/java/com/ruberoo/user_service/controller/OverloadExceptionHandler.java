@@ -0,0 +1,31 @@
+package com.ruberoo.user_service.controller;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Sheds load quickly when a bounded worker pool (e.g. password hashing) is full:
+ * 503 with a Retry-After hint instead of queueing the request.
+ */
+@RestControllerAdvice
+public class OverloadExceptionHandler {
+
+    @Value("${ruberoo.user.password-hashing.retry-after:1s}")
+    private Duration retryAfter;
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<Map<String, String>> handleRejected(RejectedExecutionException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, retryAfter.toSeconds())))
+                .body(Collections.singletonMap("error", "Service busy, please retry."));
+    }
+}
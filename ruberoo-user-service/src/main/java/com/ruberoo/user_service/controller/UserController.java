@@ -1,31 +1,98 @@
 package com.ruberoo.user_service.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ruberoo.common.pagination.CursorPage;
+import com.ruberoo.common.pagination.JsonRows;
+import com.ruberoo.user_service.dto.UserSummaryDTO;
 import com.ruberoo.user_service.entity.User;
 import com.ruberoo.user_service.service.UserService;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/users")
 public class UserController {
 
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int MAX_BATCH_SIZE = 500;
+
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // Password hashing runs on its own pool; 503 with Retry-After when that pool is full
     @PostMapping
-    public User createUser(@RequestBody User user) {
+    public CompletableFuture<User> createUser(@RequestBody User user) {
         return userService.createUser(user);
     }
 
+    /**
+     * Lists every user as a JSON array, in id order.
+     * Rows are written as they are read, memory stays flat regardless of table size.
+     * Pass cursor or limit to get one page at a time instead.
+     */
+    @GetMapping(params = {"!ids", "!cursor", "!limit"}, produces = MediaType.APPLICATION_JSON_VALUE)
+    public void getAllUsers(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        JsonRows.write(objectMapper, response.getOutputStream(), false, userService::forEachUser);
+    }
+
+    /**
+     * Lists users one page at a time (?limit=, default 50), ordered by id.
+     * Pass the returned nextCursor as ?cursor= to get the following page.
+     */
     @GetMapping
-    public List<User> getAllUsers() {
-        return userService.getAllUsers();
+    public ResponseEntity<CursorPage<UserSummaryDTO>> getUsersPage(@RequestParam(required = false) String cursor,
+                                                                   @RequestParam(defaultValue = "50") int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        long afterId;
+        try {
+            afterId = CursorPage.decodeCursor(cursor);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(userService.getUsersPage(afterId, limit));
+    }
+
+    /**
+     * Batch lookup used by other services to enrich their own records in one call.
+     * Endpoint: GET /api/users?ids=1,2,3 (unknown ids are left out of the result)
+     */
+    @GetMapping(params = "ids")
+    public ResponseEntity<List<UserSummaryDTO>> getUsersByIds(@RequestParam List<Long> ids) {
+        Set<Long> distinctIds = new LinkedHashSet<>(ids);
+        distinctIds.remove(null);
+        if (distinctIds.isEmpty() || distinctIds.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(userService.getUsersByIds(distinctIds));
+    }
+
+    /**
+     * Exports every user as newline-delimited JSON (Accept: application/x-ndjson).
+     * Rows are written as they are read, memory stays flat regardless of table size.
+     */
+    @GetMapping(produces = JsonRows.NDJSON)
+    public void exportUsers(HttpServletResponse response) throws IOException {
+        response.setContentType(JsonRows.NDJSON);
+        JsonRows.write(objectMapper, response.getOutputStream(), true, userService::forEachUser);
     }
 
     @GetMapping("/{id}")
-    public User getUserById(@PathVariable Long id) {
+    public UserSummaryDTO getUserById(@PathVariable Long id) {
         return userService.getUserById(id);
     }
 
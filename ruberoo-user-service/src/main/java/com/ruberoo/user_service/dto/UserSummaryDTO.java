@@ -0,0 +1,9 @@
+package com.ruberoo.user_service.dto;
+
+/**
+ * Read-only projection of a user for listings, selected straight from the query
+ * so no User entity is hydrated, and what the user lookup cache holds. Never carries
+ * the password hash.
+ */
+public record UserSummaryDTO(Long id, String name, String email) {
+}
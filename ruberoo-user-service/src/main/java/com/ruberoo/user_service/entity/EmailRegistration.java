@@ -0,0 +1,45 @@
+package com.ruberoo.user_service.entity;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Log of emails as they become registered: one row per new user and per email change.
+ * Replicas add the rows past what their email filter has seen, so an email registered
+ * elsewhere is known everywhere within one catch-up. Rows are deleted once older than
+ * the log retention, by then every replica has read them.
+ */
+@Entity
+@Table(name = "email_registrations")
+public class EmailRegistration {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String email;
+
+    @Column(name = "registered_at")
+    private Instant registeredAt;
+
+    protected EmailRegistration() {
+    }
+
+    public EmailRegistration(String email) {
+        this.email = email;
+        this.registeredAt = Instant.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public Instant getRegisteredAt() {
+        return registeredAt;
+    }
+}
@@ -1,9 +1,15 @@
 package com.ruberoo.user_service.entity;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.ruberoo.user_service.config.SecondLevelCacheConfig;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Table(name = "users")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.USERS_REGION)
 public class User {
 
     @Id
@@ -12,6 +18,10 @@ public class User {
 
     private String name;
     private String email;
+
+    // Raw password from registration / update requests only; the stored hash is in UserCredentials
+    @Transient
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     private String password;
 
     public Long getId() {
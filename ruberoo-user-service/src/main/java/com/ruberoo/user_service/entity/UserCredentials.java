@@ -0,0 +1,40 @@
+package com.ruberoo.user_service.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * The password hash of a user, mapped onto the same users row as {@link User}.
+ *
+ * Kept apart from User so that it never enters the second-level cache: login always
+ * checks the hash currently in the database, whichever replica last changed it.
+ */
+@Entity
+@Table(name = "users")
+public class UserCredentials {
+
+    // Rows are inserted through User only; same mapping so both entities generate the same table
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(insertable = false, updatable = false)
+    private String email;
+
+    private String password;
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+}
@@ -4,7 +4,11 @@ import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Component;
 
@@ -15,9 +19,17 @@ import java.util.Date;
 @Component
 public class JwtTokenGenerator {
 
+    private static final Logger logger = LoggerFactory.getLogger(JwtTokenGenerator.class);
+
+    private static final String SECRET_KEY_ENV = "RUBEROO_JWT_SECRET_KEY";
+    private static final String SECRET_KEY_PROPERTY = "ruberoo.jwt.secret-key";
+
     @Autowired
     private Environment env;
 
+    // Built once on first login and rebuilt only when the secret is rotated
+    private volatile Key signingKey;
+
     public String generateToken(String username, Long userId) {
         long validityInMilliseconds = 86400000L; // 24 hours
         Date now = new Date();
@@ -32,12 +44,37 @@ public class JwtTokenGenerator {
                 .compact();
     }
 
+    /**
+     * Drops the cached key when the Config Server pushes a new secret (POST /actuator/refresh).
+     */
+    @EventListener
+    public void onEnvironmentChange(EnvironmentChangeEvent event) {
+        if (event.getKeys().contains(SECRET_KEY_ENV) || event.getKeys().contains(SECRET_KEY_PROPERTY)) {
+            signingKey = null;
+            logger.info("JWT secret rotated, signing key will be rebuilt on next login");
+        }
+    }
+
     private Key key() {
+        Key current = signingKey;
+        if (current == null) {
+            synchronized (this) {
+                current = signingKey;
+                if (current == null) {
+                    current = buildKey();
+                    signingKey = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    private Key buildKey() {
         // Prefer environment variable (RUBEROO_JWT_SECRET_KEY) for Docker/Compose setups,
         // then fallback to config property (ruberoo.jwt.secret-key).
-        String secretKey = env.getProperty("RUBEROO_JWT_SECRET_KEY");
+        String secretKey = env.getProperty(SECRET_KEY_ENV);
         if (secretKey == null || secretKey.isBlank()) {
-            secretKey = env.getProperty("ruberoo.jwt.secret-key");
+            secretKey = env.getProperty(SECRET_KEY_PROPERTY);
         }
         if (secretKey == null || secretKey.isBlank()) {
             throw new IllegalStateException("JWT secret not configured. Set RUBEROO_JWT_SECRET_KEY env var or ruberoo.jwt.secret-key property.");
@@ -0,0 +1,27 @@
+package com.ruberoo.user_service.repository;
+
+import com.ruberoo.user_service.entity.EmailRegistration;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface EmailRegistrationRepository extends JpaRepository<EmailRegistration, Long> {
+    @Query("select coalesce(max(r.id), 0) from EmailRegistration r")
+    long findLatestId();
+
+    // Primary-key range scans: only the rows past the filter's watermark are read
+    @Query("select r from EmailRegistration r where r.id > :afterId order by r.id")
+    List<EmailRegistration> findAfter(@Param("afterId") long afterId);
+
+    boolean existsByIdGreaterThanAndEmail(long afterId, String email);
+
+    @Transactional
+    @Modifying
+    @Query("delete from EmailRegistration r where r.registeredAt < :before")
+    int deleteRegisteredBefore(@Param("before") Instant before);
+}
@@ -0,0 +1,11 @@
+package com.ruberoo.user_service.repository;
+
+import com.ruberoo.user_service.entity.UserCredentials;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.Optional;
+
+public interface UserCredentialsRepository extends JpaRepository<UserCredentials, Long> {
+    // Finder used by AuthController on every login, always read from the database
+    Optional<UserCredentials> findByEmail(String email);
+}
@@ -1,11 +1,47 @@
 package com.ruberoo.user_service.repository;
 
+import com.ruberoo.user_service.config.SecondLevelCacheConfig;
+import com.ruberoo.user_service.dto.UserSummaryDTO;
 import com.ruberoo.user_service.entity.User;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_CACHE_REGION;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 public interface UserRepository extends JpaRepository<User, Long> {
-    // Finder used by AuthController
+    // Duplicate check on registration; the id found is cached, the user itself comes from the users region
+    @QueryHints({@QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = SecondLevelCacheConfig.USERS_BY_EMAIL_REGION)})
     Optional<User> findByEmail(String email);
+
+    String SUMMARY = "select new com.ruberoo.user_service.dto.UserSummaryDTO(u.id, u.name, u.email) from User u ";
+
+    // Keyset page: seeks past the last id instead of skipping OFFSET rows
+    @Query(SUMMARY + "where u.id > :afterId order by u.id")
+    List<UserSummaryDTO> findSummariesAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    // Batch lookup for other services, one query for the whole id set
+    @Query(SUMMARY + "where u.id in :ids")
+    List<UserSummaryDTO> findSummariesByIds(@Param("ids") Collection<Long> ids);
+
+    // Must be consumed inside a read-only transaction; rows are fetched from the driver in chunks
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query(SUMMARY + "order by u.id")
+    Stream<UserSummaryDTO> streamSummaries();
+
+    // Every registered email, for building the negative-lookup filter; same rules as streamSummaries
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("select u.email from User u where u.email is not null")
+    Stream<String> streamEmails();
 }
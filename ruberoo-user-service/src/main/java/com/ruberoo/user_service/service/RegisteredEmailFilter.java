@@ -0,0 +1,284 @@
+package com.ruberoo.user_service.service;
+
+import com.ruberoo.user_service.cache.CountingBloomFilter;
+import com.ruberoo.user_service.entity.EmailRegistration;
+import com.ruberoo.user_service.repository.EmailRegistrationRepository;
+import com.ruberoo.user_service.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * In-memory set of registered emails used to skip the database for emails that
+ * certainly do not exist (typical of credential-stuffing traffic).
+ *
+ * Built in the background at startup by streaming the users table and kept up to date
+ * on create, email change and delete. Until the first build completes, and whenever
+ * disabled, every email is reported as possibly registered so callers fall back to
+ * the database. A rebuild runs alongside the live filter: writes made meanwhile are
+ * applied to both, and the new filter is swapped in once the table has been read.
+ *
+ * Emails registered on other replicas arrive through the email_registrations log: every
+ * {@code sync-interval} the rows past the filter's watermark are added. Lookups never
+ * query the database, so an email registered elsewhere may be reported as unregistered
+ * for up to one sync interval (a login failing with 401 right after signing up through
+ * another replica). Log rows older than {@code log-retention} are deleted, every replica
+ * has read them by then; a replica that could not catch up for that long answers "maybe"
+ * to every lookup until it has rebuilt its filter from the users table.
+ */
+@Service
+public class RegisteredEmailFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RegisteredEmailFilter.class);
+
+    private final UserRepository userRepository;
+    private final EmailRegistrationRepository emailRegistrationRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+    private final long maxMemoryBytes;
+    private final long logRetentionMillis;
+
+    // Null until the first build completes
+    private volatile CountingBloomFilter filter;
+    // Filter being rebuilt, receives the adds that happen while the table is streamed
+    private volatile CountingBloomFilter building;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    // Registrations past this id may be missing from the filter and are looked up in the log
+    private volatile long checkedUpTo;
+    // Latest registration read by the last catch-up; guarded by this
+    private long latestSeen;
+    // When the filter last had every registration logged up to checkedUpTo
+    private volatile long caughtUpAt;
+
+    private final Counter negatives;
+    private final Counter maybes;
+
+    public RegisteredEmailFilter(UserRepository userRepository,
+                                 EmailRegistrationRepository emailRegistrationRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${ruberoo.user.email-filter.enabled:true}") boolean enabled,
+                                 @Value("${ruberoo.user.email-filter.expected-insertions:1000000}") long expectedInsertions,
+                                 @Value("${ruberoo.user.email-filter.false-positive-rate:0.01}") double falsePositiveRate,
+                                 @Value("${ruberoo.user.email-filter.max-memory:8MB}") DataSize maxMemory,
+                                 @Value("${ruberoo.user.email-filter.log-retention:1h}") Duration logRetention) {
+        this.userRepository = userRepository;
+        this.emailRegistrationRepository = emailRegistrationRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+        this.maxMemoryBytes = maxMemory.toBytes();
+        this.logRetentionMillis = logRetention.toMillis();
+
+        this.negatives = Counter.builder("users.email.filter")
+                .tag("result", "negative")
+                .description("Email lookups answered without querying the users table")
+                .register(meterRegistry);
+        this.maybes = Counter.builder("users.email.filter")
+                .tag("result", "maybe")
+                .description("Email lookups that had to query the users table")
+                .register(meterRegistry);
+        Gauge.builder("users.email.filter.memory", this, f -> f.filter == null ? 0 : f.filter.memoryBytes())
+                .description("Size of the email filter in bytes")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return false only if no user is registered with this email, or one was registered on
+     *         another replica since the last catch-up
+     */
+    public boolean mightBeRegistered(String email) {
+        CountingBloomFilter current = filter;
+        if (email == null || current == null || isStale() || current.mightContain(normalize(email))) {
+            maybes.increment();
+            return true;
+        }
+        negatives.increment();
+        return false;
+    }
+
+    /**
+     * Record a newly stored email; call after the row is committed.
+     */
+    public void added(String email) {
+        if (email == null) {
+            return;
+        }
+        String key = normalize(email);
+        // Read the rebuild first: once it is null, the swapped-in filter is already visible
+        CountingBloomFilter next = building;
+        CountingBloomFilter current = filter;
+        if (current != null) {
+            current.add(key);
+        }
+        if (next != null && next != current) {
+            next.add(key);
+        }
+    }
+
+    /**
+     * Forget an email that was deleted or changed; call after the change is committed.
+     *
+     * Only an email this filter certainly holds is removed: removing one it never added
+     * would lower counters shared with present emails and could report a registered user
+     * as unknown. One logged past the watermark may not have been caught up with yet, so it
+     * is kept, as is everything while the filter is stale; a filter being rebuilt is left
+     * alone. At worst that leaves a false positive. Costs one primary-key range lookup, on
+     * writes only.
+     */
+    public void removed(String email) {
+        CountingBloomFilter current = filter;
+        if (email == null || current == null || isStale()) {
+            return;
+        }
+        try {
+            if (!emailRegistrationRepository.existsByIdGreaterThanAndEmail(checkedUpTo, email)) {
+                current.remove(normalize(email));
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not check the email registrations, keeping the email in the filter: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Add the emails registered since the last catch-up, on this replica or another one.
+     * The rows stay within the looked-up range for one more round, in case a lower id
+     * commits late; an email read twice is counted twice, at worst a false positive once
+     * it is removed.
+     */
+    @Scheduled(fixedDelayString = "${ruberoo.user.email-filter.sync-interval:5000}")
+    public synchronized void catchUp() {
+        if (filter == null) {
+            return;
+        }
+        if (isStale()) {
+            // Log rows this replica never read may have been deleted: only the users table has them all
+            if (rebuild()) {
+                logger.warn("Email filter missed registrations for longer than the log retention, rebuilding it");
+            }
+            return;
+        }
+        try {
+            long startedAt = System.currentTimeMillis();
+            List<EmailRegistration> registrations = emailRegistrationRepository.findAfter(checkedUpTo);
+            registrations.forEach(registration -> added(registration.getEmail()));
+            checkedUpTo = latestSeen;
+            if (!registrations.isEmpty()) {
+                latestSeen = Math.max(latestSeen, registrations.get(registrations.size() - 1).getId());
+            }
+            caughtUpAt = startedAt;
+        } catch (RuntimeException e) {
+            logger.warn("Could not catch up with email registrations: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Delete the log rows every replica has read: a replica that is not caught up within
+     * the retention rebuilds from the users table instead, and one starting up does too.
+     * Every replica runs this, the deletes are idempotent.
+     */
+    @Scheduled(fixedDelayString = "${ruberoo.user.email-filter.prune-interval:600000}")
+    public void pruneLog() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int deleted = emailRegistrationRepository.deleteRegisteredBefore(
+                    Instant.now().minusMillis(logRetentionMillis));
+            if (deleted > 0) {
+                logger.info("Deleted {} email registrations older than {} ms", deleted, logRetentionMillis);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not prune email registrations: {}", e.getMessage());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        rebuild();
+    }
+
+    /**
+     * Start rebuilding the filter from the users table in the background.
+     *
+     * @return false if disabled or a rebuild is already running
+     */
+    public boolean rebuild() {
+        if (!enabled || !rebuilding.compareAndSet(false, true)) {
+            return false;
+        }
+        Thread thread = new Thread(this::build, "email-filter-rebuild");
+        thread.setDaemon(true);
+        thread.start();
+        return true;
+    }
+
+    private void build() {
+        long start = System.nanoTime();
+        try {
+            CountingBloomFilter next = CountingBloomFilter.create(expectedInsertions, falsePositiveRate, maxMemoryBytes);
+            building = next;
+            // Taken before the table is read: anything registered later is either caught up or looked up
+            long startedAt = System.currentTimeMillis();
+            long registeredUpTo = emailRegistrationRepository.findLatestId();
+            AtomicLong count = new AtomicLong();
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<String> emails = userRepository.streamEmails()) {
+                    emails.forEach(email -> {
+                        next.add(normalize(email));
+                        count.incrementAndGet();
+                    });
+                }
+            });
+            synchronized (this) {
+                if (filter == null || isStale()) {
+                    checkedUpTo = registeredUpTo;
+                    latestSeen = registeredUpTo;
+                }
+                filter = next;
+                caughtUpAt = Math.max(caughtUpAt, startedAt);
+            }
+            logger.info("Email filter built: {} emails, {} KB, {} hashes in {} ms", count.get(),
+                    next.memoryBytes() / 1024, next.hashCount(), (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            logger.error("Could not build email filter: {}", e.getMessage());
+        } finally {
+            building = null;
+            rebuilding.set(false);
+        }
+    }
+
+    // Rows this filter has not read may already be deleted from the log
+    private boolean isStale() {
+        return System.currentTimeMillis() - caughtUpAt > logRetentionMillis;
+    }
+
+    // MySQL compares emails case-insensitively, the filter must not be stricter
+    private static String normalize(String email) {
+        return email.strip().toLowerCase(Locale.ROOT);
+    }
+}
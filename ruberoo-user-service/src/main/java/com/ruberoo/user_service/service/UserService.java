@@ -1,12 +1,29 @@
 package com.ruberoo.user_service.service;
 
+import com.ruberoo.common.cache.SingleFlightCache;
+import com.ruberoo.common.pagination.CursorPage;
+import com.ruberoo.user_service.dto.UserSummaryDTO;
+import com.ruberoo.user_service.entity.EmailRegistration;
 import com.ruberoo.user_service.entity.User;
+import com.ruberoo.user_service.repository.EmailRegistrationRepository;
+import com.ruberoo.user_service.repository.UserCredentialsRepository;
 import com.ruberoo.user_service.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class UserService {
@@ -15,36 +32,138 @@ public class UserService {
     private UserRepository userRepository;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private UserCredentialsRepository userCredentialsRepository;
 
-    public User createUser(User user) {
-        // Encrypt password before saving
+    @Autowired
+    private EmailRegistrationRepository emailRegistrationRepository;
+
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // Saves that follow a hash run here: a blocking JPA call would keep a hashing thread idle
+    @Autowired
+    @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    private Executor taskExecutor;
+
+    @Autowired
+    private SingleFlightCache<Long, UserSummaryDTO> userLookupCache;
+
+    @Autowired
+    private RegisteredEmailFilter registeredEmailFilter;
+
+    public CompletableFuture<User> createUser(User user) {
+        // Encrypt password before saving, on the hashing pool
         if (user.getPassword() != null && !user.getPassword().isEmpty()) {
-            user.setPassword(passwordEncoder.encode(user.getPassword()));
+            return registerUser(user);
         }
-        return userRepository.save(user);
+        return CompletableFuture.completedFuture(saveNewUser(user, null));
+    }
+
+    /**
+     * Hash the password on the hashing pool, then store the user and the hash.
+     *
+     * @throws RejectedExecutionException If the hashing queue is full
+     */
+    public CompletableFuture<User> registerUser(User user) {
+        return passwordHashingService.encode(user.getPassword())
+                .thenApplyAsync(hash -> saveNewUser(user, hash), taskExecutor);
     }
 
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
+    /**
+     * Replace the stored hash with a fresh one of the raw password, e.g. after a successful
+     * login with an outdated cost factor.
+     *
+     * @throws RejectedExecutionException If the hashing queue is full
+     */
+    public CompletableFuture<Void> rehashPassword(Long id, String rawPassword) {
+        return passwordHashingService.encode(rawPassword)
+                .thenAcceptAsync(hash -> transactionTemplate.executeWithoutResult(status -> setStoredPassword(id, hash)),
+                        taskExecutor);
     }
 
-    public User getUserById(Long id) {
-        return userRepository.findById(id).orElse(null);
+    // Store a new user and its password hash (if any) in one transaction
+    private User saveNewUser(User user, String passwordHash) {
+        User saved = transactionTemplate.execute(status -> {
+            User row = userRepository.save(user);
+            if (passwordHash != null) {
+                setStoredPassword(row.getId(), passwordHash);
+            }
+            logRegistration(row.getEmail());
+            return row;
+        });
+        saved.setPassword(null);
+        registeredEmailFilter.added(saved.getEmail());
+        return saved;
+    }
+
+    public CursorPage<UserSummaryDTO> getUsersPage(long afterId, int limit) {
+        // One extra row tells whether there is a next page
+        List<UserSummaryDTO> rows = userRepository.findSummariesAfter(afterId, PageRequest.ofSize(limit + 1));
+        return CursorPage.of(rows, limit, UserSummaryDTO::id);
+    }
+
+    public List<UserSummaryDTO> getUsersByIds(Collection<Long> ids) {
+        return userRepository.findSummariesByIds(ids);
+    }
+
+    // Rows are handed to the action one by one, so memory does not grow with the table
+    @Transactional(readOnly = true)
+    public void forEachUser(Consumer<UserSummaryDTO> action) {
+        try (Stream<UserSummaryDTO> users = userRepository.streamSummaries()) {
+            users.forEach(action);
+        }
+    }
+
+    public UserSummaryDTO getUserById(Long id) {
+        // Concurrent lookups of the same id share one query, then hit the near-cache
+        return userLookupCache.get(id, key -> userRepository.findById(key)
+                .map(user -> new UserSummaryDTO(user.getId(), user.getName(), user.getEmail()))
+                .orElse(null));
     }
 
     public User updateUser(Long id, User userDetails) {
         User user = userRepository.findById(id).orElse(null);
         if (user != null) {
+            String previousEmail = user.getEmail();
             user.setName(userDetails.getName());
             user.setEmail(userDetails.getEmail());
-            user.setPassword(userDetails.getPassword());
-            return userRepository.save(user);
+            User saved = transactionTemplate.execute(status -> {
+                User row = userRepository.save(user);
+                setStoredPassword(id, userDetails.getPassword());
+                if (!Objects.equals(previousEmail, row.getEmail())) {
+                    logRegistration(row.getEmail());
+                }
+                return row;
+            });
+            userLookupCache.invalidate(id);
+            if (!Objects.equals(previousEmail, saved.getEmail())) {
+                registeredEmailFilter.added(saved.getEmail());
+                registeredEmailFilter.removed(previousEmail);
+            }
+            return saved;
         }
         return null;
     }
 
+    // Lets the email filters of the other replicas pick the email up
+    private void logRegistration(String email) {
+        if (email != null) {
+            emailRegistrationRepository.save(new EmailRegistration(email));
+        }
+    }
+
+    // Through UserCredentials, so the stored password never enters the second-level cache
+    private void setStoredPassword(Long id, String password) {
+        userCredentialsRepository.findById(id).ifPresent(credentials -> credentials.setPassword(password));
+    }
+
     public void deleteUser(Long id) {
+        String email = userRepository.findById(id).map(User::getEmail).orElse(null);
         userRepository.deleteById(id);
+        userLookupCache.invalidate(id);
+        registeredEmailFilter.removed(email);
     }
 }
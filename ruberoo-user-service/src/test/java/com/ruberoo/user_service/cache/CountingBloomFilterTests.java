@@ -0,0 +1,51 @@
+package com.ruberoo.user_service.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CountingBloomFilterTests {
+
+    private static final int EMAILS = 100_000;
+
+    @Test
+    void neverMissesAddedKeysAndStaysNearTheTargetRate() {
+        CountingBloomFilter filter = CountingBloomFilter.create(EMAILS, 0.01, 1 << 20);
+        for (int i = 0; i < EMAILS; i++) {
+            filter.add("user" + i + "@example.com");
+        }
+        for (int i = 0; i < EMAILS; i++) {
+            assertTrue(filter.mightContain("user" + i + "@example.com"));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < EMAILS; i++) {
+            if (filter.mightContain("stranger" + i + "@example.com")) {
+                falsePositives++;
+            }
+        }
+        double rate = (double) falsePositives / EMAILS;
+        assertTrue(rate < 0.02, "false-positive rate " + rate);
+    }
+
+    @Test
+    void removedKeysAreForgottenWithoutAffectingOthers() {
+        CountingBloomFilter filter = CountingBloomFilter.create(1000, 0.001, 1 << 20);
+        filter.add("a@example.com");
+        filter.add("b@example.com");
+        filter.add("b@example.com");
+
+        filter.remove("a@example.com");
+        filter.remove("b@example.com");
+
+        assertFalse(filter.mightContain("a@example.com"));
+        assertTrue(filter.mightContain("b@example.com"));
+    }
+
+    @Test
+    void memoryCapTakesPrecedenceOverTheTargetRate() {
+        CountingBloomFilter filter = CountingBloomFilter.create(1_000_000, 0.001, 64 * 1024);
+        assertTrue(filter.memoryBytes() <= 64 * 1024);
+    }
+}
@@ -0,0 +1,82 @@
+package com.ruberoo.user_service.jwt;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of token issuing at login, in tokens/s: with the signing key built once
+ * ({@link JwtTokenGenerator#generateToken}) against looking the secret up in the environment
+ * and building the key for every token, as the generator used to. Not run by the build; after
+ * {@code mvn -pl ruberoo-user-service test-compile dependency:build-classpath -Dmdep.outputFile=target/test-classpath.txt},
+ * run from ruberoo-user-service with
+ * {@code java -cp target/test-classes:target/classes:$(cat target/test-classpath.txt) com.ruberoo.user_service.jwt.JwtTokenGeneratorBenchmark}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtTokenGeneratorBenchmark {
+
+    private static final String SECRET = Base64.getEncoder().encodeToString("0123456789abcdef".repeat(4).getBytes());
+
+    private MockEnvironment env;
+    private JwtTokenGenerator generator;
+
+    @Setup
+    public void setUp() {
+        env = new MockEnvironment().withProperty("ruberoo.jwt.secret-key", SECRET);
+        generator = new JwtTokenGenerator();
+        ReflectionTestUtils.setField(generator, "env", env);
+    }
+
+    @Benchmark
+    public String issueWithPrebuiltKey() {
+        return generator.generateToken("alice@example.com", 42L);
+    }
+
+    @Benchmark
+    public String issueRebuildingKeyPerToken() {
+        String secretKey = env.getProperty("RUBEROO_JWT_SECRET_KEY");
+        if (secretKey == null || secretKey.isBlank()) {
+            secretKey = env.getProperty("ruberoo.jwt.secret-key");
+        }
+        Date now = new Date();
+        return Jwts.builder()
+                .setSubject("alice@example.com")
+                .claim("userId", 42L)
+                .setIssuedAt(now)
+                .setExpiration(new Date(now.getTime() + 86400000L))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(secretKey)), SignatureAlgorithm.HS512)
+                .compact();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtTokenGeneratorBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
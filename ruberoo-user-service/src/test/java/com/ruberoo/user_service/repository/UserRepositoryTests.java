@@ -0,0 +1,52 @@
+package com.ruberoo.user_service.repository;
+
+import com.ruberoo.user_service.entity.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Email lookups are answered from the query cache until a write to the users table.
+ */
+@SpringBootTest(properties = { "spring.cloud.config.enabled=false" })
+class UserRepositoryTests {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void secondEmailLookupDoesNotHitTheDatabase() {
+        User user = new User();
+        user.setName("Carol");
+        user.setEmail("carol@example.com");
+        Long id = userRepository.save(user).getId();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        assertEquals(id, userRepository.findByEmail("carol@example.com").orElseThrow().getId());
+        assertEquals(1, statistics.getQueryExecutionCount());
+        long loads = statistics.getEntityLoadCount();
+
+        // Id from the query cache, user from the users region
+        assertEquals(id, userRepository.findByEmail("carol@example.com").orElseThrow().getId());
+        assertEquals(1, statistics.getQueryExecutionCount());
+        assertEquals(1, statistics.getQueryCacheHitCount());
+        assertEquals(loads, statistics.getEntityLoadCount());
+
+        // A write on this replica invalidates the cached result
+        user.setEmail("carol@example.org");
+        userRepository.save(user);
+        assertTrue(userRepository.findByEmail("carol@example.com").isEmpty());
+        assertEquals(2, statistics.getQueryExecutionCount());
+    }
+}
@@ -0,0 +1,61 @@
+package com.ruberoo.user_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PasswordHashingServiceTests {
+
+    @Test
+    void refusesWorkOnceTheQueueIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder slowEncoder = new BCryptPasswordEncoder(4) {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.encode(rawPassword);
+            }
+        };
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        PasswordHashingService service = new PasswordHashingService(slowEncoder, registry, 1, 2);
+
+        // One running, two queued, the fourth is shed
+        CompletableFuture<String> running = service.encode("a");
+        service.encode("b");
+        service.encode("c");
+        assertThrows(RejectedExecutionException.class, () -> service.encode("d"));
+        assertEquals(1, registry.get("users.password.hashing.rejected").counter().count());
+
+        release.countDown();
+        assertTrue(slowEncoder.matches("a", running.get()));
+        service.shutdown();
+    }
+
+    @Test
+    void flagsHashesBelowTheConfiguredCost() throws Exception {
+        PasswordHashingService service = new PasswordHashingService(new BCryptPasswordEncoder(6), new SimpleMeterRegistry(), 1, 10);
+
+        String weak = new BCryptPasswordEncoder(4).encode("secret");
+        assertTrue(service.matches("secret", weak).get());
+        assertTrue(service.needsRehash(weak));
+
+        String current = service.encode("secret").get();
+        assertFalse(service.needsRehash(current));
+        assertFalse(service.matches("wrong", current).get());
+        service.shutdown();
+    }
+}
@@ -0,0 +1,131 @@
+package com.ruberoo.user_service.service;
+
+import com.ruberoo.user_service.cache.CountingBloomFilter;
+import com.ruberoo.user_service.entity.EmailRegistration;
+import com.ruberoo.user_service.repository.EmailRegistrationRepository;
+import com.ruberoo.user_service.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Emails registered or removed on another replica, seen only through the email_registrations log.
+ */
+class RegisteredEmailFilterTests {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final EmailRegistrationRepository emailRegistrationRepository = mock(EmailRegistrationRepository.class);
+    private RegisteredEmailFilter filter;
+
+    @BeforeEach
+    void buildFromTheUsersTable() {
+        filter = build(DataSize.ofMegabytes(1));
+    }
+
+    @Test
+    void lookupsNeverQueryTheLog() {
+        assertTrue(filter.mightBeRegistered("alice@example.com"));
+        // Registered on another replica since the last catch-up: unknown until the next one
+        assertFalse(filter.mightBeRegistered("bob@example.com"));
+        verify(emailRegistrationRepository, never()).existsByIdGreaterThanAndEmail(anyLong(), any());
+    }
+
+    @Test
+    void catchUpAddsNewRegistrationsAndKeepsThemLookedUpForOneMoreRound() {
+        when(emailRegistrationRepository.findAfter(10)).thenReturn(List.of(registration(11, "bob@example.com")));
+        when(emailRegistrationRepository.findAfter(11)).thenReturn(List.of());
+
+        filter.catchUp();
+        assertTrue(filter.mightBeRegistered("bob@example.com"));
+
+        filter.catchUp();
+        filter.catchUp();
+        var reads = inOrder(emailRegistrationRepository);
+        reads.verify(emailRegistrationRepository, times(2)).findAfter(10);
+        reads.verify(emailRegistrationRepository).findAfter(11);
+    }
+
+    @Test
+    void emailNotCaughtUpWithYetIsNotRemoved() {
+        // A filter so small that removing this email, never added, would hide alice
+        String other = IntStream.range(0, 1000).mapToObj(i -> "user" + i + "@example.com")
+                .filter(RegisteredEmailFilterTests::removalHidesAlice)
+                .findFirst().orElseThrow();
+        filter = build(DataSize.ofBytes(8));
+
+        // Registered on another replica, then changed here before this replica caught up
+        when(emailRegistrationRepository.existsByIdGreaterThanAndEmail(10, other)).thenReturn(true);
+        filter.removed(other);
+        assertTrue(filter.mightBeRegistered("alice@example.com"));
+
+        // Once caught up with and past the watermark, it is removed as usual
+        when(emailRegistrationRepository.findAfter(10)).thenReturn(List.of(registration(11, other)));
+        when(emailRegistrationRepository.findAfter(11)).thenReturn(List.of());
+        filter.catchUp();
+        filter.catchUp();
+        filter.removed(other);
+        verify(emailRegistrationRepository).existsByIdGreaterThanAndEmail(11, other);
+        assertTrue(filter.mightBeRegistered("alice@example.com"));
+    }
+
+    @Test
+    void pruneDeletesTheRowsOlderThanTheRetention() {
+        Instant before = Instant.now().minus(Duration.ofHours(1));
+        filter.pruneLog();
+        ArgumentCaptor<Instant> cutoff = ArgumentCaptor.forClass(Instant.class);
+        verify(emailRegistrationRepository).deleteRegisteredBefore(cutoff.capture());
+        assertFalse(cutoff.getValue().isBefore(before));
+        assertTrue(cutoff.getValue().isBefore(Instant.now().minus(Duration.ofMinutes(59))));
+    }
+
+    private RegisteredEmailFilter build(DataSize maxMemory) {
+        when(userRepository.streamEmails()).thenReturn(Stream.of("alice@example.com"));
+        when(emailRegistrationRepository.findLatestId()).thenReturn(10L);
+        RegisteredEmailFilter built = new RegisteredEmailFilter(userRepository, emailRegistrationRepository,
+                mock(PlatformTransactionManager.class), new SimpleMeterRegistry(),
+                true, 1000, 0.001, maxMemory, Duration.ofHours(1));
+
+        built.rebuild();
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            while (ReflectionTestUtils.getField(built, "filter") == null) {
+                Thread.sleep(10);
+            }
+        });
+        return built;
+    }
+
+    private static boolean removalHidesAlice(String email) {
+        CountingBloomFilter scratch = CountingBloomFilter.create(1000, 0.001, 8);
+        scratch.add("alice@example.com");
+        scratch.remove(email);
+        return !scratch.mightContain("alice@example.com");
+    }
+
+    private static EmailRegistration registration(long id, String email) {
+        EmailRegistration registration = new EmailRegistration(email);
+        ReflectionTestUtils.setField(registration, "id", id);
+        return registration;
+    }
+}
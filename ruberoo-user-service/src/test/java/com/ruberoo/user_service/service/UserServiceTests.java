@@ -0,0 +1,84 @@
+package com.ruberoo.user_service.service;
+
+import com.ruberoo.user_service.entity.User;
+import com.ruberoo.user_service.repository.UserCredentialsRepository;
+import com.ruberoo.user_service.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Password hashes stay out of the second-level cache: a change made by another replica
+ * (here straight in the database) is seen by the next login. Saves that follow a hash
+ * do not hold a hashing thread.
+ */
+@SpringBootTest(properties = { "spring.cloud.config.enabled=false" })
+class UserServiceTests {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserCredentialsRepository userCredentialsRepository;
+
+    @SpyBean
+    private RegisteredEmailFilter registeredEmailFilter;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void passwordChangedElsewhereIsSeenWhileTheUserIsCached() {
+        User user = new User();
+        user.setName("Alice");
+        user.setEmail("alice@example.com");
+        user.setPassword("first");
+        Long id = userService.registerUser(user).join().getId();
+
+        User cached = userRepository.findById(id).orElseThrow();
+        assertTrue(entityManagerFactory.getCache().contains(User.class, id));
+        assertNull(cached.getPassword());
+
+        jdbcTemplate.update("update users set password = ? where id = ?", "hash-2", id);
+
+        assertEquals("hash-2", userCredentialsRepository.findByEmail("alice@example.com").orElseThrow().getPassword());
+        userService.rehashPassword(id, "third").join();
+        assertTrue(userCredentialsRepository.findById(id).orElseThrow().getPassword().startsWith("$2"));
+    }
+
+    @Test
+    void registrationSavesOffTheHashingPool() {
+        // Told about the new email on the thread that saved it
+        AtomicReference<String> savingThread = new AtomicReference<>();
+        doAnswer(invocation -> {
+            savingThread.set(Thread.currentThread().getName());
+            return invocation.callRealMethod();
+        }).when(registeredEmailFilter).added(anyString());
+
+        User user = new User();
+        user.setName("Bob");
+        user.setEmail("bob@example.com");
+        user.setPassword("secret");
+        userService.registerUser(user).join();
+
+        assertFalse(savingThread.get().startsWith("password-hashing-"), savingThread.get());
+    }
+}